@@ -9,6 +9,7 @@ import com.mware.ge.store.FilesystemSPVStorageStrategy;
 
 import static com.mware.core.config.OptionChecker.disallowEmpty;
 import static com.mware.core.config.OptionChecker.positiveInt;
+import static com.mware.core.config.OptionChecker.rangeDouble;
 
 public class GraphOptions extends OptionHolder {
     public static final ConfigOption<String> GRAPH_IMPL = new ConfigOption<>(
@@ -123,6 +124,38 @@ public class GraphOptions extends OptionHolder {
             "/bc_data"
     );
 
+    public static final ConfigOption<Long> SPV_SEGMENT_SIZE = new ConfigOption<>(
+            "graph.spvSegmentSize",
+            "Size in bytes after which the content addressed SPV store starts a new segment file",
+            positiveInt(),
+            Long.class,
+            256L * 1024 * 1024
+    );
+
+    public static final ConfigOption<Integer> SPV_MMAP_THRESHOLD = new ConfigOption<>(
+            "graph.spvMmapThreshold",
+            "Reads of at least this many bytes from the content addressed SPV store are memory mapped instead of copied",
+            positiveInt(),
+            Integer.class,
+            1024 * 1024
+    );
+
+    public static final ConfigOption<Double> SPV_GC_DEAD_RATIO = new ConfigOption<>(
+            "graph.spvGcDeadRatio",
+            "Fraction of unreferenced data after which a segment of the content addressed SPV store is rewritten by garbage collection",
+            rangeDouble(0.0, 1.0),
+            Double.class,
+            0.5
+    );
+
+    public static final ConfigOption<Boolean> SPV_GC_ENABLED = new ConfigOption<>(
+            "graph.spvGcEnabled",
+            "Allow garbage collection of the content addressed SPV store to remove values no property refers to",
+            disallowEmpty(),
+            Boolean.class,
+            false
+    );
+
     public static final ConfigOption<Boolean> HISTORY_IN_SEPARATE_TABLE = new ConfigOption<>(
             "graph.historyInSeparateTable",
             "Keep history in seaparate data table",
@@ -138,6 +171,46 @@ public class GraphOptions extends OptionHolder {
             "/bigconnect/backup"
     );
 
+    public static final ConfigOption<Integer> REINDEX_THREADS = new ConfigOption<>(
+            "graph.reindex.threads",
+            "Number of id ranges reindexed in parallel",
+            positiveInt(),
+            Integer.class,
+            Runtime.getRuntime().availableProcessors()
+    );
+
+    public static final ConfigOption<Integer> REINDEX_BATCH_SIZE = new ConfigOption<>(
+            "graph.reindex.batchSize",
+            "Number of elements sent to the search index at once during a reindex",
+            positiveInt(),
+            Integer.class,
+            1000
+    );
+
+    public static final ConfigOption<String> REINDEX_RANGE_ALPHABET = new ConfigOption<>(
+            "graph.reindex.rangeAlphabet",
+            "Characters element ids are expected to start with, used to split the id space into reindex ranges",
+            disallowEmpty(),
+            String.class,
+            "0123456789abcdef"
+    );
+
+    public static final ConfigOption<Integer> REINDEX_RANGE_PREFIX_LENGTH = new ConfigOption<>(
+            "graph.reindex.rangePrefixLength",
+            "Length of the id prefixes the id space is split on, each range is checkpointed when it completes",
+            positiveInt(),
+            Integer.class,
+            2
+    );
+
+    public static final ConfigOption<Integer> LOAD_CSV_WORKERS = new ConfigOption<>(
+            "graph.cypher.loadCsv.workers",
+            "Number of threads parsing local files for USING PERIODIC COMMIT LOAD CSV, 1 reads the file in order on the query thread",
+            positiveInt(),
+            Integer.class,
+            1
+    );
+
     private GraphOptions() {
         super();
     }
@@ -3,6 +3,7 @@ package com.mware.core.config.options;
 import com.mware.core.config.ConfigOption;
 import com.mware.core.config.OptionHolder;
 
+import static com.mware.core.config.OptionChecker.nonNegativeInt;
 import static com.mware.core.config.OptionChecker.rangeInt;
 
 public class SchemaOptions extends OptionHolder {
@@ -14,6 +15,14 @@ public class SchemaOptions extends OptionHolder {
             1000L
     );
 
+    public static final ConfigOption<Long> CACHE_REFRESH_INTERVAL = new ConfigOption<>(
+            "schema.cache.refreshInterval",
+            "Seconds after which a cached schema is reloaded in the background, 0 to only reload it when invalidated",
+            nonNegativeInt(),
+            Long.class,
+            300L
+    );
+
     private SchemaOptions() {
         super();
     }
@@ -236,6 +236,17 @@ public class GeLongRunningProcessRepository extends LongRunningProcessRepository
         webQueueRepository.broadcastLongRunningProcessChange(json);
     }
 
+    @Override
+    public boolean isCanceled(String longRunningProcessId) {
+        Authorizations authorizations = getAuthorizations(userRepository.getSystemUser());
+        Vertex vertex = this.graph.getVertex(longRunningProcessId, authorizations);
+        if (vertex == null) {
+            return true;
+        }
+        JSONObject json = LongRunningProcessSchema.QUEUE_ITEM_JSON_PROPERTY.getPropertyValue(vertex);
+        return json != null && json.optBoolean("canceled", false);
+    }
+
     @Override
     public void reportProgress(String longRunningProcessGraphVertexId, double progressPercent, String message) {
         Authorizations authorizations = getAuthorizations(userRepository.getSystemUser());
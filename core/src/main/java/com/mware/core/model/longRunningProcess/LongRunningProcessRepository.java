@@ -66,6 +66,13 @@ public abstract class LongRunningProcessRepository {
 
     public abstract void cancel(String longRunningProcessId, User user);
 
+    /**
+     * Lets workers stop a process that was cancelled while it was running.
+     */
+    public boolean isCanceled(String longRunningProcessId) {
+        return false;
+    }
+
     public void reportProgress(JSONObject longRunningProcessQueueItem, double progressPercent, String message) {
         reportProgress(longRunningProcessQueueItem.getString("id"), progressPercent, message);
     }
@@ -38,10 +38,12 @@ package com.mware.core.model.longRunningProcess;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.Map;
 
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class SearchExportLRPQueueItem extends LongRunningProcessQueueItemBase {
     private Map<String, Object> parameters;
@@ -49,6 +51,7 @@ public class SearchExportLRPQueueItem extends LongRunningProcessQueueItemBase {
     private String[] authorizations;
     private String userId;
     private String type;
+    private String format;
 
     @Override
     public String getType() {
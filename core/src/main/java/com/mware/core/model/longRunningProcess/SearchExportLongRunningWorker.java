@@ -36,6 +36,8 @@
  */
 package com.mware.core.model.longRunningProcess;
 
+import au.com.bytecode.opencsv.CSVWriter;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.mware.core.exception.BcException;
@@ -47,22 +49,42 @@ import com.mware.core.user.User;
 import com.mware.core.util.BcLogger;
 import com.mware.core.util.BcLoggerFactory;
 import com.mware.core.util.ClientApiConverter;
+import com.mware.core.util.JSONUtil;
 import com.mware.ge.*;
+import com.mware.ge.query.SortDirection;
+import com.mware.ge.serializer.GeSerializer;
+import com.mware.ge.serializer.kryo.quickSerializers.QuickKryoGeSerializer;
 import com.mware.ge.tools.GraphBackup;
-import com.mware.ge.tools.GraphToolBase;
 import com.mware.ge.values.storable.StreamingPropertyValue;
+import com.mware.ge.values.storable.Value;
+import com.mware.ge.values.storable.Values;
+import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.FileUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.time.LocalDateTime;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+/**
+ * Exports the vertices found by a search into a zip archive. The vertices are read from a search scroll and written
+ * as they arrive into chunk files of {@link #CHUNK_SIZE} vertices, as JSON Lines or CSV with one row per property.
+ * <p>
+ * The results keep the sort of the search, with the element id added as a tiebreaker so that every result has a
+ * distinct position. A checkpoint with the sort values of the last exported element is written after each chunk, so
+ * an export of the same process that was interrupted continues after the last complete chunk even if the search
+ * returns its results in a new scroll. Like the search index, a multi-valued property sorts by its smallest value
+ * ascending and its largest value descending, and elements without the property come last. Cancelling the process
+ * stops the export at the next progress report.
+ */
 @Name("Export Raw Search")
 @Description("Export archive with raw elements from search results")
 @Singleton
@@ -70,11 +92,19 @@ public class SearchExportLongRunningWorker extends LongRunningProcessWorker {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(SearchExportLongRunningWorker.class);
 
     public static final String TYPE = "export-raw-search";
+    public static final String FORMAT_JSON_LINES = "jsonl";
+    public static final String FORMAT_CSV = "csv";
+    static final int CHUNK_SIZE = 10_000;
+    private static final long PROGRESS_INTERVAL_MS = 2000;
+    private static final String CHECKPOINT_FILE_NAME = "checkpoint.json";
+    private static final GeSerializer SORT_VALUE_SERIALIZER = new QuickKryoGeSerializer(false);
+    private static final String[] CSV_HEADER = {"id", "conceptType", "visibility", "propertyName", "propertyKey", "propertyVisibility", "value"};
 
     protected final LongRunningProcessRepository longRunningProcessRepository;
     protected final UserRepository userRepository;
     protected final GraphBaseWithSearchIndex graph;
     protected final SearchRepository searchRepository;
+    private int chunkSize = CHUNK_SIZE;
 
     @Inject
     public SearchExportLongRunningWorker(
@@ -98,9 +128,21 @@ public class SearchExportLongRunningWorker extends LongRunningProcessWorker {
         SearchExportLRPQueueItem queueItem = ClientApiConverter
                 .toClientApi(config.toString(), SearchExportLRPQueueItem.class);
 
-        SearchOptions searchOptions = new SearchOptions(queueItem.getParameters(), queueItem.getWorkspaceId());
+        // no limit and no offset, so the search is read with a scroll one page at a time. The id tiebreaker gives every
+        // result a distinct position, so a resumed export can tell which elements it already wrote
+        Map<String, Object> parameters = new HashMap<>(queueItem.getParameters());
+        List<ExportSort> sorts = getSorts(new SearchOptions(parameters, queueItem.getWorkspaceId()));
+        parameters.put("size", -1L);
+        parameters.remove("offset");
+        parameters.remove("sort");
+        parameters.put("sort[]", sorts.stream().map(ExportSort::toString).toArray(String[]::new));
+        SearchOptions searchOptions = new SearchOptions(parameters, queueItem.getWorkspaceId());
         GeObjectSearchRunnerBase searchRunner =
                 (GeObjectSearchRunnerBase) searchRepository.findSearchRunnerByUri(VertexSearchRunner.URI);
+        String format = queueItem.getFormat() == null ? FORMAT_JSON_LINES : queueItem.getFormat();
+        if (!FORMAT_JSON_LINES.equals(format) && !FORMAT_CSV.equals(format)) {
+            throw new BcException("Unsupported export format: " + format);
+        }
 
         User user = userRepository.findById(queueItem.getUserId());
         if (user == null) {
@@ -111,73 +153,231 @@ public class SearchExportLongRunningWorker extends LongRunningProcessWorker {
         LOGGER.info("Start long running export raw search for user: %s, workspaceId: %s",
                 user.getDisplayName(), queueItem.getWorkspaceId());
         config.put("backupFile", "Running...");
+        String processId = config.getString("id");
+        File outputDirectory = new File(this.graph.getBackupDir(), archiveFolderName(processId));
         try (QueryResultsIterableSearchResults searchResults =
                      searchRunner.run(searchOptions, user, new Authorizations(queueItem.getAuthorizations()))) {
             long size = searchResults.getQueryResultsIterable().getTotalHits();
             LOGGER.info("Found %s element(s) for export", size);
-
-            GraphBackup backupTool = this.graph.getBackupTool(null);
-            JSONArray export = new JSONArray();
-
-            double progress = 0;
-            if (size > 0) {
-                progress += 0.3;
-                longRunningProcessRepository.reportProgress(config, progress,
-                        String.format("Finished running search, found %d item(s).", size));
-            } else {
+            if (size == 0) {
                 LOGGER.error("Search for raw export returned no items.");
                 throw new BcException("Search for raw export returned no items.");
             }
+            longRunningProcessRepository.reportProgress(config, 0.3,
+                    String.format("Finished running search, found %d item(s).", size));
 
-            long idx = 0;
-            File outputDirectory = new File(this.graph.getBackupDir(), archiveFolderName());
-            File outputFile;
-            for (GeObject geObject : searchResults.getQueryResultsIterable()) {
+            Checkpoint checkpoint = readCheckpoint(outputDirectory);
+            if (checkpoint.lastSortValues != null) {
+                LOGGER.info("Resuming export %s after %d item(s), last sort values: %s", processId, checkpoint.count, checkpoint.lastSortValues);
+            }
+            long count = export(config, searchResults.getQueryResultsIterable(), outputDirectory, format, sorts, checkpoint, size);
+            if (count < 0) {
+                LOGGER.info("Export raw search %s was canceled", processId);
+                config.put("canceled", true);
+                FileUtils.deleteDirectory(outputDirectory);
+                return;
+            }
+
+            // Create zip archive
+            Files.delete(new File(outputDirectory, CHECKPOINT_FILE_NAME).toPath());
+            final String zipPath = createZip(this.graph.getBackupDir(), outputDirectory);
+            FileUtils.deleteDirectory(outputDirectory);
+
+            config.put("filePath", zipPath);
+            config.put("backupFile", new File(zipPath).getName());
+            config.put("resultsCount", count);
+            longRunningProcessRepository.reportProgress(config, 1.0,
+                        String.format("Finished running export raw search for %d item(s).", count));
+        } catch (Exception e) {
+            LOGGER.error("Export RAW Search failed with message: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the number of exported items, or -1 if the process was canceled
+     */
+    private long export(
+            JSONObject config,
+            Iterable<? extends GeObject> results,
+            File outputDirectory,
+            String format,
+            List<ExportSort> sorts,
+            Checkpoint checkpoint,
+            long size
+    ) throws IOException {
+        String processId = config.getString("id");
+        GraphBackup backupTool = this.graph.getBackupTool(null);
+        long idx = checkpoint.count;
+        int chunk = checkpoint.chunks;
+        List<Value> lastSortValues = checkpoint.lastSortValues;
+        ChunkWriter writer = null;
+        long lastProgressTime = System.currentTimeMillis();
+        try {
+            for (GeObject geObject : results) {
+                List<Value> sortValues = getSortValues(geObject, sorts);
+                if (checkpoint.lastSortValues != null && compareSortValues(sorts, sortValues, checkpoint.lastSortValues) <= 0) {
+                    // already written by an interrupted run of this process
+                    continue;
+                }
+
+                if (writer == null) {
+                    chunk++;
+                    writer = createChunkWriter(new File(outputDirectory, chunkFileName(chunk, format)), format, backupTool);
+                }
                 if (geObject instanceof Vertex) {
-                    final Vertex _vertex = (Vertex)geObject;
-                    export.put(backupTool.vertexToJson(_vertex, false));
+                    final Vertex _vertex = (Vertex) geObject;
+                    writer.write(_vertex);
 
                     // Write raw file if that's the case
                     final Property fileName = _vertex.getProperty("fileName");
                     final Property raw = _vertex.getProperty("raw");
                     if (fileName != null && raw != null) {
-                        outputFile = new File(outputDirectory, fileName.getValue().asObjectCopy().toString());
-                        StreamingPropertyValue spv = (StreamingPropertyValue)raw.getValue();
-                        FileUtils.copyInputStreamToFile(spv.getInputStream(), outputFile);
+                        File outputFile = new File(outputDirectory, fileName.getValue().asObjectCopy().toString());
+                        StreamingPropertyValue spv = (StreamingPropertyValue) raw.getValue();
+                        try (InputStream in = spv.getInputStream()) {
+                            FileUtils.copyInputStreamToFile(in, outputFile);
+                        }
                     }
                 } else {
                     LOGGER.warn("Element of class %s was ignored from export", geObject.getClass().getName());
                 }
+                idx++;
+                lastSortValues = sortValues;
 
-                progress += 0.7 / size;
-                idx += 1;
-                longRunningProcessRepository.reportProgress(config, progress,
-                        String.format("Exported %d of %d item(s).", idx, size));
+                if (idx % chunkSize == 0) {
+                    writer.close();
+                    writer = null;
+                    writeCheckpoint(outputDirectory, new Checkpoint(idx, chunk, lastSortValues));
+                }
+                if (System.currentTimeMillis() - lastProgressTime > PROGRESS_INTERVAL_MS) {
+                    if (longRunningProcessRepository.isCanceled(processId)) {
+                        return -1;
+                    }
+                    longRunningProcessRepository.reportProgress(config, 0.3 + 0.7 * Math.min(idx, size) / size,
+                            String.format("Exported %d of %d item(s).", idx, size));
+                    lastProgressTime = System.currentTimeMillis();
+                }
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
             }
+        }
+        writeCheckpoint(outputDirectory, new Checkpoint(idx, chunk, lastSortValues));
+        return idx;
+    }
 
-            // Write meta file
-            File metaFile = new File(outputDirectory, getBackupFileName());
-            FileUtils.write(metaFile, export.toString(4));
+    /**
+     * @return the sorts of the search, followed by the element id unless the search is already sorted by it
+     */
+    private static List<ExportSort> getSorts(SearchOptions searchOptions) {
+        String[] sortStrings = searchOptions.getOptionalParameter("sort[]", String[].class);
+        if (sortStrings == null) {
+            JSONArray sortsJson = searchOptions.getOptionalParameter("sort", JSONArray.class);
+            if (sortsJson != null) {
+                sortStrings = JSONUtil.toStringList(sortsJson).toArray(new String[sortsJson.length()]);
+            }
+        }
+        List<ExportSort> sorts = new ArrayList<>();
+        if (sortStrings != null) {
+            for (String sortString : sortStrings) {
+                ExportSort sort = ExportSort.parse(sortString);
+                sorts.add(sort);
+                if (Element.ID_PROPERTY_NAME.equals(sort.propertyName)) {
+                    return sorts;
+                }
+            }
+        }
+        sorts.add(new ExportSort(Element.ID_PROPERTY_NAME, SortDirection.ASCENDING));
+        return sorts;
+    }
 
-            // Create zip archive
-            final String zipPath = createZip(this.graph.getBackupDir(), outputDirectory);
-            deleteFolder(outputDirectory);
+    private static List<Value> getSortValues(GeObject geObject, List<ExportSort> sorts) {
+        List<Value> sortValues = new ArrayList<>(sorts.size());
+        for (ExportSort sort : sorts) {
+            Value sortValue = null;
+            for (Value value : geObject.getPropertyValues(sort.propertyName)) {
+                if (value == null) {
+                    continue;
+                }
+                if (sortValue == null || sort.compare(value, sortValue) < 0) {
+                    sortValue = value;
+                }
+            }
+            sortValues.add(sortValue);
+        }
+        return sortValues;
+    }
 
-            searchResults.getQueryResultsIterable().close();
-            config.put("filePath", zipPath);
-            config.put("backupFile", new File(zipPath).getName());
-            config.put("resultsCount", size);
-            longRunningProcessRepository.reportProgress(config, 1.0,
-                        String.format("Finished running export raw search for %d item(s).", size));
-        } catch (Exception e) {
-            LOGGER.error("Export RAW Search failed with message: " + e.getMessage());
-            e.printStackTrace();
+    private static int compareSortValues(List<ExportSort> sorts, List<Value> sortValues1, List<Value> sortValues2) {
+        for (int i = 0; i < sorts.size(); i++) {
+            Value value1 = sortValues1.get(i);
+            Value value2 = sortValues2.get(i);
+            int result;
+            if (value1 == null || value2 == null) {
+                // missing values come last in both directions
+                result = value1 == value2 ? 0 : (value1 == null ? 1 : -1);
+            } else {
+                result = sorts.get(i).compare(value1, value2);
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private ChunkWriter createChunkWriter(File file, String format, GraphBackup backupTool) throws IOException {
+        // a chunk left over by an interrupted run is written again from the start
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        if (FORMAT_CSV.equals(format)) {
+            return new CsvChunkWriter(out);
+        }
+        return new JsonLinesChunkWriter(out, backupTool);
+    }
+
+    private Checkpoint readCheckpoint(File outputDirectory) throws IOException {
+        File file = new File(outputDirectory, CHECKPOINT_FILE_NAME);
+        if (!file.exists()) {
+            FileUtils.deleteDirectory(outputDirectory);
+            Files.createDirectories(outputDirectory.toPath());
+            return new Checkpoint(0, 0, null);
+        }
+        JSONObject json = new JSONObject(FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+        JSONArray lastSortValuesJson = json.optJSONArray("lastSortValues");
+        List<Value> lastSortValues = null;
+        if (lastSortValuesJson != null) {
+            lastSortValues = new ArrayList<>(lastSortValuesJson.length());
+            for (int i = 0; i < lastSortValuesJson.length(); i++) {
+                lastSortValues.add(lastSortValuesJson.isNull(i)
+                        ? null
+                        : SORT_VALUE_SERIALIZER.bytesToObject(Base64.decodeBase64(lastSortValuesJson.getString(i))));
+            }
+        }
+        return new Checkpoint(json.getLong("count"), json.getInt("chunks"), lastSortValues);
+    }
+
+    private void writeCheckpoint(File outputDirectory, Checkpoint checkpoint) throws IOException {
+        JSONObject json = new JSONObject();
+        json.put("count", checkpoint.count);
+        json.put("chunks", checkpoint.chunks);
+        if (checkpoint.lastSortValues != null) {
+            // the values keep their types, so they compare the same way after a restart
+            JSONArray lastSortValues = new JSONArray();
+            for (Value value : checkpoint.lastSortValues) {
+                lastSortValues.put(value == null ? JSONObject.NULL : Base64.encodeBase64String(SORT_VALUE_SERIALIZER.objectToBytes(value)));
+            }
+            json.put("lastSortValues", lastSortValues);
         }
+        File tmpFile = new File(outputDirectory, CHECKPOINT_FILE_NAME + ".tmp");
+        FileUtils.write(tmpFile, json.toString(), StandardCharsets.UTF_8);
+        Files.move(tmpFile.toPath(), new File(outputDirectory, CHECKPOINT_FILE_NAME).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
     private String createZip(String path, File directory) {
         try {
-            final String zipPath = path + File.separator + archiveFolderName() + ".zip";
+            final String zipPath = path + File.separator + directory.getName() + ".zip";
             FileOutputStream fos = new FileOutputStream(zipPath);
             ZipOutputStream zipOut = new ZipOutputStream(fos);
             zipFile(directory, directory.getName(), zipOut);
@@ -214,7 +414,7 @@ public class SearchExportLongRunningWorker extends LongRunningProcessWorker {
         FileInputStream fis = new FileInputStream(fileToZip);
         ZipEntry zipEntry = new ZipEntry(fileName);
         zipOut.putNextEntry(zipEntry);
-        byte[] bytes = new byte[1024];
+        byte[] bytes = new byte[8192];
         int length;
         while ((length = fis.read(bytes)) >= 0) {
             zipOut.write(bytes, 0, length);
@@ -222,28 +422,119 @@ public class SearchExportLongRunningWorker extends LongRunningProcessWorker {
         fis.close();
     }
 
-    private void deleteFolder(File directory) {
-        String[] entries = directory.list();
-        if (entries != null) {
-            for (String s: entries){
-                File currentFile = new File(directory.getPath(), s);
-                int retries = 3;
-                while (!currentFile.delete() && retries > 0) {
-                    retries--;
-                }
+    @VisibleForTesting
+    void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    static String chunkFileName(int chunk, String format) {
+        return String.format("search_export-%05d.%s", chunk, format);
+    }
+
+    private String archiveFolderName(String processId) {
+        return "search_export-" + processId;
+    }
+
+    private static class Checkpoint {
+        private final long count;
+        private final int chunks;
+        private final List<Value> lastSortValues;
+
+        Checkpoint(long count, int chunks, List<Value> lastSortValues) {
+            this.count = count;
+            this.chunks = chunks;
+            this.lastSortValues = lastSortValues;
+        }
+    }
+
+    private static class ExportSort {
+        private final String propertyName;
+        private final SortDirection direction;
+
+        ExportSort(String propertyName, SortDirection direction) {
+            this.propertyName = propertyName;
+            this.direction = direction;
+        }
+
+        /**
+         * Parses a sort the same way as {@link GeObjectSearchRunnerBase}.
+         */
+        static ExportSort parse(String sort) {
+            if (sort.toUpperCase().endsWith(":ASCENDING")) {
+                return new ExportSort(sort.substring(0, sort.length() - ":ASCENDING".length()), SortDirection.ASCENDING);
+            } else if (sort.toUpperCase().endsWith(":DESCENDING")) {
+                return new ExportSort(sort.substring(0, sort.length() - ":DESCENDING".length()), SortDirection.DESCENDING);
             }
+            return new ExportSort(sort, SortDirection.ASCENDING);
+        }
+
+        int compare(Value value1, Value value2) {
+            int result = Values.COMPARATOR.compare(value1, value2);
+            return direction == SortDirection.ASCENDING ? result : -result;
         }
-        int retries = 3;
-        while (!directory.delete() && retries > 0) {
-            retries--;
+
+        @Override
+        public String toString() {
+            return propertyName + ":" + direction.name();
         }
     }
 
-    private String getBackupFileName() {
-        return "search_export" + GraphToolBase.DEFAULT_GRAPH_BACKUP_EXT;
+    private interface ChunkWriter extends Closeable {
+        void write(Vertex vertex) throws IOException;
+    }
+
+    private static class JsonLinesChunkWriter implements ChunkWriter {
+        private final Writer out;
+        private final GraphBackup backupTool;
+
+        JsonLinesChunkWriter(Writer out, GraphBackup backupTool) {
+            this.out = out;
+            this.backupTool = backupTool;
+        }
+
+        @Override
+        public void write(Vertex vertex) throws IOException {
+            backupTool.vertexToJson(vertex, false).write(out);
+            out.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
     }
 
-    private String archiveFolderName() {
-        return LocalDateTime.now().format(GraphToolBase.BACKUP_DATETIME_FORMATTER);
+    private static class CsvChunkWriter implements ChunkWriter {
+        private final CSVWriter out;
+
+        CsvChunkWriter(Writer out) {
+            this.out = new CSVWriter(out);
+            this.out.writeNext(CSV_HEADER);
+        }
+
+        @Override
+        public void write(Vertex vertex) {
+            String visibility = vertex.getVisibility().getVisibilityString();
+            for (Property property : vertex.getProperties()) {
+                Value value = property.getValue();
+                if (value instanceof StreamingPropertyValue) {
+                    continue;
+                }
+                out.writeNext(new String[]{
+                        vertex.getId(),
+                        vertex.getConceptType(),
+                        visibility,
+                        property.getName(),
+                        property.getKey(),
+                        property.getVisibility().getVisibilityString(),
+                        value == null ? "" : String.valueOf(value.asObjectCopy())
+                });
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
     }
 }
@@ -138,15 +138,22 @@ public class GeSchemaRepository extends SchemaRepositoryBase {
     @Override
     public void clearCache() {
         LOGGER.debug("clearing ontology cache");
-        super.clearCache();
         graph.flush();
+        super.clearCache();
     }
 
     public void clearCache(String namespace) {
         checkNotNull(namespace, "Workspace should not be null");
         LOGGER.debug("clearing ontology cache for workspace %s", namespace);
+        graph.flush();
         super.clearCache(namespace);
+    }
+
+    @Override
+    public void updateCache(String namespace, Collection<String> conceptNames, Collection<String> relationshipNames, Collection<String> propertyNames) {
+        LOGGER.debug("updating ontology cache for workspace %s", namespace);
         graph.flush();
+        super.updateCache(namespace, conceptNames, relationshipNames, propertyNames);
     }
 
     @Override
@@ -89,6 +89,59 @@ public class Schema {
         this.propertiesByName = Collections.unmodifiableMap(propertyMap);
     }
 
+    private Schema(
+            Map<String, Concept> conceptsByName,
+            Map<String, Relationship> relationshipsByName,
+            Map<String, ExtendedDataTableProperty> extendedDataTablesByName,
+            Map<String, SchemaProperty> propertiesByName,
+            String namespace
+    ) {
+        this.namespace = namespace;
+        this.conceptsByName = Collections.unmodifiableMap(conceptsByName);
+        this.relationshipsByName = Collections.unmodifiableMap(relationshipsByName);
+        this.extendedDataTablesByName = Collections.unmodifiableMap(extendedDataTablesByName);
+        this.propertiesByName = Collections.unmodifiableMap(propertiesByName);
+    }
+
+    /**
+     * Returns a copy of this schema with the given elements added or replaced. The properties of the given concepts
+     * and relationships replace the cached ones with the same name, this instance is left untouched so it can still
+     * be used by concurrent readers.
+     */
+    public Schema withChanges(
+            Iterable<Concept> concepts,
+            Iterable<Relationship> relationships,
+            Iterable<SchemaProperty> properties
+    ) {
+        Map<String, Concept> newConcepts = new HashMap<>(conceptsByName);
+        Map<String, Relationship> newRelationships = new HashMap<>(relationshipsByName);
+        Map<String, ExtendedDataTableProperty> newExtendedDataTables = new HashMap<>(extendedDataTablesByName);
+        Map<String, SchemaProperty> newProperties = new HashMap<>(propertiesByName);
+
+        for (Concept concept : concepts) {
+            newConcepts.put(concept.getName(), concept);
+            putProperties(newProperties, concept.getProperties());
+        }
+        for (Relationship relationship : relationships) {
+            newRelationships.put(relationship.getName(), relationship);
+            putProperties(newProperties, relationship.getProperties());
+        }
+        for (SchemaProperty property : properties) {
+            newProperties.put(property.getName(), property);
+            if (property instanceof ExtendedDataTableProperty) {
+                newExtendedDataTables.put(property.getName(), (ExtendedDataTableProperty) property);
+            }
+        }
+
+        return new Schema(newConcepts, newRelationships, newExtendedDataTables, newProperties, namespace);
+    }
+
+    private static void putProperties(Map<String, SchemaProperty> propertyMap, Collection<SchemaProperty> properties) {
+        if (properties != null) {
+            properties.forEach(property -> propertyMap.put(property.getName(), property));
+        }
+    }
+
     public String getNamespace() {
         return namespace;
     }
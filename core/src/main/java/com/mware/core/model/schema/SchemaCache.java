@@ -0,0 +1,203 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.core.model.schema;
+
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Versioned, per namespace cache of {@link Schema} instances.
+ * <p>
+ * Cached schemas are immutable and replaced atomically, so readers never lock. Single element changes are applied as
+ * deltas with {@link #apply(String, UnaryOperator)}, a full reload is only done on a cold miss, after an explicit
+ * invalidation or, in the background while the stale schema is still served, once the refresh interval elapsed.
+ */
+class SchemaCache {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(SchemaCache.class);
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final Function<String, Schema> loader;
+    private final long refreshIntervalMillis;
+    private final long maxSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong version = new AtomicLong();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "schema-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    SchemaCache(Function<String, Schema> loader, long refreshIntervalSeconds, long maxSize) {
+        this.loader = loader;
+        this.refreshIntervalMillis = TimeUnit.SECONDS.toMillis(refreshIntervalSeconds);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Version of the cache, incremented by every delta and invalidation.
+     */
+    long getVersion() {
+        return version.get();
+    }
+
+    Schema get(String namespace) {
+        Entry entry = entries.get(namespace);
+        if (entry == null) {
+            return load(namespace).schema;
+        }
+        if (refreshIntervalMillis > 0 && System.currentTimeMillis() - entry.loadedTime > refreshIntervalMillis) {
+            scheduleRefresh(namespace);
+        }
+        return entry.schema;
+    }
+
+    /**
+     * Replaces the cached schema of the namespace with the result of the delta function. Nothing happens when the
+     * namespace is not cached, the next read loads it with the change included.
+     */
+    void apply(String namespace, UnaryOperator<Schema> delta) {
+        version.incrementAndGet();
+        entries.computeIfPresent(namespace, (key, entry) -> new Entry(delta.apply(entry.schema), entry.loadedTime));
+    }
+
+    boolean contains(String namespace) {
+        return entries.containsKey(namespace);
+    }
+
+    Set<String> getNamespaces() {
+        return entries.keySet();
+    }
+
+    void invalidate(String namespace) {
+        version.incrementAndGet();
+        entries.remove(namespace);
+    }
+
+    void invalidateAll() {
+        version.incrementAndGet();
+        entries.clear();
+    }
+
+    private Entry load(String namespace) {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = loading.putIfAbsent(namespace, future);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            Entry entry = entries.get(namespace);
+            for (int attempt = 1; entry == null; attempt++) {
+                long startVersion = version.get();
+                Schema schema = loader.apply(namespace);
+                // a change made while loading may be missing from the result, try again unless it keeps happening
+                if (startVersion == version.get() || attempt == MAX_LOAD_ATTEMPTS) {
+                    long loadedTime = startVersion == version.get() ? System.currentTimeMillis() : 0L;
+                    entry = new Entry(schema, loadedTime);
+                }
+            }
+            if (!entries.containsKey(namespace)) {
+                evictIfFull();
+                entries.put(namespace, entry);
+            }
+            future.complete(entry);
+            return entry;
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loading.remove(namespace, future);
+        }
+    }
+
+    private void scheduleRefresh(String namespace) {
+        if (!refreshing.add(namespace)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long startVersion = version.get();
+                    Schema schema = loader.apply(namespace);
+                    if (startVersion == version.get()) {
+                        entries.computeIfPresent(namespace, (key, entry) -> new Entry(schema, System.currentTimeMillis()));
+                    }
+                } catch (Exception ex) {
+                    LOGGER.warn("Could not refresh schema cache for namespace: %s", namespace, ex);
+                } finally {
+                    refreshing.remove(namespace);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            refreshing.remove(namespace);
+        }
+    }
+
+    private void evictIfFull() {
+        while (maxSize > 0 && entries.size() >= maxSize) {
+            String oldest = null;
+            long oldestTime = Long.MAX_VALUE;
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                if (e.getValue().loadedTime < oldestTime) {
+                    oldest = e.getKey();
+                    oldestTime = e.getValue().loadedTime;
+                }
+            }
+            if (oldest == null || entries.remove(oldest) == null) {
+                return;
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Schema schema;
+        private final long loadedTime;
+
+        private Entry(Schema schema, long loadedTime) {
+            this.schema = schema;
+            this.loadedTime = loadedTime;
+        }
+    }
+}
@@ -69,6 +69,12 @@ public interface SchemaRepository {
     void clearCache();
     void clearCache(String namespace);
 
+    /**
+     * Reloads only the named elements into the cached schema of the namespace, here and on the other nodes of the
+     * cluster, instead of throwing the whole schema away like {@link #clearCache(String)}.
+     */
+    void updateCache(String namespace, Collection<String> conceptNames, Collection<String> relationshipNames, Collection<String> propertyNames);
+
     default Iterable<Relationship> getRelationships() {
         return getRelationships(SchemaRepository.PUBLIC);
     }
@@ -39,6 +39,7 @@ package com.mware.core.model.schema;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
@@ -56,6 +57,7 @@ import com.mware.core.model.properties.SchemaProperties;
 import com.mware.core.model.properties.types.BcProperty;
 import com.mware.core.model.properties.types.BcPropertyBase;
 import com.mware.core.model.user.PrivilegeRepository;
+import com.mware.core.model.workQueue.WebQueueRepository;
 import com.mware.core.model.workspace.WorkspaceRepository;
 import com.mware.core.model.workspace.WorkspaceUser;
 import com.mware.core.user.SystemUser;
@@ -63,6 +65,7 @@ import com.mware.core.user.User;
 import com.mware.core.util.BcLogger;
 import com.mware.core.util.BcLoggerFactory;
 import com.mware.core.util.ExecutorServiceUtil;
+import com.mware.core.util.JSONUtil;
 import com.mware.ge.*;
 import com.mware.ge.query.Query;
 import com.mware.ge.query.QueryResultsIterable;
@@ -80,6 +83,7 @@ import java.io.*;
 import java.lang.reflect.Constructor;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -88,7 +92,7 @@ import static com.mware.core.util.StreamUtil.stream;
 
 public abstract class SchemaRepositoryBase implements SchemaRepository {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(SchemaRepositoryBase.class);
-    private static final String ONTOLOGY_CACHE_NAME = SchemaRepository.class.getName() + ".ontology";
+    private static final String SCHEMA_CACHE_CHANGE_TYPE = "schemaCacheChange";
     private static final String ONTOLOGY_VISIBLEPROPS_CACHE_NAME = SchemaRepository.class.getName() + ".ontologyVisibleProps";
 
     public static final String TOP_OBJECT_PROPERTY_NAME = "topObjectProperty";
@@ -96,8 +100,12 @@ public abstract class SchemaRepositoryBase implements SchemaRepository {
     private final Configuration configuration;
     private final CacheService cacheService;
     private final CacheOptions ontologyCacheOptions;
+    private final SchemaCache schemaCache;
+    private final String cacheNodeId = UUID.randomUUID().toString();
+    private final AtomicBoolean cacheSubscribed = new AtomicBoolean();
     private PrivilegeRepository privilegeRepository;
     private WorkspaceRepository workspaceRepository;
+    private WebQueueRepository webQueueRepository;
     protected Authorizations authorizations;
     private final Graph graph;
 
@@ -112,6 +120,11 @@ public abstract class SchemaRepositoryBase implements SchemaRepository {
         this.ontologyCacheOptions = new CacheOptions()
                 .setMaximumSize(configuration.get(SchemaOptions.CACHE_MAX_SIZE))
                 .setExpireAfterWrite(5L);
+        this.schemaCache = new SchemaCache(
+                this::loadOntology,
+                configuration.get(SchemaOptions.CACHE_REFRESH_INTERVAL),
+                configuration.get(SchemaOptions.CACHE_MAX_SIZE)
+        );
         this.graph = graph;
     }
 
@@ -736,17 +749,17 @@ public abstract class SchemaRepositoryBase implements SchemaRepository {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Schema getOntology(String namespace) {
         if (namespace == null) {
             return getOntology(PUBLIC);
         }
 
-        Schema schema = cacheService.getIfPresent(ONTOLOGY_CACHE_NAME, namespace);
-        if (schema != null) {
-            return schema;
-        }
+        subscribeToCacheChanges();
+        return schemaCache.get(namespace);
+    }
 
+    @SuppressWarnings("unchecked")
+    protected Schema loadOntology(String namespace) {
         Object[] results = ExecutorServiceUtil.runAllAndWait(
                 () -> getConceptsWithProperties(namespace),
                 () -> getRelationships(namespace),
@@ -763,16 +776,13 @@ public abstract class SchemaRepositoryBase implements SchemaRepository {
                 .map(p -> (ExtendedDataTableProperty) p)
                 .collect(Collectors.toList());
 
-        schema = new Schema(
+        return new Schema(
                 concepts,
                 relationships,
                 extendedDataTables,
                 properties,
                 namespace
         );
-
-        cacheService.put(ONTOLOGY_CACHE_NAME, namespace, schema, ontologyCacheOptions);
-        return schema;
     }
 
     protected Relationship getTopObjectPropertyRelationship(String namespace) {
@@ -781,13 +791,136 @@ public abstract class SchemaRepositoryBase implements SchemaRepository {
 
     @Override
     public void clearCache() {
-        cacheService.invalidate(ONTOLOGY_CACHE_NAME);
-        cacheService.invalidate(ONTOLOGY_VISIBLEPROPS_CACHE_NAME);
+        invalidateCache(null);
+        broadcastCacheChange(null, true, null, null, null);
     }
 
     @Override
     public void clearCache(String namespace) {
-        cacheService.invalidate(ONTOLOGY_CACHE_NAME, namespace);
+        invalidateCache(namespace);
+        broadcastCacheChange(namespace, true, null, null, null);
+    }
+
+    @Override
+    public void updateCache(String namespace, Collection<String> conceptNames, Collection<String> relationshipNames, Collection<String> propertyNames) {
+        applyCacheChange(namespace, conceptNames, relationshipNames, propertyNames);
+        broadcastCacheChange(namespace, false, conceptNames, relationshipNames, propertyNames);
+    }
+
+    /**
+     * Version of the cached schema, changes whenever an element is updated in or removed from the cache.
+     */
+    public long getCacheVersion() {
+        return schemaCache.getVersion();
+    }
+
+    protected void invalidateCache(String namespace) {
+        if (namespace == null) {
+            schemaCache.invalidateAll();
+        } else {
+            schemaCache.invalidate(namespace);
+        }
+        cacheService.invalidate(ONTOLOGY_VISIBLEPROPS_CACHE_NAME);
+    }
+
+    protected void applyCacheChange(String namespace, Collection<String> conceptNames, Collection<String> relationshipNames, Collection<String> propertyNames) {
+        String ns = namespace == null ? PUBLIC : namespace;
+        cacheService.invalidate(ONTOLOGY_VISIBLEPROPS_CACHE_NAME);
+        if (isPublic(ns)) {
+            // public elements are also part of every workspace schema, those are loaded again when next used
+            for (String cachedNamespace : new ArrayList<>(schemaCache.getNamespaces())) {
+                if (!PUBLIC.equals(cachedNamespace)) {
+                    schemaCache.invalidate(cachedNamespace);
+                }
+            }
+        }
+        if (!schemaCache.contains(ns)) {
+            return;
+        }
+
+        Set<String> changedConceptNames = conceptNames == null ? new HashSet<>() : new HashSet<>(conceptNames);
+        Set<String> changedRelationshipNames = relationshipNames == null ? new HashSet<>() : new HashSet<>(relationshipNames);
+        List<SchemaProperty> properties = propertyNames == null || propertyNames.isEmpty()
+                ? Collections.emptyList()
+                : Lists.newArrayList(getPropertiesByName(new ArrayList<>(propertyNames), ns));
+        for (SchemaProperty property : properties) {
+            if (property instanceof ExtendedDataTableProperty
+                    || (property.getConceptNames().isEmpty() && property.getRelationshipNames().isEmpty())) {
+                // extended data table columns are only resolved when the whole schema is built
+                schemaCache.invalidate(ns);
+                return;
+            }
+            changedConceptNames.addAll(property.getConceptNames());
+            changedRelationshipNames.addAll(property.getRelationshipNames());
+        }
+
+        List<Concept> concepts = changedConceptNames.isEmpty()
+                ? Collections.emptyList()
+                : Lists.newArrayList(getConceptsByName(new ArrayList<>(changedConceptNames), ns));
+        List<Relationship> relationships = changedRelationshipNames.isEmpty()
+                ? Collections.emptyList()
+                : Lists.newArrayList(getRelationshipsByName(new ArrayList<>(changedRelationshipNames), ns));
+        schemaCache.apply(ns, schema -> schema.withChanges(concepts, relationships, properties));
+    }
+
+    private void broadcastCacheChange(String namespace, boolean full, Collection<String> conceptNames, Collection<String> relationshipNames, Collection<String> propertyNames) {
+        if (!InjectHelper.hasInjector()) {
+            return;
+        }
+
+        JSONObject data = new JSONObject();
+        data.put("origin", cacheNodeId);
+        data.putOpt("namespace", namespace);
+        data.put("full", full);
+        if (!full) {
+            data.put("conceptNames", new JSONArray(conceptNames == null ? Collections.emptyList() : conceptNames));
+            data.put("relationshipNames", new JSONArray(relationshipNames == null ? Collections.emptyList() : relationshipNames));
+            data.put("propertyNames", new JSONArray(propertyNames == null ? Collections.emptyList() : propertyNames));
+        }
+        JSONObject json = new JSONObject();
+        json.put("type", SCHEMA_CACHE_CHANGE_TYPE);
+        json.put("data", data);
+        try {
+            getWebQueueRepository().broadcastJson(json);
+        } catch (Exception ex) {
+            LOGGER.warn("Could not broadcast schema cache change: %s", json, ex);
+        }
+    }
+
+    private void subscribeToCacheChanges() {
+        if (cacheSubscribed.get() || !InjectHelper.hasInjector() || !cacheSubscribed.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            getWebQueueRepository().subscribeToBroadcastMessages(new WebQueueRepository.BroadcastConsumer() {
+                @Override
+                public void broadcastReceived(JSONObject json) {
+                    if (!SCHEMA_CACHE_CHANGE_TYPE.equals(json.optString("type"))) {
+                        return;
+                    }
+                    JSONObject data = json.getJSONObject("data");
+                    if (cacheNodeId.equals(data.optString("origin"))) {
+                        return;
+                    }
+
+                    String namespace = data.optString("namespace", null);
+                    if (data.optBoolean("full")) {
+                        invalidateCache(namespace);
+                    } else {
+                        applyCacheChange(
+                                namespace,
+                                JSONUtil.toStringList(data.getJSONArray("conceptNames")),
+                                JSONUtil.toStringList(data.getJSONArray("relationshipNames")),
+                                JSONUtil.toStringList(data.getJSONArray("propertyNames"))
+                        );
+                    }
+                }
+            });
+        } catch (Exception ex) {
+            LOGGER.warn("Could not subscribe to schema cache changes, changes made on other nodes are picked up every %d seconds",
+                    configuration.get(SchemaOptions.CACHE_REFRESH_INTERVAL), ex);
+        }
     }
 
     public final Configuration getConfiguration() {
@@ -1184,6 +1317,13 @@ public abstract class SchemaRepositoryBase implements SchemaRepository {
         return workspaceRepository;
     }
 
+    protected WebQueueRepository getWebQueueRepository() {
+        if (webQueueRepository == null) {
+            webQueueRepository = InjectHelper.getInstance(WebQueueRepository.class);
+        }
+        return webQueueRepository;
+    }
+
     protected abstract void deleteChangeableProperties(SchemaElement element, Authorizations authorizations);
 
     protected abstract void deleteChangeableProperties(SchemaProperty property, Authorizations authorizations);
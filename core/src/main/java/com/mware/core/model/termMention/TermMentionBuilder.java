@@ -47,6 +47,7 @@ import com.mware.core.util.BcLoggerFactory;
 import com.mware.core.util.ClientApiConverter;
 import com.mware.ge.*;
 import com.mware.ge.mutation.EdgeMutation;
+import com.mware.ge.search.IndexHint;
 
 import java.time.ZonedDateTime;
 
@@ -278,6 +279,7 @@ public class TermMentionBuilder {
         Visibility defaultVisibility = visibilityTranslator.getDefaultVisibility();
         Visibility visibility = BcVisibility.and(visibilityTranslator.toVisibility(this.visibilityJson).getVisibility(), TermMentionRepository.VISIBILITY_STRING);
         VertexBuilder vertexBuilder = graph.prepareVertex(visibility, SchemaConstants.CONCEPT_TYPE_THING);
+        vertexBuilder.setIndexHint(IndexHint.DO_NOT_INDEX);
         BcSchema.TERM_MENTION_VISIBILITY_JSON.setProperty(vertexBuilder, this.visibilityJson, visibility);
         BcSchema.TERM_MENTION_CONCEPT_TYPE.setProperty(vertexBuilder, this.conceptName, visibility);
         BcSchema.TERM_MENTION_TYPE.setProperty(vertexBuilder, this.type, visibility);
@@ -307,6 +309,7 @@ public class TermMentionBuilder {
         Vertex termMentionVertex = vertexBuilder.save(termMentionAuthorizations);
 
         EdgeBuilder termMentionEdgeBuilder = graph.prepareEdge(this.outVertex, termMentionVertex, BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION, visibility);
+        termMentionEdgeBuilder.setIndexHint(IndexHint.DO_NOT_INDEX);
         BcSchema.TERM_MENTION_VISIBILITY_JSON.setProperty(termMentionEdgeBuilder, this.visibilityJson, visibility);
         BcSchema.MODIFIED_BY.setProperty(termMentionEdgeBuilder, user.getUserId(), defaultVisibility);
         BcSchema.MODIFIED_DATE.setProperty(termMentionEdgeBuilder, now, defaultVisibility);
@@ -314,6 +317,7 @@ public class TermMentionBuilder {
 
         if (this.resolvedToVertexId != null) {
             EdgeMutation resolvedToEdgeBuilder = graph.prepareEdge(termMentionVertex.getId(), resolvedToVertexId, BcSchema.TERM_MENTION_LABEL_RESOLVED_TO, visibility);
+            resolvedToEdgeBuilder.setIndexHint(IndexHint.DO_NOT_INDEX);
             BcSchema.TERM_MENTION_VISIBILITY_JSON.setProperty(resolvedToEdgeBuilder, this.visibilityJson, visibility);
             BcSchema.MODIFIED_BY.setProperty(resolvedToEdgeBuilder, user.getUserId(), defaultVisibility);
             BcSchema.MODIFIED_DATE.setProperty(resolvedToEdgeBuilder, now, defaultVisibility);
@@ -321,6 +325,7 @@ public class TermMentionBuilder {
 
             if (this.resolvedFromTermMention != null) {
                 EdgeMutation resolvedFromEdgeBuilder = graph.prepareEdge(termMentionVertex.getId(), resolvedFromTermMention, BcSchema.TERM_MENTION_RESOLVED_FROM, visibility);
+                resolvedFromEdgeBuilder.setIndexHint(IndexHint.DO_NOT_INDEX);
                 BcSchema.TERM_MENTION_VISIBILITY_JSON.setProperty(resolvedFromEdgeBuilder, this.visibilityJson, visibility);
                 BcSchema.MODIFIED_BY.setProperty(resolvedFromEdgeBuilder, user.getUserId(), defaultVisibility);
                 BcSchema.MODIFIED_DATE.setProperty(resolvedFromEdgeBuilder, now, defaultVisibility);
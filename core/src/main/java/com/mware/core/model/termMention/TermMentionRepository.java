@@ -36,6 +36,7 @@
  */
 package com.mware.core.model.termMention;
 
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.mware.core.model.PropertyJustificationMetadata;
@@ -51,13 +52,16 @@ import com.mware.core.util.ClientApiConverter;
 import com.mware.core.util.SourceInfoSnippetSanitizer;
 import com.mware.ge.*;
 import com.mware.ge.mutation.ExistingElementMutation;
+import com.mware.ge.search.IndexHint;
 import com.mware.ge.util.FilterIterable;
 import com.mware.ge.util.IterableUtils;
 import com.mware.ge.util.JoinIterable;
 import com.mware.ge.util.StreamUtils;
 import org.apache.commons.lang.StringUtils;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -69,6 +73,12 @@ import static com.mware.ge.util.IterableUtils.singleOrDefault;
 public class TermMentionRepository {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(TermMentionRepository.class);
     public static final String VISIBILITY_STRING = "termMention";
+    // the vertices holding term mentions are only walked through, there is no need to load their properties
+    private static final FetchHints ANCHOR_FETCH_HINTS = FetchHints.EDGE_REFS;
+    private static final String[] ANCHOR_LABELS = new String[]{
+            BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION,
+            BcSchema.TERM_MENTION_LABEL_RESOLVED_TO
+    };
     private final Graph graph;
 
     @Inject
@@ -105,7 +115,7 @@ public class TermMentionRepository {
 
     public Iterable<Vertex> findByOutVertex(String outVertexId, Authorizations authorizations) {
         Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
-        Vertex outVertex = graph.getVertex(outVertexId, authorizationsWithTermMention);
+        Vertex outVertex = graph.getVertex(outVertexId, ANCHOR_FETCH_HINTS, authorizationsWithTermMention);
         return outVertex.getVertices(
                 Direction.OUT,
                 BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION,
@@ -113,9 +123,21 @@ public class TermMentionRepository {
         );
     }
 
+    /**
+     * Find the term mentions of all the given source vertices, the term mentions are loaded in a single batch.
+     */
+    public Iterable<Vertex> findByOutVertices(Iterable<String> outVertexIds, Authorizations authorizations) {
+        return findAdjacentTermMentions(
+                outVertexIds,
+                Direction.OUT,
+                new String[]{BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION},
+                authorizations
+        );
+    }
+
     public void deleteAllTermMentions(String outVertexId, Authorizations authorizations) {
         Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
-        Vertex outVertex = graph.getVertex(outVertexId, authorizationsWithTermMention);
+        Vertex outVertex = graph.getVertex(outVertexId, ANCHOR_FETCH_HINTS, authorizationsWithTermMention);
         Iterable<String> termMentionVertices = outVertex.getVertexIds(
                 Direction.OUT,
                 BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION,
@@ -129,10 +151,11 @@ public class TermMentionRepository {
 
     public void deleteTermMentions(String type, String outVertexId, Authorizations authorizations) {
         Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
-        Vertex outVertex = graph.getVertex(outVertexId, authorizationsWithTermMention);
+        Vertex outVertex = graph.getVertex(outVertexId, ANCHOR_FETCH_HINTS, authorizationsWithTermMention);
         Iterable<Vertex> termMentionVertices = outVertex.getVertices(
                 Direction.OUT,
                 BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION,
+                FetchHints.PROPERTIES,
                 authorizationsWithTermMention
         );
         graph.deleteElements(
@@ -154,12 +177,15 @@ public class TermMentionRepository {
      */
     public Iterable<Vertex> findByVertexId(String vertexId, Authorizations authorizations) {
         Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
-        Vertex vertex = graph.getVertex(vertexId, authorizationsWithTermMention);
-        String[] labels = new String[]{
-                BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION,
-                BcSchema.TERM_MENTION_LABEL_RESOLVED_TO
-        };
-        return vertex.getVertices(Direction.BOTH, labels, authorizationsWithTermMention);
+        Vertex vertex = graph.getVertex(vertexId, ANCHOR_FETCH_HINTS, authorizationsWithTermMention);
+        return vertex.getVertices(Direction.BOTH, ANCHOR_LABELS, authorizationsWithTermMention);
+    }
+
+    /**
+     * Find all term mentions connected to any of the vertices, the term mentions are loaded in a single batch.
+     */
+    public Iterable<Vertex> findByVertexIds(Iterable<String> vertexIds, Authorizations authorizations) {
+        return findAdjacentTermMentions(vertexIds, Direction.BOTH, ANCHOR_LABELS, authorizations);
     }
 
     /**
@@ -172,6 +198,20 @@ public class TermMentionRepository {
         );
     }
 
+    private Iterable<Vertex> findAdjacentTermMentions(
+            Iterable<String> vertexIds,
+            Direction direction,
+            String[] labels,
+            Authorizations authorizations
+    ) {
+        Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
+        Set<String> termMentionIds = new LinkedHashSet<>();
+        for (Vertex vertex : graph.getVertices(vertexIds, ANCHOR_FETCH_HINTS, authorizationsWithTermMention)) {
+            Iterables.addAll(termMentionIds, vertex.getVertexIds(direction, labels, authorizationsWithTermMention));
+        }
+        return graph.getVertices(termMentionIds, graph.getDefaultFetchHints(), authorizationsWithTermMention);
+    }
+
     /**
      * Finds term mention vertices that were created for the justification of a new vertex.
      *
@@ -306,6 +346,7 @@ public class TermMentionRepository {
         Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
         Visibility newVisibilityWithTermMention = BcVisibility.and(newVisibility, VISIBILITY_STRING);
         ExistingElementMutation<Vertex> m = termMention.prepareMutation();
+        m.setIndexHint(IndexHint.DO_NOT_INDEX);
         m.alterElementVisibility(newVisibilityWithTermMention);
         for (Property property : termMention.getProperties()) {
             m.alterPropertyVisibility(property, newVisibilityWithTermMention);
@@ -322,6 +363,7 @@ public class TermMentionRepository {
         m.save(authorizationsWithTermMention);
         for (Edge edge : termMention.getEdges(Direction.BOTH, authorizationsWithTermMention)) {
             ExistingElementMutation<Edge> edgeMutation = edge.prepareMutation();
+            edgeMutation.setIndexHint(IndexHint.DO_NOT_INDEX);
             edgeMutation.alterElementVisibility(newVisibilityWithTermMention);
             for (Property property : edge.getProperties()) {
                 edgeMutation.alterPropertyVisibility(property, newVisibilityWithTermMention);
@@ -332,7 +374,7 @@ public class TermMentionRepository {
 
     public Iterable<Vertex> findResolvedTo(String inVertexId, Authorizations authorizations) {
         Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
-        Vertex inVertex = graph.getVertex(inVertexId, authorizationsWithTermMention);
+        Vertex inVertex = graph.getVertex(inVertexId, ANCHOR_FETCH_HINTS, authorizationsWithTermMention);
         return inVertex.getVertices(
                 Direction.IN,
                 BcSchema.TERM_MENTION_LABEL_RESOLVED_TO,
@@ -340,6 +382,18 @@ public class TermMentionRepository {
         );
     }
 
+    /**
+     * Find the term mentions resolved to any of the given vertices, the term mentions are loaded in a single batch.
+     */
+    public Iterable<Vertex> findResolvedTo(Iterable<String> inVertexIds, Authorizations authorizations) {
+        return findAdjacentTermMentions(
+                inVertexIds,
+                Direction.IN,
+                new String[]{BcSchema.TERM_MENTION_LABEL_RESOLVED_TO},
+                authorizations
+        );
+    }
+
     public Stream<Vertex> findResolvedToForRef(
             String inVertexId,
             String refPropertyKey,
@@ -393,7 +447,7 @@ public class TermMentionRepository {
 
     public Iterable<Vertex> findByEdgeId(String outVertexId, final String edgeId, Authorizations authorizations) {
         Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
-        Vertex outVertex = graph.getVertex(outVertexId, authorizationsWithTermMention);
+        Vertex outVertex = graph.getVertex(outVertexId, ANCHOR_FETCH_HINTS, authorizationsWithTermMention);
         return new FilterIterable<Vertex>(outVertex.getVertices(
                 Direction.OUT,
                 BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION,
@@ -587,6 +641,7 @@ public class TermMentionRepository {
             termMentionVertexId += ":" + edgeId;
         }
         VertexBuilder m = graph.prepareVertex(termMentionVertexId, visibility, SchemaConstants.CONCEPT_TYPE_THING);
+        m.setIndexHint(IndexHint.DO_NOT_INDEX);
         BcSchema.TERM_MENTION_FOR_ELEMENT_ID.setProperty(m, forElementId, visibility);
         BcSchema.TERM_MENTION_FOR_TYPE.setProperty(m, forType, visibility);
         if (propertyKey != null) {
@@ -613,22 +668,20 @@ public class TermMentionRepository {
         BcSchema.TERM_MENTION_END_OFFSET.setProperty(m, endOffset, visibility);
         Vertex termMention = m.save(authorizations);
 
-        graph.addEdge(
+        graph.prepareEdge(
                 BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION + termMentionVertexId,
                 outVertex,
                 termMention,
                 BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION,
-                visibility,
-                authorizations
-        );
-        graph.addEdge(
+                visibility
+        ).setIndexHint(IndexHint.DO_NOT_INDEX).save(authorizations);
+        graph.prepareEdge(
                 BcSchema.TERM_MENTION_LABEL_RESOLVED_TO + termMentionVertexId,
                 termMention,
                 vertex,
                 BcSchema.TERM_MENTION_LABEL_RESOLVED_TO,
-                visibility,
-                authorizations
-        );
+                visibility
+        ).setIndexHint(IndexHint.DO_NOT_INDEX).save(authorizations);
 
         graph.flush();
         LOGGER.debug("added source info: %s", termMention.getId());
@@ -739,7 +792,7 @@ public class TermMentionRepository {
             Authorizations authorizations
     ) {
         Authorizations authorizationsWithTermMentions = getAuthorizations(authorizations);
-        Vertex vertex = graph.getVertex(vertexId, authorizationsWithTermMentions);
+        Vertex vertex = graph.getVertex(vertexId, ANCHOR_FETCH_HINTS, authorizationsWithTermMentions);
 
         if (vertex == null) {
             return null;
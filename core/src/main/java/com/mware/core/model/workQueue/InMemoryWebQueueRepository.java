@@ -40,11 +40,11 @@ import com.google.inject.Inject;
 import com.mware.core.config.Configuration;
 import org.json.JSONObject;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class InMemoryWebQueueRepository extends WebQueueRepository {
-    private List<BroadcastConsumer> broadcastConsumers = new ArrayList<>();
+    private List<BroadcastConsumer> broadcastConsumers = new CopyOnWriteArrayList<>();
 
     @Inject
     public InMemoryWebQueueRepository() {
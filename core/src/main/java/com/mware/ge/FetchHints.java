@@ -41,6 +41,7 @@ import com.google.common.collect.ImmutableSet;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -470,6 +471,19 @@ public class FetchHints implements Serializable  {
                 includeExtendedDataTableNames);
     }
 
+    /**
+     * @return fetch hints including the given properties in addition to the ones included by these fetch hints
+     */
+    public FetchHints withPropertiesIncluded(Collection<String> propertyNames) {
+        if (propertyNames.stream().allMatch(this::isIncludeProperty)) {
+            return this;
+        }
+        return union(this, new FetchHintsBuilder()
+                .setPropertyNamesToInclude(new HashSet<>(propertyNames))
+                .setIncludeHidden(isIncludeHidden())
+                .build());
+    }
+
     public static FetchHints union(FetchHints... fetchHints) {
         return union(Arrays.asList(fetchHints));
     }
@@ -45,6 +45,7 @@ import com.mware.ge.id.NameSubstitutionStrategy;
 import com.mware.ge.metric.GeMetricRegistry;
 import com.mware.ge.mutation.ElementMutation;
 import com.mware.ge.query.Query;
+import com.mware.ge.query.QueryBase;
 import com.mware.ge.query.builder.GeQueryBuilders;
 import com.mware.ge.query.builder.GeQueryBuilder;
 import com.mware.ge.util.FilterIterable;
@@ -1694,6 +1695,45 @@ public interface Graph {
             Authorizations authorizations
     );
 
+    /**
+     * Gets the specified extended data rows matching all the filters. Graphs storing the rows in a key/value store
+     * test the filters while decoding the rows, so only the filter columns of rejected rows are deserialized. When
+     * the fetch hints name the properties to include, those graphs may also leave the other columns out of the
+     * returned rows.
+     *
+     * @param elementIds     The element ids of the elements to get the rows from
+     * @param tableName      The name of the table within the element to get the rows from
+     * @param fetchHints     Fetch hints to filter extended data
+     * @param filters        The filters the rows must match
+     * @param authorizations The authorizations used to get the rows
+     * @return Rows
+     */
+    default Iterable<ExtendedDataRow> getExtendedDataForElements(
+            Iterable<? extends ElementId> elementIds,
+            String tableName,
+            FetchHints fetchHints,
+            Iterable<QueryBase.HasValueContainer> filters,
+            Authorizations authorizations
+    ) {
+        List<QueryBase.HasValueContainer> filterList = IterableUtils.toList(filters);
+        if (filterList.isEmpty()) {
+            return getExtendedDataForElements(elementIds, tableName, fetchHints, authorizations);
+        }
+        Set<String> filterPropertyNames = new HashSet<>();
+        filterList.forEach(filter -> filterPropertyNames.addAll(filter.keys));
+        return new FilterIterable<ExtendedDataRow>(getExtendedDataForElements(
+                elementIds,
+                tableName,
+                fetchHints.withPropertiesIncluded(filterPropertyNames),
+                authorizations
+        )) {
+            @Override
+            protected boolean isIncluded(ExtendedDataRow row) {
+                return filterList.stream().allMatch(filter -> filter.isMatch(row));
+            }
+        };
+    }
+
     /**
      * Gets extended data rows from the graph in the given range.
      *
@@ -43,6 +43,7 @@ import com.mware.ge.mutation.ExistingElementMutation;
 import com.mware.ge.query.Query;
 import com.mware.ge.query.builder.GeQueryBuilder;
 import com.mware.ge.search.IndexHint;
+import com.mware.ge.search.RangeReindexer;
 import com.mware.ge.search.SearchIndex;
 import com.mware.ge.search.SearchIndexWithVertexPropertyCountByValue;
 import com.mware.ge.tools.GraphBackup;
@@ -132,16 +133,17 @@ public abstract class GraphBaseWithSearchIndex extends GraphBase implements Grap
 
     @Override
     public void reindex(Authorizations authorizations) {
-        reindexVertices(authorizations);
-        reindexEdges(authorizations);
+        RangeReindexer reindexer = new RangeReindexer(this, isIdRangeScanSupported());
+        reindexer.reindex(ElementType.VERTEX, authorizations);
+        reindexer.reindex(ElementType.EDGE, authorizations);
     }
 
-    protected void reindexVertices(Authorizations authorizations) {
-        this.searchIndex.addElements(this, getVertices(authorizations), authorizations);
-    }
-
-    private void reindexEdges(Authorizations authorizations) {
-        this.searchIndex.addElements(this, getEdges(authorizations), authorizations);
+    /**
+     * true, if {@link #getVerticesInRange} and {@link #getEdgesInRange} only read the requested range. Otherwise a
+     * reindex is not split by id since every range would scan the whole graph.
+     */
+    protected boolean isIdRangeScanSupported() {
+        return false;
     }
 
     @Override
@@ -134,6 +134,22 @@ public abstract class GraphConfiguration extends TypedConfiguration {
         return get(GraphOptions.AUTO_FLUSH);
     }
 
+    public int getReindexThreads() {
+        return get(GraphOptions.REINDEX_THREADS);
+    }
+
+    public int getReindexBatchSize() {
+        return get(GraphOptions.REINDEX_BATCH_SIZE);
+    }
+
+    public String getReindexRangeAlphabet() {
+        return get(GraphOptions.REINDEX_RANGE_ALPHABET);
+    }
+
+    public int getReindexRangePrefixLength() {
+        return get(GraphOptions.REINDEX_RANGE_PREFIX_LENGTH);
+    }
+
     public GeMetricRegistry createMetricsRegistry() {
         return new DropWizardMetricRegistry();
     }
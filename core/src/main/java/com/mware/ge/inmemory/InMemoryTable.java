@@ -41,19 +41,24 @@ import com.mware.ge.FetchHints;
 import com.mware.ge.inmemory.mutations.Mutation;
 import com.mware.ge.util.StreamUtils;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
+/**
+ * Rows are kept in a concurrent map and every {@link InMemoryTableElement} guards its own mutations, so reads never
+ * lock and writers only contend when they update the same element.
+ */
 public abstract class InMemoryTable<TElement extends InMemoryElement> {
-    private ReadWriteLock rowsLock = new ReentrantReadWriteLock();
-    private Map<String, InMemoryTableElement<TElement>> rows;
+    private final ConcurrentMap<String, InMemoryTableElement<TElement>> rows;
 
+    @SuppressWarnings("unchecked")
     protected InMemoryTable(Map<String, InMemoryTableElement<TElement>> rows) {
-        this.rows = rows;
+        this.rows = rows instanceof ConcurrentMap
+                ? (ConcurrentMap<String, InMemoryTableElement<TElement>>) rows
+                : new ConcurrentSkipListMap<>(rows);
     }
 
     protected InMemoryTable() {
@@ -72,29 +77,22 @@ public abstract class InMemoryTable<TElement extends InMemoryElement> {
         if (null == id) {
             return null;
         }
-        rowsLock.readLock().lock();
-        try {
-            return rows.get(id);
-        } finally {
-            rowsLock.readLock().unlock();
-        }
+        return rows.get(id);
     }
 
     public void append(String id, Mutation... newMutations) {
         if (null == id) {
             return;
         }
-        rowsLock.writeLock().lock();
-        try {
-            InMemoryTableElement<TElement> inMemoryTableElement = rows.get(id);
+        // the mutations are added inside compute() so a concurrent remove() cannot orphan them and readers never
+        // observe a freshly created element before it has any mutations
+        rows.compute(id, (key, inMemoryTableElement) -> {
             if (inMemoryTableElement == null) {
-                inMemoryTableElement = createInMemoryTableElement(id);
-                rows.put(id, inMemoryTableElement);
+                inMemoryTableElement = createInMemoryTableElement(key);
             }
             inMemoryTableElement.addAll(newMutations);
-        } finally {
-            rowsLock.writeLock().unlock();
-        }
+            return inMemoryTableElement;
+        });
     }
 
     protected abstract InMemoryTableElement<TElement> createInMemoryTableElement(String id);
@@ -103,21 +101,11 @@ public abstract class InMemoryTable<TElement extends InMemoryElement> {
         if (null == id) {
             return;
         }
-        rowsLock.writeLock().lock();
-        try {
-            rows.remove(id);
-        } finally {
-            rowsLock.writeLock().unlock();
-        }
+        rows.remove(id);
     }
 
     public void clear() {
-        rowsLock.writeLock().lock();
-        try {
-            rows.clear();
-        } finally {
-            rowsLock.writeLock().unlock();
-        }
+        rows.clear();
     }
 
     public Iterable<TElement> getAll(
@@ -133,11 +121,6 @@ public abstract class InMemoryTable<TElement extends InMemoryElement> {
     }
 
     public Iterable<InMemoryTableElement<TElement>> getRowValues() {
-        rowsLock.readLock().lock();
-        try {
-            return new ArrayList<>(this.rows.values());
-        } finally {
-            rowsLock.readLock().unlock();
-        }
+        return Collections.unmodifiableCollection(this.rows.values());
     }
 }
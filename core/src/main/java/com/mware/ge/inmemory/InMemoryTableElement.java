@@ -48,15 +48,13 @@ import com.mware.ge.values.storable.Value;
 
 import java.io.Serializable;
 import java.util.*;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public abstract class InMemoryTableElement<TElement extends InMemoryElement> implements Serializable {
     private final String id;
-    private ReadWriteLock mutationLock= new ReentrantReadWriteLock();
-    private TreeSet<Mutation> mutations = new TreeSet<>();
+    private volatile MutationSnapshot snapshot = MutationSnapshot.EMPTY;
 
     protected InMemoryTableElement(String id) {
         if (null == id) {
@@ -70,11 +68,8 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     public void addAll(Mutation... newMutations) {
-        mutationLock.writeLock().lock();
-        try {
-            Collections.addAll(mutations, newMutations);
-        } finally {
-            mutationLock.writeLock().unlock();
+        synchronized (this) {
+            snapshot = snapshot.with(newMutations);
         }
     }
 
@@ -83,20 +78,20 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     public <T extends Mutation> T findLastMutation(Class<T> clazz) {
-        List<Mutation> filteredMutations = getFilteredMutations(m -> clazz.isAssignableFrom(m.getClass()));
+        List<Mutation> filteredMutations = snapshot.getMutations(clazz);
         //noinspection unchecked
         return filteredMutations.isEmpty() ? null : (T) filteredMutations.get(filteredMutations.size() - 1);
     }
 
     protected <T extends Mutation> T findFirstMutation(Class<T> clazz) {
-        List<Mutation> filteredMutations = getFilteredMutations(m -> clazz.isAssignableFrom(m.getClass()));
+        List<Mutation> filteredMutations = snapshot.getMutations(clazz);
         //noinspection unchecked
         return filteredMutations.isEmpty() ? null : (T) filteredMutations.get(0);
     }
 
     protected <T extends Mutation> Iterable<T> findMutations(Class<T> clazz) {
         //noinspection unchecked
-        return (Iterable<T>) getFilteredMutations(m -> clazz.isAssignableFrom(m.getClass()));
+        return (Iterable<T>) (Iterable<?>) snapshot.getMutations(clazz);
     }
 
     public Visibility getVisibility() {
@@ -116,7 +111,9 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     public Property getProperty(String key, String name, Visibility visibility, FetchHints fetchHints, Authorizations authorizations) {
-        List<PropertyMutation> propertyMutations = findPropertyMutations(key, name, visibility);
+        List<PropertyMutation> propertyMutations = key != null && name != null && visibility != null
+                ? findPropertyMutations(snapshot.getCurrentPropertyMutations(), key, name, visibility)
+                : findPropertyMutations(key, name, visibility);
         if (propertyMutations == null || propertyMutations.size() == 0) {
             return null;
         }
@@ -132,16 +129,15 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     protected void deleteProperty(Property p) {
-        List<PropertyMutation> propertyMutations = findPropertyMutations(p);
-        mutationLock.writeLock().lock();
-        try {
-            this.mutations.removeAll(propertyMutations);
-        } finally {
-            mutationLock.writeLock().unlock();
+        synchronized (this) {
+            snapshot = snapshot.without(findPropertyMutations(p));
         }
     }
 
     private List<PropertyMutation> findPropertyMutations(String key, String name, Visibility visibility) {
+        if (key != null && name != null && visibility != null) {
+            return findPropertyMutations(snapshot.getPropertyMutations(), key, name, visibility);
+        }
         return getFilteredMutations(m ->
                 m instanceof PropertyMutation &&
                         (key == null || ((PropertyMutation)m).getPropertyKey().equals(key))
@@ -150,6 +146,23 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
         ).stream().map(m -> (PropertyMutation)m).collect(Collectors.toList());
     }
 
+    private static List<PropertyMutation> findPropertyMutations(
+            Map<String, List<PropertyMutation>> propertyMutationsByKey,
+            String key,
+            String name,
+            Visibility visibility
+    ) {
+        List<PropertyMutation> propertyMutations = propertyMutationsByKey.get(toMapKey(name, key, visibility));
+        if (propertyMutations == null) {
+            return Collections.emptyList();
+        }
+        return propertyMutations.stream()
+                .filter(m -> m.getPropertyKey().equals(key)
+                        && m.getPropertyName().equals(name)
+                        && m.getPropertyVisibility().equals(visibility))
+                .collect(Collectors.toList());
+    }
+
     public Iterable<HistoricalPropertyValue> getHistoricalPropertyValues(
             String key,
             String name,
@@ -232,15 +245,20 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     public Iterable<Property> getProperties(final FetchHints fetchHints, Long endTime, final Authorizations authorizations) {
-        final TreeMap<String, List<PropertyMutation>> propertiesMutations = new TreeMap<>();
-        for (PropertyMutation m : findMutations(PropertyMutation.class)) {
-            if (endTime != null && m.getTimestamp() > endTime) {
-                continue;
-            }
+        final Map<String, List<PropertyMutation>> propertiesMutations;
+        if (endTime == null) {
+            propertiesMutations = snapshot.getCurrentPropertyMutations();
+        } else {
+            propertiesMutations = new TreeMap<>();
+            for (PropertyMutation m : findMutations(PropertyMutation.class)) {
+                if (m.getTimestamp() > endTime) {
+                    continue;
+                }
 
-            String mapKey = toMapKey(m);
-            List<PropertyMutation> propertyMutations = propertiesMutations.computeIfAbsent(mapKey, k -> new ArrayList<>());
-            propertyMutations.add(m);
+                String mapKey = toMapKey(m);
+                List<PropertyMutation> propertyMutations = propertiesMutations.computeIfAbsent(mapKey, k -> new ArrayList<>());
+                propertyMutations.add(m);
+            }
         }
         return new LookAheadIterable<List<PropertyMutation>, Property>() {
             @Override
@@ -326,8 +344,12 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
         return streamingPropertyValueRef.toStreamingPropertyValue(null, timestamp);
     }
 
-    private String toMapKey(PropertyMutation m) {
-        return m.getPropertyName() + m.getPropertyKey() + m.getPropertyVisibility().getVisibilityString();
+    private static String toMapKey(PropertyMutation m) {
+        return toMapKey(m.getPropertyName(), m.getPropertyKey(), m.getPropertyVisibility());
+    }
+
+    private static String toMapKey(String name, String key, Visibility visibility) {
+        return name + key + visibility.getVisibilityString();
     }
 
     public void appendSoftDeleteMutation(Long timestamp) {
@@ -441,25 +463,11 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     public Set<Visibility> getHiddenVisibilities() {
-        Set<Visibility> results = new HashSet<>();
-
-        mutationLock.readLock().lock();
-        try {
-            for (Mutation m : this.mutations) {
-                if (m instanceof MarkHiddenMutation) {
-                    results.add(m.getVisibility());
-                } else if (m instanceof MarkVisibleMutation) {
-                    results.remove(m.getVisibility());
-                }
-            }
-        } finally {
-            mutationLock.readLock().unlock();
-        }
-        return results;
+        return new HashSet<>(snapshot.getHiddenVisibilities());
     }
 
     public boolean isHidden(Authorizations authorizations) {
-        for (Visibility visibility : getHiddenVisibilities()) {
+        for (Visibility visibility : snapshot.getHiddenVisibilities()) {
             if (authorizations.canRead(visibility)) {
                 return true;
             }
@@ -482,33 +490,185 @@ public abstract class InMemoryTableElement<TElement extends InMemoryElement> imp
     }
 
     public boolean isDeleted(Long endTime, Authorizations authorizations) {
-        List<Mutation> filteredMutations = getFilteredMutations(m ->
-                canRead(m.getVisibility(), authorizations) &&
-                        (endTime == null || m.getTimestamp() <= endTime) &&
-                        (m instanceof SoftDeleteMutation || m instanceof ElementTimestampMutation)
-        );
-        return filteredMutations.isEmpty() || filteredMutations.get(filteredMutations.size() - 1) instanceof SoftDeleteMutation;
+        MutationSnapshot snapshot = this.snapshot;
+        Mutation lastTimestamp = findLastReadable(snapshot.getMutations(ElementTimestampMutation.class), endTime, authorizations);
+        Mutation lastSoftDelete = findLastReadable(snapshot.getMutations(SoftDeleteMutation.class), endTime, authorizations);
+        if (lastSoftDelete == null) {
+            return lastTimestamp == null;
+        }
+        return lastTimestamp == null || lastSoftDelete.compareTo(lastTimestamp) > 0;
+    }
+
+    private static Mutation findLastReadable(List<Mutation> mutations, Long endTime, Authorizations authorizations) {
+        for (int i = mutations.size() - 1; i >= 0; i--) {
+            Mutation m = mutations.get(i);
+            if ((endTime == null || m.getTimestamp() <= endTime) && canRead(m.getVisibility(), authorizations)) {
+                return m;
+            }
+        }
+        return null;
     }
 
     protected abstract TElement createElementInternal(InMemoryGraph graph, FetchHints fetchHints, Long endTime, Authorizations authorizations);
 
     private List<Mutation> getFilteredMutations(Predicate<Mutation> filter) {
-        mutationLock.readLock().lock();
-        try {
-            return this.mutations.stream()
-                    .filter(filter)
-                    .collect(Collectors.toList());
-        } finally {
-            mutationLock.readLock().unlock();
-        }
+        return Arrays.stream(snapshot.mutations)
+                .filter(filter)
+                .collect(Collectors.toList());
     }
 
     private void addMutation(Mutation mutation) {
-        mutationLock.writeLock().lock();
-        try {
-            this.mutations.add(mutation);
-        } finally {
-            mutationLock.writeLock().unlock();
+        addAll(mutation);
+    }
+
+    /**
+     * Immutable, sorted copy of the mutations of an element. Writers replace the whole snapshot while holding the
+     * element monitor, so readers never lock and the views derived from the mutations are built once per snapshot
+     * instead of being replayed on every read.
+     */
+    private static class MutationSnapshot implements Serializable {
+        private static final MutationSnapshot EMPTY = new MutationSnapshot(new Mutation[0]);
+
+        private final Mutation[] mutations;
+        private transient volatile Map<Class<?>, List<Mutation>> mutationsByClass;
+        private transient volatile Map<String, List<PropertyMutation>> propertyMutations;
+        private transient volatile Map<String, List<PropertyMutation>> currentPropertyMutations;
+        private transient volatile Set<Visibility> hiddenVisibilities;
+
+        private MutationSnapshot(Mutation[] mutations) {
+            this.mutations = mutations;
+        }
+
+        MutationSnapshot with(Mutation... newMutations) {
+            Mutation[] added = newMutations.clone();
+            Arrays.sort(added);
+            Mutation[] merged = new Mutation[mutations.length + added.length];
+            int i = 0, j = 0, k = 0;
+            while (i < mutations.length || j < added.length) {
+                Mutation next;
+                if (j == added.length) {
+                    next = mutations[i++];
+                } else if (i == mutations.length) {
+                    next = added[j++];
+                } else {
+                    int compare = mutations[i].compareTo(added[j]);
+                    if (compare == 0) {
+                        j++;
+                        continue;
+                    }
+                    next = compare < 0 ? mutations[i++] : added[j++];
+                }
+                if (k == 0 || merged[k - 1].compareTo(next) != 0) {
+                    merged[k++] = next;
+                }
+            }
+            return new MutationSnapshot(k == merged.length ? merged : Arrays.copyOf(merged, k));
+        }
+
+        MutationSnapshot without(Collection<? extends Mutation> removed) {
+            if (removed.isEmpty()) {
+                return this;
+            }
+            Set<Mutation> removedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            removedSet.addAll(removed);
+            return new MutationSnapshot(Arrays.stream(mutations)
+                    .filter(m -> !removedSet.contains(m))
+                    .toArray(Mutation[]::new));
+        }
+
+        List<Mutation> getMutations(Class<?> clazz) {
+            Map<Class<?>, List<Mutation>> byClass = mutationsByClass;
+            if (byClass == null) {
+                byClass = new ConcurrentHashMap<>();
+                mutationsByClass = byClass;
+            }
+            return byClass.computeIfAbsent(clazz, c -> Collections.unmodifiableList(Arrays.stream(mutations)
+                    .filter(m -> c.isAssignableFrom(m.getClass()))
+                    .collect(Collectors.toList())));
+        }
+
+        Map<String, List<PropertyMutation>> getPropertyMutations() {
+            Map<String, List<PropertyMutation>> result = propertyMutations;
+            if (result == null) {
+                TreeMap<String, List<PropertyMutation>> byKey = new TreeMap<>();
+                for (Mutation m : getMutations(PropertyMutation.class)) {
+                    byKey.computeIfAbsent(toMapKey((PropertyMutation) m), k -> new ArrayList<>()).add((PropertyMutation) m);
+                }
+                result = Collections.unmodifiableMap(byKey);
+                propertyMutations = result;
+            }
+            return result;
+        }
+
+        /**
+         * Property mutations without the values, metadata and soft deletes overwritten by a later value, which is
+         * all {@link #toProperty(List, FetchHints, Authorizations)} needs to build the current property.
+         */
+        Map<String, List<PropertyMutation>> getCurrentPropertyMutations() {
+            Map<String, List<PropertyMutation>> result = currentPropertyMutations;
+            if (result == null) {
+                TreeMap<String, List<PropertyMutation>> byKey = new TreeMap<>();
+                for (Map.Entry<String, List<PropertyMutation>> entry : getPropertyMutations().entrySet()) {
+                    byKey.put(entry.getKey(), compactPropertyMutations(entry.getValue()));
+                }
+                result = Collections.unmodifiableMap(byKey);
+                currentPropertyMutations = result;
+            }
+            return result;
+        }
+
+        private static List<PropertyMutation> compactPropertyMutations(List<PropertyMutation> propertyMutations) {
+            int lastValue = -1;
+            for (int i = propertyMutations.size() - 1; i >= 0; i--) {
+                if (propertyMutations.get(i) instanceof AddPropertyValueMutation) {
+                    lastValue = i;
+                    break;
+                }
+            }
+            if (lastValue <= 0) {
+                return propertyMutations;
+            }
+
+            PropertyMutation value = propertyMutations.get(lastValue);
+            List<PropertyMutation> result = new ArrayList<>();
+            PropertyMutation lastSoftDelete = null;
+            for (int i = 0; i < lastValue; i++) {
+                PropertyMutation m = propertyMutations.get(i);
+                if (!m.getPropertyKey().equals(value.getPropertyKey())
+                        || !m.getPropertyName().equals(value.getPropertyName())
+                        || !m.getPropertyVisibility().equals(value.getPropertyVisibility())) {
+                    return propertyMutations;
+                }
+                if (m instanceof MarkPropertyHiddenMutation || m instanceof MarkPropertyVisibleMutation) {
+                    result.add(m);
+                } else if (m instanceof SoftDeletePropertyMutation) {
+                    lastSoftDelete = m;
+                }
+            }
+            // keep a soft delete so readers that can not see the value still get the property as deleted
+            if (lastSoftDelete != null) {
+                result.add(lastSoftDelete);
+                result.sort(Comparator.naturalOrder());
+            }
+            result.addAll(propertyMutations.subList(lastValue, propertyMutations.size()));
+            return result;
+        }
+
+        Set<Visibility> getHiddenVisibilities() {
+            Set<Visibility> result = hiddenVisibilities;
+            if (result == null) {
+                Set<Visibility> visibilities = new HashSet<>();
+                for (Mutation m : mutations) {
+                    if (m instanceof MarkHiddenMutation) {
+                        visibilities.add(m.getVisibility());
+                    } else if (m instanceof MarkVisibleMutation) {
+                        visibilities.remove(m.getVisibility());
+                    }
+                }
+                result = Collections.unmodifiableSet(visibilities);
+                hiddenVisibilities = result;
+            }
+            return result;
         }
     }
 }
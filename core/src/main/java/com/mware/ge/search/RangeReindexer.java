@@ -0,0 +1,236 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.search;
+
+import com.mware.ge.*;
+import com.mware.ge.metric.Counter;
+import com.mware.ge.util.GeLogger;
+import com.mware.ge.util.GeLoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reindexes the elements of a graph by splitting the element id space into ranges which are sent to the search
+ * index in parallel. Each range that completes is recorded in the graph metadata so a reindex that failed or was
+ * stopped resumes where it left off. The checkpoints are removed once all ranges of an element type are done.
+ */
+public class RangeReindexer {
+    private static final GeLogger LOGGER = GeLoggerFactory.getLogger(RangeReindexer.class);
+    public static final String METADATA_CHECKPOINT_PREFIX = "reindex.completedRange.";
+    private static final long PROGRESS_LOG_INTERVAL_MILLIS = 30_000;
+    private final GraphBaseWithSearchIndex graph;
+    private final int threadCount;
+    private final int batchSize;
+    private final List<IdRange> ranges;
+    private final Counter elementsCounter;
+
+    public RangeReindexer(GraphBaseWithSearchIndex graph, boolean splitIdRanges) {
+        GraphConfiguration configuration = graph.getConfiguration();
+        this.graph = graph;
+        this.threadCount = configuration.getReindexThreads();
+        this.batchSize = configuration.getReindexBatchSize();
+        this.ranges = splitIdRanges
+                ? splitIdRanges(configuration.getReindexRangeAlphabet(), configuration.getReindexRangePrefixLength())
+                : Collections.singletonList(new IdRange(null, null));
+        this.elementsCounter = graph.getMetricsRegistry().getCounter(RangeReindexer.class, "elements", "counter");
+    }
+
+    /**
+     * Splits the whole id space on every prefix of the given length built from the alphabet. The first and last
+     * ranges are open ended so ids starting with characters outside the alphabet are still included.
+     */
+    public static List<IdRange> splitIdRanges(String alphabet, int prefixLength) {
+        SortedSet<Character> chars = new TreeSet<>();
+        for (char c : alphabet.toCharArray()) {
+            chars.add(c);
+        }
+        List<String> prefixes = new ArrayList<>();
+        prefixes.add("");
+        for (int i = 0; i < prefixLength; i++) {
+            List<String> longerPrefixes = new ArrayList<>(prefixes.size() * chars.size());
+            for (String prefix : prefixes) {
+                for (Character c : chars) {
+                    longerPrefixes.add(prefix + c);
+                }
+            }
+            prefixes = longerPrefixes;
+        }
+
+        List<IdRange> ranges = new ArrayList<>(prefixes.size() + 1);
+        String start = null;
+        for (String prefix : prefixes) {
+            ranges.add(new IdRange(start, prefix));
+            start = prefix;
+        }
+        ranges.add(new IdRange(start, null));
+        return ranges;
+    }
+
+    public void reindex(ElementType elementType, Authorizations authorizations) {
+        Map<String, IdRange> pendingRanges = new LinkedHashMap<>();
+        for (IdRange range : ranges) {
+            pendingRanges.put(getCheckpointKey(elementType, range), range);
+        }
+        long previouslyReindexed = 0;
+        for (GraphMetadataEntry entry : graph.getMetadataWithPrefix(getCheckpointPrefix(elementType))) {
+            if (pendingRanges.remove(entry.getKey()) != null && entry.getValue() instanceof Long) {
+                previouslyReindexed += (Long) entry.getValue();
+            }
+        }
+        if (pendingRanges.size() < ranges.size()) {
+            LOGGER.info(
+                    "resuming %s reindex, %d of %d ranges (%d elements) already completed",
+                    elementType, ranges.size() - pendingRanges.size(), ranges.size(), previouslyReindexed
+            );
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threadCount, Math.max(1, pendingRanges.size())), r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("ge-reindex-" + thread.getId());
+            return thread;
+        });
+        try {
+            CompletionService<Long> completionService = new ExecutorCompletionService<>(executorService);
+            AtomicLong reindexed = new AtomicLong();
+            for (Map.Entry<String, IdRange> pendingRange : pendingRanges.entrySet()) {
+                completionService.submit(() -> reindexRange(elementType, pendingRange.getKey(), pendingRange.getValue(), reindexed, authorizations));
+            }
+
+            long startTime = System.currentTimeMillis();
+            long lastLogTime = startTime;
+            int completed = 0;
+            while (completed < pendingRanges.size()) {
+                Future<Long> future = completionService.poll(PROGRESS_LOG_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (future != null) {
+                    future.get();
+                    completed++;
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastLogTime >= PROGRESS_LOG_INTERVAL_MILLIS || completed == pendingRanges.size()) {
+                    logProgress(elementType, completed, pendingRanges.size(), reindexed.get(), now - startTime);
+                    lastLogTime = now;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GeException("Interrupted while reindexing " + elementType + ", completed ranges resume on the next run", ex);
+        } catch (ExecutionException ex) {
+            throw new GeException("Could not reindex " + elementType + ", completed ranges resume on the next run", ex.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+        clearCheckpoints(graph, elementType);
+    }
+
+    private long reindexRange(ElementType elementType, String checkpointKey, IdRange range, AtomicLong reindexed, Authorizations authorizations) {
+        SearchIndex searchIndex = graph.getSearchIndex();
+        FetchHints fetchHints = graph.getDefaultFetchHints();
+        Iterable<? extends Element> elements = elementType == ElementType.VERTEX
+                ? graph.getVerticesInRange(range, fetchHints, authorizations)
+                : graph.getEdgesInRange(range, fetchHints, authorizations);
+
+        long count = 0;
+        List<Element> batch = new ArrayList<>(batchSize);
+        for (Element element : elements) {
+            batch.add(element);
+            if (batch.size() == batchSize) {
+                count += addElements(searchIndex, batch, reindexed, authorizations);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (batch.size() > 0) {
+            count += addElements(searchIndex, batch, reindexed, authorizations);
+        }
+
+        // the range is only checkpointed once the search index has accepted all of its elements
+        searchIndex.flush(graph);
+        graph.setMetadata(checkpointKey, count);
+        LOGGER.debug("reindexed %s range %s (%d elements)", elementType, range, count);
+        return count;
+    }
+
+    private int addElements(SearchIndex searchIndex, List<Element> batch, AtomicLong reindexed, Authorizations authorizations) {
+        searchIndex.addElements(graph, batch, authorizations);
+        reindexed.addAndGet(batch.size());
+        elementsCounter.increment(batch.size());
+        return batch.size();
+    }
+
+    private void logProgress(ElementType elementType, int completedRanges, int totalRanges, long reindexed, long elapsedMillis) {
+        double elementsPerSecond = elapsedMillis == 0 ? 0 : reindexed * 1000.0 / elapsedMillis;
+        String eta = completedRanges == 0
+                ? "unknown"
+                : Duration.ofMillis(elapsedMillis * (totalRanges - completedRanges) / completedRanges).toString();
+        LOGGER.info(
+                "reindexing %s: %d/%d ranges, %d elements, %.1f elements/s, eta %s",
+                elementType, completedRanges, totalRanges, reindexed, elementsPerSecond, eta
+        );
+    }
+
+    /**
+     * Removes the ranges recorded by a previous reindex so the next reindex starts from the beginning.
+     */
+    public static void clearCheckpoints(Graph graph) {
+        for (ElementType elementType : ElementType.values()) {
+            clearCheckpoints(graph, elementType);
+        }
+    }
+
+    private static void clearCheckpoints(Graph graph, ElementType elementType) {
+        List<String> keys = new ArrayList<>();
+        for (GraphMetadataEntry entry : graph.getMetadataWithPrefix(getCheckpointPrefix(elementType))) {
+            keys.add(entry.getKey());
+        }
+        for (String key : keys) {
+            graph.removeMetadata(key);
+        }
+    }
+
+    private static String getCheckpointPrefix(ElementType elementType) {
+        return METADATA_CHECKPOINT_PREFIX + elementType.name() + ".";
+    }
+
+    private static String getCheckpointKey(ElementType elementType, IdRange range) {
+        String start = range.getStart() == null ? "" : range.getStart();
+        String end = range.getEnd() == null ? "" : range.getEnd();
+        return getCheckpointPrefix(elementType) + start + "-" + end;
+    }
+}
@@ -49,6 +49,7 @@ import com.mware.ge.id.SimpleNameSubstitutionStrategy;
 import com.mware.ge.mutation.*;
 import com.mware.ge.property.MutableProperty;
 import com.mware.ge.property.PropertyDescriptor;
+import com.mware.ge.query.QueryBase;
 import com.mware.ge.search.IndexHint;
 import com.mware.ge.security.ColumnVisibility;
 import com.mware.ge.serializer.GeSerializer;
@@ -57,6 +58,7 @@ import com.mware.ge.store.mutations.StoreMutation;
 import com.mware.ge.store.util.StorableKeyHelper;
 import com.mware.ge.store.util.StreamingPropertyValueStorageStrategy;
 import com.mware.ge.util.ConvertingIterable;
+import com.mware.ge.util.FilterIterable;
 import com.mware.ge.util.GeLogger;
 import com.mware.ge.util.GeLoggerFactory;
 import com.mware.ge.util.IncreasingTime;
@@ -66,6 +68,7 @@ import com.mware.ge.values.storable.StreamingPropertyValueRef;
 import java.io.InputStream;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -366,6 +369,9 @@ public abstract class AbstractStorableGraph<V extends StorableVertex, E extends
         StoreMutation m = new StoreMutation(element.getId());
         elementMutationBuilder.addPropertyDeleteToMutation(m, property);
         addMutations(element, m);
+        if (property.getValue() instanceof StreamingPropertyValue) {
+            streamingPropertyValueStorageStrategy.deleteStreamingPropertyValue(element.getId(), property);
+        }
 
         getSearchIndex().deleteProperty(
                 this,
@@ -461,6 +467,11 @@ public abstract class AbstractStorableGraph<V extends StorableVertex, E extends
         }
     }
 
+    @Override
+    protected boolean isIdRangeScanSupported() {
+        return true;
+    }
+
     @Override
     public Iterable<Vertex> getVertices(FetchHints fetchHints, Long endTime, Authorizations authorizations) throws GeException {
         return getVerticesInRange(new IdRange(null, null), fetchHints, endTime, authorizations);
@@ -595,12 +606,67 @@ public abstract class AbstractStorableGraph<V extends StorableVertex, E extends
             Authorizations authorizations
     );
 
+    /**
+     * Gets the rows in the ranges matching all the filters. Stores evaluating the filters while decoding the rows
+     * should override this, by default the filter properties are fetched as well and the decoded rows are tested.
+     */
+    protected Iterable<ExtendedDataRow> getExtendedDataRowsInRange(
+            List<IdRange> ranges,
+            FetchHints fetchHints,
+            List<QueryBase.HasValueContainer> filters,
+            Authorizations authorizations
+    ) {
+        if (filters.isEmpty()) {
+            return getExtendedDataRowsInRange(ranges, fetchHints, authorizations);
+        }
+        Set<String> filterPropertyNames = new HashSet<>();
+        filters.forEach(filter -> filterPropertyNames.addAll(filter.keys));
+        return new FilterIterable<ExtendedDataRow>(getExtendedDataRowsInRange(
+                ranges,
+                fetchHints.withPropertiesIncluded(filterPropertyNames),
+                authorizations
+        )) {
+            @Override
+            protected boolean isIncluded(ExtendedDataRow row) {
+                return filters.stream().allMatch(filter -> filter.isMatch(row));
+            }
+        };
+    }
+
     @Override
     public Iterable<ExtendedDataRow> getExtendedDataForElements(
             Iterable<? extends ElementId> elementIdsArg,
             String tableName,
             FetchHints fetchHints,
             Authorizations authorizations
+    ) {
+        return getExtendedDataForElements(
+                elementIdsArg,
+                tableName,
+                ranges -> getExtendedDataRowsInRange(ranges, fetchHints, authorizations)
+        );
+    }
+
+    @Override
+    public Iterable<ExtendedDataRow> getExtendedDataForElements(
+            Iterable<? extends ElementId> elementIdsArg,
+            String tableName,
+            FetchHints fetchHints,
+            Iterable<QueryBase.HasValueContainer> filters,
+            Authorizations authorizations
+    ) {
+        List<QueryBase.HasValueContainer> filterList = toList(filters);
+        return getExtendedDataForElements(
+                elementIdsArg,
+                tableName,
+                ranges -> getExtendedDataRowsInRange(ranges, fetchHints, filterList, authorizations)
+        );
+    }
+
+    private Iterable<ExtendedDataRow> getExtendedDataForElements(
+            Iterable<? extends ElementId> elementIdsArg,
+            String tableName,
+            Function<List<IdRange>, Iterable<ExtendedDataRow>> getRowsInRanges
     ) {
         List<? extends ElementId> elementIds = toList(elementIdsArg);
         try {
@@ -615,7 +681,7 @@ public abstract class AbstractStorableGraph<V extends StorableVertex, E extends
             if (ranges.size() == 0) {
                 return Collections.emptyList();
             }
-            return getExtendedDataRowsInRange(ranges, fetchHints, authorizations);
+            return getRowsInRanges.apply(ranges);
         } catch (IllegalStateException ex) {
             throw new GeException("Failed to get extended data: " + Joiner.on(", ").join(elementIds) + ":" + tableName, ex);
         }
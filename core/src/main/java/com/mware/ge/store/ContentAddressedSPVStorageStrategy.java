@@ -0,0 +1,166 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.store;
+
+import com.mware.ge.GeException;
+import com.mware.ge.Graph;
+import com.mware.ge.GraphConfiguration;
+import com.mware.ge.Property;
+import com.mware.ge.store.mutations.ElementMutationBuilder;
+import com.mware.ge.store.util.StreamingPropertyValueStorageStrategy;
+import com.mware.ge.util.GeLogger;
+import com.mware.ge.util.GeLoggerFactory;
+import com.mware.ge.values.storable.StreamingPropertyValue;
+import com.mware.ge.values.storable.StreamingPropertyValueRef;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Stores streaming property values in large append-only segment files addressed by content hash, see
+ * {@link SPVSegmentStore}. Identical values are stored once. Each value records the properties referring to it, by
+ * row key, property key, name and visibility, and deleting a property removes it from the referrers of its value.
+ * Deleting the same property twice, from a stale element or a retried request, doesn't affect the other properties
+ * sharing the value.
+ * <p>
+ * Overwritten values and the values of deleted elements keep their referrer, they are never collected. With the
+ * history kept in a separate table deleted properties keep their referrer as well, since old versions still
+ * point to them. Garbage collection only runs when graph.spvGcEnabled is set.
+ */
+public class ContentAddressedSPVStorageStrategy implements StreamingPropertyValueStorageStrategy {
+    private static final GeLogger LOGGER = GeLoggerFactory.getLogger(ContentAddressedSPVStorageStrategy.class);
+    private final SPVSegmentStore segmentStore;
+    private final double gcDeadRatio;
+    private final boolean gcEnabled;
+    private final boolean releaseOnDelete;
+
+    public ContentAddressedSPVStorageStrategy(Graph graph, GraphConfiguration configuration) {
+        if (!(configuration instanceof StorableGraphConfiguration)) {
+            throw new GeException("Expected " + StorableGraphConfiguration.class.getName() + " found " + configuration.getClass().getName());
+        }
+        if (!(graph instanceof AbstractStorableGraph)) {
+            throw new GeException("Expected " + AbstractStorableGraph.class.getName() + " found " + graph.getClass().getName());
+        }
+
+        StorableGraphConfiguration config = (StorableGraphConfiguration) configuration;
+        this.segmentStore = new SPVSegmentStore(config.createSPVFolder(), config.getSpvSegmentSize(), config.getSpvMmapThreshold());
+        this.gcDeadRatio = config.getSpvGcDeadRatio();
+        this.gcEnabled = config.isSpvGcEnabled();
+        this.releaseOnDelete = !config.isHistoryInSeparateTable();
+    }
+
+    ContentAddressedSPVStorageStrategy(Path dataFolder, long segmentSize, int mmapThreshold, double gcDeadRatio) {
+        this.segmentStore = new SPVSegmentStore(dataFolder, segmentSize, mmapThreshold);
+        this.gcDeadRatio = gcDeadRatio;
+        this.gcEnabled = true;
+        this.releaseOnDelete = true;
+    }
+
+    @Override
+    public StreamingPropertyValueRef saveStreamingPropertyValue(ElementMutationBuilder elementMutationBuilder, String rowKey, Property property, StreamingPropertyValue streamingPropertyValue) {
+        try {
+            SPVSegmentStore.Entry entry = segmentStore.put(streamingPropertyValue.getInputStream(), streamingPropertyValue.getLength(), referrer(rowKey, property));
+            return new StreamingPropertyValueSegmentRef(entry.getHash().getBytes(), entry.getLength(), streamingPropertyValue);
+        } catch (IOException ex) {
+            throw new GeException("Could not save streaming property value for rowkey=" + rowKey + ", property=" + property, ex);
+        }
+    }
+
+    @Override
+    public void deleteStreamingPropertyValue(String rowKey, Property property) {
+        if (!releaseOnDelete || !(property.getValue() instanceof StreamingPropertyValueSegmentRef.StreamingPropertyValueSegment)) {
+            return;
+        }
+        StreamingPropertyValueSegmentRef ref = ((StreamingPropertyValueSegmentRef.StreamingPropertyValueSegment) property.getValue()).getRef();
+        try {
+            segmentStore.release(new SPVSegmentStore.ContentHash(ref.getHash()), referrer(rowKey, property));
+        } catch (IOException ex) {
+            throw new GeException("Could not release streaming property value", ex);
+        }
+    }
+
+    private static String referrer(String rowKey, Property property) {
+        return rowKey + '\u001f' + property.getKey() + '\u001f' + property.getName() + '\u001f' + property.getVisibility().getVisibilityString();
+    }
+
+    /**
+     * Drops the values no property refers to and rewrites the segments where they take at least
+     * graph.spvGcDeadRatio of the space. Does nothing unless graph.spvGcEnabled is set.
+     */
+    public void collectGarbage() {
+        if (!gcEnabled) {
+            LOGGER.warn("Streaming property value garbage collection is disabled, set graph.spvGcEnabled to enable it");
+            return;
+        }
+        try {
+            segmentStore.collectGarbage(gcDeadRatio);
+        } catch (IOException ex) {
+            throw new GeException("Could not collect streaming property value garbage", ex);
+        }
+    }
+
+    InputStream getInputStream(StreamingPropertyValueSegmentRef ref, long offset, long length) {
+        try {
+            return segmentStore.open(new SPVSegmentStore.ContentHash(ref.getHash()), offset, length);
+        } catch (IOException ex) {
+            throw new GeException("Could not open streaming property value", ex);
+        }
+    }
+
+    SPVSegmentStore getSegmentStore() {
+        return segmentStore;
+    }
+
+    @Override
+    public void close() {
+        try {
+            segmentStore.close();
+        } catch (IOException ex) {
+            throw new GeException("Could not close streaming property value store", ex);
+        }
+    }
+
+    @Override
+    public List<InputStream> getInputStreams(List<StreamingPropertyValue> streamingPropertyValues) {
+        return streamingPropertyValues.stream()
+                .map(StreamingPropertyValue::getInputStream)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,713 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.store;
+
+import com.mware.ge.GeException;
+import com.mware.ge.util.GeLogger;
+import com.mware.ge.util.GeLoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content addressed storage for streaming property values. Values are appended to large segment files and addressed
+ * by the SHA-256 hash of their content, so a value stored twice takes space once. Each value keeps the set of
+ * referrers (the properties holding it), so releasing the same referrer twice is harmless, and
+ * {@link #collectGarbage(double)} rewrites the segments where values without referrers take too much space.
+ * <p>
+ * The location and referrers of every value are kept in memory and persisted to an append-only journal, which is
+ * replayed when the store is opened and rewritten when it grows much larger than the index. A value is forced to its
+ * segment before the journal records it, and values extending past the end of their segment are dropped on replay.
+ * Segments are sharded on two directory levels: segments/00/01/00000123.seg
+ */
+class SPVSegmentStore implements Closeable {
+    private static final GeLogger LOGGER = GeLoggerFactory.getLogger(SPVSegmentStore.class);
+    static final int HASH_LENGTH = 32;
+    private static final String SEGMENTS_DIR = "segments";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String JOURNAL_FILE = "index.log";
+    private static final byte OP_PUT = 1;
+    private static final byte OP_ADD_REFERRER = 2;
+    private static final byte OP_DROP = 3;
+    private static final byte OP_REMOVE_REFERRER = 4;
+    private static final int PUT_RECORD_LENGTH = 1 + HASH_LENGTH + 4 + 8 + 8;
+    private static final int REFERRER_RECORD_LENGTH = 1 + HASH_LENGTH + 4;
+    private static final int DROP_RECORD_LENGTH = 1 + HASH_LENGTH;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // values up to this size are hashed before they are written, larger ones while they are written
+    private static final int IN_MEMORY_LIMIT = 1024 * 1024;
+
+    private final Path root;
+    private final long segmentSize;
+    private final int mmapThreshold;
+    private final Map<ContentHash, Entry> index = new ConcurrentHashMap<>();
+    private final Map<Integer, FileChannel> readChannels = new ConcurrentHashMap<>();
+    // held for writing while segments are closed and deleted by the garbage collector
+    private final ReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+    // reused by put, which is synchronized
+    private final MessageDigest digest = sha256();
+    private final byte[] head = new byte[IN_MEMORY_LIMIT];
+    private FileOutputStream journalOut;
+    private DataOutputStream journal;
+    private long journalRecords;
+    private int activeSegment;
+    private FileChannel activeChannel;
+    private long activeSize;
+
+    SPVSegmentStore(Path root, long segmentSize, int mmapThreshold) {
+        this.root = root;
+        this.segmentSize = segmentSize;
+        this.mmapThreshold = mmapThreshold;
+        try {
+            Files.createDirectories(root.resolve(SEGMENTS_DIR));
+            boolean dropped = replayJournal();
+            if (dropped || journalRecords > 2L * index.size() + 1000) {
+                rewriteJournal();
+            } else {
+                openJournal();
+            }
+            int nextSegment = index.values().stream().mapToInt(e -> e.segment).max().orElse(0) + 1;
+            for (int segment : listSegments()) {
+                nextSegment = Math.max(nextSegment, segment + 1);
+            }
+            // never append to the segments of a previous run, their tail may be torn
+            openActiveSegment(nextSegment);
+        } catch (IOException ex) {
+            throw new GeException("Could not open streaming property value store: " + root, ex);
+        }
+    }
+
+    /**
+     * Stores the content of the stream, or adds the referrer to the identical value already stored.
+     */
+    synchronized Entry put(InputStream in, Long expectedLength, String referrer) throws IOException {
+        digest.reset();
+        int headLength = readFully(in, head);
+        if (headLength < head.length) {
+            digest.update(head, 0, headLength);
+            ContentHash hash = new ContentHash(digest.digest());
+            Entry existing = index.get(hash);
+            if (existing != null) {
+                return addReferrer(existing, referrer);
+            }
+            rollSegment(headLength);
+            long offset = activeSize;
+            write(head, headLength);
+            return add(hash, offset, headLength, referrer);
+        }
+
+        rollSegment(expectedLength == null ? headLength : expectedLength);
+        long offset = activeSize;
+        digest.update(head, 0, headLength);
+        write(head, headLength);
+        int n;
+        while ((n = in.read(head)) != -1) {
+            digest.update(head, 0, n);
+            write(head, n);
+        }
+        ContentHash hash = new ContentHash(digest.digest());
+        Entry existing = index.get(hash);
+        if (existing != null) {
+            activeChannel.truncate(offset);
+            activeSize = offset;
+            return addReferrer(existing, referrer);
+        }
+        return add(hash, offset, activeSize - offset, referrer);
+    }
+
+    /**
+     * Removes the referrer from the value, does nothing if it doesn't refer to it anymore.
+     */
+    synchronized void release(ContentHash hash, String referrer) throws IOException {
+        Entry entry = index.get(hash);
+        if (entry == null || !entry.referrers.remove(referrer)) {
+            return;
+        }
+        // losing this record only keeps the value alive, it's not synced
+        writeReferrer(OP_REMOVE_REFERRER, hash, referrer);
+        journal.flush();
+    }
+
+    /**
+     * Opens a stream over part of a value. Small ranges are copied to the heap, larger ones are memory mapped.
+     */
+    InputStream open(ContentHash hash, long offset, long length) throws IOException {
+        segmentsLock.readLock().lock();
+        try {
+            Entry entry = index.get(hash);
+            if (entry == null) {
+                throw new GeException("Could not find streaming property value: " + hash);
+            }
+            offset = Math.min(Math.max(offset, 0), entry.length);
+            length = Math.min(length, entry.length - offset);
+            long position = entry.offset + offset;
+            if (length < mmapThreshold) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) length);
+                readFully(readChannel(entry.segment), buffer, position);
+                return new ByteArrayInputStream(buffer.array());
+            }
+            if (length <= Integer.MAX_VALUE) {
+                return new ByteBufferInputStream(readChannel(entry.segment).map(FileChannel.MapMode.READ_ONLY, position, length));
+            }
+            // the stream owns its channel so it outlives a garbage collection of the segment
+            return new FileRangeInputStream(FileChannel.open(segmentPath(entry.segment), StandardOpenOption.READ), position, length);
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+    }
+
+    Entry get(ContentHash hash) {
+        return index.get(hash);
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    int getSegmentCount() throws IOException {
+        return listSegments().size();
+    }
+
+    /**
+     * Drops the values without referrers and rewrites every segment, except the one being appended to, where
+     * the space not used by referenced values is at least minDeadRatio of the segment size.
+     */
+    synchronized void collectGarbage(double minDeadRatio) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Map<Integer, List<Entry>> liveEntries = new HashMap<>();
+        for (Iterator<Entry> it = index.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.referrers.isEmpty()) {
+                it.remove();
+                writeDrop(entry.hash);
+            } else {
+                liveEntries.computeIfAbsent(entry.segment, s -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        List<Integer> deadSegments = new ArrayList<>();
+        long movedBytes = 0;
+        for (int segment : listSegments()) {
+            if (segment == activeSegment) {
+                continue;
+            }
+            List<Entry> entries = liveEntries.getOrDefault(segment, Collections.emptyList());
+            long size = Files.size(segmentPath(segment));
+            long liveSize = entries.stream().mapToLong(e -> e.length).sum();
+            if (size > 0 && (double) (size - liveSize) / size < minDeadRatio) {
+                continue;
+            }
+            FileChannel source = readChannel(segment);
+            for (Entry entry : entries) {
+                rollSegment(entry.length);
+                long offset = activeSize;
+                long copied = 0;
+                while (copied < entry.length) {
+                    copied += source.transferTo(entry.offset + copied, entry.length - copied, activeChannel.position(activeSize + copied));
+                }
+                activeSize += entry.length;
+                index.put(entry.hash, new Entry(entry.hash, activeSegment, offset, entry.length, entry.referrers));
+                movedBytes += entry.length;
+            }
+            deadSegments.add(segment);
+        }
+        if (deadSegments.isEmpty()) {
+            journal.flush();
+            return;
+        }
+
+        // the moved values have to be durable before the journal points to them and the segments they were
+        // copied from are deleted, until the journal is rewritten it still points to the old segments
+        activeChannel.force(false);
+        rewriteJournal();
+        segmentsLock.writeLock().lock();
+        try {
+            for (int segment : deadSegments) {
+                FileChannel channel = readChannels.remove(segment);
+                if (channel != null) {
+                    channel.close();
+                }
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+        LOGGER.info("Removed %d streaming property value segments, moved %d bytes (%dms)", deadSegments.size(), movedBytes, System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        journal.close();
+        activeChannel.close();
+        for (FileChannel channel : readChannels.values()) {
+            channel.close();
+        }
+        readChannels.clear();
+    }
+
+    private Entry add(ContentHash hash, long offset, long length, String referrer) throws IOException {
+        Entry entry = new Entry(hash, activeSegment, offset, length, new HashSet<>());
+        entry.referrers.add(referrer);
+        // the journal must never point past the durable end of a segment
+        activeChannel.force(false);
+        writePut(entry);
+        writeReferrer(OP_ADD_REFERRER, hash, referrer);
+        syncJournal();
+        index.put(hash, entry);
+        return entry;
+    }
+
+    private Entry addReferrer(Entry entry, String referrer) throws IOException {
+        if (entry.referrers.add(referrer)) {
+            writeReferrer(OP_ADD_REFERRER, entry.hash, referrer);
+            syncJournal();
+        }
+        return entry;
+    }
+
+    private void syncJournal() throws IOException {
+        journal.flush();
+        journalOut.getFD().sync();
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            activeSize += activeChannel.write(buffer, activeSize);
+        }
+    }
+
+    private void rollSegment(long length) throws IOException {
+        if (activeSize > 0 && activeSize + length > segmentSize) {
+            activeChannel.force(false);
+            activeChannel.close();
+            openActiveSegment(activeSegment + 1);
+        }
+    }
+
+    private void openActiveSegment(int segment) throws IOException {
+        Path path = segmentPath(segment);
+        Files.createDirectories(path.getParent());
+        activeSegment = segment;
+        activeChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        activeSize = activeChannel.size();
+    }
+
+    private FileChannel readChannel(int segment) {
+        return readChannels.computeIfAbsent(segment, s -> {
+            try {
+                return FileChannel.open(segmentPath(s), StandardOpenOption.READ);
+            } catch (IOException ex) {
+                throw new GeException("Could not open streaming property value segment: " + segmentPath(s), ex);
+            }
+        });
+    }
+
+    private Path segmentPath(int segment) {
+        String name = String.format("%08x", segment);
+        return root.resolve(SEGMENTS_DIR)
+                .resolve(name.substring(0, 2))
+                .resolve(name.substring(2, 4))
+                .resolve(name + SEGMENT_SUFFIX);
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        try (Stream<Path> files = Files.walk(root.resolve(SEGMENTS_DIR), 3)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Integer.parseUnsignedInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()), 16))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return true if entries pointing past the end of their segment were dropped
+     */
+    private boolean replayJournal() throws IOException {
+        Path path = root.resolve(JOURNAL_FILE);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+            while (true) {
+                int op = in.read();
+                if (op == -1) {
+                    break;
+                }
+                byte[] hashBytes = new byte[HASH_LENGTH];
+                in.readFully(hashBytes);
+                ContentHash hash = new ContentHash(hashBytes);
+                if (op == OP_PUT) {
+                    int segment = in.readInt();
+                    long offset = in.readLong();
+                    long length = in.readLong();
+                    Entry previous = index.get(hash);
+                    Set<String> referrers = previous == null ? new HashSet<>() : previous.referrers;
+                    index.put(hash, new Entry(hash, segment, offset, length, referrers));
+                    position += PUT_RECORD_LENGTH;
+                } else if (op == OP_ADD_REFERRER || op == OP_REMOVE_REFERRER) {
+                    byte[] referrerBytes = new byte[in.readInt()];
+                    in.readFully(referrerBytes);
+                    String referrer = new String(referrerBytes, StandardCharsets.UTF_8);
+                    Entry entry = index.get(hash);
+                    if (entry != null && op == OP_ADD_REFERRER) {
+                        entry.referrers.add(referrer);
+                    } else if (entry != null) {
+                        entry.referrers.remove(referrer);
+                    }
+                    position += REFERRER_RECORD_LENGTH + referrerBytes.length;
+                } else if (op == OP_DROP) {
+                    index.remove(hash);
+                    position += DROP_RECORD_LENGTH;
+                } else {
+                    throw new GeException("Invalid streaming property value journal record " + op + " at " + position + ": " + path);
+                }
+                journalRecords++;
+            }
+        } catch (EOFException ex) {
+            LOGGER.warn("Truncating the streaming property value journal to the last complete record at %d: %s", position, path);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(position);
+            }
+        }
+        return dropEntriesPastSegmentEnd();
+    }
+
+    /**
+     * A crash can leave a journal record pointing to segment bytes that never reached the disk. The entry has to be
+     * dropped, otherwise every later identical value would be deduplicated to the corrupt one.
+     */
+    private boolean dropEntriesPastSegmentEnd() throws IOException {
+        Map<Integer, Long> segmentSizes = new HashMap<>();
+        boolean dropped = false;
+        for (Iterator<Entry> it = index.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            long segmentSize = segmentSizes.computeIfAbsent(entry.segment, segment -> {
+                Path segmentPath = segmentPath(segment);
+                try {
+                    return Files.exists(segmentPath) ? Files.size(segmentPath) : 0L;
+                } catch (IOException ex) {
+                    throw new GeException("Could not read streaming property value segment size: " + segmentPath, ex);
+                }
+            });
+            if (entry.offset + entry.length > segmentSize) {
+                LOGGER.warn("Dropping streaming property value %s, it ends past its segment %d (%d > %d)", entry.hash, entry.segment, entry.offset + entry.length, segmentSize);
+                it.remove();
+                dropped = true;
+            }
+        }
+        return dropped;
+    }
+
+    private void openJournal() throws IOException {
+        journalOut = new FileOutputStream(root.resolve(JOURNAL_FILE).toFile(), true);
+        journal = new DataOutputStream(new BufferedOutputStream(journalOut, BUFFER_SIZE));
+    }
+
+    private void rewriteJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        Path path = root.resolve(JOURNAL_FILE);
+        Path tmpPath = root.resolve(JOURNAL_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmpPath.toFile())) {
+            journal = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+            journalRecords = 0;
+            for (Entry entry : index.values()) {
+                writePut(entry);
+                for (String referrer : entry.referrers) {
+                    writeReferrer(OP_ADD_REFERRER, entry.hash, referrer);
+                }
+            }
+            journal.flush();
+            out.getFD().sync();
+        }
+        Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openJournal();
+    }
+
+    private void writePut(Entry entry) throws IOException {
+        journal.writeByte(OP_PUT);
+        journal.write(entry.hash.bytes);
+        journal.writeInt(entry.segment);
+        journal.writeLong(entry.offset);
+        journal.writeLong(entry.length);
+        journalRecords++;
+    }
+
+    private void writeReferrer(byte op, ContentHash hash, String referrer) throws IOException {
+        byte[] referrerBytes = referrer.getBytes(StandardCharsets.UTF_8);
+        journal.writeByte(op);
+        journal.write(hash.bytes);
+        journal.writeInt(referrerBytes.length);
+        journal.write(referrerBytes);
+        journalRecords++;
+    }
+
+    private void writeDrop(ContentHash hash) throws IOException {
+        journal.writeByte(OP_DROP);
+        journal.write(hash.bytes);
+        journalRecords++;
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int length = 0;
+        int n;
+        while (length < buffer.length && (n = in.read(buffer, length, buffer.length - length)) != -1) {
+            length += n;
+        }
+        return length;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n == -1) {
+                throw new EOFException("Streaming property value segment ends before the value");
+            }
+            position += n;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new GeException("Could not create SHA-256 digest", ex);
+        }
+    }
+
+    static class ContentHash {
+        private final byte[] bytes;
+        private final int hashCode;
+
+        ContentHash(byte[] bytes) {
+            this.bytes = bytes;
+            // the bytes of a cryptographic hash are already uniformly distributed
+            this.hashCode = (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | (bytes[3] & 0xff);
+        }
+
+        byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ContentHash && Arrays.equals(bytes, ((ContentHash) o).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder();
+            for (byte b : bytes) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        }
+    }
+
+    static class Entry {
+        private final ContentHash hash;
+        private final int segment;
+        private final long offset;
+        private final long length;
+        // changed while holding the store monitor
+        private final Set<String> referrers;
+
+        Entry(ContentHash hash, int segment, long offset, long length, Set<String> referrers) {
+            this.hash = hash;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.referrers = referrers;
+        }
+
+        ContentHash getHash() {
+            return hash;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        int getRefs() {
+            return referrers.size();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.buffer.mark();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            buffer.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.reset();
+        }
+    }
+
+    private static class FileRangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+        private long mark;
+
+        FileRangeInputStream(FileChannel channel, long start, long length) {
+            this.channel = channel;
+            this.end = start + length;
+            this.position = start;
+            this.mark = start;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = mark;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -79,6 +79,22 @@ public abstract class StorableGraphConfiguration extends GraphConfiguration {
         return path;
     }
 
+    public long getSpvSegmentSize() {
+        return get(GraphOptions.SPV_SEGMENT_SIZE);
+    }
+
+    public int getSpvMmapThreshold() {
+        return get(GraphOptions.SPV_MMAP_THRESHOLD);
+    }
+
+    public double getSpvGcDeadRatio() {
+        return get(GraphOptions.SPV_GC_DEAD_RATIO);
+    }
+
+    public boolean isSpvGcEnabled() {
+        return get(GraphOptions.SPV_GC_ENABLED);
+    }
+
     public boolean isElementCacheEnabled() {
         return get(GraphOptions.ELEMENT_CACHE_ENABLED);
     }
@@ -40,6 +40,7 @@ import com.mware.ge.Visibility;
 import com.mware.ge.security.ColumnVisibility;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 public class StoreKey {
     private byte[] id;
@@ -79,6 +80,10 @@ public class StoreKey {
         return vis;
     }
 
+    public boolean hasSameId(StoreKey other) {
+        return Arrays.equals(id, other.id);
+    }
+
     public String id() {
         if (idStr == null)
             idStr = new String(id);
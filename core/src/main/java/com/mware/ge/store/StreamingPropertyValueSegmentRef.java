@@ -0,0 +1,131 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.store;
+
+import com.mware.ge.GeException;
+import com.mware.ge.util.IOUtils;
+import com.mware.ge.values.ValueMapper;
+import com.mware.ge.values.storable.StreamingPropertyValue;
+import com.mware.ge.values.storable.StreamingPropertyValueRef;
+import com.mware.ge.values.storable.ValueWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public class StreamingPropertyValueSegmentRef extends StreamingPropertyValueRef<StorableGraph> {
+    private static final long serialVersionUID = 4218360541730193352L;
+    private byte[] hash;
+    private long length;
+
+    // here for serialization
+    protected StreamingPropertyValueSegmentRef() {
+
+    }
+
+    public StreamingPropertyValueSegmentRef(byte[] hash, long length, StreamingPropertyValue propertyValue) {
+        super(propertyValue);
+        this.hash = hash;
+        this.length = length;
+    }
+
+    public byte[] getHash() {
+        return hash;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public StreamingPropertyValue toStreamingPropertyValue(StorableGraph graph, Long timestamp) {
+        ContentAddressedSPVStorageStrategy strategy = (ContentAddressedSPVStorageStrategy) ((AbstractStorableGraph) graph).getStreamingPropertyValueStorageStrategy();
+        return new StreamingPropertyValueSegment(strategy, this);
+    }
+
+    @Override
+    public <E extends Exception> void writeTo(ValueWriter<E> writer) throws E {
+
+    }
+
+    @Override
+    public Object asObjectCopy() {
+        return null;
+    }
+
+    @Override
+    public <T> T map(ValueMapper<T> mapper) {
+        return null;
+    }
+
+    public static class StreamingPropertyValueSegment extends StreamingPropertyValue {
+        private final transient ContentAddressedSPVStorageStrategy strategy;
+        private final StreamingPropertyValueSegmentRef ref;
+
+        public StreamingPropertyValueSegment(ContentAddressedSPVStorageStrategy strategy, StreamingPropertyValueSegmentRef ref) {
+            super(ref.getValueType());
+            this.searchIndex(ref.isSearchIndex());
+            this.strategy = strategy;
+            this.ref = ref;
+        }
+
+        public StreamingPropertyValueSegmentRef getRef() {
+            return ref;
+        }
+
+        @Override
+        public Long getLength() {
+            return ref.getLength();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return strategy.getInputStream(ref, 0, ref.getLength());
+        }
+
+        /**
+         * Reads only the requested range from the segment.
+         */
+        @Override
+        public String readToString(long offset, long limit) {
+            try (InputStream in = strategy.getInputStream(ref, offset, limit)) {
+                return IOUtils.toString(in);
+            } catch (IOException e) {
+                throw new GeException("Could not read streaming property value into string", e);
+            }
+        }
+    }
+}
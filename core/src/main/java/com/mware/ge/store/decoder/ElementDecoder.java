@@ -41,6 +41,7 @@ import com.mware.ge.FetchHints;
 import com.mware.ge.Visibility;
 import com.mware.ge.collection.Pair;
 import com.mware.ge.collection.PrefetchingIterator;
+import com.mware.ge.metric.Timer;
 import com.mware.ge.security.ArrayByteSequence;
 import com.mware.ge.security.ByteSequence;
 import com.mware.ge.store.StorableElement;
@@ -53,6 +54,7 @@ import com.mware.ge.store.util.SoftDeletedProperty;
 import com.mware.ge.util.LookAheadIterable;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 public abstract class ElementDecoder<T extends ElementData> implements Iterable<T> {
     protected FetchHints fetchHints;
@@ -60,10 +62,12 @@ public abstract class ElementDecoder<T extends ElementData> implements Iterable<
     protected Authorizations authorizations;
     protected StorableGraph graph;
     private PrefetchingIterator<Pair<StoreKey, StoreValue>> storeIterable;
+    private final Timer decodeTimer;
 
     public ElementDecoder(PrefetchingIterator<Pair<StoreKey, StoreValue>> storeIterable, StorableGraph graph, FetchHints fetchHints, Authorizations authorizations) {
         this.storeIterable = storeIterable;
         this.graph = graph;
+        this.decodeTimer = graph.getMetricsRegistry().getTimer(getClass(), "decode", "timer");
         this.fetchHints = fetchHints;
         this.elementData = createElementData(graph);
         this.authorizations = authorizations;
@@ -97,11 +101,14 @@ public abstract class ElementDecoder<T extends ElementData> implements Iterable<
                     }
                 }
 
+                long startTime = System.nanoTime();
                 mutations.sort(
                         Comparator.<Pair<StoreKey, StoreValue>>comparingLong(m -> m.other().ts())
                                 .reversed()
                 );
-                return decode(mutations);
+                T result = decode(mutations);
+                decodeTimer.update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+                return result;
             }
 
             @Override
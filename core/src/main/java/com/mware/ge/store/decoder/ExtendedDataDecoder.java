@@ -38,20 +38,43 @@ package com.mware.ge.store.decoder;
 
 import com.mware.ge.*;
 import com.mware.ge.collection.Pair;
+import com.mware.ge.query.QueryBase;
 import com.mware.ge.store.*;
 import com.mware.ge.store.util.KeyBase;
 import com.mware.ge.store.util.StorableKeyHelper;
 
 import java.util.*;
 
+/**
+ * Decodes the cells of an extended data row. When filters are given the filter columns are evaluated first so the
+ * other columns of rejected rows are never deserialized. Rows hold all their readable columns unless the decoder
+ * projects them on the properties included by the fetch hints.
+ */
 public class ExtendedDataDecoder {
     private StorableGraph graph;
     private FetchHints fetchHints;
+    private List<QueryBase.HasValueContainer> filters;
+    private boolean projectProperties;
     private Authorizations authorizations;
 
     public ExtendedDataDecoder(StorableGraph graph, FetchHints fetchHints, Authorizations authorizations) {
+        this(graph, fetchHints, Collections.emptyList(), false, authorizations);
+    }
+
+    /**
+     * @param projectProperties true to leave out the columns of properties the fetch hints don't include
+     */
+    public ExtendedDataDecoder(
+            StorableGraph graph,
+            FetchHints fetchHints,
+            List<QueryBase.HasValueContainer> filters,
+            boolean projectProperties,
+            Authorizations authorizations
+    ) {
         this.graph = graph;
         this.fetchHints = fetchHints;
+        this.filters = filters;
+        this.projectProperties = projectProperties;
         this.authorizations = authorizations;
     }
 
@@ -60,41 +83,73 @@ public class ExtendedDataDecoder {
             return null;
 
         ExtendedDataRowId rowId = StorableKeyHelper.parseExtendedDataRowId(row.get(0).first().id());
-        Set<Property> properties = new HashSet<>();
         row.sort(Comparator.comparingLong(m -> m.other().ts()));
 
-        for (Pair<StoreKey, StoreValue> rowEntry : row) {
-            String columnFamily = rowEntry.first().cf();
-            if (StorableElement.CF_EXTENDED_DATA.equals(columnFamily)) {
-                String[] columnQualifierParts = KeyBase.splitOnValueSeparator(rowEntry.first().cq());
-                if (columnQualifierParts.length != 1 && columnQualifierParts.length != 2) {
-                    throw new GeException("Invalid column qualifier for extended data row: " + rowId + " (expected 1 or 2 parts, found " + columnQualifierParts.length + ")");
-                }
-                String propertyName = columnQualifierParts[0];
-                String propertyKey = columnQualifierParts.length > 1 ? columnQualifierParts[1] : null;
-                com.mware.ge.values.storable.Value propertyValue = graph.getGeSerializer().bytesToObject(rowId, rowEntry.other().value());
-                long timestamp = rowEntry.other().ts();
-                Visibility visibility = rowEntry.first().visibility();
-                if (!authorizations.canRead(visibility))
-                    continue;
+        // the name and key of the readable columns, null for the ones the authorizations can't read
+        String[][] columns = new String[row.size()][];
+        boolean readable = false;
+        for (int i = 0; i < row.size(); i++) {
+            StoreKey key = row.get(i).first();
+            if (!StorableElement.CF_EXTENDED_DATA.equals(key.cf())) {
+                throw new GeException("unhandled column family: " + key.cf());
+            }
+            String[] columnQualifierParts = KeyBase.splitOnValueSeparator(key.cq());
+            if (columnQualifierParts.length != 1 && columnQualifierParts.length != 2) {
+                throw new GeException("Invalid column qualifier for extended data row: " + rowId + " (expected 1 or 2 parts, found " + columnQualifierParts.length + ")");
+            }
+            if (authorizations.canRead(key.visibility())) {
+                columns[i] = columnQualifierParts;
+                readable = true;
+            }
+        }
+        if (!readable)
+            return null;
 
-                StorableExtendedDataRow.StorableExtendedDataRowProperty prop = new StorableExtendedDataRow.StorableExtendedDataRowProperty(
-                        propertyName,
-                        propertyKey,
-                        propertyValue,
-                        fetchHints,
-                        timestamp,
-                        visibility
-                );
-                properties.add(prop);
-            } else {
-                throw new GeException("unhandled column family: " + columnFamily);
+        Property[] decoded = new Property[row.size()];
+        for (QueryBase.HasValueContainer filter : filters) {
+            if (!isMatch(filter, rowId, row, columns, decoded))
+                return null;
+        }
+
+        Set<Property> properties = new HashSet<>();
+        for (int i = 0; i < row.size(); i++) {
+            if (columns[i] == null || (projectProperties && !fetchHints.isIncludeProperty(columns[i][0])))
+                continue;
+            properties.add(decoded[i] == null ? toProperty(rowId, row.get(i), columns[i]) : decoded[i]);
+        }
+        return new StorableExtendedDataRow(rowId, properties, fetchHints);
+    }
+
+    private boolean isMatch(
+            QueryBase.HasValueContainer filter,
+            ExtendedDataRowId rowId,
+            List<Pair<StoreKey, StoreValue>> row,
+            String[][] columns,
+            Property[] decoded
+    ) {
+        for (String key : filter.keys) {
+            List<Property> properties = new ArrayList<>();
+            for (int i = 0; i < row.size(); i++) {
+                if (columns[i] == null || !key.equals(columns[i][0]))
+                    continue;
+                if (decoded[i] == null)
+                    decoded[i] = toProperty(rowId, row.get(i), columns[i]);
+                properties.add(decoded[i]);
             }
+            if (filter.predicate.evaluate(properties, filter.value))
+                return true;
         }
+        return false;
+    }
 
-        if (properties.size() == 0)
-            return null;
-        else
-            return new StorableExtendedDataRow(rowId, properties, fetchHints);
+    private Property toProperty(ExtendedDataRowId rowId, Pair<StoreKey, StoreValue> rowEntry, String[] column) {
+        return new StorableExtendedDataRow.StorableExtendedDataRowProperty(
+                column[0],
+                column.length > 1 ? column[1] : null,
+                graph.getGeSerializer().bytesToObject(rowId, rowEntry.other().value()),
+                fetchHints,
+                rowEntry.other().ts(),
+                rowEntry.first().visibility()
+        );
     }
 }
@@ -0,0 +1,185 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.store.kv;
+
+import com.mware.ge.Authorizations;
+import com.mware.ge.collection.Pair;
+import com.mware.ge.store.StorableElement;
+import com.mware.ge.store.mutations.ElementMutationBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Counts the elements of a vertex or edge table the authorizations can see without decoding them. Only the signal,
+ * delete, soft delete and hidden columns are read and only one row is held in memory at a time. An element is
+ * counted under the same rules the element decoders apply with the default fetch hints.
+ */
+public class KVElementCounter {
+    private static final byte[] DELETE_ROW_COLUMN_FAMILY = StorableElement.DELETE_ROW_COLUMN_FAMILY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DELETE_ROW_COLUMN_QUALIFIER = StorableElement.DELETE_ROW_COLUMN_QUALIFIER.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SOFT_DELETE_COLUMN_FAMILY = StorableElement.CF_SOFT_DELETE.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SOFT_DELETE_COLUMN_QUALIFIER = StorableElement.CQ_SOFT_DELETE.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HIDDEN_COLUMN_FAMILY = StorableElement.CF_HIDDEN.getBytes(StandardCharsets.UTF_8);
+    private final String signalColumnFamily;
+    private final byte[] signalColumnFamilyBytes;
+    private final ScanFilter readableFilter;
+
+    private byte[] rowKey;
+    private int rowIdLength;
+    private long signalTimestamp;
+    private long softDeleteTimestamp;
+    private boolean deleted;
+    private boolean hidden;
+
+    public KVElementCounter(String signalColumnFamily, Authorizations authorizations) {
+        this.signalColumnFamily = signalColumnFamily;
+        this.signalColumnFamilyBytes = signalColumnFamily.getBytes(StandardCharsets.UTF_8);
+        this.readableFilter = ScanFilters.readable(
+                Arrays.asList(signalColumnFamily, StorableElement.CF_HIDDEN),
+                authorizations
+        );
+    }
+
+    /**
+     * The filter to scan the table with, the counter doesn't need any other column.
+     */
+    public ScanFilter getScanFilter() {
+        return ScanFilters.columnFamilies(
+                signalColumnFamily,
+                StorableElement.DELETE_ROW_COLUMN_FAMILY,
+                StorableElement.CF_SOFT_DELETE,
+                StorableElement.CF_HIDDEN
+        );
+    }
+
+    public long count(Iterator<Pair<byte[], byte[]>> iterator) {
+        long count = 0;
+        rowKey = null;
+        while (iterator.hasNext()) {
+            Pair<byte[], byte[]> pair = iterator.next();
+            byte[] key = pair.first();
+            if (rowKey == null || !isSameRow(key)) {
+                if (rowKey != null && isVisible()) {
+                    count++;
+                }
+                startRow(key);
+            }
+            add(key, pair.other());
+        }
+        if (rowKey != null && isVisible()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Starts counting a new row, the key is the first key of the row.
+     */
+    void startRow(byte[] key) {
+        rowKey = key;
+        rowIdLength = KVKeyUtils.idLength(key);
+        signalTimestamp = -1;
+        softDeleteTimestamp = Long.MAX_VALUE;
+        deleted = false;
+        hidden = false;
+    }
+
+    private boolean isSameRow(byte[] key) {
+        if (KVKeyUtils.idLength(key) != rowIdLength) {
+            return false;
+        }
+        for (int i = 0; i < rowIdLength; i++) {
+            if (key[i] != rowKey[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void add(byte[] key, byte[] value) {
+        int cfOffset = KVKeyUtils.columnFamilyOffset(key);
+        if (KVKeyUtils.fieldEquals(key, cfOffset, signalColumnFamilyBytes)) {
+            if (readableFilter.accept(key)) {
+                signalTimestamp = Math.max(signalTimestamp, timestamp(value));
+            }
+        } else if (KVKeyUtils.fieldEquals(key, cfOffset, DELETE_ROW_COLUMN_FAMILY)) {
+            if (KVKeyUtils.fieldEquals(key, KVKeyUtils.nextFieldOffset(key, cfOffset), DELETE_ROW_COLUMN_QUALIFIER)
+                    && valueEquals(value, ElementMutationBuilder.DELETE_ROW_VALUE)) {
+                deleted = true;
+            }
+        } else if (KVKeyUtils.fieldEquals(key, cfOffset, SOFT_DELETE_COLUMN_FAMILY)) {
+            if (KVKeyUtils.fieldEquals(key, KVKeyUtils.nextFieldOffset(key, cfOffset), SOFT_DELETE_COLUMN_QUALIFIER)
+                    && valueEquals(value, StorableElement.SOFT_DELETE_VALUE)) {
+                // the decoders keep the oldest soft delete
+                softDeleteTimestamp = Math.min(softDeleteTimestamp, timestamp(value));
+            }
+        } else if (KVKeyUtils.fieldEquals(key, cfOffset, HIDDEN_COLUMN_FAMILY)) {
+            if (readableFilter.accept(key)) {
+                hidden = true;
+            }
+        }
+    }
+
+    /**
+     * @return true if the current row is an element the authorizations can see
+     */
+    boolean isVisible() {
+        if (deleted || hidden || signalTimestamp < 0) {
+            return false;
+        }
+        return softDeleteTimestamp == Long.MAX_VALUE || softDeleteTimestamp < signalTimestamp;
+    }
+
+    private static long timestamp(byte[] storeValue) {
+        return ByteBuffer.wrap(storeValue).getLong();
+    }
+
+    private static boolean valueEquals(byte[] storeValue, byte[] expected) {
+        if (storeValue.length - Long.BYTES != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (storeValue[Long.BYTES + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
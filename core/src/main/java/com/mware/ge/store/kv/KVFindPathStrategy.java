@@ -0,0 +1,377 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.store.kv;
+
+import com.mware.ge.*;
+import com.mware.ge.collection.Pair;
+import com.mware.ge.store.StorableEdgeInfo;
+import com.mware.ge.store.StorableElement;
+import com.mware.ge.store.StorableVertex;
+import com.mware.ge.store.StoreValue;
+import com.mware.ge.util.GeLogger;
+import com.mware.ge.util.GeLoggerFactory;
+import org.eclipse.collections.api.iterator.IntIterator;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.IntIntHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Finds the paths between two vertices by reading only the edge ref columns of the vertex rows, no element is ever
+ * built. Vertex ids are mapped to ints and the vertices near the source and the destination are expanded
+ * breadth first from both ends, always from the side with the smaller frontier, until the two searches together
+ * cover the maximum number of hops. The paths are then enumerated depth first from the source, skipping every vertex
+ * which is known to be too far away from the destination.
+ * <p>
+ * Edge refs are filtered by label and visibility and hidden or soft deleted edges are skipped the same way
+ * {@link com.mware.ge.store.decoder.VertexDecoder} skips them. A vertex the authorizations can't see is never part of
+ * a path.
+ */
+public class KVFindPathStrategy {
+    private static final GeLogger LOGGER = GeLoggerFactory.getLogger(KVFindPathStrategy.class);
+    private static final byte[] OUT_EDGE_COLUMN_FAMILY = StorableVertex.CF_OUT_EDGE.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OUT_EDGE_SOFT_DELETE_COLUMN_FAMILY = StorableVertex.CF_OUT_EDGE_SOFT_DELETE.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] IN_EDGE_SOFT_DELETE_COLUMN_FAMILY = StorableVertex.CF_IN_EDGE_SOFT_DELETE.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OUT_EDGE_HIDDEN_COLUMN_FAMILY = StorableVertex.CF_OUT_EDGE_HIDDEN.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] IN_EDGE_HIDDEN_COLUMN_FAMILY = StorableVertex.CF_IN_EDGE_HIDDEN.getBytes(StandardCharsets.UTF_8);
+
+    private final KVStoreGraph graph;
+    private final FindPathOptions options;
+    private final ProgressCallback progressCallback;
+    private final Authorizations authorizations;
+    private final Set<String> includeLabels;
+    private final Set<String> excludeLabels;
+    private final ScanFilter rowStateFilter;
+    private final ScanFilter edgeRefFilter;
+    private final ScanFilter hiddenEdgeFilter;
+
+    private final ObjectIntHashMap<String> vertexIndexes = new ObjectIntHashMap<>();
+    private final List<String> vertexIds = new ArrayList<>();
+    // neighbours of the expanded vertices, the vertices the authorizations can't see are expanded to null
+    private final IntObjectHashMap<IntHashSet> neighbours = new IntObjectHashMap<>();
+    private final IntIntHashMap destDistances = new IntIntHashMap();
+    private int destDepth;
+    private boolean destComponentExpanded;
+
+    public KVFindPathStrategy(
+            KVStoreGraph graph,
+            FindPathOptions options,
+            ProgressCallback progressCallback,
+            Authorizations authorizations
+    ) {
+        this.graph = graph;
+        this.options = options;
+        this.progressCallback = progressCallback;
+        this.authorizations = authorizations;
+        this.includeLabels = labelsToSet(options.getLabels());
+        this.excludeLabels = labelsToSet(options.getExcludedLabels());
+        this.rowStateFilter = ScanFilters.columnFamilies(
+                StorableVertex.CF_SIGNAL,
+                StorableElement.DELETE_ROW_COLUMN_FAMILY,
+                StorableElement.CF_SOFT_DELETE,
+                StorableElement.CF_HIDDEN,
+                StorableVertex.CF_OUT_EDGE_SOFT_DELETE,
+                StorableVertex.CF_IN_EDGE_SOFT_DELETE,
+                StorableVertex.CF_OUT_EDGE_HIDDEN,
+                StorableVertex.CF_IN_EDGE_HIDDEN
+        );
+        List<String> edgeRefColumnFamilies = Arrays.asList(StorableVertex.CF_OUT_EDGE, StorableVertex.CF_IN_EDGE);
+        this.edgeRefFilter = ScanFilters.columnFamilies(StorableVertex.CF_OUT_EDGE, StorableVertex.CF_IN_EDGE)
+                .and(ScanFilters.readable(edgeRefColumnFamilies, authorizations));
+        this.hiddenEdgeFilter = ScanFilters.readable(
+                Arrays.asList(StorableVertex.CF_OUT_EDGE_HIDDEN, StorableVertex.CF_IN_EDGE_HIDDEN),
+                authorizations
+        );
+    }
+
+    private static Set<String> labelsToSet(String[] labels) {
+        if (labels == null) {
+            return null;
+        }
+        return new HashSet<>(Arrays.asList(labels));
+    }
+
+    public Iterable<Path> findPaths() {
+        int source = getVertexIndex(options.getSourceVertexId());
+        int dest = getVertexIndex(options.getDestVertexId());
+        if (getNeighbours(source) == null) {
+            throw new IllegalArgumentException("Could not find vertex with id: " + options.getSourceVertexId());
+        }
+        if (getNeighbours(dest) == null) {
+            throw new IllegalArgumentException("Could not find vertex with id: " + options.getDestVertexId());
+        }
+
+        progressCallback.progress(0, ProgressCallback.Step.FINDING_PATH);
+        expandBreadthFirst(source, dest);
+
+        progressCallback.progress(0.9, ProgressCallback.Step.ADDING_PATHS);
+        List<Path> foundPaths = new ArrayList<>();
+        IntArrayList currentPath = new IntArrayList();
+        currentPath.add(source);
+        IntHashSet seenVertices = new IntHashSet();
+        findPathsRecursive(foundPaths, source, dest, options.getMaxHops(), seenVertices, currentPath);
+
+        progressCallback.progress(1, ProgressCallback.Step.COMPLETE);
+        return foundPaths;
+    }
+
+    /**
+     * Expands the vertices around the source and the destination until the distance of every vertex on a path is
+     * known from at least one of the two ends. Only the distances to the destination are kept, they bound the
+     * search done by {@link #findPathsRecursive}.
+     */
+    private void expandBreadthFirst(int source, int dest) {
+        int maxHops = options.getMaxHops();
+        IntHashSet sourceSeen = IntHashSet.newSetWith(source);
+        IntArrayList sourceFrontier = IntArrayList.newListWith(source);
+        int sourceDepth = 0;
+        IntArrayList destFrontier = IntArrayList.newListWith(dest);
+        destDistances.put(dest, 0);
+        destDepth = 0;
+
+        while (sourceDepth + destDepth < maxHops) {
+            progressCallback.progress(0.9 * (sourceDepth + destDepth) / maxHops, ProgressCallback.Step.FINDING_PATH);
+            if (sourceFrontier.isEmpty() || destFrontier.isEmpty()) {
+                // one of the two ends is cut off, every vertex it can reach has been expanded
+                destComponentExpanded = destFrontier.isEmpty();
+                break;
+            }
+            if (sourceFrontier.size() <= destFrontier.size()) {
+                sourceFrontier = expandFrontier(sourceFrontier, sourceSeen, null, sourceDepth + 1);
+                sourceDepth++;
+            } else {
+                destFrontier = expandFrontier(destFrontier, null, destDistances, destDepth + 1);
+                destDepth++;
+            }
+        }
+        LOGGER.debug(
+                "findPaths expanded %d vertices (source depth %d, destination depth %d)",
+                neighbours.size(), sourceDepth, destDepth
+        );
+    }
+
+    private IntArrayList expandFrontier(IntArrayList frontier, IntHashSet seen, IntIntHashMap distances, int depth) {
+        IntArrayList nextFrontier = new IntArrayList();
+        for (int i = 0; i < frontier.size(); i++) {
+            IntHashSet vertexNeighbours = getNeighbours(frontier.get(i));
+            if (vertexNeighbours == null) {
+                continue;
+            }
+            vertexNeighbours.forEach(neighbour -> {
+                boolean added = seen != null ? seen.add(neighbour) : !distances.containsKey(neighbour);
+                if (added) {
+                    if (distances != null) {
+                        distances.put(neighbour, depth);
+                    }
+                    nextFrontier.add(neighbour);
+                }
+            });
+        }
+        return nextFrontier;
+    }
+
+    private void findPathsRecursive(
+            List<Path> foundPaths,
+            int vertex,
+            int dest,
+            int hops,
+            IntHashSet seenVertices,
+            IntArrayList currentPath
+    ) {
+        if (options.isGetAnyPath() && foundPaths.size() == 1) {
+            return;
+        }
+        if (vertex == dest) {
+            foundPaths.add(toPath(currentPath));
+            return;
+        }
+        if (hops == 0) {
+            return;
+        }
+        IntHashSet vertexNeighbours = getNeighbours(vertex);
+        if (vertexNeighbours == null) {
+            return;
+        }
+        seenVertices.add(vertex);
+        IntIterator it = vertexNeighbours.intIterator();
+        while (it.hasNext()) {
+            int neighbour = it.next();
+            if (seenVertices.contains(neighbour) || getMinDistanceToDest(neighbour) > hops - 1) {
+                continue;
+            }
+            currentPath.add(neighbour);
+            findPathsRecursive(foundPaths, neighbour, dest, hops - 1, seenVertices, currentPath);
+            currentPath.removeAtIndex(currentPath.size() - 1);
+        }
+        seenVertices.remove(vertex);
+    }
+
+    private int getMinDistanceToDest(int vertex) {
+        if (destDistances.containsKey(vertex)) {
+            return destDistances.get(vertex);
+        }
+        // every vertex within destDepth hops of the destination has a distance
+        return destComponentExpanded ? Integer.MAX_VALUE : destDepth + 1;
+    }
+
+    private Path toPath(IntArrayList path) {
+        String[] ids = new String[path.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = vertexIds.get(path.get(i));
+        }
+        return new Path(ids);
+    }
+
+    private int getVertexIndex(String vertexId) {
+        int index = vertexIndexes.getIfAbsent(vertexId, -1);
+        if (index < 0) {
+            index = vertexIds.size();
+            vertexIds.add(vertexId);
+            vertexIndexes.put(vertexId, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return the vertices connected to the given vertex through the edges the path can follow or null if the
+     * authorizations can't see the vertex
+     */
+    private IntHashSet getNeighbours(int vertex) {
+        if (neighbours.containsKey(vertex)) {
+            return neighbours.get(vertex);
+        }
+        IntHashSet result = readNeighbours(vertex);
+        neighbours.put(vertex, result);
+        return result;
+    }
+
+    /**
+     * Reads the row twice: first the few columns telling if the vertex is visible and which of its edges are hidden
+     * or soft deleted and then the edge refs. None of the two passes holds more than the resulting vertex ids in
+     * memory, even for vertices with millions of edges.
+     */
+    private IntHashSet readNeighbours(int vertex) {
+        String vertexId = vertexIds.get(vertex);
+        IdRange idRange = new IdRange(vertexId);
+        KVElementCounter rowState = new KVElementCounter(StorableVertex.CF_SIGNAL, authorizations);
+        Set<String> hiddenEdgeIds = new HashSet<>();
+        Map<String, Long> outSoftDeletes = new HashMap<>();
+        Map<String, Long> inSoftDeletes = new HashMap<>();
+
+        boolean emptyRow = true;
+        try (ScanIterator iter = graph.getKvStore().scan(graph.getVerticesTableName(), idRange, rowStateFilter)) {
+            while (iter.hasNext()) {
+                Pair<byte[], byte[]> pair = iter.next();
+                byte[] key = pair.first();
+                if (emptyRow) {
+                    rowState.startRow(key);
+                    emptyRow = false;
+                }
+                rowState.add(key, pair.other());
+
+                int cfOffset = KVKeyUtils.columnFamilyOffset(key);
+                if (KVKeyUtils.fieldEquals(key, cfOffset, OUT_EDGE_HIDDEN_COLUMN_FAMILY)
+                        || KVKeyUtils.fieldEquals(key, cfOffset, IN_EDGE_HIDDEN_COLUMN_FAMILY)) {
+                    if (hiddenEdgeFilter.accept(key)) {
+                        hiddenEdgeIds.add(columnQualifier(key));
+                    }
+                } else if (KVKeyUtils.fieldEquals(key, cfOffset, OUT_EDGE_SOFT_DELETE_COLUMN_FAMILY)) {
+                    addSoftDelete(outSoftDeletes, key, pair.other());
+                } else if (KVKeyUtils.fieldEquals(key, cfOffset, IN_EDGE_SOFT_DELETE_COLUMN_FAMILY)) {
+                    addSoftDelete(inSoftDeletes, key, pair.other());
+                }
+            }
+        } catch (IOException ex) {
+            throw new GeException("Could not read vertex: " + vertexId, ex);
+        }
+        if (emptyRow || !rowState.isVisible()) {
+            return null;
+        }
+
+        IntHashSet result = new IntHashSet();
+        try (ScanIterator iter = graph.getKvStore().scan(graph.getVerticesTableName(), idRange, edgeRefFilter)) {
+            while (iter.hasNext()) {
+                Pair<byte[], byte[]> pair = iter.next();
+                byte[] key = pair.first();
+                String edgeId = columnQualifier(key);
+                if (hiddenEdgeIds.contains(edgeId)) {
+                    continue;
+                }
+                StoreValue value = StoreValue.deserialize(pair.other());
+                boolean out = KVKeyUtils.fieldEquals(key, KVKeyUtils.columnFamilyOffset(key), OUT_EDGE_COLUMN_FAMILY);
+                Long softDeleteTimestamp = (out ? outSoftDeletes : inSoftDeletes).get(edgeId);
+                if (softDeleteTimestamp != null && softDeleteTimestamp >= value.ts()) {
+                    continue;
+                }
+                StorableEdgeInfo edgeInfo = new StorableEdgeInfo(value.value(), value.ts());
+                if (!isLabelIncluded(edgeInfo.getLabel())) {
+                    continue;
+                }
+                int neighbour = getVertexIndex(edgeInfo.getVertexId());
+                if (neighbour != vertex) {
+                    result.add(neighbour);
+                }
+            }
+        } catch (IOException ex) {
+            throw new GeException("Could not read edges of vertex: " + vertexId, ex);
+        }
+        return result;
+    }
+
+    private static void addSoftDelete(Map<String, Long> softDeletes, byte[] key, byte[] value) {
+        // the decoder removes the edge if any of its soft deletes is newer than the edge ref
+        long timestamp = StoreValue.deserialize(value).ts();
+        softDeletes.merge(columnQualifier(key), timestamp, Math::max);
+    }
+
+    private static String columnQualifier(byte[] key) {
+        int cqOffset = KVKeyUtils.nextFieldOffset(key, KVKeyUtils.columnFamilyOffset(key));
+        return new String(key, cqOffset + Integer.BYTES, KVKeyUtils.fieldLength(key, cqOffset), StandardCharsets.UTF_8);
+    }
+
+    private boolean isLabelIncluded(String label) {
+        if (excludeLabels != null && excludeLabels.contains(label)) {
+            return false;
+        }
+        return includeLabels == null || includeLabels.contains(label);
+    }
+}
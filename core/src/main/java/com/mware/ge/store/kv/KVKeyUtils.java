@@ -88,6 +88,56 @@ public class KVKeyUtils {
         return buf;
     }
 
+    /**
+     * @return the length of the id at the start of a key created by {@link #keyFromMutation}
+     */
+    public static int idLength(byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] == ID_VALUE_SEPARATOR) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the offset of the length prefixed column family in a key created by {@link #keyFromMutation}, the
+     * column qualifier and the visibility follow it in the same format
+     */
+    public static int columnFamilyOffset(byte[] key) {
+        return idLength(key) + 1;
+    }
+
+    /**
+     * @return the offset of the length prefixed field following the length prefixed field at the given offset
+     */
+    public static int nextFieldOffset(byte[] key, int offset) {
+        return offset + Integer.BYTES + fieldLength(key, offset);
+    }
+
+    public static int fieldLength(byte[] key, int offset) {
+        return ((key[offset] & 0xff) << 24)
+                | ((key[offset + 1] & 0xff) << 16)
+                | ((key[offset + 2] & 0xff) << 8)
+                | (key[offset + 3] & 0xff);
+    }
+
+    /**
+     * @return true if the length prefixed field at the given offset equals the given bytes
+     */
+    public static boolean fieldEquals(byte[] key, int offset, byte[] expected) {
+        if (fieldLength(key, offset) != expected.length) {
+            return false;
+        }
+        int start = offset + Integer.BYTES;
+        for (int i = 0; i < expected.length; i++) {
+            if (key[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static StoreKey storeKey(byte[] key) {
         byte[] bid = decodeId(key);
         int idlen = bid.length;
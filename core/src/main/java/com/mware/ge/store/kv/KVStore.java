@@ -46,6 +46,15 @@ public interface KVStore extends AutoCloseable {
     }
 
     ScanIterator scan(String table, IdRange idRange);
+
+    /**
+     * Scans the pairs of the range accepted by the filter. Stores should evaluate the filter while iterating, before
+     * the value of a pair is read.
+     */
+    default ScanIterator scan(String table, IdRange idRange, ScanFilter filter) {
+        return new FilteringScanIterator(scan(table, idRange), filter);
+    }
+
     void delete(String tableName, byte[] key);
     void put(String tableName, byte[] key, byte[] value);
 }
@@ -44,12 +44,16 @@ import com.mware.ge.collection.CombiningIterable;
 import com.mware.ge.collection.Iterators;
 import com.mware.ge.collection.Pair;
 import com.mware.ge.collection.PrefetchingIterator;
+import com.mware.ge.metric.Timer;
+import com.mware.ge.query.QueryBase;
 
 import com.mware.ge.store.*;
 import com.mware.ge.store.decoder.*;
 import com.mware.ge.store.mutations.ElementMutationBuilder;
 import com.mware.ge.store.mutations.StoreColumnUpdate;
 import com.mware.ge.store.mutations.StoreMutation;
+import com.mware.ge.util.GeLogger;
+import com.mware.ge.util.GeLoggerFactory;
 import com.mware.ge.util.IncreasingTime;
 import com.mware.ge.util.LookAheadIterable;
 import org.apache.commons.io.IOUtils;
@@ -60,16 +64,20 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public abstract class KVStoreGraph extends AbstractStorableGraph<StorableVertex, StorableEdge> {
+    private static final GeLogger LOGGER = GeLoggerFactory.getLogger(KVStoreGraph.class);
     protected KVStore kvStore;
+    private final Timer writeTimer;
 
     public KVStoreGraph(StorableGraphConfiguration config) {
         super(config);
 
-        kvStore = createStore();
+        kvStore = new MeteredKVStore(createStore(), getMetricsRegistry());
         kvStore.open();
+        writeTimer = getMetricsRegistry().getTimer(KVStore.class, "write", "timer");
     }
 
     @Override
@@ -119,7 +127,7 @@ public abstract class KVStoreGraph extends AbstractStorableGraph<StorableVertex,
 
             @Override
             protected Iterator<VertexElementData> createIterator() {
-                iter = getKvStore().scan(getVerticesTableName(), idRange);
+                iter = getKvStore().scan(getVerticesTableName(), idRange, ScanFilters.forVertices(fetchHints, authorizations));
 
                 Iterator<Pair<StoreKey, StoreValue>> mappingIterator =
                         Iterators.map(o -> Pair.of(KVKeyUtils.storeKey(o.first()), StoreValue.deserialize(o.other())), iter);
@@ -174,7 +182,7 @@ public abstract class KVStoreGraph extends AbstractStorableGraph<StorableVertex,
 
             @Override
             protected Iterator<EdgeElementData> createIterator() {
-                iter = kvStore.scan(getEdgesTableName(), idRange);
+                iter = kvStore.scan(getEdgesTableName(), idRange, ScanFilters.forEdges(fetchHints, authorizations));
                 Iterator<Pair<StoreKey, StoreValue>> mappingIterator =
                         Iterators.map(o -> Pair.of(KVKeyUtils.storeKey(o.first()), StoreValue.deserialize(o.other())), iter);
                 return new EdgeDecoder(Iterators.prefetching(mappingIterator), KVStoreGraph.this, fetchHints, authorizations)
@@ -194,9 +202,42 @@ public abstract class KVStoreGraph extends AbstractStorableGraph<StorableVertex,
             FetchHints fetchHints,
             Authorizations authorizations
     ) {
+        return getExtendedDataRowsInRange(ranges, fetchHints, Collections.emptyList(), false, authorizations);
+    }
+
+    /**
+     * Rows read through the filtered api are projected on the property names the fetch hints list explicitly, the
+     * other columns are dropped by the scan.
+     */
+    @Override
+    protected Iterable<ExtendedDataRow> getExtendedDataRowsInRange(
+            List<IdRange> ranges,
+            FetchHints fetchHints,
+            List<QueryBase.HasValueContainer> filters,
+            Authorizations authorizations
+    ) {
+        boolean projectProperties = !fetchHints.isIncludeAllProperties()
+                && fetchHints.getPropertyNamesToInclude() != null
+                && !fetchHints.getPropertyNamesToInclude().isEmpty();
+        return getExtendedDataRowsInRange(ranges, fetchHints, filters, projectProperties, authorizations);
+    }
+
+    private Iterable<ExtendedDataRow> getExtendedDataRowsInRange(
+            List<IdRange> ranges,
+            FetchHints fetchHints,
+            List<QueryBase.HasValueContainer> filters,
+            boolean projectProperties,
+            Authorizations authorizations
+    ) {
+        Set<String> filterPropertyNames = new HashSet<>();
+        filters.forEach(filter -> filterPropertyNames.addAll(filter.keys));
+        ExtendedDataDecoder decoder = new ExtendedDataDecoder(KVStoreGraph.this, fetchHints, filters, projectProperties, authorizations);
+        ScanFilter scanFilter = projectProperties
+                ? ScanFilters.forExtendedData(fetchHints, filterPropertyNames, authorizations)
+                : ScanFilters.readable(Collections.singletonList(StorableElement.CF_EXTENDED_DATA), authorizations);
         List<Iterable<ExtendedDataRow>> iterables = new ArrayList<>();
 
-        for (IdRange range : (List<IdRange>) ranges) {
+        for (IdRange range : ranges) {
             iterables.add(new LookAheadIterable<Pair<StoreKey, StoreValue>, ExtendedDataRow>() {
                 ScanIterator iter;
                 PrefetchingIterator<Pair<StoreKey, StoreValue>> storeIterable;
@@ -214,9 +255,7 @@ public abstract class KVStoreGraph extends AbstractStorableGraph<StorableVertex,
                     while (storeIterable.hasNext()) {
                         Pair<StoreKey, StoreValue> next = storeIterable.peek();
                         if (next != null) {
-                            String id = source.first().id();
-                            String nextId = next.first().id();
-                            if (id.equals(nextId)) {
+                            if (source.first().hasSameId(next.first())) {
                                 mutations.add(storeIterable.next());
                             } else {
                                 break;
@@ -239,13 +278,16 @@ public abstract class KVStoreGraph extends AbstractStorableGraph<StorableVertex,
                     if (deleted)
                         return null;
                     else
-                        return new ExtendedDataDecoder(KVStoreGraph.this, fetchHints, authorizations)
-                                .decode(mutations);
+                        return decoder.decode(mutations);
                 }
 
                 @Override
                 protected Iterator<Pair<StoreKey, StoreValue>> createIterator() {
-                    iter = kvStore.scan(getExtendedDataTableName(), range);
+                    iter = kvStore.scan(
+                            getExtendedDataTableName(),
+                            range,
+                            scanFilter
+                    );
                     Iterator<Pair<StoreKey, StoreValue>> mappingIterator =
                             Iterators.map(o -> Pair.of(KVKeyUtils.storeKey(o.first()), StoreValue.deserialize(o.other())), iter);
 
@@ -264,9 +306,36 @@ public abstract class KVStoreGraph extends AbstractStorableGraph<StorableVertex,
     }
 
 
+    @Override
+    public Iterable<Path> findPaths(FindPathOptions options, Authorizations authorizations) {
+        ProgressCallback progressCallback = options.getProgressCallback();
+        if (progressCallback == null) {
+            progressCallback = new ProgressCallback() {
+                @Override
+                public void progress(double progressPercent, Step step, Integer edgeIndex, Integer vertexCount) {
+                    LOGGER.debug("findPaths progress %d%%: %s", (int) (progressPercent * 100.0), step.formatMessage(edgeIndex, vertexCount));
+                }
+            };
+        }
+
+        return new KVFindPathStrategy(this, options, progressCallback, authorizations).findPaths();
+    }
+
+    @Override
+    protected long getRowCountFromTable(String tableName, String signalColumn, Authorizations authorizations) {
+        KVElementCounter counter = new KVElementCounter(signalColumn, authorizations);
+        try (ScanIterator iter = kvStore.scan(tableName, null, counter.getScanFilter())) {
+            return counter.count(iter);
+        } catch (IOException ex) {
+            throw new GeException("Could not get count from table: " + tableName, ex);
+        }
+    }
+
     @Override
     protected void addMutations(GeObjectType objectType, StoreMutation... mutations) {
+        long startTime = System.nanoTime();
         _addMutations(getTableFromElementType(objectType), mutations);
+        writeTimer.update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
     }
 
     private String getTableFromElementType(GeObjectType objectType) {
@@ -415,6 +484,9 @@ public abstract class KVStoreGraph extends AbstractStorableGraph<StorableVertex,
 
     protected abstract KVStore createStore();
 
+    /**
+     * @return the store of the graph, wrapped in a {@link MeteredKVStore}
+     */
     public KVStore getKvStore() {
         return kvStore;
     }
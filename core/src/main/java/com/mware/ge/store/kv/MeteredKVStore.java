@@ -0,0 +1,109 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.store.kv;
+
+import com.mware.ge.IdRange;
+import com.mware.ge.metric.Counter;
+import com.mware.ge.metric.GeMetricRegistry;
+import com.mware.ge.metric.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the operations of a {@link KVStore} to a {@link GeMetricRegistry}. Scans are timed up to the first
+ * seek, the iteration itself is driven by the caller. Puts and deletes are only counted, timing every single one would
+ * cost more than the write itself on most stores, {@link KVStoreGraph} times whole mutation batches instead.
+ */
+public class MeteredKVStore implements KVStore {
+    private final KVStore store;
+    private final Timer scanTimer;
+    private final Counter putCounter;
+    private final Counter deleteCounter;
+
+    public MeteredKVStore(KVStore store, GeMetricRegistry metricRegistry) {
+        this.store = store;
+        this.scanTimer = metricRegistry.getTimer(KVStore.class, "scan", "timer");
+        this.putCounter = metricRegistry.getCounter(KVStore.class, "put", "counter");
+        this.deleteCounter = metricRegistry.getCounter(KVStore.class, "delete", "counter");
+    }
+
+    public KVStore getStore() {
+        return store;
+    }
+
+    @Override
+    public void open() {
+        store.open();
+    }
+
+    @Override
+    public ScanIterator scan(String table, IdRange idRange) {
+        long startTime = System.nanoTime();
+        try {
+            return store.scan(table, idRange);
+        } finally {
+            scanTimer.update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public ScanIterator scan(String table, IdRange idRange, ScanFilter filter) {
+        long startTime = System.nanoTime();
+        try {
+            return store.scan(table, idRange, filter);
+        } finally {
+            scanTimer.update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void delete(String tableName, byte[] key) {
+        store.delete(tableName, key);
+        deleteCounter.increment();
+    }
+
+    @Override
+    public void put(String tableName, byte[] key, byte[] value) {
+        store.put(tableName, key, value);
+        putCounter.increment();
+    }
+
+    @Override
+    public void close() throws Exception {
+        store.close();
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.store.kv;
+
+import com.mware.ge.Authorizations;
+import com.mware.ge.FetchHints;
+import com.mware.ge.Visibility;
+import com.mware.ge.security.ColumnVisibility;
+import com.mware.ge.store.StorableEdge;
+import com.mware.ge.store.StorableElement;
+import com.mware.ge.store.StorableVertex;
+import com.mware.ge.store.util.KeyBase;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * {@link ScanFilter}s dropping the columns the element decoders would ignore, so they are never copied out of the
+ * store or deserialized.
+ */
+public class ScanFilters {
+    private static final int MAX_CACHED_VISIBILITIES = 1000;
+
+    private ScanFilters() {
+    }
+
+    /**
+     * Accepts only keys of the given column families.
+     */
+    public static ScanFilter columnFamilies(String... columnFamilies) {
+        byte[][] cfs = toBytes(Arrays.asList(columnFamilies));
+        return key -> matchesAny(key, KVKeyUtils.columnFamilyOffset(key), cfs);
+    }
+
+    /**
+     * Rejects the keys of the given column families.
+     */
+    public static ScanFilter excludeColumnFamilies(Collection<String> columnFamilies) {
+        byte[][] cfs = toBytes(columnFamilies);
+        return key -> !matchesAny(key, KVKeyUtils.columnFamilyOffset(key), cfs);
+    }
+
+    /**
+     * Rejects the keys of the given column families with a visibility the authorizations can't read. Keys of other
+     * column families are accepted.
+     */
+    public static ScanFilter readable(Collection<String> columnFamilies, Authorizations authorizations) {
+        byte[][] cfs = toBytes(columnFamilies);
+        Map<ByteBuffer, Boolean> canReadCache = new HashMap<>();
+        return key -> {
+            int cfOffset = KVKeyUtils.columnFamilyOffset(key);
+            if (!matchesAny(key, cfOffset, cfs)) {
+                return true;
+            }
+            int visibilityOffset = KVKeyUtils.nextFieldOffset(key, KVKeyUtils.nextFieldOffset(key, cfOffset));
+            if (KVKeyUtils.fieldLength(key, visibilityOffset) == 0) {
+                return true;
+            }
+            ByteBuffer visibility = ByteBuffer.wrap(key, visibilityOffset + Integer.BYTES, KVKeyUtils.fieldLength(key, visibilityOffset));
+            Boolean canRead = canReadCache.get(visibility);
+            if (canRead == null) {
+                byte[] visibilityBytes = new byte[visibility.remaining()];
+                visibility.duplicate().get(visibilityBytes);
+                String expression = new String(new ColumnVisibility(visibilityBytes).getExpression(), StandardCharsets.UTF_8);
+                canRead = authorizations.canRead(new Visibility(expression));
+                if (canReadCache.size() >= MAX_CACHED_VISIBILITIES) {
+                    canReadCache.clear();
+                }
+                canReadCache.put(ByteBuffer.wrap(visibilityBytes), canRead);
+            }
+            return canRead;
+        };
+    }
+
+    /**
+     * Drops the vertex columns the fetch hints don't ask for and the columns the authorizations can't read, both of
+     * which {@link com.mware.ge.store.decoder.VertexDecoder} would skip.
+     */
+    public static ScanFilter forVertices(FetchHints fetchHints, Authorizations authorizations) {
+        Set<String> excluded = new HashSet<>(getExcludedPropertyColumnFamilies(fetchHints));
+        boolean edgeLabelsToInclude = fetchHints.getEdgeLabelsOfEdgeRefsToInclude() != null
+                && !fetchHints.getEdgeLabelsOfEdgeRefsToInclude().isEmpty();
+        boolean anyEdgeRefs = edgeLabelsToInclude || fetchHints.isIncludeAllEdgeRefs() || fetchHints.isIncludeEdgeLabelsAndCounts();
+        if (!anyEdgeRefs && !fetchHints.isIncludeOutEdgeRefs()) {
+            excluded.add(StorableVertex.CF_OUT_EDGE);
+        }
+        if (!anyEdgeRefs && !fetchHints.isIncludeInEdgeRefs()) {
+            excluded.add(StorableVertex.CF_IN_EDGE);
+        }
+        List<String> readable = Arrays.asList(
+                StorableVertex.CF_SIGNAL,
+                StorableElement.CF_PROPERTY,
+                StorableElement.CF_PROPERTY_METADATA,
+                StorableVertex.CF_OUT_EDGE,
+                StorableVertex.CF_IN_EDGE
+        );
+        return excludeColumnFamilies(excluded).and(readable(readable, authorizations));
+    }
+
+    /**
+     * Drops the edge columns the fetch hints don't ask for and the columns the authorizations can't read, both of
+     * which {@link com.mware.ge.store.decoder.EdgeDecoder} would skip.
+     */
+    public static ScanFilter forEdges(FetchHints fetchHints, Authorizations authorizations) {
+        List<String> readable = Arrays.asList(
+                StorableEdge.CF_SIGNAL,
+                StorableElement.CF_PROPERTY,
+                StorableElement.CF_PROPERTY_METADATA
+        );
+        return excludeColumnFamilies(getExcludedPropertyColumnFamilies(fetchHints))
+                .and(readable(readable, authorizations));
+    }
+
+    /**
+     * Drops the extended data columns the authorizations can't read and, unless the fetch hints include all properties,
+     * the columns of properties neither the fetch hints nor the filters need. The first readable column of a row is
+     * always kept so {@link com.mware.ge.store.decoder.ExtendedDataDecoder} still sees the row.
+     */
+    public static ScanFilter forExtendedData(
+            FetchHints fetchHints,
+            Collection<String> filterPropertyNames,
+            Authorizations authorizations
+    ) {
+        ScanFilter readable = readable(Collections.singletonList(StorableElement.CF_EXTENDED_DATA), authorizations);
+        if (fetchHints.isIncludeAllProperties()) {
+            return readable;
+        }
+        Set<String> propertyNames = new HashSet<>(filterPropertyNames);
+        if (fetchHints.getPropertyNamesToInclude() != null) {
+            propertyNames.addAll(fetchHints.getPropertyNamesToInclude());
+        }
+        byte[] cf = StorableElement.CF_EXTENDED_DATA.getBytes(StandardCharsets.UTF_8);
+        byte[][] names = toBytes(propertyNames);
+        return readable.and(new ScanFilter() {
+            private byte[] lastRowKey = new byte[0];
+
+            @Override
+            public boolean accept(byte[] key) {
+                int cfOffset = KVKeyUtils.columnFamilyOffset(key);
+                if (!KVKeyUtils.fieldEquals(key, cfOffset, cf)) {
+                    return true;
+                }
+                if (matchesAnyColumn(key, KVKeyUtils.nextFieldOffset(key, cfOffset), names)) {
+                    return true;
+                }
+                if (startsWith(key, lastRowKey, cfOffset)) {
+                    return false;
+                }
+                lastRowKey = Arrays.copyOf(key, cfOffset);
+                return true;
+            }
+        });
+    }
+
+    private static List<String> getExcludedPropertyColumnFamilies(FetchHints fetchHints) {
+        boolean includeProperties = fetchHints.isIncludeAllProperties()
+                || (fetchHints.getPropertyNamesToInclude() != null && !fetchHints.getPropertyNamesToInclude().isEmpty());
+        if (!includeProperties) {
+            return Arrays.asList(
+                    StorableElement.CF_PROPERTY,
+                    StorableElement.CF_PROPERTY_METADATA,
+                    StorableElement.CF_PROPERTY_SOFT_DELETE,
+                    StorableElement.CF_PROPERTY_HIDDEN
+            );
+        }
+        boolean includeMetadata = fetchHints.isIncludeAllPropertyMetadata()
+                || (fetchHints.getMetadataKeysToInclude() != null && !fetchHints.getMetadataKeysToInclude().isEmpty());
+        if (!includeMetadata) {
+            return Collections.singletonList(StorableElement.CF_PROPERTY_METADATA);
+        }
+        return Collections.emptyList();
+    }
+
+    private static boolean matchesAny(byte[] key, int offset, byte[][] values) {
+        for (byte[] value : values) {
+            if (KVKeyUtils.fieldEquals(key, offset, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the property name of the extended data column qualifier at the given offset is one of the names,
+     * the column qualifier is either the property name or the property name and key separated by the value separator
+     */
+    private static boolean matchesAnyColumn(byte[] key, int cqOffset, byte[][] names) {
+        int length = KVKeyUtils.fieldLength(key, cqOffset);
+        int start = cqOffset + Integer.BYTES;
+        for (byte[] name : names) {
+            if (length < name.length || (length > name.length && key[start + name.length] != KeyBase.VALUE_SEPARATOR)) {
+                continue;
+            }
+            if (regionEquals(key, start, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix, int length) {
+        return prefix.length == length && regionEquals(key, 0, prefix);
+    }
+
+    private static boolean regionEquals(byte[] key, int start, byte[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            if (key[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[][] toBytes(Collection<String> values) {
+        byte[][] result = new byte[values.size()][];
+        int i = 0;
+        for (String value : values) {
+            result[i++] = value.getBytes(StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+}
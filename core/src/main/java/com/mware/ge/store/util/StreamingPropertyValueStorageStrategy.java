@@ -52,6 +52,13 @@ public interface StreamingPropertyValueStorageStrategy {
             StreamingPropertyValue streamingPropertyValue
     );
 
+    /**
+     * Called when a property of the row holding a value loaded from this storage is deleted. It may be called again
+     * for a property already deleted.
+     */
+    default void deleteStreamingPropertyValue(String rowKey, Property property) {
+    }
+
     void close();
 
     List<InputStream> getInputStreams(List<StreamingPropertyValue> streamingPropertyValues);
@@ -36,7 +36,13 @@
  */
 package com.mware.ge.tools;
 
+import com.beust.jcommander.Parameter;
+import com.mware.ge.search.RangeReindexer;
+
 public class GraphReindex extends GraphToolBase {
+    @Parameter(names = {"--restart"}, description = "Discard the ranges completed by a previous run and reindex everything")
+    private boolean restart;
+
     public static void main(String[] args) throws Exception {
         GraphReindex graphReindex = new GraphReindex();
         graphReindex.run(args);
@@ -45,6 +51,10 @@ public class GraphReindex extends GraphToolBase {
     protected void run(String[] args) throws Exception {
         super.run(args);
 
+        if (restart) {
+            RangeReindexer.clearCheckpoints(getGraph());
+        }
+
         System.out.println("Starting reindex");
         long startTime = System.currentTimeMillis();
         getGraph().reindex(getAuthorizations());
@@ -48,6 +48,7 @@ import com.mware.ge.GraphFactory;
 import com.mware.ge.util.ConfigurationUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -82,10 +83,17 @@ public abstract class GraphToolBase {
     }
 
     protected void run(String[] args) throws Exception {
+        graph = new GraphFactory().createGraph(loadConfiguration(args));
+    }
+
+    /**
+     * Parses the command line and loads the configuration without creating the graph.
+     */
+    protected Configuration loadConfiguration(String[] args) throws IOException {
         new JCommander(this).parse(args);
         addConfigDirectoriesToConfigFileNames(configDirectories, configFileNames);
         Map<String, Object> config = ConfigurationUtils.loadConfig(configFileNames, configPropertyPrefix);
-        graph = new GraphFactory().createGraph(new Configuration(config));
+        return new Configuration(config);
     }
 
     private void addConfigDirectoriesToConfigFileNames(List<String> configDirectories, List<String> configFileNames) {
@@ -51,6 +51,7 @@ import com.mware.ge.query.builder.GeQueryBuilders;
 import com.mware.ge.search.SearchIndex;
 import com.mware.ge.util.IterableUtils;
 import com.mware.ge.values.storable.DateTimeValue;
+import com.mware.ge.values.storable.LongValue;
 import com.mware.ge.values.storable.TextValue;
 import org.junit.After;
 import org.junit.Before;
@@ -59,6 +60,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -361,6 +363,46 @@ public abstract class GraphExtendedDataTests implements GraphTestSetup {
         assertIdsAnyOrder(rowValues, "value5");
     }
 
+    @Test
+    public void testExtendedDataProjectionAndFilters() {
+        getGraph().defineProperty("name").textIndexHint(TextIndexHint.EXACT_MATCH).dataType(TextValue.class).define();
+        getGraph().defineProperty("count").dataType(LongValue.class).define();
+        VertexBuilder m = getGraph().prepareVertex("v1", VISIBILITY_A, CONCEPT_TYPE_THING);
+        for (int i = 0; i < 10; i++) {
+            m.addExtendedData("table1", "row" + i, "name", stringValue("value" + i), VISIBILITY_A);
+            m.addExtendedData("table1", "row" + i, "count", longValue(i), VISIBILITY_A);
+        }
+        m.addExtendedData("table1", "row10", "name", stringValue("value10"), VISIBILITY_A);
+        m.addExtendedData("table1", "row11", "count", longValue(11), VISIBILITY_B);
+        m.save(AUTHORIZATIONS_A);
+        getGraph().flush();
+
+        List<ElementId> elementIds = Lists.newArrayList(ElementId.vertex("v1"));
+        FetchHints countOnly = FetchHints.builder()
+                .setPropertyNamesToInclude("count")
+                .setIncludeExtendedDataTableNames(true)
+                .build();
+        List<ExtendedDataRow> rows = toList(getGraph().getExtendedDataForElements(elementIds, "table1", countOnly, AUTHORIZATIONS_A));
+        assertEquals(11, rows.size());
+        assertEquals(longValue(3), rows.stream().filter(row -> row.getId().getRowId().equals("row3")).findFirst().get().getPropertyValue("count"));
+        assertTrue(toList(rows.stream().filter(row -> row.getId().getRowId().equals("row3")).findFirst().get().getPropertyNames()).contains("name"));
+
+        Collection<PropertyDefinition> propertyDefinitions = getGraph().getPropertyDefinitions();
+        QueryBase.HasValueContainer countAtLeast7 = new QueryBase.HasValueContainer(Conjunction.AND, "count", Compare.GREATER_THAN_EQUAL, longValue(7), propertyDefinitions);
+        rows = toList(getGraph().getExtendedDataForElements(elementIds, "table1", countOnly, Lists.newArrayList(countAtLeast7), AUTHORIZATIONS_A));
+        assertRowIdsAnyOrder(rows, "row7", "row8", "row9");
+        assertEquals(longValue(8), rows.stream().filter(row -> row.getId().getRowId().equals("row8")).findFirst().get().getPropertyValue("count"));
+
+        QueryBase.HasValueContainer countAtLeast3 = new QueryBase.HasValueContainer(Conjunction.AND, "count", Compare.GREATER_THAN_EQUAL, longValue(3), propertyDefinitions);
+        QueryBase.HasValueContainer name4 = new QueryBase.HasValueContainer(Conjunction.AND, "name", Compare.EQUAL, stringValue("value4"), propertyDefinitions);
+        rows = toList(getGraph().getExtendedDataForElements(elementIds, "table1", countOnly, Lists.newArrayList(countAtLeast3, name4), AUTHORIZATIONS_A));
+        assertRowIdsAnyOrder(rows, "row4");
+
+        QueryBase.HasValueContainer countNot5 = new QueryBase.HasValueContainer(Conjunction.AND, "count", Compare.NOT_EQUAL, longValue(5), propertyDefinitions);
+        rows = toList(getGraph().getExtendedDataForElements(elementIds, "table1", FetchHints.ALL, Lists.newArrayList(countNot5), AUTHORIZATIONS_A));
+        assertRowIdsAnyOrder(rows, "row0", "row1", "row2", "row3", "row4", "row6", "row7", "row8", "row9", "row10");
+    }
+
     @Test
     public void testExtendedDataDifferentValue() {
         getGraph().prepareVertex("v1", VISIBILITY_A, CONCEPT_TYPE_THING)
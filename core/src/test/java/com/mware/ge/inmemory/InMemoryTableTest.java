@@ -0,0 +1,129 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.inmemory;
+
+import com.mware.ge.inmemory.mutations.AlterConceptTypeMutation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class InMemoryTableTest {
+    private static final int ID_COUNT = 8;
+    private static final int APPENDS_PER_THREAD = 20_000;
+
+    @Test
+    public void testConcurrentReadAppendRemove() throws InterruptedException {
+        InMemoryVertexTable table = new InMemoryVertexTable();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        List<Thread> others = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            writers.add(new Thread(() -> run(start, failures, () -> {
+                for (int i = 0; i < APPENDS_PER_THREAD; i++) {
+                    table.append(id(i), new AlterConceptTypeMutation(i, "c" + i));
+                }
+            })));
+        }
+        others.add(new Thread(() -> run(start, failures, () -> {
+            for (int i = 0; !done.get(); i++) {
+                table.remove(id(i));
+            }
+        })));
+        for (int t = 0; t < 2; t++) {
+            others.add(new Thread(() -> run(start, failures, () -> {
+                for (int i = 0; !done.get(); i++) {
+                    assertHasMutations(table.getTableElement(id(i)));
+                    for (InMemoryTableElement<InMemoryVertex> element : table.getRowValues()) {
+                        assertHasMutations(element);
+                    }
+                }
+            })));
+        }
+
+        writers.forEach(Thread::start);
+        others.forEach(Thread::start);
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.set(true);
+        for (Thread other : others) {
+            other.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.peek());
+        }
+
+        // with the remover stopped, a final append to every id has to be visible
+        for (int i = 0; i < ID_COUNT; i++) {
+            table.append(id(i), new AlterConceptTypeMutation(APPENDS_PER_THREAD, "last"));
+            InMemoryTableElement<InMemoryVertex> element = table.getTableElement(id(i));
+            assertNotNull(element);
+            assertEquals("last", element.findLastMutation(AlterConceptTypeMutation.class).getNewConceptType());
+        }
+    }
+
+    private static void assertHasMutations(InMemoryTableElement<InMemoryVertex> element) {
+        if (element != null) {
+            assertNotNull("element " + element.getId() + " is visible without mutations",
+                    element.findLastMutation(AlterConceptTypeMutation.class));
+        }
+    }
+
+    private static String id(int i) {
+        return "v" + (i % ID_COUNT);
+    }
+
+    private static void run(CountDownLatch start, Queue<Throwable> failures, Runnable runnable) {
+        try {
+            start.await();
+            runnable.run();
+        } catch (Throwable ex) {
+            failures.add(ex);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.store;
+
+import com.mware.ge.FetchHints;
+import com.mware.ge.Property;
+import com.mware.ge.Visibility;
+import com.mware.ge.property.MutablePropertyImpl;
+import com.mware.ge.values.storable.StreamingPropertyValue;
+import com.mware.ge.values.storable.StreamingPropertyValueRef;
+import com.mware.ge.values.storable.TextValue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class ContentAddressedSPVStorageStrategyTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final Map<StreamingPropertyValue, String> rowKeys = new IdentityHashMap<>();
+
+    @Test
+    public void testDeduplicateAndRead() throws IOException {
+        Path root = folder.getRoot().toPath();
+        ContentAddressedSPVStorageStrategy strategy = new ContentAddressedSPVStorageStrategy(root, 1024, 16, 0.5);
+        StreamingPropertyValue a1 = save(strategy, "value a");
+        StreamingPropertyValue a2 = save(strategy, "value a");
+        StreamingPropertyValue b = save(strategy, "value b, long enough to be memory mapped");
+
+        assertEquals(2, strategy.getSegmentStore().size());
+        assertEquals("value a", a1.readToString());
+        assertEquals("value a", a2.readToString());
+        assertEquals("value b, long enough to be memory mapped", b.readToString());
+        assertEquals("long", b.readToString(9, 4));
+        assertEquals(Long.valueOf(7), a1.getLength());
+        strategy.close();
+
+        // the journal restores the index
+        strategy = new ContentAddressedSPVStorageStrategy(root, 1024, 16, 0.5);
+        assertEquals(2, strategy.getSegmentStore().size());
+        assertEquals(2, entry(strategy, a1).getRefs());
+        assertEquals("value a", reload(strategy, a1).readToString());
+        strategy.close();
+    }
+
+    @Test
+    public void testLargeValue() throws IOException {
+        ContentAddressedSPVStorageStrategy strategy = new ContentAddressedSPVStorageStrategy(folder.getRoot().toPath(), 8 * 1024 * 1024, 1024, 0.5);
+        StringBuilder value = new StringBuilder();
+        while (value.length() < 3 * 1024 * 1024) {
+            value.append(value.length()).append(',');
+        }
+        StreamingPropertyValue spv1 = save(strategy, value.toString());
+        StreamingPropertyValue spv2 = save(strategy, value.toString());
+
+        // the duplicate written while hashing is truncated
+        assertEquals(1, strategy.getSegmentStore().getSegmentCount());
+        assertEquals(value.length(), Files.size(segmentFiles(folder.getRoot().toPath())));
+        assertEquals(value.toString(), spv2.readToString());
+        assertEquals(value.substring(100000, 100010), spv1.readToString(100000, 10));
+        strategy.close();
+    }
+
+    @Test
+    public void testCollectGarbage() throws IOException {
+        Path root = folder.getRoot().toPath();
+        ContentAddressedSPVStorageStrategy strategy = new ContentAddressedSPVStorageStrategy(root, 16, 1024, 0.5);
+        StreamingPropertyValue v1 = save(strategy, "0123456789");
+        StreamingPropertyValue v2 = save(strategy, "abcdefghij");
+        StreamingPropertyValue v3 = save(strategy, "ABCDEFGHIJ");
+        StreamingPropertyValue v4 = save(strategy, "klmnopqrst");
+        assertEquals(4, strategy.getSegmentStore().getSegmentCount());
+
+        delete(strategy, v1);
+        delete(strategy, v3);
+        strategy.collectGarbage();
+
+        // the segments of v1 and v3 are removed, v4 is in the segment being appended to
+        assertEquals(2, strategy.getSegmentStore().size());
+        assertEquals(2, strategy.getSegmentStore().getSegmentCount());
+        assertEquals("abcdefghij", v2.readToString());
+        assertEquals("klmnopqrst", v4.readToString());
+        strategy.close();
+
+        strategy = new ContentAddressedSPVStorageStrategy(root, 16, 1024, 0.5);
+        assertEquals(2, strategy.getSegmentStore().size());
+        assertEquals("abcdefghij", reload(strategy, v2).readToString());
+        strategy.close();
+    }
+
+    @Test
+    public void testTornJournal() throws IOException {
+        Path root = folder.getRoot().toPath();
+        ContentAddressedSPVStorageStrategy strategy = new ContentAddressedSPVStorageStrategy(root, 1024, 1024, 0.5);
+        StreamingPropertyValue v1 = save(strategy, "value 1");
+        StreamingPropertyValue v2 = save(strategy, "value 2");
+        strategy.close();
+
+        // the referrer record of value 2 is torn
+        Path journal = root.resolve("index.log");
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        strategy = new ContentAddressedSPVStorageStrategy(root, 1024, 1024, 0.5);
+        assertEquals(2, strategy.getSegmentStore().size());
+        assertEquals(1, entry(strategy, v1).getRefs());
+        assertEquals(0, entry(strategy, v2).getRefs());
+        assertEquals("value 1", reload(strategy, v1).readToString());
+        v2 = save(strategy, "value 2");
+        assertEquals(1, entry(strategy, v2).getRefs());
+        assertEquals("value 2", v2.readToString());
+        strategy.close();
+    }
+
+    @Test
+    public void testReleaseIsIdempotentPerReferrer() throws IOException {
+        Path root = folder.getRoot().toPath();
+        ContentAddressedSPVStorageStrategy strategy = new ContentAddressedSPVStorageStrategy(root, 16, 1024, 0.5);
+        StreamingPropertyValue v1 = save(strategy, "v1", "shared value");
+        StreamingPropertyValue v2 = save(strategy, "v2", "shared value");
+        // saving the same property again doesn't add a referrer
+        save(strategy, "v2", "shared value");
+        assertEquals(2, entry(strategy, v1).getRefs());
+
+        // a double delete of v1 must not release the reference of v2
+        delete(strategy, "v1", v1);
+        delete(strategy, "v1", v1);
+        assertEquals(1, entry(strategy, v2).getRefs());
+        save(strategy, "v3", "0123456789");
+        strategy.collectGarbage();
+        assertEquals("shared value", v2.readToString());
+        strategy.close();
+
+        strategy = new ContentAddressedSPVStorageStrategy(root, 16, 1024, 0.5);
+        assertEquals(1, entry(strategy, v2).getRefs());
+        delete(strategy, "v2", v2);
+        assertEquals(0, entry(strategy, v2).getRefs());
+        strategy.close();
+    }
+
+    @Test
+    public void testReplayDropsValuesPastSegmentEnd() throws IOException {
+        Path root = folder.getRoot().toPath();
+        ContentAddressedSPVStorageStrategy strategy = new ContentAddressedSPVStorageStrategy(root, 1024, 1024, 0.5);
+        save(strategy, "value 1");
+        strategy.close();
+
+        // the segment lost its tail, like after a power loss
+        try (FileChannel channel = FileChannel.open(segmentFiles(root), StandardOpenOption.WRITE)) {
+            channel.truncate(3);
+        }
+
+        strategy = new ContentAddressedSPVStorageStrategy(root, 1024, 1024, 0.5);
+        assertEquals(0, strategy.getSegmentStore().size());
+        StreamingPropertyValue v1 = save(strategy, "value 1");
+        assertEquals("value 1", v1.readToString());
+        strategy.close();
+
+        strategy = new ContentAddressedSPVStorageStrategy(root, 1024, 1024, 0.5);
+        assertEquals("value 1", reload(strategy, v1).readToString());
+        strategy.close();
+    }
+
+    private StreamingPropertyValue save(ContentAddressedSPVStorageStrategy strategy, String value) {
+        String rowKey = "v" + rowKeys.size();
+        StreamingPropertyValue spv = save(strategy, rowKey, value);
+        rowKeys.put(spv, rowKey);
+        return spv;
+    }
+
+    private static StreamingPropertyValue save(ContentAddressedSPVStorageStrategy strategy, String rowKey, String value) {
+        StreamingPropertyValue spv = StreamingPropertyValue.create(new ByteArrayInputStream(value.getBytes()), TextValue.class);
+        StreamingPropertyValueRef ref = strategy.saveStreamingPropertyValue(null, rowKey, property(spv), spv);
+        return new StreamingPropertyValueSegmentRef.StreamingPropertyValueSegment(strategy, (StreamingPropertyValueSegmentRef) ref);
+    }
+
+    private void delete(ContentAddressedSPVStorageStrategy strategy, StreamingPropertyValue spv) {
+        delete(strategy, rowKeys.get(spv), spv);
+    }
+
+    private static void delete(ContentAddressedSPVStorageStrategy strategy, String rowKey, StreamingPropertyValue spv) {
+        strategy.deleteStreamingPropertyValue(rowKey, property(spv));
+    }
+
+    private static Property property(StreamingPropertyValue spv) {
+        return new MutablePropertyImpl("k1", "data", spv, null, 1L, null, new Visibility(""), FetchHints.ALL);
+    }
+
+    private static StreamingPropertyValue reload(ContentAddressedSPVStorageStrategy strategy, StreamingPropertyValue spv) {
+        return new StreamingPropertyValueSegmentRef.StreamingPropertyValueSegment(strategy, ((StreamingPropertyValueSegmentRef.StreamingPropertyValueSegment) spv).getRef());
+    }
+
+    private static SPVSegmentStore.Entry entry(ContentAddressedSPVStorageStrategy strategy, StreamingPropertyValue spv) {
+        byte[] hash = ((StreamingPropertyValueSegmentRef.StreamingPropertyValueSegment) spv).getRef().getHash();
+        return strategy.getSegmentStore().get(new SPVSegmentStore.ContentHash(hash));
+    }
+
+    private static Path segmentFiles(Path root) throws IOException {
+        return Files.walk(root.resolve("segments"))
+                .filter(p -> p.toString().endsWith(".seg"))
+                .findFirst()
+                .get();
+    }
+}
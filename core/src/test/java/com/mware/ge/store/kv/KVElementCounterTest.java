@@ -0,0 +1,98 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.store.kv;
+
+import com.mware.ge.Authorizations;
+import com.mware.ge.collection.Pair;
+import com.mware.ge.security.ColumnVisibility;
+import com.mware.ge.store.StorableElement;
+import com.mware.ge.store.StorableVertex;
+import com.mware.ge.store.StoreValue;
+import com.mware.ge.store.mutations.ElementMutationBuilder;
+import com.mware.ge.store.mutations.StoreColumnUpdate;
+import com.mware.ge.store.mutations.StoreMutation;
+import com.mware.ge.util.Bytes;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class KVElementCounterTest {
+    private static final ColumnVisibility EMPTY = new ColumnVisibility("");
+    private static final ColumnVisibility SECRET = new ColumnVisibility("secret");
+
+    @Test
+    public void testCount() {
+        List<Pair<byte[], byte[]>> table = new ArrayList<>();
+        add(table, "v1", StorableVertex.CF_SIGNAL, "thing", EMPTY, 10, ElementMutationBuilder.EMPTY_VALUE);
+        add(table, "v1", StorableElement.CF_PROPERTY, "name", EMPTY, 10, "joe".getBytes());
+        add(table, "v2", StorableVertex.CF_SIGNAL, "thing", SECRET, 10, ElementMutationBuilder.EMPTY_VALUE);
+        add(table, "v3", StorableVertex.CF_SIGNAL, "thing", EMPTY, 10, ElementMutationBuilder.EMPTY_VALUE);
+        add(table, "v3", StorableElement.DELETE_ROW_COLUMN_FAMILY, StorableElement.DELETE_ROW_COLUMN_QUALIFIER, EMPTY, 20, ElementMutationBuilder.DELETE_ROW_VALUE);
+        add(table, "v4", StorableVertex.CF_SIGNAL, "thing", EMPTY, 10, ElementMutationBuilder.EMPTY_VALUE);
+        add(table, "v4", StorableElement.CF_SOFT_DELETE, StorableElement.CQ_SOFT_DELETE, EMPTY, 20, StorableElement.SOFT_DELETE_VALUE);
+        add(table, "v5", StorableVertex.CF_SIGNAL, "thing", EMPTY, 30, ElementMutationBuilder.EMPTY_VALUE);
+        add(table, "v5", StorableElement.CF_SOFT_DELETE, StorableElement.CQ_SOFT_DELETE, EMPTY, 20, StorableElement.SOFT_DELETE_VALUE);
+        add(table, "v6", StorableVertex.CF_SIGNAL, "thing", EMPTY, 10, ElementMutationBuilder.EMPTY_VALUE);
+        add(table, "v6", StorableElement.CF_HIDDEN, StorableElement.CQ_HIDDEN, SECRET, 20, StorableElement.HIDDEN_VALUE);
+        add(table, "v7", StorableVertex.CF_SIGNAL, "thing", EMPTY, 10, ElementMutationBuilder.EMPTY_VALUE);
+        add(table, "v7", StorableElement.CF_HIDDEN, StorableElement.CQ_HIDDEN, EMPTY, 20, StorableElement.HIDDEN_VALUE);
+        table.sort((p1, p2) -> Bytes.compare(p1.first(), p2.first()));
+
+        // v1, v5 and v6 with the hidden marker of v6 not readable
+        assertEquals(3, count(table, new Authorizations()));
+        // v1, v2 and v5
+        assertEquals(3, count(table, new Authorizations("secret")));
+    }
+
+    private static long count(List<Pair<byte[], byte[]>> table, Authorizations authorizations) {
+        KVElementCounter counter = new KVElementCounter(StorableVertex.CF_SIGNAL, authorizations);
+        ScanFilter filter = counter.getScanFilter();
+        return counter.count(table.stream().filter(p -> filter.accept(p.first())).collect(Collectors.toList()).iterator());
+    }
+
+    private static void add(List<Pair<byte[], byte[]>> table, String id, String cf, String cq, ColumnVisibility visibility, long timestamp, byte[] value) {
+        StoreMutation m = new StoreMutation(id);
+        m.put(cf, cq, visibility, timestamp, value);
+        StoreColumnUpdate u = m.getUpdates().get(0);
+        byte[] key = KVKeyUtils.keyFromMutation(m, u.getColumnFamily(), u.getColumnQualifier(), u.getColumnVisibility()).array();
+        table.add(Pair.of(key, new StoreValue(timestamp, value).serialize()));
+    }
+}
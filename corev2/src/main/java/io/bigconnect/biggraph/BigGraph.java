@@ -22,6 +22,7 @@ package io.bigconnect.biggraph;
 
 import io.bigconnect.biggraph.auth.AuthManager;
 import io.bigconnect.biggraph.backend.id.Id;
+import io.bigconnect.biggraph.backend.query.ConditionQuery;
 import io.bigconnect.biggraph.backend.query.Query;
 import io.bigconnect.biggraph.backend.store.BackendFeatures;
 import io.bigconnect.biggraph.backend.store.BackendStoreSystemInfo;
@@ -32,6 +33,7 @@ import io.bigconnect.biggraph.rpc.RpcServiceConfig4Server;
 import io.bigconnect.biggraph.schema.*;
 import io.bigconnect.biggraph.structure.BigFeatures;
 import io.bigconnect.biggraph.task.TaskScheduler;
+import io.bigconnect.biggraph.traversal.optimize.BigAggregateStepStrategy;
 import io.bigconnect.biggraph.traversal.optimize.BigCountStepStrategy;
 import io.bigconnect.biggraph.traversal.optimize.BigGraphStepStrategy;
 import io.bigconnect.biggraph.traversal.optimize.BigVertexStepStrategy;
@@ -46,6 +48,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Graph interface for Gremlin operations
@@ -110,6 +113,7 @@ public interface BigGraph extends Graph {
     Iterator<Vertex> vertices(Object... objects);
     Iterator<Vertex> vertices(Query query);
     Iterator<Vertex> adjacentVertex(Object id);
+    Set<Id> indexedVertexIds(ConditionQuery query, long limit);
     boolean checkAdjacentVertexExist();
 
     Edge edge(Object object);
@@ -236,7 +240,8 @@ public interface BigGraph extends Graph {
                                         .clone();
         strategies.addStrategies(BigVertexStepStrategy.instance(),
                                  BigGraphStepStrategy.instance(),
-                                 BigCountStepStrategy.instance());
+                                 BigCountStepStrategy.instance(),
+                                 BigAggregateStepStrategy.instance());
         TraversalStrategies.GlobalCache.registerStrategies(clazz, strategies);
     }
 }
@@ -34,6 +34,7 @@ import io.bigconnect.biggraph.backend.cache.CachedSchemaTransaction;
 import io.bigconnect.biggraph.backend.id.Id;
 import io.bigconnect.biggraph.backend.id.IdGenerator;
 import io.bigconnect.biggraph.backend.id.SnowflakeIdGenerator;
+import io.bigconnect.biggraph.backend.query.ConditionQuery;
 import io.bigconnect.biggraph.backend.query.Query;
 import io.bigconnect.biggraph.backend.serializer.AbstractSerializer;
 import io.bigconnect.biggraph.backend.serializer.SerializerFactory;
@@ -73,6 +74,8 @@ import org.apache.tinkerpop.gremlin.structure.util.AbstractThreadLocalTransactio
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.slf4j.Logger;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -104,6 +107,8 @@ public class StandardBigGraph implements BigGraph {
            CoreOptions.OLTP_CONCURRENT_THREADS,
            CoreOptions.OLTP_CONCURRENT_DEPTH,
            CoreOptions.OLTP_COLLECTION_TYPE,
+           CoreOptions.QUERY_BATCH_SIZE,
+           CoreOptions.QUERY_ADJACENT_INDEX_LIMIT,
            CoreOptions.VERTEX_DEFAULT_LABEL,
            CoreOptions.VERTEX_ENCODE_PK_NUMBER,
            CoreOptions.STORE_GRAPH
@@ -154,15 +159,6 @@ public class StandardBigGraph implements BigGraph {
         this.readRateLimiter = readLimit > 0 ?
                                RateLimiter.create(readLimit) : null;
 
-        boolean ramtableEnable = config.get(CoreOptions.QUERY_RAMTABLE_ENABLE);
-        if (ramtableEnable) {
-            long vc = config.get(CoreOptions.QUERY_RAMTABLE_VERTICES_CAPACITY);
-            int ec = config.get(CoreOptions.QUERY_RAMTABLE_EDGES_CAPACITY);
-            this.ramtable = new RamTable(this, vc, ec);
-        } else {
-            this.ramtable = null;
-        }
-
         this.taskManager = TaskManager.instance();
 
         this.features = new BigFeatures(this, true);
@@ -185,6 +181,7 @@ public class StandardBigGraph implements BigGraph {
         }
 
         try {
+            this.ramtable = this.loadRamtable();
             this.tx = new TinkerPopTransaction(this);
 
             SnowflakeIdGenerator.init(this.params);
@@ -199,6 +196,34 @@ public class StandardBigGraph implements BigGraph {
         }
     }
 
+    private RamTable loadRamtable() {
+        if (!this.configuration.get(CoreOptions.QUERY_RAMTABLE_ENABLE)) {
+            return null;
+        }
+        long vc = this.configuration.get(
+                  CoreOptions.QUERY_RAMTABLE_VERTICES_CAPACITY);
+        int ec = this.configuration.get(
+                 CoreOptions.QUERY_RAMTABLE_EDGES_CAPACITY);
+        Path file = null;
+        if (this.configuration.get(CoreOptions.QUERY_RAMTABLE_MAPPED)) {
+            file = Paths.get(RamTable.EXPORT_PATH,
+                             this.name + RamTable.FILE_SUFFIX);
+        }
+        RamTable ramtable = new RamTable(this, vc, ec, file);
+
+        // The table is stale once the backend data is cleared or truncated
+        Set<String> storeEvents = ImmutableSet.of(Events.STORE_CLEAR,
+                                                  Events.STORE_TRUNCATE);
+        this.storeProvider.listen(event -> {
+            if (storeEvents.contains(event.name())) {
+                ramtable.clear();
+                return true;
+            }
+            return false;
+        });
+        return ramtable;
+    }
+
     @Override
     public String name() {
         return this.name;
@@ -265,6 +290,10 @@ public class StandardBigGraph implements BigGraph {
     @Override
     public void mode(GraphMode mode) {
         LOG.info("Graph {} will work in {} mode", this, mode);
+        if (mode.maintaining() && this.ramtable != null) {
+            // Restored or merged data isn't in the ramtable
+            this.ramtable.clear();
+        }
         this.mode = mode;
     }
 
@@ -360,6 +389,9 @@ public class StandardBigGraph implements BigGraph {
         LockUtil.lock(this.name, LockUtil.GRAPH_LOCK);
         try {
             this.storeProvider.resumeSnapshot();
+            if (this.ramtable != null) {
+                this.ramtable.clear();
+            }
         } finally {
             LockUtil.unlock(this.name, LockUtil.GRAPH_LOCK);
         }
@@ -616,6 +648,11 @@ public class StandardBigGraph implements BigGraph {
         return this.graphTransaction().queryAdjacentVertices(id);
     }
 
+    @Override
+    public Set<Id> indexedVertexIds(ConditionQuery query, long limit) {
+        return this.graphTransaction().queryVertexIdsByIndex(query, limit);
+    }
+
     @Override
     public boolean checkAdjacentVertexExist() {
         return this.graphTransaction().checkAdjacentVertexExist();
@@ -867,6 +904,9 @@ public class StandardBigGraph implements BigGraph {
             this.closeTx();
         } finally {
             this.closed = true;
+            if (this.ramtable != null) {
+                this.ramtable.close();
+            }
             this.storeProvider.close();
             LockUtil.destroy(this.name);
         }
@@ -23,6 +23,9 @@ package io.bigconnect.biggraph.backend.cache;
 import io.bigconnect.biggraph.BigGraphParams;
 import io.bigconnect.biggraph.backend.cache.CachedBackendStore.QueryId;
 import io.bigconnect.biggraph.backend.id.Id;
+import io.bigconnect.biggraph.backend.query.Condition;
+import io.bigconnect.biggraph.backend.query.Condition.Relation;
+import io.bigconnect.biggraph.backend.query.ConditionQuery;
 import io.bigconnect.biggraph.backend.query.IdQuery;
 import io.bigconnect.biggraph.backend.query.Query;
 import io.bigconnect.biggraph.backend.query.QueryResults;
@@ -36,14 +39,17 @@ import io.bigconnect.biggraph.event.EventHub;
 import io.bigconnect.biggraph.event.EventListener;
 import io.bigconnect.biggraph.exception.NotSupportException;
 import io.bigconnect.biggraph.iterator.ExtendableIterator;
+import io.bigconnect.biggraph.iterator.FlatMapperIterator;
 import io.bigconnect.biggraph.iterator.ListIterator;
 import io.bigconnect.biggraph.perf.PerfUtil.Watched;
 import io.bigconnect.biggraph.schema.IndexLabel;
 import io.bigconnect.biggraph.structure.BigEdge;
 import io.bigconnect.biggraph.structure.BigVertex;
 import io.bigconnect.biggraph.type.BigType;
+import io.bigconnect.biggraph.type.define.BigKeys;
 import io.bigconnect.biggraph.util.E;
 import io.bigconnect.biggraph.util.Events;
+import io.bigconnect.biggraph.util.InsertionOrderUtil;
 import com.google.common.collect.ImmutableSet;
 
 import java.lang.reflect.Array;
@@ -275,6 +281,11 @@ public final class CachedGraphTransaction extends GraphTransaction {
             return super.queryEdgesFromBackend(query);
         }
 
+        Relation owners = ownerVerticesRelation(query);
+        if (owners != null) {
+            return this.queryEdgesByOwners((ConditionQuery) query, owners);
+        }
+
         Id cacheKey = new QueryId(query);
         Object value = this.edgesCache.get(cacheKey);
         @SuppressWarnings("unchecked")
@@ -316,6 +327,139 @@ public final class CachedGraphTransaction extends GraphTransaction {
         return new ExtendableIterator<>(edges.iterator(), rs);
     }
 
+    /**
+     * Query the edges of multiple owner vertices, the edges of each owner are
+     * cached with the same key as the query of that single owner, and only
+     * the owners that missed the cache are queried from the backend at once
+     */
+    private Iterator<BigEdge> queryEdgesByOwners(ConditionQuery query,
+                                                 Relation owners) {
+        Set<Condition> conditions = InsertionOrderUtil.newSet();
+        for (Condition condition : query.conditions()) {
+            if (condition != owners) {
+                conditions.add(condition);
+            }
+        }
+        ConditionQuery template = query.copyAndResetUnshared();
+        template.resetConditions(conditions);
+
+        List<Iterator<BigEdge>> results = new ArrayList<>();
+        Map<Id, Id> missedKeys = new LinkedHashMap<>();
+        @SuppressWarnings("unchecked")
+        Collection<Object> values = InsertionOrderUtil.newSet();
+        values.addAll((List<Object>) owners.value());
+        for (Object value : values) {
+            Id owner = (Id) value;
+            ConditionQuery ownerQuery = template.copyAndResetUnshared();
+            ownerQuery.eq(BigKeys.OWNER_VERTEX, owner);
+            Id cacheKey = new QueryId(ownerQuery);
+
+            @SuppressWarnings("unchecked")
+            Collection<BigEdge> edges = (Collection<BigEdge>)
+                                        this.edgesCache.get(cacheKey);
+            if (edges != null) {
+                for (BigEdge edge : edges) {
+                    if (edge.expired()) {
+                        this.edgesCache.invalidate(cacheKey);
+                        edges = null;
+                        break;
+                    }
+                }
+            }
+            if (edges != null) {
+                results.add(edges.iterator());
+            } else {
+                missedKeys.put(owner, cacheKey);
+            }
+        }
+
+        if (!missedKeys.isEmpty()) {
+            ConditionQuery missed = template.copyAndResetUnshared();
+            if (missedKeys.size() == 1) {
+                missed.eq(BigKeys.OWNER_VERTEX,
+                          missedKeys.keySet().iterator().next());
+            } else {
+                missed.query(Condition.in(BigKeys.OWNER_VERTEX,
+                                          new ArrayList<>(missedKeys.keySet())));
+            }
+            Iterator<BigEdge> rs = super.queryEdgesFromBackend(missed);
+            results.add(new OwnerEdgesCacheIterator(rs, missedKeys));
+        }
+        return new FlatMapperIterator<>(results.iterator(), it -> it);
+    }
+
+    private static Relation ownerVerticesRelation(Query query) {
+        if (!(query instanceof ConditionQuery)) {
+            return null;
+        }
+        for (Condition condition : query.conditions()) {
+            if (!condition.isRelation()) {
+                continue;
+            }
+            Relation relation = (Relation) condition;
+            if (relation.key() == BigKeys.OWNER_VERTEX &&
+                relation.relation() == Condition.RelationType.IN) {
+                return relation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cache the edges of each owner vertex once all the edges are iterated,
+     * the edges of an owner may not be adjacent when querying both directions
+     */
+    private class OwnerEdgesCacheIterator implements Iterator<BigEdge> {
+
+        private final Iterator<BigEdge> results;
+        private final Map<Id, Id> cacheKeys;
+        private final Map<Id, List<BigEdge>> ownerEdges;
+        private boolean cached;
+
+        public OwnerEdgesCacheIterator(Iterator<BigEdge> results,
+                                       Map<Id, Id> cacheKeys) {
+            this.results = results;
+            this.cacheKeys = cacheKeys;
+            this.ownerEdges = new HashMap<>();
+            this.cached = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.results.hasNext()) {
+                return true;
+            }
+            if (!this.cached) {
+                this.cached = true;
+                for (Map.Entry<Id, Id> e : this.cacheKeys.entrySet()) {
+                    List<BigEdge> edges = this.ownerEdges.get(e.getKey());
+                    if (edges == null) {
+                        edges = Collections.emptyList();
+                    }
+                    edgesCache.update(e.getValue(), edges);
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public BigEdge next() {
+            BigEdge edge = this.results.next();
+            Id owner = edge.id().ownerVertexId();
+            if (this.cacheKeys.containsKey(owner)) {
+                List<BigEdge> edges = this.ownerEdges.computeIfAbsent(
+                                      owner, k -> new ArrayList<>());
+                edges.add(edge);
+                if (edges.size() > MAX_CACHE_EDGES_PER_QUERY) {
+                    // Don't cache the edges of super vertices
+                    this.cacheKeys.remove(owner);
+                    this.ownerEdges.remove(owner);
+                }
+            }
+            return edge;
+        }
+    }
+
     @Override
     protected final void commitMutation2Backend(BackendMutation... mutations) {
         // Collect changes before commit
@@ -50,7 +50,7 @@ public abstract class IdGenerator {
     }
 
     public final static Id of(long id) {
-        return new LongId(id);
+        return LongId.valueOf(id);
     }
 
     public static Id of(Object id) {
@@ -203,12 +203,33 @@ public abstract class IdGenerator {
 
         private static final long serialVersionUID = -7732461469037400190L;
 
+        /*
+         * Schema ids (labels, property keys, index labels) are small
+         * numbers decoded over and over with every vertex and edge, so
+         * share the instances like Long.valueOf() does
+         */
+        private static final int CACHE_SIZE = 1024;
+        private static final LongId[] CACHE = new LongId[CACHE_SIZE];
+
+        static {
+            for (int i = 0; i < CACHE_SIZE; i++) {
+                CACHE[i] = new LongId(i);
+            }
+        }
+
         private final long id;
 
         public LongId(long id) {
             this.id = id;
         }
 
+        public static LongId valueOf(long id) {
+            if (id >= 0L && id < CACHE_SIZE) {
+                return CACHE[(int) id];
+            }
+            return new LongId(id);
+        }
+
         public LongId(byte[] bytes) {
             this.id = NumericUtil.bytesToLong(bytes);
         }
@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 public final class QueryList<R> {
 
@@ -42,11 +43,18 @@ public final class QueryList<R> {
     // The size of each page fetched by the inner page
     private final QueryResults.Fetcher<R> fetcher;
     private final List<FlattenQuery<R>> queries;
+    // Fetch all the optimized queries at once if set
+    private Function<List<Query>, QueryResults<R>> batchFetcher;
 
     public QueryList(Query parent, QueryResults.Fetcher<R> fetcher) {
         this.parent = parent;
         this.fetcher = fetcher;
         this.queries = new ArrayList<>();
+        this.batchFetcher = null;
+    }
+
+    public void batchFetcher(Function<List<Query>, QueryResults<R>> fetcher) {
+        this.batchFetcher = fetcher;
     }
 
     protected Query parent() {
@@ -97,10 +105,28 @@ public final class QueryList<R> {
             return iter.results();
         }
 
+        if (this.batchFetcher != null && this.queries.size() > 1) {
+            List<Query> queries = this.optimizedQueries();
+            if (queries != null) {
+                return this.batchFetcher.apply(queries);
+            }
+        }
+
         // Fetch all results once
         return QueryResults.flatMap(this.queries.iterator(), q -> q.iterator());
     }
 
+    private List<Query> optimizedQueries() {
+        List<Query> queries = new ArrayList<>(this.queries.size());
+        for (FlattenQuery<R> q : this.queries) {
+            if (!(q instanceof QueryList.OptimizedQuery)) {
+                return null;
+            }
+            queries.add(((OptimizedQuery) q).query);
+        }
+        return queries;
+    }
+
     protected PageResults<R> fetchNext(PageInfo pageInfo, long pageSize) {
         FlattenQuery<R> query = null;
         int offset = pageInfo.offset();
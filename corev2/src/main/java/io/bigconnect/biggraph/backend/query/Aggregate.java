@@ -102,7 +102,8 @@ public class Aggregate {
                 count++;
             }
             if (this == AVG) {
-                number = NumberHelper.div(number, count);
+                // Same as Gremlin mean(), always a floating point number
+                number = NumberHelper.div(number, count, true);
             }
             return number;
         }
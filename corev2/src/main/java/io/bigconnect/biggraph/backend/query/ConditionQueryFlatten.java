@@ -42,6 +42,18 @@ public final class ConditionQueryFlatten {
             return Arrays.asList(query);
         }
 
+        /*
+         * Expand top level sysprop IN directly into one query for each value,
+         * it's much cheaper than flattening a large OR condition tree
+         */
+        for (Condition condition : query.conditions()) {
+            if (condition.isRelation() && condition.isSysprop() &&
+                ((Relation) condition).relation() ==
+                Condition.RelationType.IN) {
+                return flattenTopLevelIn(query, (Relation) condition);
+            }
+        }
+
         List<ConditionQuery> queries = new ArrayList<>();
 
         // Flatten IN/NOT_IN if needed
@@ -87,6 +99,29 @@ public final class ConditionQueryFlatten {
         return queries;
     }
 
+    private static List<ConditionQuery> flattenTopLevelIn(ConditionQuery query,
+                                                          Relation in) {
+        Set<Condition> others = InsertionOrderUtil.newSet();
+        for (Condition condition : query.conditions()) {
+            if (condition != in) {
+                others.add(condition);
+            }
+        }
+        ConditionQuery template = query.copyAndResetUnshared();
+        template.resetConditions(others);
+
+        @SuppressWarnings("unchecked")
+        Collection<Object> values = InsertionOrderUtil.newSet();
+        values.addAll((List<Object>) in.value());
+        List<ConditionQuery> queries = new ArrayList<>();
+        for (Object value : values) {
+            ConditionQuery cq = template.copyAndResetUnshared();
+            cq.query(Condition.eq((BigKeys) in.key(), value));
+            queries.addAll(flatten(cq));
+        }
+        return queries;
+    }
+
     private static Condition flattenIn(Condition condition) {
         switch (condition.type()) {
             case RELATION:
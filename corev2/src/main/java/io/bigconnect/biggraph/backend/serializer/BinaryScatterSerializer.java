@@ -49,7 +49,7 @@ public class BinaryScatterSerializer extends BinarySerializer {
         entry.column(this.formatLabel(vertex));
 
         // Write all properties of a Vertex
-        for (BigProperty<?> prop : vertex.getProperties().values()) {
+        for (BigProperty<?> prop : vertex.getPropertiesView()) {
             entry.column(this.formatProperty(prop));
         }
 
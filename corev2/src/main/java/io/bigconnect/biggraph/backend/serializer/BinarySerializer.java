@@ -47,6 +47,16 @@ public class BinarySerializer extends AbstractSerializer {
 
     public static final byte[] EMPTY_BYTES = new byte[0];
 
+    /*
+     * Scratch buffer of each thread to build keys and values into, only the
+     * exact-size copy taken by copyBytes() is handed to the backend entry.
+     * Buffers grown over the limit by a large value are not kept around.
+     */
+    private static final int BUFFER_RETAIN_LIMIT = 64 * (int) Bytes.KB;
+    private static final ThreadLocal<BytesBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> BytesBuffer.allocate(
+                                          BytesBuffer.BUF_EDGE_ID));
+
     /*
      * Id is stored in column name if keyWithIdPrefix=true like RocksDB,
      * else stored in rowkey like HBase.
@@ -72,13 +82,26 @@ public class BinarySerializer extends AbstractSerializer {
             return new BinaryBackendEntry(type, (BinaryId) id);
         }
 
-        BytesBuffer buffer = BytesBuffer.allocate(1 + id.length());
+        BytesBuffer buffer = buffer();
         byte[] idBytes = type.isIndex() ?
-                         buffer.writeIndexId(id, type).bytes() :
-                         buffer.writeId(id).bytes();
+                         buffer.writeIndexId(id, type).copyBytes() :
+                         buffer.writeId(id).copyBytes();
         return new BinaryBackendEntry(type, new BinaryId(idBytes, id));
     }
 
+    /**
+     * Get the cleared scratch buffer of the current thread, the caller must
+     * take its bytes with copyBytes() before asking for the buffer again
+     */
+    protected static BytesBuffer buffer() {
+        BytesBuffer buffer = BUFFERS.get();
+        if (buffer.capacity() > BUFFER_RETAIN_LIMIT) {
+            buffer = BytesBuffer.allocate(BytesBuffer.BUF_EDGE_ID);
+            BUFFERS.set(buffer);
+        }
+        return buffer.clear();
+    }
+
     protected final BinaryBackendEntry newBackendEntry(BigVertex vertex) {
         return newBackendEntry(vertex.type(), vertex.id());
     }
@@ -100,51 +123,48 @@ public class BinarySerializer extends AbstractSerializer {
     }
 
     protected byte[] formatSyspropName(Id id, BigKeys col) {
-        int idLen = this.keyWithIdPrefix ? 1 + id.length() : 0;
-        BytesBuffer buffer = BytesBuffer.allocate(idLen + 1 + 1);
+        BytesBuffer buffer = buffer();
         byte sysprop = BigType.SYS_PROPERTY.code();
         if (this.keyWithIdPrefix) {
             buffer.writeId(id);
         }
-        return buffer.write(sysprop).write(col.code()).bytes();
+        return buffer.write(sysprop).write(col.code()).copyBytes();
     }
 
     protected byte[] formatSyspropName(BinaryId id, BigKeys col) {
-        int idLen = this.keyWithIdPrefix ? id.length() : 0;
-        BytesBuffer buffer = BytesBuffer.allocate(idLen + 1 + 1);
+        BytesBuffer buffer = buffer();
         byte sysprop = BigType.SYS_PROPERTY.code();
         if (this.keyWithIdPrefix) {
             buffer.write(id.asBytes());
         }
-        return buffer.write(sysprop).write(col.code()).bytes();
+        return buffer.write(sysprop).write(col.code()).copyBytes();
     }
 
     protected BackendColumn formatLabel(BigElement elem) {
         BackendColumn col = new BackendColumn();
         col.name = this.formatSyspropName(elem.id(), BigKeys.LABEL);
         Id label = elem.schemaLabel().id();
-        BytesBuffer buffer = BytesBuffer.allocate(label.length() + 1);
-        col.value = buffer.writeId(label).bytes();
+        col.value = buffer().writeId(label).copyBytes();
         return col;
     }
 
     protected byte[] formatPropertyName(BigProperty<?> prop) {
         Id id = prop.element().id();
-        int idLen = this.keyWithIdPrefix ? 1 + id.length() : 0;
         Id pkeyId = prop.propertyKey().id();
-        BytesBuffer buffer = BytesBuffer.allocate(idLen + 2 + pkeyId.length());
+        BytesBuffer buffer = buffer();
         if (this.keyWithIdPrefix) {
             buffer.writeId(id);
         }
         buffer.write(prop.type().code());
         buffer.writeId(pkeyId);
-        return buffer.bytes();
+        return buffer.copyBytes();
     }
 
     protected BackendColumn formatProperty(BigProperty<?> prop) {
-        BytesBuffer buffer = BytesBuffer.allocate(BytesBuffer.BUF_PROPERTY);
-        buffer.writeProperty(prop.propertyKey(), prop.value());
-        return BackendColumn.of(this.formatPropertyName(prop), buffer.bytes());
+        // NOTE: take the value before the name reuses the buffer
+        byte[] value = buffer().writeProperty(prop.propertyKey(), prop.value())
+                               .copyBytes();
+        return BackendColumn.of(this.formatPropertyName(prop), value);
     }
 
     protected void parseProperty(Id pkeyId, BytesBuffer buffer,
@@ -198,26 +218,24 @@ public class BinarySerializer extends AbstractSerializer {
 
     protected byte[] formatEdgeName(BigEdge edge) {
         // owner-vertex + dir + edge-label + sort-values + other-vertex
-        return BytesBuffer.allocate(BytesBuffer.BUF_EDGE_ID)
-                          .writeEdgeId(edge.id()).bytes();
+        return buffer().writeEdgeId(edge.id()).copyBytes();
     }
 
     protected byte[] formatEdgeValue(BigEdge edge) {
-        int propsCount = edge.getProperties().size();
-        BytesBuffer buffer = BytesBuffer.allocate(4 + 16 * propsCount);
+        BytesBuffer buffer = buffer();
 
         // Write edge id
         //buffer.writeId(edge.id());
 
         // Write edge properties
-        this.formatProperties(edge.getProperties().values(), buffer);
+        this.formatProperties(edge.getPropertiesView(), buffer);
 
         // Write edge expired time if needed
         if (edge.hasTtl()) {
             this.formatExpiredTime(edge.expiredTime(), buffer);
         }
 
-        return buffer.bytes();
+        return buffer.copyBytes();
     }
 
     protected void parseEdge(BackendColumn col, BigVertex vertex,
@@ -299,19 +317,14 @@ public class BinarySerializer extends AbstractSerializer {
     }
 
     protected byte[] formatIndexName(BigIndex index) {
-        BytesBuffer buffer;
         Id elemId = index.elementId();
-        if (!this.indexWithIdPrefix) {
-            int idLen = 1 + elemId.length();
-            buffer = BytesBuffer.allocate(idLen);
-        } else {
+        BytesBuffer buffer = buffer();
+        if (this.indexWithIdPrefix) {
             Id indexId = index.id();
             BigType type = index.type();
             if (!type.isNumericIndex() && indexIdLengthExceedLimit(indexId)) {
                 indexId = index.hashId();
             }
-            int idLen = 1 + elemId.length() + 1 + indexId.length();
-            buffer = BytesBuffer.allocate(idLen);
             // Write index-id
             buffer.writeIndexId(indexId, type);
         }
@@ -322,7 +335,7 @@ public class BinarySerializer extends AbstractSerializer {
             buffer.writeVLong(index.expiredTime());
         }
 
-        return buffer.bytes();
+        return buffer.copyBytes();
     }
 
     protected void parseIndexName(BigGraph graph, ConditionQuery query,
@@ -355,14 +368,13 @@ public class BinarySerializer extends AbstractSerializer {
             return entry;
         }
 
-        int propsCount = vertex.getProperties().size();
-        BytesBuffer buffer = BytesBuffer.allocate(8 + 16 * propsCount);
+        BytesBuffer buffer = buffer();
 
         // Write vertex label
         buffer.writeId(vertex.schemaLabel().id());
 
         // Write all properties of the vertex
-        this.formatProperties(vertex.getProperties().values(), buffer);
+        this.formatProperties(vertex.getPropertiesView(), buffer);
 
         // Write vertex expired time if needed
         if (vertex.hasTtl()) {
@@ -372,7 +384,7 @@ public class BinarySerializer extends AbstractSerializer {
 
         // Fill column
         byte[] name = this.keyWithIdPrefix ? entry.id().asBytes() : EMPTY_BYTES;
-        entry.column(name, buffer.bytes());
+        entry.column(name, buffer.copyBytes());
 
         return entry;
     }
@@ -380,17 +392,17 @@ public class BinarySerializer extends AbstractSerializer {
     @Override
     public BackendEntry writeOlapVertex(BigVertex vertex) {
         BinaryBackendEntry entry = newBackendEntry(BigType.OLAP, vertex.id());
-        BytesBuffer buffer = BytesBuffer.allocate(8 + 16);
+        BytesBuffer buffer = buffer();
 
-        BigProperty<?> hugeProperty = vertex.getProperties().values()
-                                             .iterator().next();
+        BigProperty<?> hugeProperty = vertex.getPropertiesView()
+                                            .iterator().next();
         PropertyKey propertyKey = hugeProperty.propertyKey();
         buffer.writeVInt(SchemaElement.schemaId(propertyKey.id()));
         buffer.writeProperty(propertyKey, hugeProperty.value());
 
         // Fill column
         byte[] name = this.keyWithIdPrefix ? entry.id().asBytes() : EMPTY_BYTES;
-        entry.column(name, buffer.bytes());
+        entry.column(name, buffer.copyBytes());
         entry.subId(propertyKey.id());
         entry.olap(true);
         return entry;
@@ -445,8 +457,8 @@ public class BinarySerializer extends AbstractSerializer {
     @Override
     public BackendEntry writeEdge(BigEdge edge) {
         BinaryBackendEntry entry = newBackendEntry(edge);
-        byte[] name = this.keyWithIdPrefix ?
-                      this.formatEdgeName(edge) : EMPTY_BYTES;
+        // The entry id is already the formatted edge name
+        byte[] name = this.keyWithIdPrefix ? entry.id().asBytes() : EMPTY_BYTES;
         byte[] value = this.formatEdgeValue(edge);
         entry.column(name, value);
 
@@ -541,8 +553,7 @@ public class BinarySerializer extends AbstractSerializer {
         if (type.isEdge()) {
             id = writeEdgeId(id);
         } else {
-            BytesBuffer buffer = BytesBuffer.allocate(1 + id.length());
-            id = new BinaryId(buffer.writeId(id).bytes(), id);
+            id = new BinaryId(buffer().writeId(id).copyBytes(), id);
         }
         return id;
     }
@@ -607,7 +618,7 @@ public class BinarySerializer extends AbstractSerializer {
 
     private Query writeQueryEdgePrefixCondition(ConditionQuery cq) {
         int count = 0;
-        BytesBuffer buffer = BytesBuffer.allocate(BytesBuffer.BUF_EDGE_ID);
+        BytesBuffer buffer = buffer();
         for (BigKeys key : EdgeId.KEYS) {
             Object value = cq.condition(key);
 
@@ -641,7 +652,7 @@ public class BinarySerializer extends AbstractSerializer {
 
         if (count > 0) {
             assert count == cq.conditions().size();
-            return prefixQuery(cq, new BinaryId(buffer.bytes(), null));
+            return prefixQuery(cq, new BinaryId(buffer.copyBytes(), null));
         }
 
         return null;
@@ -776,9 +787,7 @@ public class BinarySerializer extends AbstractSerializer {
         } else {
             edgeId = EdgeId.parse(id.asString());
         }
-        BytesBuffer buffer = BytesBuffer.allocate(BytesBuffer.BUF_EDGE_ID)
-                                        .writeEdgeId(edgeId);
-        return new BinaryId(buffer.bytes(), id);
+        return new BinaryId(buffer().writeEdgeId(edgeId).copyBytes(), id);
     }
 
     private static Query prefixQuery(ConditionQuery query, Id prefix) {
@@ -807,8 +816,8 @@ public class BinarySerializer extends AbstractSerializer {
         if (!type.isNumericIndex() && indexIdLengthExceedLimit(id)) {
             id = BigIndex.formatIndexHashId(type, indexLabel, fieldValues);
         }
-        BytesBuffer buffer = BytesBuffer.allocate(1 + id.length());
-        byte[] idBytes = buffer.writeIndexId(id, type, withEnding).bytes();
+        byte[] idBytes = buffer().writeIndexId(id, type, withEnding)
+                                 .copyBytes();
         return new BinaryId(idBytes, id);
     }
 
@@ -140,10 +140,28 @@ public final class BytesBuffer extends OutputStream {
         }
     }
 
+    /**
+     * Copy the written bytes into a new array of the exact size, unlike
+     * bytes() the result never shares the backing array, so it's safe to
+     * keep after this buffer is cleared and reused
+     */
+    public byte[] copyBytes() {
+        return Arrays.copyOf(this.buffer.array(), this.buffer.position());
+    }
+
+    public BytesBuffer clear() {
+        this.buffer.clear();
+        return this;
+    }
+
     public int position() {
         return this.buffer.position();
     }
 
+    public int capacity() {
+        return this.buffer.capacity();
+    }
+
     public BytesBuffer copyFrom(BytesBuffer other) {
         this.write(other.bytes());
         return this;
@@ -363,6 +381,11 @@ public final class BytesBuffer extends OutputStream {
     }
 
     public String readStringWithEnding() {
+        // Most edges have no sort-values, skip the decoding
+        if (this.remaining() > 0 && this.peek() == STRING_ENDING_BYTE) {
+            this.read();
+            return "";
+        }
         return StringEncoding.decode(this.readBytesWithEnding());
     }
 
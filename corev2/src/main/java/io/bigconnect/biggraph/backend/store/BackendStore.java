@@ -24,10 +24,12 @@ import io.bigconnect.biggraph.backend.id.Id;
 import io.bigconnect.biggraph.backend.id.IdGenerator;
 import io.bigconnect.biggraph.backend.query.Query;
 import io.bigconnect.biggraph.config.BigConfig;
+import io.bigconnect.biggraph.iterator.FlatMapperIterator;
 import io.bigconnect.biggraph.type.BigType;
 import io.bigconnect.biggraph.util.E;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 public interface BackendStore {
@@ -64,6 +66,11 @@ public interface BackendStore {
     public Iterator<BackendEntry> query(Query query);
     public Number queryNumber(Query query);
 
+    // Query data of multiple queries at once, stores may group them
+    public default Iterator<BackendEntry> query(List<Query> queries) {
+        return new FlatMapperIterator<>(queries.iterator(), this::query);
+    }
+
     // Transaction
     public void beginTx();
     public void commitTx();
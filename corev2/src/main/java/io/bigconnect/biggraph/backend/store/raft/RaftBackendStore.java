@@ -137,6 +137,13 @@ public class RaftBackendStore implements BackendStore {
                this.queryByRaft(query, o -> this.store.query(query));
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<BackendEntry> query(List<Query> queries) {
+        return (Iterator<BackendEntry>)
+               this.queryByRaft(queries, o -> this.store.query(queries));
+    }
+
     @Override
     public Number queryNumber(Query query) {
         return (Number) this.queryByRaft(query, o -> this.store.queryNumber(query));
@@ -239,6 +239,11 @@ public final class RaftSharedContext {
             String snapshotUri = Paths.get(raftPath, "snapshot").toString();
             FileUtils.forceMkdir(new File(snapshotUri));
             nodeOptions.setSnapshotUri(snapshotUri);
+            /*
+             * Reuse the unchanged sst files of the local last snapshot when
+             * installing a snapshot from leader, only copy the new files
+             */
+            nodeOptions.setFilterBeforeCopyRemote(true);
         }
 
         RaftOptions raftOptions = nodeOptions.getRaftOptions();
@@ -39,12 +39,19 @@ import org.slf4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.Checksum;
 
 public class StoreSnapshotFile {
@@ -53,9 +60,18 @@ public class StoreSnapshotFile {
 
     public static final String SNAPSHOT_DIR = "snapshot";
     private static final String TAR = ".tar";
+    private static final String SST = ".sst";
+    private static final char NAME_SEPARATOR = '_';
+    private static final char META_SEPARATOR = '|';
 
     private final RaftBackendStore[] stores;
     private final Map<String, String> dataDisks;
+    /*
+     * The checksums of the immutable sst files in the latest snapshot, keyed
+     * by file name, size and modified time, so an unchanged sst file is not
+     * read again by the next snapshot
+     */
+    private volatile Map<String, String> checksums;
 
     public StoreSnapshotFile(RaftBackendStore[] stores) {
         this.stores = stores;
@@ -71,6 +87,7 @@ public class StoreSnapshotFile {
          * g/VERTEX=/parent_path/rocksdb-vertex
          */
         LOG.debug("The store data disks mapping {}", this.dataDisks);
+        this.checksums = new ConcurrentHashMap<>();
     }
 
     public void save(SnapshotWriter writer, Closure done,
@@ -80,13 +97,13 @@ public class StoreSnapshotFile {
             Map<String, String> snapshotDirMaps = this.doSnapshotSave();
             executor.execute(() -> {
                 try {
-                    this.compressSnapshotDir(writer, snapshotDirMaps);
+                    this.linkSnapshotDirs(writer, snapshotDirMaps);
                     this.deleteSnapshotDirs(snapshotDirMaps.keySet());
                     done.run(Status.OK());
                 } catch (Throwable e) {
-                    LOG.error("Failed to compress snapshot", e);
+                    LOG.error("Failed to link snapshot files", e);
                     done.run(new Status(RaftError.EIO,
-                                        "Failed to compress snapshot, " +
+                                        "Failed to link snapshot files, " +
                                         "error is %s", e.getMessage()));
                 }
             });
@@ -99,16 +116,21 @@ public class StoreSnapshotFile {
     }
 
     public boolean load(SnapshotReader reader) {
-        Set<String> snapshotDirTars = reader.listFiles();
-        LOG.info("The snapshot tar files to be loaded are {}", snapshotDirTars);
+        Set<String> snapshotFiles = reader.listFiles();
+        LOG.info("The snapshot files to be loaded are {}", snapshotFiles);
         Set<String> snapshotDirs = new HashSet<>();
-        for (String snapshotDirTar : snapshotDirTars) {
+        for (String snapshotFile : snapshotFiles) {
             try {
-                String snapshotDir = this.decompressSnapshot(reader,
-                                                             snapshotDirTar);
-                snapshotDirs.add(snapshotDir);
+                if (snapshotFile.endsWith(TAR)) {
+                    // The snapshot archive saved by the older versions
+                    String snapshotDir = this.decompressSnapshot(reader,
+                                                                 snapshotFile);
+                    snapshotDirs.add(snapshotDir);
+                } else {
+                    this.linkSnapshotFile(reader, snapshotFile, snapshotDirs);
+                }
             } catch (Throwable e) {
-                LOG.error("Failed to decompress snapshot tar", e);
+                LOG.error("Failed to restore snapshot file", e);
                 return false;
             }
         }
@@ -139,37 +161,152 @@ public class StoreSnapshotFile {
         }
     }
 
-    private void compressSnapshotDir(SnapshotWriter writer,
-                                     Map<String, String> snapshotDirMaps) {
-        String writerPath = writer.getPath();
+    private void linkSnapshotDirs(SnapshotWriter writer,
+                                  Map<String, String> snapshotDirMaps)
+                                  throws IOException {
+        Path writerPath = Paths.get(writer.getPath());
+        Map<String, String> checksums = new ConcurrentHashMap<>();
         for (Map.Entry<String, String> entry : snapshotDirMaps.entrySet()) {
-            String snapshotDir = entry.getKey();
+            Path snapshotDir = Paths.get(entry.getKey());
             String diskTableKey = entry.getValue();
-            String snapshotDirTar = Paths.get(snapshotDir).getFileName()
-                                         .toString() + TAR;
-            String outputFile = Paths.get(writerPath, snapshotDirTar)
-                                     .toString();
-            Checksum checksum = new CRC64();
-            try {
-                CompressUtil.compressTar(snapshotDir, outputFile, checksum);
-            } catch (Throwable e) {
-                throw new RaftException(
-                          "Failed to compress snapshot, path=%s, files=%s",
-                          e, writerPath, snapshotDirMaps.keySet());
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(snapshotDir)) {
+                files = paths.filter(Files::isRegularFile)
+                             .collect(Collectors.toList());
             }
+            for (Path file : files) {
+                // Like: snapshot_rocksdb-data/g/000012.sst
+                String relativePath = snapshotDir.getParent().relativize(file)
+                                                 .toString()
+                                                 .replace(File.separatorChar,
+                                                          '/');
+                /*
+                 * The snapshot files are kept flat, since jraft only links
+                 * the unchanged files of the last snapshot into the top
+                 * directory of a follower's new snapshot:
+                 * snapshot_rocksdb-data/g/000012.sst ->
+                 * snapshot_rocksdb-data_g_000012.sst
+                 */
+                String fileName = relativePath.replace('/', NAME_SEPARATOR);
+                boolean immutable = fileName.endsWith(SST);
+                String checksum = this.checksum(fileName, file, immutable,
+                                                checksums);
+                linkOrCopy(file, writerPath.resolve(fileName), immutable);
+
+                LocalFileMeta.Builder metaBuilder = LocalFileMeta.newBuilder();
+                metaBuilder.setChecksum(checksum);
+                /*
+                 * general|snapshot_rocksdb-data/g/000012.sst
+                 * g/VERTEX|snapshot_rocksdb-vertex/g/000015.sst
+                 */
+                metaBuilder.setUserMeta(ByteString.copyFromUtf8(
+                                        diskTableKey + META_SEPARATOR +
+                                        relativePath));
+                if (!writer.addFile(fileName, metaBuilder.build())) {
+                    throw new RaftException("Failed to add snapshot file: '%s'",
+                                            fileName);
+                }
+            }
+        }
+        this.checksums = checksums;
+        LOG.info("Linked {} snapshot files into {}",
+                 writer.listFiles().size(), writerPath);
+    }
+
+    private void linkSnapshotFile(SnapshotReader reader, String fileName,
+                                  Set<String> snapshotDirs)
+                                  throws IOException {
+        LocalFileMeta meta = (LocalFileMeta) reader.getFileMeta(fileName);
+        if (meta == null) {
+            throw new IOException("Can't find snapshot file, path=" +
+                                  fileName);
+        }
+
+        String userMeta = meta.getUserMeta().toStringUtf8();
+        int separator = userMeta.indexOf(META_SEPARATOR);
+        E.checkArgument(separator > 0,
+                        "Invalid user meta '%s' of snapshot file '%s'",
+                        userMeta, fileName);
+        String diskTableKey = userMeta.substring(0, separator);
+        String relativePath = userMeta.substring(separator + 1);
+        E.checkArgument(this.dataDisks.containsKey(diskTableKey),
+                        "The data path for '%s' should be exist", diskTableKey);
+        String dataPath = this.dataDisks.get(diskTableKey);
+        Path parentPath = Paths.get(dataPath).getParent();
+        Path target = parentPath.resolve(relativePath);
+        Path snapshotDir = parentPath.resolve(
+                           Paths.get(relativePath).getName(0));
+        if (snapshotDirs.add(snapshotDir.toString())) {
+            FileUtils.deleteDirectory(snapshotDir.toFile());
+            LOG.info("Delete stale snapshot dir {}", snapshotDir);
+        }
+
+        Path source = Paths.get(reader.getPath(), fileName);
+        boolean immutable = fileName.endsWith(SST);
+        Files.createDirectories(target.getParent());
+        linkOrCopy(source, target, immutable);
 
-            LocalFileMeta.Builder metaBuilder = LocalFileMeta.newBuilder();
-            metaBuilder.setChecksum(Long.toHexString(checksum.getValue()));
-            /*
-             * snapshot_rocksdb-data.tar -> general
-             * snapshot_rocksdb-vertex.tar -> g/VERTEX
-             */
-            metaBuilder.setUserMeta(ByteString.copyFromUtf8(diskTableKey));
-            if (!writer.addFile(snapshotDirTar, metaBuilder.build())) {
-                throw new RaftException("Failed to add snapshot file: '%s'",
-                                        snapshotDirTar);
+        if (!meta.hasChecksum()) {
+            return;
+        }
+        if (immutable) {
+            // The sst file may be in the next snapshot if become leader
+            this.checksums.put(checksumKey(fileName, target),
+                               meta.getChecksum());
+        } else {
+            String actual = checksum(target);
+            E.checkArgument(meta.getChecksum().equals(actual),
+                            "Snapshot checksum error of '%s': '%s' != '%s'",
+                            fileName, actual, meta.getChecksum());
+        }
+    }
+
+    private String checksum(String fileName, Path file, boolean immutable,
+                            Map<String, String> checksums)
+                            throws IOException {
+        if (!immutable) {
+            return checksum(file);
+        }
+        String key = checksumKey(fileName, file);
+        String checksum = this.checksums.get(key);
+        if (checksum == null) {
+            checksum = checksum(file);
+        }
+        checksums.put(key, checksum);
+        return checksum;
+    }
+
+    private static String checksumKey(String fileName, Path file)
+                                      throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(
+                                    file, BasicFileAttributes.class);
+        return String.join("@", fileName, String.valueOf(attrs.size()),
+                           String.valueOf(attrs.lastModifiedTime()
+                                               .toMillis()));
+    }
+
+    private static String checksum(Path file) throws IOException {
+        Checksum checksum = FileUtils.checksum(file.toFile(), new CRC64());
+        return Long.toHexString(checksum.getValue());
+    }
+
+    private static void linkOrCopy(Path source, Path target, boolean link)
+                                   throws IOException {
+        Files.deleteIfExists(target);
+        /*
+         * Only link the immutable sst files, other files like MANIFEST may be
+         * changed by the rocksdb opened with the snapshot
+         */
+        if (link) {
+            try {
+                Files.createLink(target, source);
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                LOG.debug("Failed to link {} to {}, copy it instead",
+                          source, target, e);
             }
         }
+        Files.copy(source, target);
     }
 
     private String decompressSnapshot(SnapshotReader reader,
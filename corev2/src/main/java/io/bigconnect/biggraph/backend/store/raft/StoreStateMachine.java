@@ -49,6 +49,7 @@ import io.bigconnect.biggraph.util.Log;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Future;
 
@@ -106,43 +107,62 @@ public final class StoreStateMachine extends StateMachineAdapter {
                                    "leader" : "follower");
         RaftStoreClosure closure = null;
         List<Future<?>> futures = new ArrayList<>();
+        CommitGroup group = new CommitGroup();
         try {
             while (iter.hasNext()) {
                 closure = (RaftStoreClosure) iter.done();
+                BytesBuffer buffer;
+                boolean forwarded;
                 if (closure != null) {
                     // Leader just take it out from the closure
                     StoreCommand command = closure.command();
-                    BytesBuffer buffer = BytesBuffer.wrap(command.data());
-                    // The first two bytes are StoreType and StoreAction
-                    StoreType type = StoreType.valueOf(buffer.read());
-                    StoreAction action = StoreAction.valueOf(buffer.read());
-                    boolean forwarded = command.forwarded();
-                    // Let the producer thread to handle it
-                    closure.complete(Status.OK(), () -> {
-                        this.applyCommand(type, action, buffer, forwarded);
-                        return null;
-                    });
+                    buffer = BytesBuffer.wrap(command.data());
+                    forwarded = command.forwarded();
                 } else {
                     // Follower need readMutation data
                     byte[] bytes = iter.getData().array();
-                    // Let the backend thread do it directly
-                    futures.add(this.context.backendExecutor().submit(() -> {
-                        BytesBuffer buffer = LZ4Util.decompress(bytes,
-                                             RaftSharedContext.BLOCK_SIZE);
-                        buffer.forReadWritten();
-                        StoreType type = StoreType.valueOf(buffer.read());
-                        StoreAction action = StoreAction.valueOf(buffer.read());
-                        try {
-                            this.applyCommand(type, action, buffer, false);
-                        } catch (Throwable e) {
-                            String title = "Failed to execute backend command";
-                            LOG.error("{}: {}", title, action, e);
-                            throw new BackendException(title, e);
-                        }
-                    }));
+                    buffer = LZ4Util.decompress(bytes,
+                                                RaftSharedContext.BLOCK_SIZE);
+                    buffer.forReadWritten();
+                    forwarded = false;
                 }
+                // The first two bytes are StoreType and StoreAction
+                StoreType type = StoreType.valueOf(buffer.read());
+                StoreAction action = StoreAction.valueOf(buffer.read());
+
+                if (action == StoreAction.COMMIT_TX) {
+                    if (group.type != type) {
+                        this.commitGroup(group, futures);
+                        group.type = type;
+                    }
+                    group.add(StoreSerializer.readMutations(buffer),
+                              forwarded, closure);
+                } else {
+                    this.commitGroup(group, futures);
+                    if (closure != null) {
+                        // Let the producer thread to handle it
+                        closure.complete(Status.OK(), () -> {
+                            this.applyCommand(type, action, buffer, forwarded);
+                            return null;
+                        });
+                    } else {
+                        // Let the backend thread do it directly
+                        futures.add(this.context.backendExecutor().submit(() -> {
+                            try {
+                                this.applyCommand(type, action, buffer, false);
+                            } catch (Throwable e) {
+                                String title = "Failed to execute backend " +
+                                               "command";
+                                LOG.error("{}: {}", title, action, e);
+                                throw new BackendException(title, e);
+                            }
+                        }));
+                    }
+                }
+                closure = null;
                 iter.next();
             }
+            this.commitGroup(group, futures);
             // Follower wait tasks finished
             for (Future<?> future : futures) {
                 future.get();
@@ -155,12 +175,90 @@ public final class StoreStateMachine extends StateMachineAdapter {
             if (closure != null) {
                 closure.failure(status, e);
             }
+            group.failure(status, e);
             // Will cause current node inactive
             // TODO: rollback to correct index
             iter.setErrorAndRollback(1L, status);
         }
     }
 
+    /**
+     * Apply the consecutive committed transactions of a store in one backend
+     * transaction, then notify the waiting producers of the leader
+     */
+    private void commitGroup(CommitGroup group, List<Future<?>> futures)
+                             throws Exception {
+        if (group.isEmpty()) {
+            return;
+        }
+        // Keep the order with the commands applied by backend threads
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        futures.clear();
+
+        BackendStore store = this.store(group.type);
+        try {
+            this.applyMutations(store, group.mutations, group.forwarded);
+        } catch (Throwable e) {
+            if (!group.hasClosure()) {
+                // Follower can't fail a part of the log, let onApply() fail
+                throw e;
+            }
+            /*
+             * Let only the failed transactions fail like applying them one
+             * by one, no mutation is written if the batch commit failed
+             */
+            LOG.warn("Failed to commit {} transactions at once, " +
+                     "try to commit them one by one", group.size(), e);
+            store.rollbackTx();
+            this.commitOneByOne(store, group);
+            group.clear();
+            return;
+        }
+        for (RaftStoreClosure closure : group.closures) {
+            if (closure != null) {
+                closure.complete(Status.OK(), () -> null);
+            }
+        }
+        group.clear();
+    }
+
+    private void commitOneByOne(BackendStore store, CommitGroup group) {
+        for (int i = 0; i < group.size(); i++) {
+            RaftStoreClosure closure = group.closures.get(i);
+            try {
+                this.applyMutations(store, group.txMutations(i),
+                                    group.txForwarded(i));
+            } catch (Throwable e) {
+                if (closure == null) {
+                    throw e;
+                }
+                store.rollbackTx();
+                closure.failure(new Status(RaftError.ESTATEMACHINE,
+                                           "Failed to commit: %s",
+                                           e.getMessage()), e);
+                continue;
+            }
+            if (closure != null) {
+                closure.complete(Status.OK(), () -> null);
+            }
+        }
+    }
+
+    private void applyMutations(BackendStore store,
+                                List<BackendMutation> mutations,
+                                List<Boolean> forwarded) {
+        // RaftBackendStore doesn't write raft log for beginTx
+        store.beginTx();
+        for (int i = 0; i < mutations.size(); i++) {
+            BackendMutation mutation = mutations.get(i);
+            store.mutate(mutation);
+            this.updateCacheIfNeeded(mutation, forwarded.get(i));
+        }
+        store.commitTx();
+    }
+
     private void applyCommand(StoreType type, StoreAction action,
                               BytesBuffer buffer, boolean forwarded) {
         E.checkState(type != StoreType.ALL,
@@ -186,13 +284,9 @@ public final class StoreStateMachine extends StateMachineAdapter {
             case COMMIT_TX:
                 List<BackendMutation> mutations = StoreSerializer.readMutations(
                                                   buffer);
-                // RaftBackendStore doesn't write raft log for beginTx
-                store.beginTx();
-                for (BackendMutation mutation : mutations) {
-                    store.mutate(mutation);
-                    this.updateCacheIfNeeded(mutation, forwarded);
-                }
-                store.commitTx();
+                this.applyMutations(store, mutations, Collections.nCopies(
+                                                      mutations.size(),
+                                                      forwarded));
                 break;
             case ROLLBACK_TX:
                 store.rollbackTx();
@@ -265,4 +359,72 @@ public final class StoreStateMachine extends StateMachineAdapter {
     public void onError(final RaftException e) {
         LOG.error("Raft error: {}", e.getMessage(), e);
     }
+
+    private static final class CommitGroup {
+
+        private StoreType type;
+        // The mutations of all transactions and whether they are forwarded
+        private final List<BackendMutation> mutations = new ArrayList<>();
+        private final List<Boolean> forwarded = new ArrayList<>();
+        // The closure(null on follower) and end offset of each transaction
+        private final List<RaftStoreClosure> closures = new ArrayList<>();
+        private final List<Integer> ends = new ArrayList<>();
+
+        public void add(List<BackendMutation> mutations, boolean forwarded,
+                        RaftStoreClosure closure) {
+            this.mutations.addAll(mutations);
+            this.forwarded.addAll(Collections.nCopies(mutations.size(),
+                                                      forwarded));
+            this.closures.add(closure);
+            this.ends.add(this.mutations.size());
+        }
+
+        public int size() {
+            return this.closures.size();
+        }
+
+        public boolean isEmpty() {
+            return this.closures.isEmpty();
+        }
+
+        public boolean hasClosure() {
+            for (RaftStoreClosure closure : this.closures) {
+                if (closure != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public List<BackendMutation> txMutations(int index) {
+            return this.mutations.subList(this.begin(index),
+                                          this.ends.get(index));
+        }
+
+        public List<Boolean> txForwarded(int index) {
+            return this.forwarded.subList(this.begin(index),
+                                          this.ends.get(index));
+        }
+
+        public void failure(Status status, Throwable e) {
+            for (RaftStoreClosure closure : this.closures) {
+                if (closure != null) {
+                    closure.failure(status, e);
+                }
+            }
+            this.clear();
+        }
+
+        public void clear() {
+            this.type = null;
+            this.mutations.clear();
+            this.forwarded.clear();
+            this.closures.clear();
+            this.ends.clear();
+        }
+
+        private int begin(int index) {
+            return index == 0 ? 0 : this.ends.get(index - 1);
+        }
+    }
 }
@@ -31,49 +31,72 @@ public final class IntIntMap implements RamMap {
 
     // TODO: use com.carrotsearch.hppc.IntIntHashMap instead
     private final int[] array;
+    // Set instead of array when the map lives in a mapped file
+    private final RamFile.Region region;
 
     public IntIntMap(int capacity) {
         this.array = new int[capacity];
+        this.region = null;
+    }
+
+    IntIntMap(RamFile.Region region) {
+        this.array = null;
+        this.region = region;
     }
 
     public void put(long key, int value) {
         assert 0 <= key && key < Integer.MAX_VALUE;
-        this.array[(int) key] = value;
+        if (this.region != null) {
+            this.region.putInt(key, value);
+        } else {
+            this.array[(int) key] = value;
+        }
     }
 
     public int get(long key) {
         assert 0 <= key && key < Integer.MAX_VALUE;
+        if (this.region != null) {
+            return this.region.getInt(key);
+        }
         return this.array[(int) key];
     }
 
     @Override
     public void clear() {
-        Arrays.fill(this.array, 0);
+        if (this.region != null) {
+            this.region.clear();
+        } else {
+            Arrays.fill(this.array, 0);
+        }
     }
 
     @Override
     public long size() {
+        if (this.region != null) {
+            return this.region.capacity();
+        }
         return this.array.length;
     }
 
     @Override
     public void writeTo(DataOutputStream buffer) throws IOException {
-        buffer.writeInt(this.array.length);
-        for (int value : this.array) {
-            buffer.writeInt(value);
+        int size = (int) this.size();
+        buffer.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.writeInt(this.get(i));
         }
     }
 
     @Override
     public void readFrom(DataInputStream buffer) throws IOException {
         int size = buffer.readInt();
-        if (size > this.array.length) {
+        if (size > this.size()) {
             throw new BigGraphException("Invalid size %s, expect < %s",
-                                    size, this.array.length);
+                                    size, this.size());
         }
         for (int i = 0; i < size; i++) {
             int value = buffer.readInt();
-            this.array[i] = value;
+            this.put(i, value);
         }
     }
 }
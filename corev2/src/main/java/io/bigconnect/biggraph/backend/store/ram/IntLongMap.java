@@ -31,18 +31,28 @@ public final class IntLongMap implements RamMap {
 
     // TODO: use com.carrotsearch.hppc.IntLongHashMap instead
     private final long[] array;
+    // Set instead of array when the map lives in a mapped file
+    private final RamFile.Region region;
     private int size;
 
     public IntLongMap(int capacity) {
         this.array = new long[capacity];
+        this.region = null;
         this.size = 0;
     }
 
+    IntLongMap(RamFile.Region region, int size) {
+        assert size <= region.capacity();
+        this.array = null;
+        this.region = region;
+        this.size = size;
+    }
+
     public void put(int key, long value) {
         if (key >= this.size || key < 0) {
             throw new BigGraphException("Invalid key %s", key);
         }
-        this.array[key] = value;
+        this.set(key, value);
     }
 
     public int add(long value) {
@@ -50,7 +60,7 @@ public final class IntLongMap implements RamMap {
             throw new BigGraphException("Too many edges %s", this.size);
         }
         int index = this.size;
-        this.array[index] = value;
+        this.set(index, value);
         this.size++;
         return index;
     }
@@ -59,12 +69,27 @@ public final class IntLongMap implements RamMap {
         if (key >= this.size || key < 0) {
             throw new BigGraphException("Invalid key %s", key);
         }
+        if (this.region != null) {
+            return this.region.getLong(key);
+        }
         return this.array[key];
     }
 
+    private void set(int key, long value) {
+        if (this.region != null) {
+            this.region.putLong(key, value);
+        } else {
+            this.array[key] = value;
+        }
+    }
+
     @Override
     public void clear() {
-        Arrays.fill(this.array, 0L);
+        if (this.region != null) {
+            this.region.clear();
+        } else {
+            Arrays.fill(this.array, 0L);
+        }
         this.size = 0;
     }
 
@@ -75,23 +100,31 @@ public final class IntLongMap implements RamMap {
 
     @Override
     public void writeTo(DataOutputStream buffer) throws IOException {
-        buffer.writeInt(this.array.length);
-        for (long value : this.array) {
-            buffer.writeLong(value);
+        int capacity = this.capacity();
+        buffer.writeInt(capacity);
+        for (int i = 0; i < capacity; i++) {
+            buffer.writeLong(i < this.size ? this.get(i) : 0L);
         }
     }
 
     @Override
     public void readFrom(DataInputStream buffer) throws IOException {
         int size = buffer.readInt();
-        if (size > this.array.length) {
+        if (size > this.capacity()) {
             throw new BigGraphException("Invalid size %s, expect < %s",
-                                    size, this.array.length);
+                                    size, this.capacity());
         }
         for (int i = 0; i < size; i++) {
             long value = buffer.readLong();
-            this.array[i] = value;
+            this.set(i, value);
         }
         this.size = size;
     }
+
+    private int capacity() {
+        if (this.region != null) {
+            return this.region.capacity();
+        }
+        return this.array.length;
+    }
 }
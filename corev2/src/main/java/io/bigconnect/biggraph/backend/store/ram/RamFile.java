@@ -0,0 +1,353 @@
+/*
+ * Copyright 2021 BigConnect Authors
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bigconnect.biggraph.backend.store.ram;
+
+import io.bigconnect.biggraph.util.E;
+import io.bigconnect.biggraph.util.Log;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The file backing a mapped RamTable, it's accessed through memory mapped
+ * segments so that opening it doesn't read anything and the maps don't take
+ * heap space, the pages are loaded by the OS as the table is queried.
+ *
+ * Layout: header | vertices low (int) | vertices high (int) | edges (long),
+ * the file is sparse so unused capacity doesn't take disk space.
+ * The header keeps a dirty flag which is set before the first write and only
+ * cleared after the maps are forced to disk, a file found dirty on open is
+ * left from a crash and is rejected.
+ * The header also records the graph and the backend the table was loaded
+ * from, a file written for another graph or backend is rejected too.
+ */
+final class RamFile implements AutoCloseable {
+
+    private static final Logger LOG = Log.logger(RamFile.class);
+
+    // "RAMTABLE" in ascii
+    private static final long MAGIC = 0x52414d5441424c45L;
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 4096;
+    private static final int MAX_NAME_BYTES = 1024;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 8;
+    private static final int OFFSET_DIRTY = 12;
+    private static final int OFFSET_VERTICES = 16;
+    private static final int OFFSET_EDGES = 20;
+    private static final int OFFSET_EDGES_SIZE = 24;
+    private static final int OFFSET_GRAPH = 64;
+    private static final int OFFSET_BACKEND = OFFSET_GRAPH + Integer.BYTES +
+                                              MAX_NAME_BYTES;
+
+    private Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final Region verticesLow;
+    private final Region verticesHigh;
+    private final Region edges;
+    private boolean dirty;
+
+    private RamFile(Path path, FileChannel channel,
+                    int verticesCapacityHalf, int edgesCapacity)
+                    throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE,
+                                  0L, HEADER_SIZE);
+        this.header.order(ByteOrder.LITTLE_ENDIAN);
+
+        long offset = HEADER_SIZE;
+        this.verticesLow = new Region(channel, offset, verticesCapacityHalf,
+                                      Integer.BYTES);
+        offset += this.verticesLow.bytes();
+        this.verticesHigh = new Region(channel, offset, verticesCapacityHalf,
+                                       Integer.BYTES);
+        offset += this.verticesHigh.bytes();
+        this.edges = new Region(channel, offset, edgesCapacity, Long.BYTES);
+
+        this.dirty = this.header.getInt(OFFSET_DIRTY) != 0;
+    }
+
+    public static RamFile create(Path path, String graph, String backend,
+                                 int verticesCapacityHalf,
+                                 int edgesCapacity) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        /*
+         * Unlink instead of truncating a previous file, it may still be
+         * mapped and accessing a truncated mapping crashes the process
+         */
+        Files.deleteIfExists(path);
+        FileChannel channel = FileChannel.open(path,
+                                               StandardOpenOption.CREATE_NEW,
+                                               StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            // Mapping the regions extends the file without writing them
+            RamFile file = new RamFile(path, channel, verticesCapacityHalf,
+                                       edgesCapacity);
+            ByteBuffer header = file.header;
+            header.putLong(OFFSET_MAGIC, MAGIC);
+            header.putInt(OFFSET_VERSION, VERSION);
+            header.putInt(OFFSET_VERTICES, verticesCapacityHalf);
+            header.putInt(OFFSET_EDGES, edgesCapacity);
+            header.putInt(OFFSET_EDGES_SIZE, 0);
+            putName(header, OFFSET_GRAPH, graph);
+            putName(header, OFFSET_BACKEND, backend);
+            file.markDirty();
+            return file;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open an existing file, return null if it doesn't exist or can't be used
+     * as is: unknown format, other graph or backend, other capacities or not
+     * closed cleanly.
+     */
+    public static RamFile open(Path path, String graph, String backend,
+                               int verticesCapacityHalf,
+                               int edgesCapacity) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(path,
+                                               StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0L);
+            String reason = null;
+            if (header.position() < HEADER_SIZE ||
+                header.getLong(OFFSET_MAGIC) != MAGIC) {
+                reason = "unknown format";
+            } else if (header.getInt(OFFSET_VERSION) != VERSION) {
+                reason = "version " + header.getInt(OFFSET_VERSION);
+            } else if (!graph.equals(getName(header, OFFSET_GRAPH))) {
+                reason = "written for graph " + getName(header, OFFSET_GRAPH);
+            } else if (!backend.equals(getName(header, OFFSET_BACKEND))) {
+                reason = "written for backend " +
+                         getName(header, OFFSET_BACKEND);
+            } else if (header.getInt(OFFSET_VERTICES) != verticesCapacityHalf ||
+                       header.getInt(OFFSET_EDGES) != edgesCapacity) {
+                reason = "capacity changed";
+            } else if (header.getInt(OFFSET_DIRTY) != 0) {
+                reason = "not closed cleanly";
+            } else if (header.getInt(OFFSET_EDGES_SIZE) < 1 ||
+                       header.getInt(OFFSET_EDGES_SIZE) > edgesCapacity) {
+                reason = "invalid edges size";
+            }
+            if (reason != null) {
+                LOG.warn("Ignore ramtable file '{}': {}", path, reason);
+                channel.close();
+                return null;
+            }
+            return new RamFile(path, channel, verticesCapacityHalf,
+                               edgesCapacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void putName(ByteBuffer header, int offset, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        E.checkArgument(bytes.length <= MAX_NAME_BYTES,
+                        "The name '%s' is too long for a ramtable file", name);
+        header.putInt(offset, bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            header.put(offset + Integer.BYTES + i, bytes[i]);
+        }
+    }
+
+    private static String getName(ByteBuffer header, int offset) {
+        int length = header.getInt(offset);
+        if (length < 0 || length > MAX_NAME_BYTES) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = header.get(offset + Integer.BYTES + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public Path path() {
+        return this.path;
+    }
+
+    public Region verticesLow() {
+        return this.verticesLow;
+    }
+
+    public Region verticesHigh() {
+        return this.verticesHigh;
+    }
+
+    public Region edges() {
+        return this.edges;
+    }
+
+    public int edgesSize() {
+        return this.header.getInt(OFFSET_EDGES_SIZE);
+    }
+
+    public boolean dirty() {
+        return this.dirty;
+    }
+
+    public void markDirty() {
+        if (this.dirty) {
+            return;
+        }
+        this.header.putInt(OFFSET_DIRTY, 1);
+        this.header.force();
+        this.dirty = true;
+    }
+
+    /**
+     * Force the maps to disk and then clear the dirty flag, so the file is
+     * only seen as clean once all its content is written.
+     */
+    public void commit(long edgesSize) {
+        assert edgesSize <= Integer.MAX_VALUE;
+        this.verticesLow.force();
+        this.verticesHigh.force();
+        this.edges.force();
+        this.header.putInt(OFFSET_EDGES_SIZE, (int) edgesSize);
+        this.header.putInt(OFFSET_DIRTY, 0);
+        this.header.force();
+        this.dirty = false;
+    }
+
+    public void moveTo(Path target) throws IOException {
+        if (this.path.equals(target)) {
+            return;
+        }
+        // The mapping is kept by the moved file, there is nothing to reopen
+        Files.move(this.path, target, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        this.path = target;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The segments stay valid until they are collected
+        this.channel.close();
+    }
+
+    /**
+     * A fixed size array of int or long elements mapped by segments, since
+     * a single mapping is limited to 2GB
+     */
+    public static final class Region {
+
+        private static final int SEGMENT_SHIFT = 30;
+        private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+        private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+        private final MappedByteBuffer[] segments;
+        private final int capacity;
+        private final int elementShift;
+
+        private Region(FileChannel channel, long offset, int capacity,
+                       int elementSize) throws IOException {
+            assert elementSize == Integer.BYTES || elementSize == Long.BYTES;
+            this.capacity = capacity;
+            this.elementShift = Integer.numberOfTrailingZeros(elementSize);
+
+            long bytes = this.bytes();
+            int count = (int) ((bytes + SEGMENT_SIZE - 1L) >>> SEGMENT_SHIFT);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long position = (long) i << SEGMENT_SHIFT;
+                long size = Math.min(SEGMENT_SIZE, bytes - position);
+                MappedByteBuffer segment = channel.map(
+                                           FileChannel.MapMode.READ_WRITE,
+                                           offset + position, size);
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+                this.segments[i] = segment;
+            }
+        }
+
+        public int capacity() {
+            return this.capacity;
+        }
+
+        private long bytes() {
+            return (long) this.capacity << this.elementShift;
+        }
+
+        public int getInt(long index) {
+            long position = index << this.elementShift;
+            return this.segments[(int) (position >>> SEGMENT_SHIFT)]
+                       .getInt((int) (position & SEGMENT_MASK));
+        }
+
+        public void putInt(long index, int value) {
+            long position = index << this.elementShift;
+            this.segments[(int) (position >>> SEGMENT_SHIFT)]
+                .putInt((int) (position & SEGMENT_MASK), value);
+        }
+
+        public long getLong(long index) {
+            long position = index << this.elementShift;
+            return this.segments[(int) (position >>> SEGMENT_SHIFT)]
+                       .getLong((int) (position & SEGMENT_MASK));
+        }
+
+        public void putLong(long index, long value) {
+            long position = index << this.elementShift;
+            this.segments[(int) (position >>> SEGMENT_SHIFT)]
+                .putLong((int) (position & SEGMENT_MASK), value);
+        }
+
+        public void clear() {
+            for (MappedByteBuffer segment : this.segments) {
+                for (int i = 0; i < segment.capacity(); i += Integer.BYTES) {
+                    segment.putInt(i, 0);
+                }
+            }
+        }
+
+        public void force() {
+            for (MappedByteBuffer segment : this.segments) {
+                segment.force();
+            }
+        }
+    }
+}
@@ -45,6 +45,8 @@ import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 import org.slf4j.Logger;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -54,6 +56,7 @@ public final class RamTable {
 
     public static final String USER_DIR = System.getProperty("user.dir");
     public static final String EXPORT_PATH = USER_DIR + "/export";
+    public static final String FILE_SUFFIX = ".ramtable";
 
     private static final Logger LOG = Log.logger(RamTable.class);
 
@@ -73,6 +76,15 @@ public final class RamTable {
     private final int verticesCapacityHalf;
     private final int edgesCapacity;
 
+    /*
+     * The mapped file keeping the table if any, the maps are on heap if null.
+     * It's opened on start without reading it, a reload builds a new file
+     * which then replaces the previous one, so that a crash while loading
+     * keeps the previous table.
+     */
+    private final Path file;
+    private RamFile ramFile;
+
     private IntIntMap verticesLow;
     private IntIntMap verticesHigh;
     private IntLongMap edges;
@@ -84,24 +96,137 @@ public final class RamTable {
     }
 
     public RamTable(BigGraph graph, long maxVertices, int maxEdges) {
+        this(graph, maxVertices, maxEdges, null);
+    }
+
+    public RamTable(BigGraph graph, long maxVertices, int maxEdges,
+                    Path file) {
         this.graph = graph;
         this.verticesCapacity = maxVertices + 2L;
         this.verticesCapacityHalf = (int) (this.verticesCapacity / 2L);
         this.edgesCapacity = maxEdges + 1;
-        this.reset();
+        this.file = file;
+        this.ramFile = null;
+        if (!this.open()) {
+            this.reset();
+        }
+    }
+
+    private boolean open() {
+        if (this.file == null) {
+            return false;
+        }
+        RamFile ramFile;
+        try {
+            ramFile = RamFile.open(this.file, this.graph.name(),
+                                   this.graph.backend(),
+                                   this.verticesCapacityHalf,
+                                   this.edgesCapacity);
+        } catch (IOException e) {
+            LOG.warn("Failed to open ramtable file '{}'", this.file, e);
+            return false;
+        }
+        if (ramFile == null) {
+            return false;
+        }
+        this.attach(ramFile);
+        LOG.info("Opened ramtable file '{}' with {} edges",
+                 this.file, this.edgesSize());
+        return true;
     }
 
     private void reset() {
         this.verticesLow = null;
         this.verticesHigh = null;
         this.edges = null;
-        this.verticesLow = new IntIntMap(this.verticesCapacityHalf);
-        this.verticesHigh = new IntIntMap(this.verticesCapacityHalf);
-        this.edges = new IntLongMap(this.edgesCapacity);
+        if (this.file != null) {
+            Path temp = Paths.get(this.file + ".tmp");
+            try {
+                this.attach(RamFile.create(temp, this.graph.name(),
+                                           this.graph.backend(),
+                                           this.verticesCapacityHalf,
+                                           this.edgesCapacity));
+            } catch (IOException e) {
+                throw new BigGraphException("Failed to create ramtable " +
+                                            "file '%s'", e, temp);
+            }
+        } else {
+            this.verticesLow = new IntIntMap(this.verticesCapacityHalf);
+            this.verticesHigh = new IntIntMap(this.verticesCapacityHalf);
+            this.edges = new IntLongMap(this.edgesCapacity);
+        }
         // Set the first element as null edge
         this.edges.add(0L);
     }
 
+    private void attach(RamFile ramFile) {
+        this.detach();
+        this.ramFile = ramFile;
+        this.verticesLow = new IntIntMap(ramFile.verticesLow());
+        this.verticesHigh = new IntIntMap(ramFile.verticesHigh());
+        this.edges = new IntLongMap(ramFile.edges(), ramFile.edgesSize());
+    }
+
+    private void detach() {
+        if (this.ramFile == null) {
+            return;
+        }
+        try {
+            this.ramFile.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close ramtable file '{}'",
+                     this.ramFile.path(), e);
+        }
+        this.ramFile = null;
+    }
+
+    /**
+     * Make the mapped file consistent with the edges added so far, it's
+     * used as is by the next open
+     */
+    public void flush() {
+        if (this.ramFile == null) {
+            return;
+        }
+        this.ramFile.commit(this.edges.size());
+        try {
+            this.ramFile.moveTo(this.file);
+        } catch (IOException e) {
+            throw new BigGraphException("Failed to save ramtable file '%s'",
+                                        e, this.file);
+        }
+    }
+
+    public void close() {
+        if (this.ramFile != null && !this.loading &&
+            this.ramFile.path().equals(this.file)) {
+            // Edges may be added to the loaded table
+            if (this.ramFile.dirty()) {
+                this.flush();
+            }
+        }
+        this.detach();
+    }
+
+    /**
+     * Drop the table and its mapped file when the backend data is replaced,
+     * like clear, truncate or restore, queries go to the backend again until
+     * the next reload
+     */
+    public void clear() {
+        this.detach();
+        if (this.file != null) {
+            try {
+                Files.deleteIfExists(this.file);
+            } catch (IOException e) {
+                throw new BigGraphException("Failed to delete ramtable " +
+                                            "file '%s'", e, this.file);
+            }
+        }
+        this.reset();
+        LOG.info("Cleared ramtable of graph '{}'", this.graph.name());
+    }
+
     public void reload(boolean loadFromFile, String file) {
         if (this.loading) {
             throw new BigGraphException("There is one loading task, " +
@@ -110,21 +235,29 @@ public final class RamTable {
 
         this.loading = true;
         try {
+            if (loadFromFile && this.open()) {
+                // The mapped file is used as is, without reading it
+                return;
+            }
             this.reset();
             if (loadFromFile) {
                 this.loadFromFile(file);
             } else {
                 this.loadFromDB();
-                if (file != null) {
+                if (file != null && this.file == null) {
                     LOG.info("Export graph to file '{}'", file);
                     if (!this.exportToFile(file)) {
                         LOG.warn("Can't export graph to file '{}'", file);
                     }
                 }
             }
+            this.flush();
             LOG.info("Loaded {} edges", this.edgesSize());
         } catch (Throwable e) {
-            this.reset();
+            // Keep the previous mapped file if there is one
+            if (!this.open()) {
+                this.reset();
+            }
             throw new BigGraphException("Failed to load ramtable", e);
         } finally {
             this.loading = false;
@@ -230,6 +363,10 @@ public final class RamTable {
     }
 
     public void addEdge(boolean newVertex, long owner, long value) {
+        if (this.ramFile != null) {
+            // The file isn't consistent until the next flush
+            this.ramFile.markDirty();
+        }
         int position = this.edges.add(value);
         if (newVertex) {
             assert this.vertexAdjPosition(owner) <= NULL : owner;
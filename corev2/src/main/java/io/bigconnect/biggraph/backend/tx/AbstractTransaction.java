@@ -45,6 +45,8 @@ import io.bigconnect.biggraph.util.collection.IdSet;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 public abstract class AbstractTransaction implements Transaction {
@@ -162,6 +164,46 @@ public abstract class AbstractTransaction implements Transaction {
         }
     }
 
+    /**
+     * Query multiple flattened queries of the same result type at once, so
+     * that the store can serve them from one scan, the results of all the
+     * queries are returned one after another
+     */
+    @Watched(prefix = "tx")
+    public QueryResults<BackendEntry> query(List<Query> queries) {
+        E.checkArgument(!queries.isEmpty(), "Queries can't be empty");
+        LOG.debug("Transaction query: {}", queries);
+
+        List<Query> squeries = new ArrayList<>(queries.size());
+        for (Query query : queries) {
+            if (query.empty() && !query.getClass().equals(Query.class)) {
+                throw new BackendException("Query without any id or condition");
+            }
+            squeries.add(this.serializer.writeQuery(query));
+        }
+
+        // Do rate limit if needed
+        RateLimiter rateLimiter = this.graph.readRateLimiter();
+        if (rateLimiter != null && queries.get(0).resultType().isGraph()) {
+            double time = rateLimiter.acquire(queries.size());
+            if (time > 0) {
+                LOG.debug("Waited for {}s to query", time);
+            }
+            BackendEntryIterator.checkInterrupted();
+        }
+
+        this.beforeRead();
+        try {
+            for (Query squery : squeries) {
+                this.injectOlapPkIfNeeded(squery);
+            }
+            return new QueryResults<>(this.store.query(squeries),
+                                      queries.get(0));
+        } finally {
+            this.afterRead();
+        }
+    }
+
     private void injectOlapPkIfNeeded(Query query) {
         if (!query.resultType().isVertex() ||
             !this.graph.readMode().showOlap()) {
@@ -798,6 +798,42 @@ public class GraphIndexTransaction extends AbstractTransaction {
         return null;
     }
 
+    /**
+     * Whether the index query of a query without LABEL condition returns all
+     * the matched elements. The labels without matched index are skipped by
+     * the index query, so it misses their elements if the labels have all
+     * the queried properties.
+     * @param query the flattened conditions
+     * @return      true if the LABEL is fixed or each label having all the
+     *              queried properties has a matched index
+     */
+    @Watched(prefix = "index")
+    public boolean matchedIndexOfAllLabels(ConditionQuery query) {
+        if (query.condition(BigKeys.LABEL) != null) {
+            return true;
+        }
+        SchemaTransaction schema = this.params().schemaTransaction();
+        List<? extends SchemaLabel> schemaLabels;
+        if (query.resultType().isVertex()) {
+            schemaLabels = schema.getVertexLabels();
+        } else if (query.resultType().isEdge()) {
+            schemaLabels = schema.getEdgeLabels();
+        } else {
+            throw new AssertionError(String.format(
+                      "Unsupported index query type: %s",
+                      query.resultType()));
+        }
+
+        Set<Id> keys = query.userpropKeys();
+        for (SchemaLabel schemaLabel : schemaLabels) {
+            if (schemaLabel.properties().containsAll(keys) &&
+                this.collectMatchedIndex(schemaLabel, query) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 
     private ConditionQuery constructSearchQuery(ConditionQuery query,
                                                 MatchedIndex index) {
@@ -27,6 +27,8 @@ import io.bigconnect.biggraph.backend.BackendException;
 import io.bigconnect.biggraph.backend.id.EdgeId;
 import io.bigconnect.biggraph.backend.id.Id;
 import io.bigconnect.biggraph.backend.id.SplicingIdGenerator;
+import io.bigconnect.biggraph.backend.page.IdHolder;
+import io.bigconnect.biggraph.backend.page.IdHolder.BatchIdHolder;
 import io.bigconnect.biggraph.backend.page.IdHolderList;
 import io.bigconnect.biggraph.backend.page.PageInfo;
 import io.bigconnect.biggraph.backend.page.QueryList;
@@ -39,6 +41,7 @@ import io.bigconnect.biggraph.backend.store.BackendStore;
 import io.bigconnect.biggraph.config.CoreOptions;
 import io.bigconnect.biggraph.config.BigConfig;
 import io.bigconnect.biggraph.exception.LimitExceedException;
+import io.bigconnect.biggraph.exception.NoIndexException;
 import io.bigconnect.biggraph.exception.NotAllowException;
 import io.bigconnect.biggraph.exception.NotFoundException;
 import io.bigconnect.biggraph.iterator.ListIterator;
@@ -52,6 +55,7 @@ import io.bigconnect.biggraph.type.BigType;
 import io.bigconnect.biggraph.type.define.Action;
 import io.bigconnect.biggraph.type.define.Directions;
 import io.bigconnect.biggraph.type.define.BigKeys;
+import io.bigconnect.biggraph.type.define.Cardinality;
 import io.bigconnect.biggraph.type.define.IdStrategy;
 import io.bigconnect.biggraph.util.E;
 import io.bigconnect.biggraph.util.InsertionOrderUtil;
@@ -505,6 +509,10 @@ public class GraphTransaction extends IndexableTransaction {
 
         QueryList<BackendEntry> queries = this.optimizeQueries(query,
                                                                super::query);
+        if (query.resultType().isEdge()) {
+            // Scan the edges of multiple source vertices at once
+            queries.batchFetcher(super::query);
+        }
         LOG.debug("{}", queries);
         return queries.empty() ? QueryResults.empty() :
                                  queries.fetch(this.pageSize);
@@ -516,12 +524,15 @@ public class GraphTransaction extends IndexableTransaction {
                         "It's not allowed to query number when " +
                         "there are uncommitted records.");
 
+        Aggregate aggregate = query.aggregateNotNull();
+        if (!aggregate.countAll()) {
+            return this.queryAggregateByScan(query, aggregate);
+        }
+
         if (!(query instanceof ConditionQuery)) {
             return super.queryNumber(query);
         }
 
-        Aggregate aggregate = query.aggregateNotNull();
-
         QueryList<Number> queries = this.optimizeQueries(query, q -> {
             boolean indexQuery = q.getClass() == IdQuery.class;
             OptimizedType optimized = ((ConditionQuery) query).optimized();
@@ -554,6 +565,46 @@ public class GraphTransaction extends IndexableTransaction {
         return aggregate.reduce(results.iterator());
     }
 
+    /**
+     * Aggregate a property of the matched vertices/edges while scanning them,
+     * the backend entries are parsed one by one and never kept in memory.
+     * Return null if there is no value to aggregate, except for COUNT.
+     */
+    private Number queryAggregateByScan(Query query, Aggregate aggregate) {
+        PropertyKey pkey = this.graph().propertyKey(aggregate.column());
+        E.checkArgument(pkey.cardinality() == Cardinality.SINGLE &&
+                        pkey.dataType().isNumber(),
+                        "The %s operator is only supported on single " +
+                        "numeric property, but got property key '%s'",
+                        aggregate.func().string(), pkey.name());
+        assert query.resultType().isVertex() || query.resultType().isEdge();
+
+        Query scan = query.copy();
+        // The scanned records are not held, so no need to limit the capacity
+        scan.capacity(Query.NO_CAPACITY);
+        @SuppressWarnings("unchecked")
+        Iterator<BigElement> elements = (Iterator<BigElement>)
+                                        (scan.resultType().isVertex() ?
+                                         this.queryVertices(scan) :
+                                         this.queryEdges(scan));
+        boolean count = aggregate.func() == AggregateFunc.COUNT;
+        Iterator<Number> values = new MapperIterator<>(elements, element -> {
+            BigProperty<?> prop = element.getProperty(pkey.id());
+            if (prop == null) {
+                return null;
+            }
+            return count ? 1L : (Number) prop.value();
+        });
+        try {
+            if (!count && !values.hasNext()) {
+                return null;
+            }
+            return aggregate.reduce(values);
+        } finally {
+            CloseableIterator.closeIterator(elements);
+        }
+    }
+
     @Watched(prefix = "graph")
     public BigVertex addVertex(Object... keyValues) {
         return this.addVertex(this.constructVertex(true, keyValues));
@@ -761,6 +812,78 @@ public class GraphTransaction extends IndexableTransaction {
         return this.skipOffsetOrStopLimit(r, query);
     }
 
+    /**
+     * Query the ids of the vertices matching the conditions by index,
+     * without fetching the vertices.
+     * @param query the vertex conditions, it's changed by the query
+     * @param limit the max number of ids to collect
+     * @return      the matched ids, or null if the conditions can't be
+     *              queried only by index, if a vertex label having the
+     *              queried properties has no matched index, or if more
+     *              than limit vertices match
+     */
+    public Set<Id> queryVertexIdsByIndex(ConditionQuery query, long limit) {
+        assert query.resultType().isVertex();
+        // The index doesn't contain the uncommitted changes
+        if (this.hasUpdate() || this.indexTx.hasUpdate()) {
+            return null;
+        }
+
+        Set<Id> ids = InsertionOrderUtil.newSet();
+        for (ConditionQuery cq : ConditionQueryFlatten.flatten(query)) {
+            if (this.optimizeQuery(cq) != null) {
+                // Not an index query, like by label or by primary keys
+                return null;
+            }
+            if (!this.indexTx.matchedIndexOfAllLabels(cq)) {
+                // The vertices of the labels without index would be missed
+                return null;
+            }
+            // One more id than the limit tells there are too many vertices
+            cq.limit(limit + 1L);
+            IdHolderList holders;
+            try {
+                holders = this.indexQuery(cq);
+            } catch (NoIndexException e) {
+                return null;
+            }
+            try {
+                if (holders.paging() || !collectIds(holders, ids, limit)) {
+                    return null;
+                }
+            } finally {
+                for (IdHolder holder : holders) {
+                    if (holder instanceof BatchIdHolder) {
+                        ((BatchIdHolder) holder).close();
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private boolean collectIds(IdHolderList holders, Set<Id> ids,
+                               long limit) {
+        for (IdHolder holder : holders) {
+            if (holder instanceof BatchIdHolder) {
+                /*
+                 * Read by batch to stop early, the limit isn't set when
+                 * filtering by one of the joint indexes
+                 */
+                BatchIdHolder batch = (BatchIdHolder) holder;
+                while (ids.size() <= limit && batch.hasNext()) {
+                    ids.addAll(batch.fetchNext(null, this.batchSize).ids());
+                }
+            } else {
+                ids.addAll(holder.all());
+            }
+            if (ids.size() > limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected Iterator<BigVertex> queryVerticesFromBackend(Query query) {
         assert query.resultType().isVertex();
 
@@ -1145,13 +1268,37 @@ public class GraphTransaction extends IndexableTransaction {
                                                      Id... edgeLabels) {
         E.checkState(sourceVertex != null,
                      "The edge query must contain source vertex");
+        return constructEdgesQuery(ImmutableList.of(sourceVertex),
+                                   direction, edgeLabels);
+    }
+
+    /**
+     * Construct one edge condition query for the edges of multiple source
+     * vertices, the source vertices are flattened into one prefix query each
+     * @param sourceVertices source vertices of edge
+     * @param direction only be "IN", "OUT" or "BOTH"
+     * @param edgeLabels edge labels of queried edges
+     * @return constructed condition query
+     */
+    @Watched
+    public static ConditionQuery constructEdgesQuery(
+                                 Collection<Id> sourceVertices,
+                                 Directions direction,
+                                 Id... edgeLabels) {
+        E.checkState(sourceVertices != null && !sourceVertices.isEmpty(),
+                     "The edge query must contain source vertex");
         E.checkState(direction != null,
                      "The edge query must contain direction");
 
         ConditionQuery query = new ConditionQuery(BigType.EDGE);
 
         // Edge source vertex
-        query.eq(BigKeys.OWNER_VERTEX, sourceVertex);
+        if (sourceVertices.size() == 1) {
+            query.eq(BigKeys.OWNER_VERTEX, sourceVertices.iterator().next());
+        } else {
+            query.query(Condition.in(BigKeys.OWNER_VERTEX,
+                                     new ArrayList<>(sourceVertices)));
+        }
 
         // Edge direction
         if (direction == Directions.BOTH) {
@@ -468,6 +468,17 @@ public class CoreOptions extends OptionHolder {
                     1000
             );
 
+    public static final ConfigOption<Integer> QUERY_ADJACENT_INDEX_LIMIT =
+            new ConfigOption<>(
+                    "query.adjacent_index_limit",
+                    "The maximum number of vertices matched by index to " +
+                    "filter adjacent vertices by, like out().has(k, v), " +
+                    "the adjacent vertices are fetched and filtered in " +
+                    "memory if more vertices match, 0 means disabled.",
+                    rangeInt(0, (int) Query.DEFAULT_CAPACITY),
+                    100000
+            );
+
     public static final ConfigOption<Boolean> QUERY_RAMTABLE_ENABLE =
             new ConfigOption<>(
                     "query.ramtable_enable",
@@ -476,6 +487,18 @@ public class CoreOptions extends OptionHolder {
                     false
             );
 
+    public static final ConfigOption<Boolean> QUERY_RAMTABLE_MAPPED =
+            new ConfigOption<>(
+                    "query.ramtable_mapped",
+                    "Whether to keep ramtable in a memory mapped file " +
+                    "under the export directory, which doesn't use heap " +
+                    "memory and is reused on restart without reloading. " +
+                    "The file is dropped when the graph is cleared, " +
+                    "truncated or restored.",
+                    disallowEmpty(),
+                    false
+            );
+
     public static final ConfigOption<Long> QUERY_RAMTABLE_VERTICES_CAPACITY =
             new ConfigOption<>(
                     "query.ramtable_vertices_capacity",
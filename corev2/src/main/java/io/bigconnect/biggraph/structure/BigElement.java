@@ -201,6 +201,14 @@ public abstract class BigElement implements Element, GraphType, Idfiable {
         return props;
     }
 
+    /**
+     * Read-only view of the properties, without building the id-keyed map
+     * like getProperties() does, used by the serializers on the write path
+     */
+    public Collection<BigProperty<?>> getPropertiesView() {
+        return Collections.unmodifiableCollection(this.properties.values());
+    }
+
     // TODO: return MutableIntObjectMap<HugeProperty<?>>
     public Map<Id, BigProperty<?>> getFilledProperties() {
         this.ensureFilledProperties(true);
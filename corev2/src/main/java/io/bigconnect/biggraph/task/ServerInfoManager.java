@@ -209,6 +209,18 @@ public class ServerInfoManager {
         return !this.closed && this.graph.started() && this.graph.initialized();
     }
 
+    protected synchronized void updateOnlySingleNode(
+                                Collection<BigServerInfo> servers) {
+        boolean hasWorkerNode = false;
+        for (BigServerInfo server : servers) {
+            if (server.alive() && !server.role().master()) {
+                hasWorkerNode = true;
+                break;
+            }
+        }
+        this.onlySingleNode = !hasWorkerNode;
+    }
+
     protected synchronized BigServerInfo pickWorkerNode(
                                           Collection<BigServerInfo> servers,
                                           BigTask<?> task) {
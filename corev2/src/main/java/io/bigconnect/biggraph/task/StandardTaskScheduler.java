@@ -73,6 +73,12 @@ public class StandardTaskScheduler implements TaskScheduler {
 
     private final EventListener eventListener;
     private final Map<Id, BigTask<?>> tasks;
+    /*
+     * Tasks waiting for the master to pick a server, ordered by task id
+     * (that's the creation order), they are saved with SCHEDULING status
+     * before being queued so the periodic scan can recover them
+     */
+    private final ConcurrentNavigableMap<Id, BigTask<?>> schedulingTasks;
 
     private volatile TaskTransaction taskTx;
 
@@ -95,6 +101,7 @@ public class StandardTaskScheduler implements TaskScheduler {
 
         this.serverManager = new ServerInfoManager(graph, serverInfoDbExecutor);
         this.tasks = new ConcurrentHashMap<>();
+        this.schedulingTasks = new ConcurrentSkipListMap<>();
 
         this.taskTx = null;
 
@@ -227,14 +234,25 @@ public class StandardTaskScheduler implements TaskScheduler {
             return this.submitTask(task);
         } else {
             /*
-             * Just set SCHEDULING status and save task
-             * it will be scheduled by periodic scheduler worker
+             * Set SCHEDULING status and save task, then queue it in memory
+             * to be scheduled by the scheduler thread immediately
              */
-            task.status(TaskStatus.SCHEDULING);
-            this.save(task);
+            int size = this.schedulingTasks.size() + 1;
+            E.checkArgument(size <= MAX_PENDING_TASKS,
+                            "Scheduling tasks size %s has exceeded " +
+                            "the max limit %s", size, MAX_PENDING_TASKS);
+            synchronized (this) {
+                /*
+                 * Hold the lock like scheduleTasks() to avoid that the
+                 * periodic scan schedules the saved task before queued
+                 */
+                task.status(TaskStatus.SCHEDULING);
+                this.save(task);
+                this.schedulingTasks.put(task.id(), task);
+            }
 
             // Notify master server to schedule and execute immediately
-            TaskManager.instance().notifyNewTask(task);
+            TaskManager.instance().notifyTaskEvent();
 
             return task;
         }
@@ -288,6 +306,7 @@ public class StandardTaskScheduler implements TaskScheduler {
             // The task not scheduled to workers, set canceled immediately
             assert task.status().code() < TaskStatus.QUEUED.code();
             if (task.status(TaskStatus.CANCELLED)) {
+                this.schedulingTasks.remove(task.id());
                 this.save(task);
                 return;
             }
@@ -296,7 +315,8 @@ public class StandardTaskScheduler implements TaskScheduler {
             this.save(task);
             assert task.server() != null : task;
             assert this.serverManager().master();
-            if (!task.server().equals(this.serverManager().selfServerId())) {
+            Id selfServer = this.serverManager().selfServerId();
+            if (!task.server().equals(selfServer)) {
                 /*
                  * Remove task from memory if it's running on worker node,
                  * but keep task in memory if it's running on master node.
@@ -306,9 +326,10 @@ public class StandardTaskScheduler implements TaskScheduler {
                  * is running but removed from memory.
                  */
                 this.remove(task);
+            } else {
+                // Running on master node, no need to wait for the worker scan
+                this.cancelTaskOnWorker(task, selfServer);
             }
-            // Notify master server to schedule and execute immediately
-            TaskManager.instance().notifyNewTask(task);
             return;
         }
 
@@ -320,10 +341,61 @@ public class StandardTaskScheduler implements TaskScheduler {
         return this.serverManager;
     }
 
+    protected synchronized void scheduleQueuedTasks() {
+        // Master server schedule the queued tasks to suitable worker nodes
+        if (this.schedulingTasks.isEmpty()) {
+            return;
+        }
+        Collection<BigServerInfo> scheduleInfos = this.serverManager()
+                                                       .allServerInfos();
+        Id selfServer = this.serverManager().selfServerId();
+        Iterator<BigTask<?>> tasks = this.schedulingTasks.values().iterator();
+        while (tasks.hasNext()) {
+            BigTask<?> task = tasks.next();
+            if (task.status() != TaskStatus.SCHEDULING ||
+                task.server() != null) {
+                // Skip if already cancelled or scheduled
+                tasks.remove();
+                continue;
+            }
+
+            BigServerInfo server = this.serverManager().pickWorkerNode(
+                                   scheduleInfos, task);
+            if (server == null) {
+                // Keep it queued, retry when some running task is done
+                LOG.debug("The master can't find suitable servers to " +
+                          "execute task '{}', keep it in queue", task.id());
+                continue;
+            }
+            tasks.remove();
+
+            // Found suitable server, update task status
+            assert server.id() != null;
+            task.server(server.id());
+            task.status(TaskStatus.SCHEDULED);
+            this.save(task);
+
+            // Update server load in memory, it will be saved at the ending
+            server.increaseLoad(task.load());
+
+            LOG.info("Scheduled task '{}' to server '{}'",
+                     task.id(), server.id());
+
+            if (server.id().equals(selfServer)) {
+                // Execute it directly instead of waiting for the worker scan
+                task.status(TaskStatus.QUEUED);
+                this.submitTask(task);
+            }
+        }
+
+        this.serverManager().updateServerInfos(scheduleInfos);
+    }
+
     protected synchronized void scheduleTasks() {
         // Master server schedule all scheduling tasks to suitable worker nodes
         Collection<BigServerInfo> scheduleInfos = this.serverManager()
                                                        .allServerInfos();
+        this.serverManager().updateOnlySingleNode(scheduleInfos);
         String page = this.supportsPaging() ? PageInfo.PAGE_NONE : null;
         do {
             Iterator<BigTask<Object>> tasks = this.tasks(TaskStatus.SCHEDULING,
@@ -349,6 +421,8 @@ public class StandardTaskScheduler implements TaskScheduler {
                 task.server(server.id());
                 task.status(TaskStatus.SCHEDULED);
                 this.save(task);
+                // The queued instance (if any) is stale now
+                this.schedulingTasks.remove(task.id());
 
                 // Update server load in memory, it will be saved at the ending
                 server.increaseLoad(task.load());
@@ -408,22 +482,7 @@ public class StandardTaskScheduler implements TaskScheduler {
                 if (!taskServer.equals(server)) {
                     continue;
                 }
-                /*
-                 * Task may be loaded from backend store and not initialized.
-                 * like: A task is completed but failed to save in the last
-                 * step, resulting in the status of the task not being
-                 * updated to storage, the task is not in memory, so it's not
-                 * initialized when canceled.
-                 */
-                BigTask<?> memTask = this.tasks.get(task.id());
-                if (memTask != null) {
-                    task = memTask;
-                } else {
-                    this.initTaskCallable(task);
-                }
-                boolean cancelled = task.cancel(true);
-                LOG.info("Server '{}' cancel task '{}' with cancelled={}",
-                         server, task.id(), cancelled);
+                this.cancelTaskOnWorker(task, server);
             }
             if (page != null) {
                 page = PageInfo.pageInfo(tasks);
@@ -431,6 +490,25 @@ public class StandardTaskScheduler implements TaskScheduler {
         } while (page != null);
     }
 
+    private void cancelTaskOnWorker(BigTask<?> task, Id server) {
+        /*
+         * Task may be loaded from backend store and not initialized.
+         * like: A task is completed but failed to save in the last
+         * step, resulting in the status of the task not being
+         * updated to storage, the task is not in memory, so it's not
+         * initialized when canceled.
+         */
+        BigTask<?> memTask = this.tasks.get(task.id());
+        if (memTask != null) {
+            task = memTask;
+        } else {
+            this.initTaskCallable(task);
+        }
+        boolean cancelled = task.cancel(true);
+        LOG.info("Server '{}' cancel task '{}' with cancelled={}",
+                 server, task.id(), cancelled);
+    }
+
     protected void taskDone(BigTask<?> task) {
         this.remove(task);
 
@@ -442,6 +520,11 @@ public class StandardTaskScheduler implements TaskScheduler {
                       task.id(), selfServerId, e);
         }
         LOG.debug("Task '{}' done on server '{}'", task.id(), selfServerId);
+
+        if (!this.schedulingTasks.isEmpty()) {
+            // Some load is released, retry the tasks that are still queued
+            TaskManager.instance().notifyTaskEvent();
+        }
     }
 
     protected void remove(BigTask<?> task) {
@@ -472,6 +555,7 @@ public class StandardTaskScheduler implements TaskScheduler {
     @Override
     public boolean close() {
         this.unlistenChanges();
+        this.schedulingTasks.clear();
         if (!this.taskDbExecutor.isShutdown()) {
             this.call(() -> {
                 try {
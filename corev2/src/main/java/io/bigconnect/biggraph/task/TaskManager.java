@@ -27,8 +27,8 @@ import io.bigconnect.biggraph.util.*;
 import org.slf4j.Logger;
 
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class TaskManager {
 
@@ -42,6 +42,11 @@ public final class TaskManager {
     public static final String TASK_SCHEDULER = "task-scheduler-%d";
 
     protected static final int SCHEDULE_PERIOD = 3; // Unit second
+    /*
+     * Scan the task store for the tasks missed by the notifications (like
+     * the ones left by a crashed master) every N schedule periods
+     */
+    private static final int RECOVERY_PERIODS = 10;
     private static final int THREADS = 4;
     private static final TaskManager MANAGER = new TaskManager(THREADS);
 
@@ -52,6 +57,9 @@ public final class TaskManager {
     private final ExecutorService serverInfoDbExecutor;
     private final PausableScheduledThreadPool schedulerExecutor;
 
+    private final AtomicBoolean taskEventNotified;
+    private long schedulePeriods;
+
     public static TaskManager instance() {
         return MANAGER;
     }
@@ -69,6 +77,8 @@ public final class TaskManager {
         // For schedule task to run, just one thread is ok
         this.schedulerExecutor = ExecutorUtil.newPausableScheduledThreadPool(
                                  1, TASK_SCHEDULER);
+        this.taskEventNotified = new AtomicBoolean(false);
+        this.schedulePeriods = 0L;
         // Start after 10s waiting for HugeGraphServer startup
         this.schedulerExecutor.scheduleWithFixedDelay(this::scheduleOrExecuteJob,
                                                       10L, SCHEDULE_PERIOD,
@@ -232,29 +242,63 @@ public final class TaskManager {
         return size;
     }
 
-    protected void notifyNewTask(BigTask<?> task) {
-        Queue<Runnable> queue = ((ThreadPoolExecutor) this.schedulerExecutor)
-                                                          .getQueue();
-        if (queue.size() <= 1) {
-            /*
-             * Notify to schedule tasks initiatively when have new task
-             * It's OK to not notify again if there are more than one task in
-             * queue(like two, one is timer task, one is immediate task),
-             * we don't want too many immediate tasks to be inserted into queue,
-             * one notify will cause all the tasks to be processed.
-             */
-            this.schedulerExecutor.submit(this::scheduleOrExecuteJob);
+    protected void notifyTaskEvent() {
+        /*
+         * Notify to schedule the queued tasks initiatively when a task is
+         * submitted or done. It's OK to not notify again if a notified job
+         * is waiting to run, one job will process all the queued tasks, and
+         * we don't want too many immediate jobs to be inserted into queue.
+         */
+        if (this.taskEventNotified.compareAndSet(false, true)) {
+            this.schedulerExecutor.submit(this::scheduleQueuedJob);
+        }
+    }
+
+    private void scheduleQueuedJob() {
+        // Called by task events
+        this.taskEventNotified.set(false);
+        try {
+            for (TaskScheduler entry : this.schedulers.values()) {
+                StandardTaskScheduler scheduler = (StandardTaskScheduler) entry;
+                // Maybe other thread close&remove scheduler at the same time
+                synchronized (scheduler) {
+                    this.scheduleQueuedJobForGraph(scheduler);
+                }
+            }
+        } catch (Throwable e) {
+            LOG.error("Exception occurred when schedule queued job", e);
+        }
+    }
+
+    private void scheduleQueuedJobForGraph(StandardTaskScheduler scheduler) {
+        E.checkNotNull(scheduler, "scheduler");
+
+        ServerInfoManager serverManager = scheduler.serverManager();
+        String graph = scheduler.graphName();
+
+        LockUtil.lock(graph, LockUtil.GRAPH_LOCK);
+        try {
+            // Skip if graph is closed or not initialized, see below
+            if (!serverManager.graphReady()) {
+                return;
+            }
+            if (serverManager.master()) {
+                scheduler.scheduleQueuedTasks();
+            }
+        } finally {
+            LockUtil.unlock(graph, LockUtil.GRAPH_LOCK);
         }
     }
 
     private void scheduleOrExecuteJob() {
         // Called by scheduler timer
+        boolean recovery = this.schedulePeriods++ % RECOVERY_PERIODS == 0;
         try {
             for (TaskScheduler entry : this.schedulers.values()) {
                 StandardTaskScheduler scheduler = (StandardTaskScheduler) entry;
                 // Maybe other thread close&remove scheduler at the same time
                 synchronized (scheduler) {
-                    this.scheduleOrExecuteJobForGraph(scheduler);
+                    this.scheduleOrExecuteJobForGraph(scheduler, recovery);
                 }
             }
         } catch (Throwable e) {
@@ -262,7 +306,8 @@ public final class TaskManager {
         }
     }
 
-    private void scheduleOrExecuteJobForGraph(StandardTaskScheduler scheduler) {
+    private void scheduleOrExecuteJobForGraph(StandardTaskScheduler scheduler,
+                                              boolean recovery) {
         E.checkNotNull(scheduler, "scheduler");
 
         ServerInfoManager serverManager = scheduler.serverManager();
@@ -292,15 +337,28 @@ public final class TaskManager {
 
             /*
              * Master schedule tasks to suitable servers.
-             * There is no suitable server when these tasks are created
+             * The tasks queued in memory are scheduled by task events, retry
+             * them in case of no suitable server when they were notified,
+             * and scan the store just for recovery.
              */
             if (serverManager.master()) {
-                scheduler.scheduleTasks();
+                scheduler.scheduleQueuedTasks();
+                if (recovery) {
+                    scheduler.scheduleTasks();
+                }
                 if (!serverManager.onlySingleNode()) {
                     return;
                 }
             }
 
+            /*
+             * The master executes the tasks scheduled to itself directly,
+             * but worker nodes are only told by the store.
+             */
+            if (!recovery && serverManager.onlySingleNode()) {
+                return;
+            }
+
             // Schedule queued tasks scheduled to current server
             scheduler.executeTasksOnWorker(serverManager.selfServerId());
 
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2021 BigConnect Authors
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bigconnect.biggraph.traversal.optimize;
+
+import io.bigconnect.biggraph.BigGraph;
+import io.bigconnect.biggraph.backend.query.Aggregate.AggregateFunc;
+import io.bigconnect.biggraph.schema.PropertyKey;
+import io.bigconnect.biggraph.type.define.Cardinality;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy.ProviderOptimizationStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MaxGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MeanGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MinGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.NoOpBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertiesStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.SumGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.IdentityStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.ReducingBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.PropertyType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replace g.V().has(...).values(key).sum()/min()/max()/mean()/count() with
+ * an aggregate query, so the property values are aggregated while scanning
+ * instead of passing every element through the traversal.
+ */
+public final class BigAggregateStepStrategy
+             extends AbstractTraversalStrategy<ProviderOptimizationStrategy>
+             implements ProviderOptimizationStrategy {
+
+    private static final long serialVersionUID = 6133384233939011529L;
+
+    private static final BigAggregateStepStrategy INSTANCE;
+
+    static {
+        INSTANCE = new BigAggregateStepStrategy();
+    }
+
+    private BigAggregateStepStrategy() {
+        // pass
+    }
+
+    @Override
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        List<ReducingBarrierStep> steps =
+                TraversalHelper.getStepsOfAssignableClass(
+                ReducingBarrierStep.class, traversal);
+        for (ReducingBarrierStep<?, ?> reducingStep : steps) {
+            AggregateFunc func = aggregateFunc(reducingStep);
+            if (func == null) {
+                continue;
+            }
+
+            // Find the values(key) step and the BigGraphStep before it
+            List<Step<?, ?>> originSteps = new ArrayList<>();
+            originSteps.add(reducingStep);
+            PropertiesStep<?> propertiesStep = null;
+            BigGraphStep<?, ? extends Element> graphStep = null;
+            Step<?, ?> step = reducingStep.getPreviousStep();
+            while (step instanceof IdentityStep ||
+                   step instanceof NoOpBarrierStep ||
+                   step instanceof PropertiesStep && propertiesStep == null) {
+                if (step instanceof PropertiesStep) {
+                    propertiesStep = (PropertiesStep<?>) step;
+                }
+                originSteps.add(step);
+                step = step.getPreviousStep();
+            }
+            if (step instanceof BigGraphStep) {
+                graphStep = (BigGraphStep<?, ? extends Element>) step;
+                originSteps.add(graphStep);
+            }
+
+            if (graphStep == null || propertiesStep == null ||
+                !graphStep.isStartStep() || graphStep.getIds() == null ||
+                graphStep.getIds().length > 0 ||
+                graphStep.queryInfo().paging() ||
+                !aggregatable(graphStep, propertiesStep) ||
+                originSteps.stream().anyMatch(s -> !s.getLabels().isEmpty())) {
+                continue;
+            }
+
+            // Replace with BigAggregateStep
+            String key = propertiesStep.getPropertyKeys()[0];
+            graphStep.queryInfo().aggregate(func, key);
+            BigAggregateStep<?> aggregateStep = new BigAggregateStep<>(
+                                                traversal, graphStep);
+            for (Step<?, ?> origin : originSteps) {
+                traversal.removeStep(origin);
+            }
+            traversal.addStep(0, aggregateStep);
+        }
+    }
+
+    private static AggregateFunc aggregateFunc(Step<?, ?> step) {
+        if (step instanceof CountGlobalStep) {
+            return AggregateFunc.COUNT;
+        } else if (step instanceof MaxGlobalStep) {
+            return AggregateFunc.MAX;
+        } else if (step instanceof MinGlobalStep) {
+            return AggregateFunc.MIN;
+        } else if (step instanceof MeanGlobalStep) {
+            return AggregateFunc.AVG;
+        } else if (step instanceof SumGlobalStep) {
+            return AggregateFunc.SUM;
+        }
+        return null;
+    }
+
+    private static boolean aggregatable(BigGraphStep<?, ?> graphStep,
+                                        PropertiesStep<?> propertiesStep) {
+        if (propertiesStep.getReturnType() != PropertyType.VALUE ||
+            propertiesStep.getPropertyKeys().length != 1) {
+            return false;
+        }
+        // Multi values would be aggregated one by one by the traversal
+        BigGraph graph = TraversalUtil.getGraph(graphStep);
+        String key = propertiesStep.getPropertyKeys()[0];
+        if (!graph.existsPropertyKey(key)) {
+            return false;
+        }
+        PropertyKey pkey = graph.propertyKey(key);
+        return pkey.cardinality() == Cardinality.SINGLE &&
+               pkey.dataType().isNumber();
+    }
+
+    @Override
+    public Set<Class<? extends ProviderOptimizationStrategy>> applyPrior() {
+        return Collections.singleton(BigGraphStepStrategy.class);
+    }
+
+    @Override
+    public Set<Class<? extends ProviderOptimizationStrategy>> applyPost() {
+        return Collections.singleton(BigVertexStepStrategy.class);
+    }
+
+    public static BigAggregateStepStrategy instance() {
+        return INSTANCE;
+    }
+}
@@ -76,6 +76,13 @@ public final class BigGraphStep<S, E extends Element>
         }
     }
 
+    protected Number aggregate() {
+        assert !this.hasIds() && this.queryInfo.aggregate() != null;
+        BigGraph graph = TraversalUtil.getGraph(this);
+        BigType type = this.returnsVertex() ? BigType.VERTEX : BigType.EDGE;
+        return graph.queryNumber(this.makeQuery(graph, type));
+    }
+
     private long verticesCount() {
         if (!this.hasIds()) {
             BigGraph graph = TraversalUtil.getGraph(this);
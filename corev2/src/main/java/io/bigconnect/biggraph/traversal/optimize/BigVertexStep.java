@@ -20,12 +20,21 @@
 
 package io.bigconnect.biggraph.traversal.optimize;
 
+import com.google.common.collect.ImmutableList;
 import io.bigconnect.biggraph.BigGraph;
+import io.bigconnect.biggraph.BigGraphException;
+import io.bigconnect.biggraph.backend.id.EdgeId;
 import io.bigconnect.biggraph.backend.id.Id;
 import io.bigconnect.biggraph.backend.query.ConditionQuery;
 import io.bigconnect.biggraph.backend.query.Query;
 import io.bigconnect.biggraph.backend.query.QueryResults;
 import io.bigconnect.biggraph.backend.tx.GraphTransaction;
+import io.bigconnect.biggraph.config.CoreOptions;
+import io.bigconnect.biggraph.iterator.BatchMapperIterator;
+import io.bigconnect.biggraph.iterator.FilterIterator;
+import io.bigconnect.biggraph.iterator.FlatMapperIterator;
+import io.bigconnect.biggraph.structure.BigEdge;
+import io.bigconnect.biggraph.type.BigType;
 import io.bigconnect.biggraph.type.define.Directions;
 import io.bigconnect.biggraph.util.Log;
 import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
@@ -33,6 +42,7 @@ import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.slf4j.Logger;
@@ -53,6 +63,17 @@ public final class BigVertexStep<E extends Element>
 
     private Iterator<E> lastTimeResults = QueryResults.emptyIterator();
 
+    // Number of traversers queried at once, see processNextStart()
+    private int batchSize = 0;
+
+    // Results of the current batch of traversers, see processNextStart()
+    private Iterator<Traverser.Admin<E>> batchResults =
+                                         QueryResults.emptyIterator();
+
+    // Vertices matching the has-containers by index, see indexedVertices()
+    private Set<Id> indexedVertices = null;
+    private boolean indexedVerticesQueried = false;
+
     public BigVertexStep(final VertexStep<E> originVertexStep) {
         super(originVertexStep.getTraversal(),
               originVertexStep.getReturnClass(),
@@ -61,6 +82,133 @@ public final class BigVertexStep<E extends Element>
         originVertexStep.getLabels().forEach(this::addLabel);
     }
 
+    @Override
+    protected Traverser.Admin<E> processNextStart() {
+        if (!this.batchable()) {
+            return super.processNextStart();
+        }
+
+        /*
+         * Query the adjacent edges of a batch of traversers at once instead
+         * of one backend query per traverser, the results are split back to
+         * the traverser that owns the source vertex
+         */
+        while (!this.batchResults.hasNext()) {
+            // Throws FastNoSuchElementException if there are no more starts
+            List<Traverser.Admin<Vertex>> traversers = new ArrayList<>();
+            traversers.add(this.starts.next());
+            int batchSize = this.batchSize();
+            while (traversers.size() < batchSize && this.starts.hasNext()) {
+                traversers.add(this.starts.next());
+            }
+            this.batchResults = this.flatMap(traversers);
+        }
+        return this.batchResults.next();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Iterator<Traverser.Admin<E>> flatMap(
+                 List<Traverser.Admin<Vertex>> traversers) {
+        // The same vertex may be reached by multiple traversers (paths)
+        Map<Id, List<Traverser.Admin<Vertex>>> owners = new LinkedHashMap<>();
+        for (Traverser.Admin<Vertex> traverser : traversers) {
+            Id vertex = (Id) traverser.get().id();
+            owners.computeIfAbsent(vertex, k -> new ArrayList<>(1))
+                  .add(traverser);
+        }
+
+        Iterator<Edge> edges = this.edges(owners.keySet());
+        this.lastTimeResults = (Iterator<E>) edges;
+
+        if (this.returnsEdge()) {
+            return new FlatMapperIterator<>(edges, edge -> {
+                EdgeId id = ((BigEdge) edge).id();
+                return this.split(owners.get(id.ownerVertexId()), (E) edge);
+            });
+        }
+
+        assert this.returnsVertex();
+        BigGraph graph = TraversalUtil.getGraph(this);
+        edges = this.filterByIndex(edges);
+        return new BatchMapperIterator<>(this.batchSize(), edges, batch -> {
+            /*
+             * The adjacent vertices are returned in the order of the edges,
+             * except the ones removed in the current transaction
+             */
+            Iterator<Vertex> adjacent = graph.adjacentVertices(batch.iterator());
+            Vertex next = adjacent.hasNext() ? adjacent.next() : null;
+
+            List<Traverser.Admin<E>> results = new ArrayList<>(batch.size());
+            for (Edge edge : batch) {
+                if (next == null) {
+                    break;
+                }
+                EdgeId id = ((BigEdge) edge).id();
+                if (!next.id().equals(id.otherVertexId())) {
+                    continue;
+                }
+                Vertex vertex = next;
+                next = adjacent.hasNext() ? adjacent.next() : null;
+                if (!this.hasContainers.isEmpty() &&
+                    !HasContainer.testAll(vertex, this.hasContainers)) {
+                    continue;
+                }
+                List<Traverser.Admin<Vertex>> sources =
+                                              owners.get(id.ownerVertexId());
+                if (sources == null) {
+                    continue;
+                }
+                for (Traverser.Admin<Vertex> source : sources) {
+                    results.add(source.split((E) vertex, this));
+                }
+            }
+            return results.iterator();
+        });
+    }
+
+    private Iterator<Traverser.Admin<E>> split(
+                 List<Traverser.Admin<Vertex>> sources, E result) {
+        if (sources == null) {
+            return null;
+        }
+        if (sources.size() == 1) {
+            return ImmutableList.of(sources.get(0).split(result, this))
+                                .iterator();
+        }
+        List<Traverser.Admin<E>> results = new ArrayList<>(sources.size());
+        for (Traverser.Admin<Vertex> source : sources) {
+            results.add(source.split(result, this));
+        }
+        return results.iterator();
+    }
+
+    private boolean batchable() {
+        /*
+         * Limit, offset, order and paging apply to the edges of each
+         * traverser, and has(id) ignores the source vertex, these can't be
+         * queried by batch
+         */
+        Query queryInfo = this.queryInfo();
+        if (!queryInfo.noLimit() || queryInfo.offset() != 0L ||
+            !queryInfo.orders().isEmpty() || queryInfo.paging()) {
+            return false;
+        }
+        for (HasContainer has : this.hasContainers) {
+            if (T.id.getAccessor().equals(has.getKey())) {
+                return false;
+            }
+        }
+        return this.batchSize() > 1;
+    }
+
+    private int batchSize() {
+        if (this.batchSize == 0) {
+            BigGraph graph = TraversalUtil.getGraph(this);
+            this.batchSize = graph.option(CoreOptions.QUERY_BATCH_SIZE);
+        }
+        return this.batchSize;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     protected Iterator<E> flatMap(final Traverser.Admin<Vertex> traverser) {
@@ -82,7 +230,7 @@ public final class BigVertexStep<E extends Element>
         BigGraph graph = TraversalUtil.getGraph(this);
         Vertex vertex = traverser.get();
 
-        Iterator<Edge> edges = this.edges(traverser);
+        Iterator<Edge> edges = this.filterByIndex(this.edges(traverser));
         Iterator<Vertex> vertices = graph.adjacentVertices(edges);
 
         if (LOG.isDebugEnabled()) {
@@ -95,11 +243,65 @@ public final class BigVertexStep<E extends Element>
             return vertices;
         }
 
-        // TODO: query by vertex index to optimize
         return TraversalUtil.filterResult(this.hasContainers, vertices);
     }
 
+    private Iterator<Edge> filterByIndex(Iterator<Edge> edges) {
+        Set<Id> indexedVertices = this.indexedVertices();
+        if (indexedVertices == null) {
+            return edges;
+        }
+        /*
+         * Skip the edges to vertices that can't match before fetching them,
+         * the fetched vertices are still filtered by the has-containers
+         * since the index may contain left entries
+         */
+        return new FilterIterator<>(edges, edge -> {
+            EdgeId id = ((BigEdge) edge).id();
+            return indexedVertices.contains(id.otherVertexId());
+        });
+    }
+
+    private Set<Id> indexedVertices() {
+        if (!this.indexedVerticesQueried) {
+            this.indexedVertices = this.queryIndexedVertices();
+            this.indexedVerticesQueried = true;
+        }
+        return this.indexedVertices;
+    }
+
+    private Set<Id> queryIndexedVertices() {
+        /*
+         * The has-containers don't depend on the source vertices, so the
+         * matched vertices are queried by index once for the step. Reading
+         * the index costs at most `limit` ids, fetching and filtering all
+         * adjacent vertices is kept if the index isn't selective enough
+         */
+        if (this.hasContainers.isEmpty()) {
+            return null;
+        }
+        BigGraph graph = TraversalUtil.getGraph(this);
+        int limit = graph.option(CoreOptions.QUERY_ADJACENT_INDEX_LIMIT);
+        if (limit == 0) {
+            return null;
+        }
+        ConditionQuery query = new ConditionQuery(BigType.VERTEX);
+        try {
+            TraversalUtil.fillConditionQuery(query, this.hasContainers, graph);
+            return graph.indexedVertexIds(query, limit);
+        } catch (BigGraphException | IllegalArgumentException e) {
+            // Like conditions that can't be queried by index
+            LOG.debug("Can't query adjacent vertices by index: {}",
+                      this.hasContainers, e);
+            return null;
+        }
+    }
+
     private Iterator<Edge> edges(Traverser.Admin<Vertex> traverser) {
+        return this.edges(ImmutableList.of((Id) traverser.get().id()));
+    }
+
+    private Iterator<Edge> edges(Collection<Id> vertices) {
         BigGraph graph = TraversalUtil.getGraph(this);
         List<HasContainer> conditions = this.hasContainers;
 
@@ -107,16 +309,15 @@ public final class BigVertexStep<E extends Element>
         boolean withEdgeCond = this.returnsEdge() && !conditions.isEmpty();
         boolean withVertexCond = this.returnsVertex() && !conditions.isEmpty();
 
-        Id vertex = (Id) traverser.get().id();
         Directions direction = Directions.convert(this.getDirection());
         Id[] edgeLabels = graph.mapElName2Id(this.getEdgeLabels());
 
-        LOG.debug("HugeVertexStep.edges(): vertex={}, direction={}, " +
+        LOG.debug("HugeVertexStep.edges(): vertices={}, direction={}, " +
                   "edgeLabels={}, has={}",
-                  vertex, direction, edgeLabels, this.hasContainers);
+                  vertices, direction, edgeLabels, this.hasContainers);
 
         ConditionQuery query = GraphTransaction.constructEdgesQuery(
-                               vertex, direction, edgeLabels);
+                               vertices, direction, edgeLabels);
         // Query by sort-keys
         if (withEdgeCond && edgeLabels.length > 0) {
             TraversalUtil.fillConditionQuery(query, conditions, graph);
@@ -166,6 +367,23 @@ public final class BigVertexStep<E extends Element>
         return edges;
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        this.batchResults = QueryResults.emptyIterator();
+        this.indexedVertices = null;
+        this.indexedVerticesQueried = false;
+    }
+
+    @Override
+    public BigVertexStep<E> clone() {
+        BigVertexStep<E> clone = (BigVertexStep<E>) super.clone();
+        clone.batchResults = QueryResults.emptyIterator();
+        clone.indexedVertices = null;
+        clone.indexedVerticesQueried = false;
+        return clone;
+    }
+
     @Override
     public String toString() {
         if (this.hasContainers.isEmpty()) {
@@ -14,6 +14,7 @@ import com.mware.ge.values.storable.Values;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 
 public class SchemaProcedures {
@@ -70,7 +71,7 @@ public class SchemaProcedures {
             prop.textIndexHints(TextIndexHint.parse((String) props.get("textIndexHints")));
 
         prop.save();
-        bcApi.getSchemaRepository().clearCache(namespace);
+        bcApi.getSchemaRepository().updateCache(namespace, Collections.emptyList(), Collections.emptyList(), Collections.singletonList(name));
     }
 
     @Procedure(name = "schema.addConceptProperty")
@@ -121,7 +122,7 @@ public class SchemaProcedures {
             prop.textIndexHints(TextIndexHint.parse((String) props.get("textIndexHints")));
 
         prop.save();
-        bcApi.getSchemaRepository().clearCache(namespace);
+        bcApi.getSchemaRepository().updateCache(namespace, Collections.emptyList(), Collections.emptyList(), Collections.singletonList(name));
     }
 
     @Procedure(name = "schema.deleteProperty")
@@ -163,7 +164,7 @@ public class SchemaProcedures {
         props.forEach((p, v) -> newConcept.property(p, Values.of(v)));
 
         newConcept.save();
-        bcApi.getSchemaRepository().clearCache(namespace);
+        bcApi.getSchemaRepository().updateCache(namespace, Collections.singletonList(conceptType), Collections.emptyList(), Collections.emptyList());
     }
 
     @Procedure(name = "schema.deleteConcept")
@@ -211,7 +212,7 @@ public class SchemaProcedures {
         props.forEach((p, v) -> newRel.property(p, Values.of(v)));
 
         newRel.save();
-        bcApi.getSchemaRepository().clearCache(namespace);
+        bcApi.getSchemaRepository().updateCache(namespace, Collections.emptyList(), Collections.singletonList(edgeLabel), Collections.emptyList());
     }
 
     @Procedure(name = "schema.deleteRelationship")
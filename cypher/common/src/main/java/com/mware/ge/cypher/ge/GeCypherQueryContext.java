@@ -716,7 +716,7 @@ public class GeCypherQueryContext {
                 .coreConcept(false)
                 .save();
 
-        schemaRepository.clearCache();
+        schemaRepository.updateCache(workspaceId, Collections.emptyList(), Collections.singletonList(edgeLabel), Collections.emptyList());
         return r;
     }
 
@@ -733,7 +733,7 @@ public class GeCypherQueryContext {
                 .property(SchemaProperties.USER_VISIBLE.getPropertyName(), BooleanValue.TRUE)
                 .save();
 
-        schemaRepository.clearCache();
+        schemaRepository.updateCache(workspaceId, Collections.singletonList(conceptType), Collections.emptyList(), Collections.emptyList());
         return c;
     }
 
@@ -759,7 +759,7 @@ public class GeCypherQueryContext {
         }
 
         SchemaProperty schemaProperty = sp.save();
-        schemaRepository.clearCache();
+        schemaRepository.updateCache(workspaceId, Collections.emptyList(), Collections.emptyList(), Collections.singletonList(propertyName));
         return schemaProperty;
     }
 
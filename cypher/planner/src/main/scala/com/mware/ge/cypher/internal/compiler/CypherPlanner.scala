@@ -116,4 +116,5 @@ case class CypherPlannerConfiguration(queryCacheSize: Int,
                                       csvBufferSize: Int,
                                       nonIndexedLabelWarningThreshold: Long,
                                       planWithMinimumCardinalityEstimates: Boolean,
-                                      lenientCreateRelationship: Boolean)
+                                      lenientCreateRelationship: Boolean,
+                                      loadCsvWorkers: Int = 1)
@@ -2,7 +2,9 @@ package com.mware.ge.cypher;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.mware.core.config.Configuration;
 import com.mware.core.config.FileConfigurationLoader;
+import com.mware.core.config.options.GraphOptions;
 import com.mware.core.lifecycle.LifeSupportService;
 import com.mware.core.model.graph.GraphRepository;
 import com.mware.core.model.role.AuthorizationRepository;
@@ -98,7 +100,8 @@ public class GeCypherExecutionEngine {
             TermMentionRepository termMentionRepository,
             WorkspaceRepository workspaceRepository,
             GraphRepository graphRepository,
-            NetworkConnectionTracker connectionTracker
+            NetworkConnectionTracker connectionTracker,
+            Configuration configuration
     ) {
         this.graph = (GraphWithSearchIndex) graph;
         this.schemaRepository = schemaRepository;
@@ -118,7 +121,7 @@ public class GeCypherExecutionEngine {
 
         procedures = setupProcedures();
         lifeSupportService.add(procedures);
-        cypherConfig = CypherConfiguration.fromConfig();
+        cypherConfig = CypherConfiguration.fromConfig(configuration.get(GraphOptions.LOAD_CSV_WORKERS));
         CacheTracer cacheTracer = new MonitoringCacheTracer(monitors.newMonitor(StringCacheMonitor.class));
         CompilationTracer tracer = new TimingCompilationTracer(monitors.newMonitor(TimingCompilationTracer.EventListener.class));
         CypherPlannerConfiguration plannerConfig = cypherConfig.toCypherPlannerConfiguration();
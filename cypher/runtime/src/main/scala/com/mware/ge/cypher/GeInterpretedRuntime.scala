@@ -64,7 +64,8 @@ object GeInterpretedRuntime extends CypherRuntime[RuntimeContext] {
       context.readOnly,
       columns,
       logicalPlan,
-      context.config.lenientCreateRelationship)
+      context.config.lenientCreateRelationship,
+      context.config.loadCsvWorkers)
 
     new GeInterpretedRuntime(periodicCommitInfo,
       resultBuilderFactory,
@@ -34,7 +34,7 @@ import scala.concurrent.duration.Duration
   * Holds all configuration options for the Neo4j Cypher execution engine, compilers and runtimes.
   */
 object CypherConfiguration {
-  def fromConfig(): CypherConfiguration = {
+  def fromConfig(loadCsvWorkers: Int): CypherConfiguration = {
     CypherConfiguration(
       CypherVersion(CypherOption.DEFAULT),
       CypherPlannerOption(CypherOption.DEFAULT),
@@ -55,7 +55,8 @@ object CypherConfiguration {
       10000,
       false,
       30000,
-      1
+      1,
+      loadCsvWorkers
     )
   }
 
@@ -92,7 +93,8 @@ case class CypherConfiguration(version: CypherVersion,
                                morselSize: Int,
                                doSchedulerTracing: Boolean,
                                waitTimeout: Int,
-                               recompilationLimit: Int) {
+                               recompilationLimit: Int,
+                               loadCsvWorkers: Int) {
 
   def toCypherRuntimeConfiguration: CypherRuntimeConfiguration =
     CypherRuntimeConfiguration(
@@ -115,6 +117,7 @@ case class CypherConfiguration(version: CypherVersion,
       csvBufferSize = csvBufferSize,
       nonIndexedLabelWarningThreshold = 10000,
       planWithMinimumCardinalityEstimates = planWithMinimumCardinalityEstimates,
-      lenientCreateRelationship = lenientCreateRelationship
+      lenientCreateRelationship = lenientCreateRelationship,
+      loadCsvWorkers = loadCsvWorkers
     )
 }
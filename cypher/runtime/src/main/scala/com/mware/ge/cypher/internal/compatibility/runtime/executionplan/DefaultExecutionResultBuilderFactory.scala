@@ -25,7 +25,7 @@ package com.mware.ge.cypher.internal.compatibility.runtime.executionplan
 import com.mware.ge.cypher.internal.compatibility.runtime._
 import com.mware.ge.cypher.internal.runtime._
 import com.mware.ge.cypher.internal.runtime.interpreted.pipes._
-import com.mware.ge.cypher.internal.runtime.interpreted.{CSVResources, ExecutionContext}
+import com.mware.ge.cypher.internal.runtime.interpreted.{CSVResources, ChunkedCSVResources, ExecutionContext}
 import com.mware.ge.cypher.internal.logical.plans.LogicalPlan
 import com.mware.ge.cypher.result.{QueryProfile, RuntimeResult}
 import com.mware.ge.values.virtual.MapValue
@@ -36,7 +36,8 @@ import scala.collection.mutable
 abstract class BaseExecutionResultBuilderFactory(pipe: Pipe,
                                                  readOnly: Boolean,
                                                  columns: List[String],
-                                                 logicalPlan: LogicalPlan) extends ExecutionResultBuilderFactory {
+                                                 logicalPlan: LogicalPlan,
+                                                 loadCsvWorkers: Int) extends ExecutionResultBuilderFactory {
   abstract class BaseExecutionWorkflowBuilder() extends ExecutionResultBuilder {
     protected var externalResource: ExternalCSVResource = new CSVResources(queryContext.resources)
     protected var pipeDecorator: PipeDecorator = NullPipeDecorator
@@ -47,6 +48,9 @@ abstract class BaseExecutionResultBuilderFactory(pipe: Pipe,
     def queryContext: QueryContext
 
     def setLoadCsvPeriodicCommitObserver(batchRowCount: Long): Unit = {
+      // periodic commits make every chunk its own transaction, so only then the chunks may be parsed out of order
+      if (loadCsvWorkers > 1)
+        externalResource = new ChunkedCSVResources(queryContext.resources, loadCsvWorkers)
       val observer = new LoadCsvPeriodicCommitObserver(batchRowCount, externalResource, queryContext)
       externalResource = observer
       exceptionDecorator = observer
@@ -77,8 +81,9 @@ case class InterpretedExecutionResultBuilderFactory(pipe: Pipe,
                                                     readOnly: Boolean,
                                                     columns: List[String],
                                                     logicalPlan: LogicalPlan,
-                                                    lenientCreateRelationship: Boolean)
-  extends BaseExecutionResultBuilderFactory(pipe, readOnly, columns, logicalPlan) {
+                                                    lenientCreateRelationship: Boolean,
+                                                    loadCsvWorkers: Int)
+  extends BaseExecutionResultBuilderFactory(pipe, readOnly, columns, logicalPlan, loadCsvWorkers) {
 
   override def create(queryContext: QueryContext): ExecutionResultBuilder = InterpretedExecutionWorkflowBuilder(queryContext: QueryContext)
 
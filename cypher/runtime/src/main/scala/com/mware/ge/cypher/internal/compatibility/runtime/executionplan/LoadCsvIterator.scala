@@ -24,6 +24,8 @@ package com.mware.ge.cypher.internal.compatibility.runtime.executionplan
 
 import java.net.URL
 
+import com.mware.ge.cypher.internal.runtime.interpreted.ChunkedCsvIterator
+
 class LoadCsvIterator(url: URL, inner: Iterator[Array[String]])(onNext: => Unit) extends Iterator[Array[String]] {
   var lastProcessed = 0L
   var lastCommitted = -1L
@@ -47,6 +49,11 @@ class LoadCsvIterator(url: URL, inner: Iterator[Array[String]])(onNext: => Unit)
     val committedAnything = lastCommitted >= 0
     s"Failure when processing URL '$url' on line $lastProcessed" +
       (if (readAll) " (which is the last row in the file). " else ". ") +
+      (inner match {
+        case chunked: ChunkedCsvIterator if chunked.chunk >= 0 =>
+          s"The line is part of chunk ${chunked.chunk}, all previous chunks have been committed. "
+        case _ => ""
+      }) +
       (if (committedAnything)
         s"Possibly the last row committed during import is line $lastCommitted. "
       else
@@ -26,6 +26,7 @@ import java.net.URL
 
 import com.mware.core.util.{BcLogger, BcLoggerFactory}
 import com.mware.ge.cypher.internal.runtime.QueryContext
+import com.mware.ge.cypher.internal.runtime.interpreted.ChunkedCsvIterator
 import com.mware.ge.cypher.internal.runtime.interpreted.pipes.ExternalCSVResource
 import com.mware.ge.cypher.internal.util.{CypherException, LoadCsvStatusWrapCypherException}
 
@@ -36,6 +37,7 @@ class LoadCsvPeriodicCommitObserver(batchRowCount: Long, resources: ExternalCSVR
 
   val updateCounter = new UpdateCounter
   var outerLoadCSVIterator: Option[LoadCsvIterator] = None
+  private var lastChunk = -1
 
   override def getCsvIterator(url: URL, fieldTerminator: Option[String], legacyCsvQuoteEscaping: Boolean, bufferSize: Int,
                               headers: Boolean = false): Iterator[Array[String]] = {
@@ -43,7 +45,7 @@ class LoadCsvPeriodicCommitObserver(batchRowCount: Long, resources: ExternalCSVR
     if (outerLoadCSVIterator.isEmpty) {
       if (headers)
         updateCounter.offsetForHeaders()
-      val iterator = new LoadCsvIterator(url, innerIterator)(onNext())
+      val iterator = new LoadCsvIterator(url, innerIterator)(onNext(innerIterator))
       outerLoadCSVIterator = Some(iterator)
       iterator
     } else {
@@ -51,7 +53,15 @@ class LoadCsvPeriodicCommitObserver(batchRowCount: Long, resources: ExternalCSVR
     }
   }
 
-  private def onNext() {
+  private def onNext(innerIterator: Iterator[Array[String]]) {
+    innerIterator match {
+      // the first row of a chunk is only read once all rows of the previous chunk went through the query
+      case chunked: ChunkedCsvIterator if chunked.chunk != lastChunk =>
+        if (lastChunk >= 0)
+          updateCounter.reset(commitAndRestartTx())
+        lastChunk = chunked.chunk
+      case _ =>
+    }
     updateCounter.resetIfPastLimit(batchRowCount)(commitAndRestartTx())
     updateCounter += 1
   }
@@ -38,6 +38,11 @@ class UpdateCounter {
     totalRows += increment
   }
 
+  def reset(f: => Unit) {
+    f
+    uncommittedRows = 0
+  }
+
   def resetIfPastLimit(limit: Long)(f: => Unit) {
     if (uncommittedRows >= limit) {
       f
@@ -44,12 +44,13 @@ object CSVResources {
   val DEFAULT_BUFFER_SIZE: Int = 2 * 1024 * 1024
   val DEFAULT_QUOTE_CHAR: Char = '"'
 
-  private def config(legacyCsvQuoteEscaping: Boolean, csvBufferSize: Int) = new Configuration {
+  private[interpreted] def config(legacyCsvQuoteEscaping: Boolean, csvBufferSize: Int,
+                                  csvMultilineFields: Boolean = true) = new Configuration {
     override def quotationCharacter(): Char = DEFAULT_QUOTE_CHAR
 
     override def bufferSize(): Int = csvBufferSize
 
-    override def multilineFields(): Boolean = true
+    override def multilineFields(): Boolean = csvMultilineFields
 
     override def emptyQuotedStringsAsNull(): Boolean = true
 
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2013-2020 "BigConnect,"
+ * MWARE SOLUTIONS SRL
+ *
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mware.ge.cypher.internal.runtime.interpreted
+
+import java.io.IOException
+import java.net.URL
+import java.nio.charset.StandardCharsets
+import java.nio.file.Paths
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent._
+
+import com.mware.ge.csv._
+import com.mware.ge.cypher.{CypherException, CypherExecutionException}
+import com.mware.ge.cypher.internal.runtime.ResourceManager
+import com.mware.ge.cypher.internal.runtime.interpreted.pipes.ExternalCSVResource
+import com.mware.ge.cypher.internal.util.LoadExternalResourceException
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * Reads local files for LOAD CSV in chunks cut at new lines, the chunks are parsed on a pool of worker threads.
+  * Rows are still returned in file order, each one tagged with the chunk it came from so that periodic commits can
+  * be aligned on chunk boundaries. Since a chunk may end inside a quoted field, fields can't span multiple lines.
+  * Files from any other location are read in order by [[CSVResources]].
+  */
+class ChunkedCSVResources(resourceManager: ResourceManager, workers: Int) extends ExternalCSVResource {
+  private val csvResources = new CSVResources(resourceManager)
+
+  override def getCsvIterator(url: URL, fieldTerminator: Option[String], legacyCsvQuoteEscaping: Boolean, bufferSize: Int,
+                              headers: Boolean = false): Iterator[Array[String]] = {
+    if (url.getProtocol != "file")
+      return csvResources.getCsvIterator(url, fieldTerminator, legacyCsvQuoteEscaping, bufferSize, headers)
+
+    val reader = try {
+      Readables.files(StandardCharsets.UTF_8, Paths.get(url.toURI).toFile)
+    } catch {
+      case e: IOException =>
+        throw new LoadExternalResourceException(s"Couldn't load the external resource at: $url", e)
+    }
+    val delimiter: Char = fieldTerminator.map(_.charAt(0)).getOrElse(CSVResources.DEFAULT_FIELD_TERMINATOR)
+    val config = CSVResources.config(legacyCsvQuoteEscaping, bufferSize, csvMultilineFields = false)
+    val iterator = new ChunkedCsvIterator(url, new ClosestNewLineChunker(reader, bufferSize), config, delimiter, workers)
+    resourceManager.trace(CSVResource(url, iterator))
+    iterator
+  }
+}
+
+object ChunkedCsvIterator {
+  private val threadCounter = new AtomicInteger()
+}
+
+/**
+  * Keeps up to twice the number of workers chunks read ahead of the consumer.
+  */
+class ChunkedCsvIterator(url: URL, chunker: Chunker, config: Configuration, delimiter: Char, workers: Int)
+  extends Iterator[Array[String]] with AutoCloseable {
+
+  private val executor: ExecutorService = Executors.newFixedThreadPool(workers, new ThreadFactory {
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, s"ge-loadCsv-${ChunkedCsvIterator.threadCounter.incrementAndGet()}")
+      thread.setDaemon(true)
+      thread
+    }
+  })
+  private val pending = new java.util.ArrayDeque[Future[Array[Array[String]]]]()
+  private var chunksRead = 0
+  private var endOfFile = false
+  private var rows: Array[Array[String]] = Array.empty
+  private var rowsIndex = -1
+  private var position = 0
+  private var currentChunk = -1
+
+  /**
+    * @return index of the chunk the row last returned by [[next]] belongs to, -1 before the first row
+    */
+  def chunk: Int = currentChunk
+
+  def hasNext: Boolean = {
+    while (position >= rows.length && nextChunk()) {}
+    position < rows.length
+  }
+
+  def next(): Array[String] = {
+    if (!hasNext) Iterator.empty.next()
+    currentChunk = rowsIndex
+    val row = rows(position)
+    position += 1
+    row
+  }
+
+  override def close(): Unit = {
+    executor.shutdownNow()
+    chunker.close()
+  }
+
+  private def nextChunk(): Boolean = {
+    readAhead()
+    if (pending.isEmpty)
+      return false
+
+    rows = try {
+      pending.poll().get()
+    } catch {
+      case e: ExecutionException => e.getCause match {
+        case cypherException: CypherException => throw cypherException
+        case cause => throw new CypherExecutionException(cause.getMessage, cause)
+      }
+      case e: InterruptedException =>
+        Thread.currentThread().interrupt()
+        throw new CypherExecutionException(s"Interrupted while reading URL '$url'", e)
+    }
+    rowsIndex += 1
+    position = 0
+    true
+  }
+
+  private def readAhead(): Unit = {
+    while (!endOfFile && pending.size() < workers * 2) {
+      val chunk = chunker.newChunk()
+      if (chunker.nextChunk(chunk)) {
+        val index = chunksRead
+        chunksRead += 1
+        pending.add(executor.submit(new Callable[Array[Array[String]]] {
+          override def call(): Array[Array[String]] = parse(chunk, index)
+        }))
+      } else {
+        endOfFile = true
+      }
+    }
+  }
+
+  private def parse(chunk: Source.Chunk, index: Int): Array[Array[String]] = {
+    val seeker = new BufferedCharSeeker(Source.singleChunk(chunk), config)
+    val extractor = new Extractors(delimiter).string()
+    val intDelimiter = delimiter.toInt
+    val mark = new Mark
+    val result = new ArrayBuffer[Array[String]]
+    val buffer = new ArrayBuffer[String]
+    try {
+      while (seeker.seek(mark, intDelimiter)) {
+        val success = seeker.tryExtract(mark, extractor)
+        buffer += (if (success) extractor.value() else null)
+        if (mark.isEndOfLine) {
+          result += buffer.toArray
+          buffer.clear()
+        }
+      }
+    } catch {
+      case e: Exception =>
+        throw new CypherExecutionException(
+          s"Failure when parsing chunk $index of URL '$url' after ${result.size} rows of the chunk: ${e.getMessage}", e)
+    } finally {
+      seeker.close()
+    }
+    if (buffer.nonEmpty)
+      result += buffer.toArray
+    result.toArray
+  }
+}
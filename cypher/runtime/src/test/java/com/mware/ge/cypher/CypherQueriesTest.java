@@ -26,7 +26,8 @@ public class CypherQueriesTest extends GraphTestBase {
                 null,
                 null,
                 null,
-                NetworkConnectionTracker.NO_OP
+                NetworkConnectionTracker.NO_OP,
+                getConfiguration()
         );
         Authorizations authorizations = getGraphAuthorizations();
 
@@ -49,7 +50,7 @@ public class CypherQueriesTest extends GraphTestBase {
                 getGraph(), getSchemaRepository(), new LifeSupportService(),
                 getUserRepository(), getAuthorizationRepository(), null, getAuditService(), new AuthTokenService(getConfiguration(), getUserRepository()),
                 null, getWorkspaceRepository(), null,
-                NetworkConnectionTracker.NO_OP
+                NetworkConnectionTracker.NO_OP, getConfiguration()
         );
         Authorizations authorizations = getGraphAuthorizations();
 
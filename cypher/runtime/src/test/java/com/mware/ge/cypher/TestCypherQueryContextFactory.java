@@ -73,7 +73,8 @@ public class TestCypherQueryContextFactory implements CypherQueryContextFactory
                 null,
                 null,
                 graphRepository,
-                NetworkConnectionTracker.NO_OP
+                NetworkConnectionTracker.NO_OP,
+                configuration
         );
     }
 
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2013-2020 "BigConnect,"
+ * MWARE SOLUTIONS SRL
+ *
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mware.ge.cypher.internal.compatibility.runtime.executionplan
+
+import java.io.File
+import java.net.URL
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+
+import com.mware.ge.cypher.internal.runtime.{QueryContext, ResourceManager}
+import com.mware.ge.cypher.internal.runtime.interpreted.pipes.ExternalCSVResource
+import com.mware.ge.cypher.internal.runtime.interpreted.{ChunkedCSVResources, ChunkedCsvIterator}
+import com.mware.ge.cypher.internal.util.test_helpers.CypherFunSuite
+import org.mockito.Mockito._
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+
+import scala.collection.mutable.ArrayBuffer
+
+class LoadCsvPeriodicCommitObserverTest extends CypherFunSuite {
+  private var resourceManager: ResourceManager = _
+  private var file: File = _
+  private var queryContext: QueryContext = _
+  private var rowsRead = 0
+  private val commits = new ArrayBuffer[Int]
+
+  override protected def beforeEach(): Unit = {
+    super.beforeEach()
+    resourceManager = new ResourceManager
+    file = File.createTempFile("periodic", ".csv")
+    queryContext = mock[QueryContext]
+    rowsRead = 0
+    commits.clear()
+    doAnswer(new Answer[Unit] {
+      override def answer(invocation: InvocationOnMock): Unit = commits += rowsRead
+    }).when(queryContext).commit
+  }
+
+  override protected def afterEach(): Unit = {
+    resourceManager.close(success = true)
+    file.delete()
+    super.afterEach()
+  }
+
+  test("commits every batch of rows of an unchunked file") {
+    val resources = mock[ExternalCSVResource]
+    when(resources.getCsvIterator(url, None, legacyCsvQuoteEscaping = false, 1024, headers = false))
+      .thenReturn((1 to 10).map(i => Array(i.toString)).iterator)
+
+    readAll(new LoadCsvPeriodicCommitObserver(3, resources, queryContext), bufferSize = 1024)
+
+    // a commit is made before the row that would exceed the batch is handed to the query
+    commits should equal(Seq(3, 6, 9))
+  }
+
+  test("commits when the first row of every following chunk is read") {
+    writeRows(200)
+    val chunks = chunkOfEachRow(bufferSize = 64)
+
+    readAll(new LoadCsvPeriodicCommitObserver(1000, new ChunkedCSVResources(resourceManager, 4), queryContext),
+      bufferSize = 64)
+
+    val chunkStarts = chunks.indices.filter(i => i > 0 && chunks(i) != chunks(i - 1))
+    chunkStarts should not be empty
+    commits should equal(chunkStarts)
+  }
+
+  test("still commits batches within a chunk") {
+    writeRows(200)
+    val chunks = chunkOfEachRow(bufferSize = 64)
+    val batchSize = 3
+
+    readAll(new LoadCsvPeriodicCommitObserver(batchSize, new ChunkedCSVResources(resourceManager, 4), queryContext),
+      bufferSize = 64)
+
+    val expected = new ArrayBuffer[Int]
+    var uncommitted = 0
+    for (i <- chunks.indices) {
+      if (i > 0 && chunks(i) != chunks(i - 1)) {
+        expected += i
+        uncommitted = 0
+      }
+      if (uncommitted >= batchSize) {
+        expected += i
+        uncommitted = 0
+      }
+      uncommitted += 1
+    }
+    commits should equal(expected)
+    commits.size should be > chunks.last
+  }
+
+  private def url: URL = file.toURI.toURL
+
+  private def writeRows(count: Int): Unit = {
+    val data = (0 until count).map(i => s"$i,${"v" * (i % 11)}").mkString("", "\n", "\n")
+    Files.write(file.toPath, data.getBytes(StandardCharsets.UTF_8))
+  }
+
+  private def chunkOfEachRow(bufferSize: Int): IndexedSeq[Int] = {
+    val iterator = new ChunkedCSVResources(resourceManager, 1)
+      .getCsvIterator(url, None, legacyCsvQuoteEscaping = false, bufferSize)
+      .asInstanceOf[ChunkedCsvIterator]
+    iterator.map(_ => iterator.chunk).toIndexedSeq
+  }
+
+  private def readAll(observer: LoadCsvPeriodicCommitObserver, bufferSize: Int): Unit = {
+    val iterator = observer.getCsvIterator(url, None, legacyCsvQuoteEscaping = false, bufferSize)
+    while (iterator.hasNext) {
+      iterator.next()
+      rowsRead += 1
+    }
+  }
+}
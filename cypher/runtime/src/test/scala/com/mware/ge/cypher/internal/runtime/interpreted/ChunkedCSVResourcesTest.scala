@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2013-2020 "BigConnect,"
+ * MWARE SOLUTIONS SRL
+ *
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mware.ge.cypher.internal.runtime.interpreted
+
+import java.io.File
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+
+import com.mware.ge.cypher.internal.runtime.ResourceManager
+import com.mware.ge.cypher.internal.util.test_helpers.CypherFunSuite
+
+class ChunkedCSVResourcesTest extends CypherFunSuite {
+  private var resourceManager: ResourceManager = _
+  private var file: File = _
+
+  override protected def beforeEach(): Unit = {
+    super.beforeEach()
+    resourceManager = new ResourceManager
+    file = File.createTempFile("chunked", ".csv")
+  }
+
+  override protected def afterEach(): Unit = {
+    resourceManager.close(success = true)
+    file.delete()
+    super.afterEach()
+  }
+
+  test("returns the rows of all chunks in file order") {
+    val lines = (0 until 1000).map(i => s"$i,name-$i")
+    write(lines.mkString("\n") + "\n")
+
+    val iterator = chunkedIterator(bufferSize = 64, workers = 4)
+    val rows = iterator.toList
+
+    rows.map(_.toList) should equal(lines.map(_.split(",").toList).toList)
+    iterator.chunk should be > 0
+  }
+
+  test("never splits a row across chunk boundaries") {
+    // rows of different lengths so that the chunk ends land at different offsets within a row
+    val lines = (0 until 500).map(i => s"$i,${"x" * (i % 17)},end")
+    write(lines.mkString("\n") + "\n")
+
+    val iterator = chunkedIterator(bufferSize = 50, workers = 3)
+    var chunks = List.empty[Int]
+    val rows = iterator.map { row =>
+      chunks = iterator.chunk :: chunks
+      row.toList
+    }.toList
+
+    rows should equal(lines.map(line => line.split(",", -1).toList.map(v => if (v.isEmpty) null else v)).toList)
+    chunks.reverse should equal(chunks.sorted)
+    chunks.head should be > 0
+  }
+
+  test("returns the last row when the file doesn't end with a new line") {
+    write("a,1\nb,2\nc,3")
+
+    chunkedIterator(bufferSize = 8, workers = 2).map(_.toList).toList should equal(
+      List(List("a", "1"), List("b", "2"), List("c", "3")))
+  }
+
+  test("reports the chunk of the row last returned") {
+    write("a,1\nb,2\nc,3\nd,4\n")
+
+    val iterator = chunkedIterator(bufferSize = 8, workers = 2)
+    iterator.chunk should equal(-1)
+    iterator.next()
+    iterator.chunk should equal(0)
+    iterator.next()
+    iterator.chunk should equal(0)
+    iterator.next()
+    iterator.chunk should equal(1)
+  }
+
+  private def write(data: String): Unit = Files.write(file.toPath, data.getBytes(StandardCharsets.UTF_8))
+
+  private def chunkedIterator(bufferSize: Int, workers: Int): ChunkedCsvIterator =
+    new ChunkedCSVResources(resourceManager, workers)
+      .getCsvIterator(file.toURI.toURL, None, legacyCsvQuoteEscaping = false, bufferSize)
+      .asInstanceOf[ChunkedCsvIterator]
+}
@@ -108,6 +108,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
@@ -158,11 +159,14 @@ public class Elasticsearch5SearchIndex implements SearchIndex, SearchIndexWithVe
     private final Double geoShapeErrorPct;
     private final IdStrategy idStrategy = new IdStrategy();
     private final IndexRefreshTracker indexRefreshTracker;
+    private final IndexRefreshScheduler indexRefreshScheduler;
+    private final AtomicReference<IndexRefreshToken> lastFlushRefreshToken = new AtomicReference<>(IndexRefreshToken.COMPLETED);
 
     private final Elasticsearch5ExceptionHandler exceptionHandler;
     private final boolean refreshIndexOnFlush;
     private boolean bulkIngestEnabled = false;
     private final ExecutorService executorService;
+    private final ExecutorService queryExecutorService;
     private Sidecar sidecar;
 
     public Elasticsearch5SearchIndex(Graph graph, GraphConfiguration config) {
@@ -176,9 +180,13 @@ public class Elasticsearch5SearchIndex implements SearchIndex, SearchIndexWithVe
         this.geoShapeErrorPct = this.config.getGeoShapeErrorPct();
         this.exceptionHandler = this.config.getExceptionHandler(graph);
         this.refreshIndexOnFlush = this.config.getRefreshIndexOnFlush();
+        this.indexRefreshScheduler = this.refreshIndexOnFlush && this.config.getRefreshCoalesce()
+                ? new IndexRefreshScheduler(indexRefreshTracker, client, this.config.getRefreshCoalesceInterval(), graph.getMetricsRegistry())
+                : null;
         BulkUpdateServiceConfiguration bulkUpdateServiceConfiguration = new BulkUpdateServiceConfiguration()
                 .setPoolSize(this.config.getBulkPoolSize())
                 .setBacklogSize(this.config.getBulkBacklogSize())
+                .setShards(this.config.getBulkShards())
                 .setBulkRequestTimeout(this.config.getBulkRequestTimeout())
                 .setMaxBatchSize(this.config.getBulkMaxBatchSize())
                 .setMaxBatchSizeInBytes(this.config.getBulkMaxBatchSizeInBytes())
@@ -187,6 +195,12 @@ public class Elasticsearch5SearchIndex implements SearchIndex, SearchIndexWithVe
                 .setLogRequestSizeLimit(this.config.getLogRequestSizeLimit());
         this.bulkUpdateService = new BulkUpdateService(this, indexRefreshTracker, bulkUpdateServiceConfiguration);
         this.executorService = Executors.newFixedThreadPool(50);
+        this.queryExecutorService = Executors.newFixedThreadPool(this.config.getQueryHydrationThreads(), r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("ge-es-query-" + thread.getId());
+            return thread;
+        });
 
         setupMaxOpenScrollContextsIfNeeded();
         storePainlessScript("updateFieldsOnDocumentScript", "update-fields-on-document.painless");
@@ -1619,7 +1633,11 @@ public class Elasticsearch5SearchIndex implements SearchIndex, SearchIndexWithVe
                         .setPageSize(getConfig().getQueryPageSize())
                         .setPagingLimit(getConfig().getPagingLimit())
                         .setScrollKeepAlive(getConfig().getScrollKeepAlive())
-                        .setTermAggregationShardSize(getConfig().getTermAggregationShardSize()),
+                        .setTermAggregationShardSize(getConfig().getTermAggregationShardSize())
+                        .setPrefetchDepth(getConfig().getQueryPrefetchDepth())
+                        .setHydrationExecutor(queryExecutorService)
+                        .setHydrationBatchSize(getConfig().getQueryHydrationBatchSize())
+                        .setHydrationBatchProperties(getConfig().getQueryHydrationBatchProperties()),
                 authorizations
         );
     }
@@ -1636,7 +1654,11 @@ public class Elasticsearch5SearchIndex implements SearchIndex, SearchIndexWithVe
                         .setPageSize(getConfig().getQueryPageSize())
                         .setPagingLimit(getConfig().getPagingLimit())
                         .setScrollKeepAlive(getConfig().getScrollKeepAlive())
-                        .setTermAggregationShardSize(getConfig().getTermAggregationShardSize()),
+                        .setTermAggregationShardSize(getConfig().getTermAggregationShardSize())
+                        .setPrefetchDepth(getConfig().getQueryPrefetchDepth())
+                        .setHydrationExecutor(queryExecutorService)
+                        .setHydrationBatchSize(getConfig().getQueryHydrationBatchSize())
+                        .setHydrationBatchProperties(getConfig().getQueryHydrationBatchProperties()),
                 authorizations
         );
     }
@@ -1654,7 +1676,11 @@ public class Elasticsearch5SearchIndex implements SearchIndex, SearchIndexWithVe
                         .setPageSize(getConfig().getQueryPageSize())
                         .setPagingLimit(getConfig().getPagingLimit())
                         .setScrollKeepAlive(getConfig().getScrollKeepAlive())
-                        .setTermAggregationShardSize(getConfig().getTermAggregationShardSize()),
+                        .setTermAggregationShardSize(getConfig().getTermAggregationShardSize())
+                        .setPrefetchDepth(getConfig().getQueryPrefetchDepth())
+                        .setHydrationExecutor(queryExecutorService)
+                        .setHydrationBatchSize(getConfig().getQueryHydrationBatchSize())
+                        .setHydrationBatchProperties(getConfig().getQueryHydrationBatchProperties()),
                 authorizations
         );
     }
@@ -2012,18 +2038,39 @@ public class Elasticsearch5SearchIndex implements SearchIndex, SearchIndexWithVe
 
     @Override
     public void flush(Graph graph) {
-        Runnable r = () -> {
-            bulkUpdateService.flush();
-
-            if (shouldRefreshIndexOnFlush()) {
-                indexRefreshTracker.refresh(client);
-            }
-        };
-
         if (bulkIngestEnabled) {
-            executorService.submit(r);
+            executorService.submit(() -> flushAndRequestRefresh());
         } else {
-            r.run();
+            IndexRefreshToken token = flushAndRequestRefresh();
+            // flushes of other threads may race with this one, keep waiting for all of them
+            lastFlushRefreshToken.accumulateAndGet(token, IndexRefreshToken::and);
+        }
+    }
+
+    /**
+     * Flushes all pending index updates and returns a token that completes once they are visible to queries.
+     */
+    public IndexRefreshToken flushAndRequestRefresh() {
+        bulkUpdateService.flush();
+
+        if (!shouldRefreshIndexOnFlush()) {
+            return IndexRefreshToken.COMPLETED;
+        }
+        if (indexRefreshScheduler == null) {
+            indexRefreshTracker.refresh(client);
+            return IndexRefreshToken.COMPLETED;
+        }
+        return indexRefreshScheduler.requestRefresh();
+    }
+
+    /**
+     * Waits for the refresh requested by the latest flush of this search index, whichever thread made it, so that
+     * a query issued after flush() returned sees the flushed writes like it did when flush() refreshed inline.
+     */
+    void awaitLastFlushRefresh() {
+        IndexRefreshToken token = lastFlushRefreshToken.get();
+        if (!token.isDone()) {
+            token.await();
         }
     }
 
@@ -2120,6 +2167,10 @@ public class Elasticsearch5SearchIndex implements SearchIndex, SearchIndexWithVe
     @Override
     public void shutdown() {
         bulkUpdateService.shutdown();
+        if (indexRefreshScheduler != null) {
+            indexRefreshScheduler.shutdown();
+        }
+        queryExecutorService.shutdownNow();
 
         try {
             executorService.shutdown();
@@ -137,6 +137,40 @@ public class ElasticsearchOptions extends OptionHolder {
             "5m"
     );
 
+    public static final ConfigOption<Integer> QUERY_PREFETCH_DEPTH = new ConfigOption<>(
+            "graph.search.queryPrefetchDepth",
+            "Number of result pages and hydration batches to fetch ahead of the consumer. 0 disables prefetching",
+            nonNegativeInt(),
+            Integer.class,
+            2
+    );
+
+    public static final ConfigOption<Integer> QUERY_HYDRATION_THREADS = new ConfigOption<>(
+            "graph.search.queryHydrationThreads",
+            "Number of threads used to prefetch result pages and load the matching elements from the graph",
+            positiveInt(),
+            Integer.class,
+            Runtime.getRuntime().availableProcessors()
+    );
+
+    public static final ConfigOption<Integer> QUERY_HYDRATION_BATCH_SIZE = new ConfigOption<>(
+            "graph.search.queryHydrationBatchSize",
+            "Maximum number of search hits loaded from the graph in a single batch",
+            positiveInt(),
+            Integer.class,
+            1000
+    );
+
+    public static final ConfigOption<Integer> QUERY_HYDRATION_BATCH_PROPERTIES = new ConfigOption<>(
+            "graph.search.queryHydrationBatchProperties",
+            "Target number of properties loaded from the graph in a single batch. " +
+                    "The hydration batch size shrinks for elements with many properties and grows back up to " +
+                    "graph.search.queryHydrationBatchSize for small elements",
+            positiveInt(),
+            Integer.class,
+            50000
+    );
+
     public static final ConfigOption<Integer> MAX_QUERY_STRING_TERMS = new ConfigOption<>(
             "graph.search.maxQueryStringTerms",
             "Maximum number of query terms. Elasticsearch defaults to 1024. " +
@@ -195,6 +229,14 @@ public class ElasticsearchOptions extends OptionHolder {
             10
     );
 
+    public static final ConfigOption<Integer> BULK_SHARDS = new ConfigOption<>(
+            "graph.search.bulk.shards",
+            "Number of independent queues bulk items are hashed to by document id, each sending one bulk request at a time",
+            positiveInt(),
+            Integer.class,
+            8
+    );
+
     public static final ConfigOption<Integer> BULK_BACKLOG_SIZE = new ConfigOption<>(
             "graph.search.bulk.backlogSize",
             "",
@@ -251,6 +293,23 @@ public class ElasticsearchOptions extends OptionHolder {
             true
     );
 
+    public static final ConfigOption<Boolean> REFRESH_COALESCE = new ConfigOption<>(
+            "graph.search.refreshCoalesce",
+            "Coalesce the index refreshes requested by concurrent flushes into at most one refresh per interval. " +
+                    "Queries wait for the refresh requested by the last flush of the same thread",
+            disallowEmpty(),
+            Boolean.class,
+            true
+    );
+
+    public static final ConfigOption<Duration> REFRESH_COALESCE_INTERVAL = new ConfigOption<>(
+            "graph.search.refreshCoalesceInterval",
+            "Minimum time between two coalesced index refreshes",
+            disallowEmpty(),
+            Duration.class,
+            Duration.ofMillis(100)
+    );
+
     public static final ConfigOption<Integer> LOG_REQUEST_SIZE_LIMIT = new ConfigOption<>(
             "graph.search.logRequestSizeLimit",
             "Log requests that exceed the given size in bytes",
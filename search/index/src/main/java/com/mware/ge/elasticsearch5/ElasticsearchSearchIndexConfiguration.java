@@ -127,6 +127,22 @@ public class ElasticsearchSearchIndexConfiguration {
         return configuration.get(ElasticsearchOptions.QUERY_PAGING_LIMIT);
     }
 
+    public int getQueryPrefetchDepth() {
+        return configuration.get(ElasticsearchOptions.QUERY_PREFETCH_DEPTH);
+    }
+
+    public int getQueryHydrationThreads() {
+        return configuration.get(ElasticsearchOptions.QUERY_HYDRATION_THREADS);
+    }
+
+    public int getQueryHydrationBatchSize() {
+        return configuration.get(ElasticsearchOptions.QUERY_HYDRATION_BATCH_SIZE);
+    }
+
+    public int getQueryHydrationBatchProperties() {
+        return configuration.get(ElasticsearchOptions.QUERY_HYDRATION_BATCH_PROPERTIES);
+    }
+
     public TimeValue getScrollKeepAlive() {
         String value = configuration.get(ElasticsearchOptions.QUERY_SCROLL_KEEP_ALIVE);
         return TimeValue.parseTimeValue(value, null, "");
@@ -199,6 +215,10 @@ public class ElasticsearchSearchIndexConfiguration {
         return configuration.get(ElasticsearchOptions.BULK_POOL_SIZE);
     }
 
+    public int getBulkShards() {
+        return configuration.get(ElasticsearchOptions.BULK_SHARDS);
+    }
+
     public int getBulkBacklogSize() {
         return configuration.get(ElasticsearchOptions.BULK_BACKLOG_SIZE);
     }
@@ -227,6 +247,14 @@ public class ElasticsearchSearchIndexConfiguration {
         return configuration.get(ElasticsearchOptions.REFRESH_INDEX_ON_FLUSH);
     }
 
+    public boolean getRefreshCoalesce() {
+        return configuration.get(ElasticsearchOptions.REFRESH_COALESCE);
+    }
+
+    public Duration getRefreshCoalesceInterval() {
+        return configuration.get(ElasticsearchOptions.REFRESH_COALESCE_INTERVAL);
+    }
+
     public boolean sidecarEnabled() {
         return configuration.get(ElasticsearchOptions.SIDECAR_ENABLED);
     }
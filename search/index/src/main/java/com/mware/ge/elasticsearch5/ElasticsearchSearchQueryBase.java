@@ -39,9 +39,9 @@ package com.mware.ge.elasticsearch5;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 import com.mware.ge.*;
 import com.mware.ge.elasticsearch5.sorting.ElasticsearchSortingStrategy;
+import com.mware.ge.elasticsearch5.utils.AdaptiveBatchSize;
 import com.mware.ge.elasticsearch5.utils.ElasticsearchTypes;
 import com.mware.ge.elasticsearch5.utils.InfiniteScrollIterable;
 import com.mware.ge.elasticsearch5.utils.PagingIterable;
@@ -94,13 +94,13 @@ import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static com.mware.ge.elasticsearch5.Elasticsearch5SearchIndex.*;
 import static com.mware.ge.elasticsearch5.utils.SearchResponseUtils.checkForFailures;
-import static com.mware.ge.util.StreamUtils.stream;
 
 public class ElasticsearchSearchQueryBase extends QueryBase {
     private static final GeLogger LOGGER = GeLoggerFactory.getLogger(ElasticsearchSearchQueryBase.class);
@@ -117,6 +117,9 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
     private final int pagingLimit;
     private final TimeValue scrollKeepAlive;
     private final int termAggregationShardSize;
+    private final int prefetchDepth;
+    private final ExecutorService hydrationExecutor;
+    private final AdaptiveBatchSize hydrationBatchSize;
 
     public ElasticsearchSearchQueryBase(
             Client client,
@@ -133,6 +136,9 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
         this.pagingLimit = options.pagingLimit;
         this.analyzer = options.analyzer;
         this.termAggregationShardSize = options.termAggregationShardSize;
+        this.prefetchDepth = options.prefetchDepth;
+        this.hydrationExecutor = options.hydrationExecutor;
+        this.hydrationBatchSize = new AdaptiveBatchSize(options.hydrationBatchSize, options.hydrationBatchProperties);
     }
 
     private SearchRequestBuilder buildQuery(EnumSet<ElasticsearchDocumentType> elementTypes, FetchHints fetchHints, boolean includeAggregations) {
@@ -154,6 +160,8 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
 
         if (getSearchIndex().shouldRefreshIndexOnQuery()) {
             getSearchIndex().getIndexRefreshTracker().refresh(client, indicesToQuery);
+        } else {
+            getSearchIndex().awaitLastFlushRefresh();
         }
 
         QueryBuilder query = new GeQueryBuilderTransformer(getSearchIndex(), getGraph(), getAuthorizations(), queryBuilder, analyzer)
@@ -399,7 +407,7 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
     }
 
     private QueryResultsIterable<? extends GeObject> searchScroll(EnumSet<GeObjectType> objectTypes, FetchHints fetchHints) {
-        return new QueryInfiniteScrollIterable<GeObject>(objectTypes, fetchHints, getBuilder().getLimit()) {
+        return new QueryInfiniteScrollIterable<GeObject>(objectTypes, fetchHints, getBuilder().getLimit(), getPrefetchExecutor()) {
             @Override
             protected ElasticsearchGraphQueryIterable<GeObject> searchResponseToIterable(SearchResponse searchResponse) {
                 return ElasticsearchSearchQueryBase.this.searchResponseToGeObjectIterable(searchResponse, fetchHints);
@@ -429,7 +437,7 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
     }
 
     private QueryResultsIterable<? extends GeObject> searchPaged(EnumSet<GeObjectType> objectTypes, FetchHints fetchHints) {
-        return new PagingIterable<GeObject>(queryBuilder.getSkip(), queryBuilder.getLimit(), pageSize) {
+        return new PagingIterable<GeObject>(queryBuilder.getSkip(), queryBuilder.getLimit(), pageSize, getPrefetchExecutor()) {
             @Override
             protected ElasticsearchGraphQueryIterable<GeObject> getPageIterable(int skip, int limit, boolean includeAggregations) {
                 SearchResponse response;
@@ -462,35 +470,62 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
 
         // since ES doesn't support security we will rely on the graph to provide edge filtering
         // and rely on the DefaultGraphQueryIterable to provide property filtering
-        GeQueryBuilder filterParameters = getBuilder().clone();
-        filterParameters.skip(0); // ES already did a skip
-        List<Iterable<? extends GeObject>> items = new ArrayList<>();
         Authorizations authorizations = getAuthorizations();
-        if (ids.getVertexIds().size() > 0) {
+        boolean loadFromGraph = !fetchHints.equals(FetchHints.NONE);
+        Iterable<GeObject> geObjects = new PipelinedHydrationIterable(
+                ids.getHitIds(),
+                batch -> hydrate(batch, fetchHints, authorizations),
+                loadFromGraph ? getPrefetchExecutor() : null,
+                hydrationBatchSize,
+                prefetchDepth,
+                loadFromGraph && fetchHints.isIncludeProperties()
+        );
+
+        // TODO instead of passing false here to not evaluate the query string it would be better to support the Lucene query
+        return createIterable(response, geObjects, response.getTook().getMillis(), hits);
+    }
+
+    private Iterable<? extends GeObject> hydrate(List<PipelinedHydrationIterable.HitId> hitIds, FetchHints fetchHints, Authorizations authorizations) {
+        List<SearchHit> vertexHits = new ArrayList<>();
+        List<String> vertexIds = new ArrayList<>();
+        List<SearchHit> edgeHits = new ArrayList<>();
+        List<String> edgeIds = new ArrayList<>();
+        List<ExtendedDataRowId> extendedDataIds = new ArrayList<>();
+        for (PipelinedHydrationIterable.HitId hitId : hitIds) {
+            switch (hitId.getDocumentType()) {
+                case VERTEX:
+                    vertexHits.add(hitId.getSearchHit());
+                    vertexIds.add(hitId.getId());
+                    break;
+                case EDGE:
+                    edgeHits.add(hitId.getSearchHit());
+                    edgeIds.add(hitId.getId());
+                    break;
+                default:
+                    extendedDataIds.add(hitId.getExtendedDataRowId());
+                    break;
+            }
+        }
+
+        List<Iterable<? extends GeObject>> items = new ArrayList<>();
+        if (vertexIds.size() > 0) {
             if (fetchHints.equals(FetchHints.NONE)) {
-                items.add(getElasticsearchVertices(hits, fetchHints, authorizations));
+                items.add(getElasticsearchVertices(vertexHits, fetchHints, authorizations));
             } else {
-                Iterable<? extends GeObject> vertices = getGraph().getVertices(ids.getVertexIds(), fetchHints, authorizations);
-                items.add(vertices);
+                items.add(getGraph().getVertices(vertexIds, fetchHints, authorizations));
             }
         }
-        if (ids.getEdgeIds().size() > 0) {
+        if (edgeIds.size() > 0) {
             if (fetchHints.equals(FetchHints.NONE)) {
-                items.add(getElasticsearchEdges(hits, fetchHints, authorizations));
+                items.add(getElasticsearchEdges(edgeHits, fetchHints, authorizations));
             } else {
-                Iterable<? extends GeObject> edges = getGraph().getEdges(ids.getEdgeIds(), fetchHints, authorizations);
-                items.add(edges);
+                items.add(getGraph().getEdges(edgeIds, fetchHints, authorizations));
             }
         }
-        if (ids.getExtendedDataIds().size() > 0) {
-            Iterable<? extends GeObject> extendedDataRows = getGraph().getExtendedData(ids.getExtendedDataIds(), fetchHints, authorizations);
-            items.add(extendedDataRows);
+        if (extendedDataIds.size() > 0) {
+            items.add(getGraph().getExtendedData(extendedDataIds, fetchHints, authorizations));
         }
-        Iterable<GeObject> geObjects = new JoinIterable<>(items);
-        List<GeObject> sortedGeObjects = sortGeObjectsByResultOrder(geObjects, ids.getIds());
-
-        // TODO instead of passing false here to not evaluate the query string it would be better to support the Lucene query
-        return createIterable(response, sortedGeObjects, response.getTook().getMillis(), hits);
+        return new JoinIterable<>(items);
     }
 
     private QueryResultsIterable<SearchHit> searchHits(EnumSet<GeObjectType> objectTypes, FetchHints fetchHints) {
@@ -501,7 +536,7 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
     }
 
     private QueryInfiniteScrollIterable<SearchHit> searchScrollHits(EnumSet<GeObjectType> objectTypes, FetchHints fetchHints) {
-        return new QueryInfiniteScrollIterable<SearchHit>(objectTypes, fetchHints, getBuilder().getLimit()) {
+        return new QueryInfiniteScrollIterable<SearchHit>(objectTypes, fetchHints, getBuilder().getLimit(), getPrefetchExecutor()) {
             @Override
             protected ElasticsearchGraphQueryIterable<SearchHit> searchResponseToIterable(SearchResponse searchResponse) {
                 return ElasticsearchSearchQueryBase.this.searchResponseToSearchHitsIterable(searchResponse);
@@ -515,7 +550,7 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
     }
 
     private PagingIterable<SearchHit> searchPagedHits(EnumSet<GeObjectType> objectTypes, FetchHints fetchHints) {
-        return new PagingIterable<SearchHit>(getBuilder().getSkip(), getBuilder().getLimit(), pageSize) {
+        return new PagingIterable<SearchHit>(getBuilder().getSkip(), getBuilder().getLimit(), pageSize, getPrefetchExecutor()) {
             @Override
             protected ElasticsearchGraphQueryIterable<SearchHit> getPageIterable(int skip, int limit, boolean includeAggregations) {
                 SearchResponse response;
@@ -540,8 +575,8 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
         return createIterable(response, hitsIterable, response.getTook().getMillis(), hits);
     }
 
-    private List<ElasticsearchVertex> getElasticsearchVertices(SearchHits hits, FetchHints fetchHints, Authorizations authorizations) {
-        return stream(hits)
+    private List<ElasticsearchVertex> getElasticsearchVertices(List<SearchHit> hits, FetchHints fetchHints, Authorizations authorizations) {
+        return hits.stream()
                 .map(hit -> {
                     String elementId = hit.getFields().get(Elasticsearch5SearchIndex.ELEMENT_ID_FIELD_NAME).getValue();
                     String conceptType = hit.getFields().get(Elasticsearch5SearchIndex.CONCEPT_TYPE_FIELD_NAME).getValue();
@@ -555,8 +590,8 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
                 }).collect(Collectors.toList());
     }
 
-    private List<ElasticsearchEdge> getElasticsearchEdges(SearchHits hits, FetchHints fetchHints, Authorizations authorizations) {
-        return stream(hits)
+    private List<ElasticsearchEdge> getElasticsearchEdges(List<SearchHit> hits, FetchHints fetchHints, Authorizations authorizations) {
+        return hits.stream()
                 .map(hit -> {
                     String inVertexId = hit.getFields().get(Elasticsearch5SearchIndex.IN_VERTEX_ID_FIELD_NAME).getValue();
                     String outVertexId = hit.getFields().get(Elasticsearch5SearchIndex.OUT_VERTEX_ID_FIELD_NAME).getValue();
@@ -598,27 +633,6 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
         return new ElasticsearchGraphQueryIdIterable<>(getIdStrategy(), searchHits(GeObjectType.ELEMENTS, fetchHints));
     }
 
-    private <T extends GeObject> List<T> sortGeObjectsByResultOrder(Iterable<T> geObjects, List<String> ids) {
-        ImmutableMap<String, T> itemMap = Maps.uniqueIndex(geObjects, geObject -> {
-            if (geObject instanceof Element) {
-                return ((Element) geObject).getId();
-            } else if (geObject instanceof ExtendedDataRow) {
-                return ((ExtendedDataRow) geObject).getId().toString();
-            } else {
-                throw new GeException("Unhandled searchable item type: " + geObject.getClass().getName());
-            }
-        });
-
-        List<T> results = new ArrayList<>();
-        for (String id : ids) {
-            T item = itemMap.get(id);
-            if (item != null) {
-                results.add(item);
-            }
-        }
-        return results;
-    }
-
     private <T> EmptyElasticsearchGraphQueryIterable<T> createEmptyIterable() {
         return new EmptyElasticsearchGraphQueryIterable<>(ElasticsearchSearchQueryBase.this);
     }
@@ -1274,6 +1288,10 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
         return getSearchIndex().getIdStrategy();
     }
 
+    private ExecutorService getPrefetchExecutor() {
+        return prefetchDepth > 0 ? hydrationExecutor : null;
+    }
+
     @Override
     protected FetchHints idFetchHintsToElementFetchHints(EnumSet<IdFetchHint> idFetchHints) {
         return idFetchHints.contains(IdFetchHint.INCLUDE_HIDDEN)
@@ -1299,8 +1317,8 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
         private final EnumSet<GeObjectType> objectTypes;
         private final FetchHints fetchHints;
 
-        public QueryInfiniteScrollIterable(EnumSet<GeObjectType> objectTypes, FetchHints fetchHints, Long limit) {
-            super(limit);
+        public QueryInfiniteScrollIterable(EnumSet<GeObjectType> objectTypes, FetchHints fetchHints, Long limit, ExecutorService prefetchExecutor) {
+            super(limit, prefetchExecutor);
             this.objectTypes = objectTypes;
             this.fetchHints = fetchHints;
         }
@@ -1363,12 +1381,14 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
         private final List<String> edgeIds;
         private final List<String> ids;
         private final List<ExtendedDataRowId> extendedDataIds;
+        private final List<PipelinedHydrationIterable.HitId> hitIds;
 
         public Ids(IdStrategy idStrategy, SearchHits hits) {
             vertexIds = new ArrayList<>();
             edgeIds = new ArrayList<>();
             extendedDataIds = new ArrayList<>();
             ids = new ArrayList<>();
+            hitIds = new ArrayList<>();
             for (SearchHit hit : hits) {
                 ElasticsearchDocumentType dt = ElasticsearchDocumentType.fromSearchHit(hit);
                 if (dt == null) {
@@ -1379,17 +1399,20 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
                         String vertexId = idStrategy.vertexIdFromSearchHit(hit);
                         ids.add(vertexId);
                         vertexIds.add(vertexId);
+                        hitIds.add(new PipelinedHydrationIterable.HitId(dt, vertexId, null, hit));
                         break;
                     case EDGE:
                         String edgeId = idStrategy.edgeIdFromSearchHit(hit);
                         ids.add(edgeId);
                         edgeIds.add(edgeId);
+                        hitIds.add(new PipelinedHydrationIterable.HitId(dt, edgeId, null, hit));
                         break;
                     case VERTEX_EXTENDED_DATA:
                     case EDGE_EXTENDED_DATA:
                         ExtendedDataRowId extendedDataRowId = idStrategy.extendedDataRowIdFromSearchHit(hit);
                         ids.add(extendedDataRowId.toString());
                         extendedDataIds.add(extendedDataRowId);
+                        hitIds.add(new PipelinedHydrationIterable.HitId(dt, null, extendedDataRowId, hit));
                         break;
                     default:
                         LOGGER.warn("Unhandled document type: %s", dt);
@@ -1413,6 +1436,10 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
         public List<ExtendedDataRowId> getExtendedDataIds() {
             return extendedDataIds;
         }
+
+        public List<PipelinedHydrationIterable.HitId> getHitIds() {
+            return hitIds;
+        }
     }
 
     @SuppressWarnings("unused")
@@ -1423,6 +1450,10 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
         public StandardAnalyzer analyzer = new StandardAnalyzer();
         public int pagingLimit;
         public int termAggregationShardSize;
+        public int prefetchDepth;
+        public ExecutorService hydrationExecutor;
+        public int hydrationBatchSize = 1000;
+        public int hydrationBatchProperties = 50000;
 
         public int getPageSize() {
             return pageSize;
@@ -1477,6 +1508,42 @@ public class ElasticsearchSearchQueryBase extends QueryBase {
             this.termAggregationShardSize = termAggregationShardSize;
             return this;
         }
+
+        public int getPrefetchDepth() {
+            return prefetchDepth;
+        }
+
+        public Options setPrefetchDepth(int prefetchDepth) {
+            this.prefetchDepth = prefetchDepth;
+            return this;
+        }
+
+        public ExecutorService getHydrationExecutor() {
+            return hydrationExecutor;
+        }
+
+        public Options setHydrationExecutor(ExecutorService hydrationExecutor) {
+            this.hydrationExecutor = hydrationExecutor;
+            return this;
+        }
+
+        public int getHydrationBatchSize() {
+            return hydrationBatchSize;
+        }
+
+        public Options setHydrationBatchSize(int hydrationBatchSize) {
+            this.hydrationBatchSize = hydrationBatchSize;
+            return this;
+        }
+
+        public int getHydrationBatchProperties() {
+            return hydrationBatchProperties;
+        }
+
+        public Options setHydrationBatchProperties(int hydrationBatchProperties) {
+            this.hydrationBatchProperties = hydrationBatchProperties;
+            return this;
+        }
     }
 }
 
@@ -0,0 +1,190 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.elasticsearch5;
+
+import com.mware.ge.metric.Counter;
+import com.mware.ge.metric.GeMetricRegistry;
+import com.mware.ge.metric.Histogram;
+import com.mware.ge.util.GeLogger;
+import com.mware.ge.util.GeLoggerFactory;
+import org.elasticsearch.client.Client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Coalesces index refresh requests so that concurrent flushes do not each issue their own <code>_refresh</code>.
+ * <p>
+ * A single thread refreshes all indexes with pending changes (as recorded by the {@link IndexRefreshTracker}), at most
+ * once per interval. Every request made before a refresh starts is completed by that refresh, so there is never more
+ * than one refresh in flight for an index.
+ */
+public class IndexRefreshScheduler {
+    private static final GeLogger LOGGER = GeLoggerFactory.getLogger(IndexRefreshScheduler.class);
+    private final IndexRefreshTracker indexRefreshTracker;
+    private final Client client;
+    private final long intervalMillis;
+    private final Object lock = new Object();
+    private final Thread refreshThread;
+    private final Counter requestCounter;
+    private final Histogram coalescedRequestsHistogram;
+    private List<CompletableFuture<Void>> pendingRequests = new ArrayList<>();
+    private long lastRefreshTime;
+    private volatile boolean shutdown;
+
+    public IndexRefreshScheduler(
+            IndexRefreshTracker indexRefreshTracker,
+            Client client,
+            Duration interval,
+            GeMetricRegistry metricRegistry
+    ) {
+        this.indexRefreshTracker = indexRefreshTracker;
+        this.client = client;
+        this.intervalMillis = interval.toMillis();
+        this.requestCounter = metricRegistry.getCounter(IndexRefreshScheduler.class, "requests", "counter");
+        this.coalescedRequestsHistogram = metricRegistry.getHistogram(IndexRefreshScheduler.class, "coalescedRequests", "histogram");
+        metricRegistry.getGauge(metricRegistry.createName(IndexRefreshScheduler.class, "pendingRequests", "size"), this::getPendingRequestCount);
+
+        this.refreshThread = new Thread(this::processRefreshRequests);
+        this.refreshThread.setName("ge-es-refresh");
+        this.refreshThread.setDaemon(true);
+        this.refreshThread.start();
+    }
+
+    /**
+     * Requests a refresh of every index with changes pushed to the {@link IndexRefreshTracker} so far.
+     */
+    public IndexRefreshToken requestRefresh() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (lock) {
+            // checked under the lock, the refresh thread may be gone once shutdown is set
+            if (!shutdown) {
+                requestCounter.increment();
+                pendingRequests.add(future);
+                lock.notifyAll();
+                return new IndexRefreshToken(future);
+            }
+        }
+        indexRefreshTracker.refresh(client);
+        return IndexRefreshToken.COMPLETED;
+    }
+
+    private int getPendingRequestCount() {
+        synchronized (lock) {
+            return pendingRequests.size();
+        }
+    }
+
+    private void processRefreshRequests() {
+        try {
+            refreshUntilShutdown();
+        } finally {
+            completePendingRequests();
+        }
+    }
+
+    private void refreshUntilShutdown() {
+        while (true) {
+            List<CompletableFuture<Void>> requests;
+            try {
+                synchronized (lock) {
+                    while (pendingRequests.isEmpty() && !shutdown) {
+                        lock.wait();
+                    }
+                    long waitTime = lastRefreshTime + intervalMillis - System.currentTimeMillis();
+                    while (waitTime > 0 && !shutdown) {
+                        lock.wait(waitTime);
+                        waitTime = lastRefreshTime + intervalMillis - System.currentTimeMillis();
+                    }
+                    if (pendingRequests.isEmpty()) {
+                        return;
+                    }
+                    requests = pendingRequests;
+                    pendingRequests = new ArrayList<>();
+                    lastRefreshTime = System.currentTimeMillis();
+                }
+            } catch (InterruptedException ex) {
+                // we are shutting down so return
+                return;
+            }
+
+            refresh(requests);
+        }
+    }
+
+    private void refresh(List<CompletableFuture<Void>> requests) {
+        coalescedRequestsHistogram.update(requests.size());
+        try {
+            indexRefreshTracker.refresh(client);
+            requests.forEach(request -> request.complete(null));
+        } catch (Exception ex) {
+            LOGGER.error("index refresh failed", ex);
+            requests.forEach(request -> request.completeExceptionally(ex));
+        }
+    }
+
+    /**
+     * Refreshes for the requests left when the refresh thread exits, so no caller waits for a refresh that never
+     * comes.
+     */
+    private void completePendingRequests() {
+        List<CompletableFuture<Void>> requests;
+        synchronized (lock) {
+            requests = pendingRequests;
+            pendingRequests = new ArrayList<>();
+        }
+        if (!requests.isEmpty()) {
+            refresh(requests);
+        }
+    }
+
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+        try {
+            refreshThread.join(10_000);
+        } catch (InterruptedException e) {
+            // OK
+        }
+        // no request is added after shutdown, complete the ones the refresh thread did not get to
+        completePendingRequests();
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.elasticsearch5;
+
+import com.google.common.base.Throwables;
+import com.mware.ge.Element;
+import com.mware.ge.ExtendedDataRow;
+import com.mware.ge.ExtendedDataRowId;
+import com.mware.ge.GeException;
+import com.mware.ge.GeObject;
+import com.mware.ge.elasticsearch5.utils.AdaptiveBatchSize;
+import com.mware.ge.util.CloseableIterator;
+import com.mware.ge.util.IterableUtils;
+import org.elasticsearch.search.SearchHit;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Loads the objects matching a page of search hits from the graph in sub-batches and streams them back in hit order.
+ * <p>
+ * Up to <code>prefetchDepth</code> sub-batches are loaded concurrently ahead of the consumer, so only a bounded window
+ * of hydrated objects is held in memory instead of the whole page.
+ */
+class PipelinedHydrationIterable implements Iterable<GeObject> {
+    private final List<HitId> hitIds;
+    private final Function<List<HitId>, Iterable<? extends GeObject>> hydrator;
+    private final ExecutorService executor;
+    private final AdaptiveBatchSize batchSize;
+    private final int prefetchDepth;
+    private final boolean weighProperties;
+
+    PipelinedHydrationIterable(
+            List<HitId> hitIds,
+            Function<List<HitId>, Iterable<? extends GeObject>> hydrator,
+            ExecutorService executor,
+            AdaptiveBatchSize batchSize,
+            int prefetchDepth,
+            boolean weighProperties
+    ) {
+        this.hitIds = hitIds;
+        this.hydrator = hydrator;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.prefetchDepth = Math.max(1, prefetchDepth);
+        this.weighProperties = weighProperties;
+    }
+
+    @Override
+    public Iterator<GeObject> iterator() {
+        return new PipelinedIterator();
+    }
+
+    private List<GeObject> hydrateInHitOrder(List<HitId> batch) {
+        Map<String, GeObject> objectsById = new HashMap<>(batch.size());
+        long weight = 0;
+        for (GeObject geObject : hydrator.apply(batch)) {
+            objectsById.put(getKey(geObject), geObject);
+            if (weighProperties) {
+                weight += IterableUtils.count(geObject.getProperties());
+            }
+        }
+        if (weighProperties) {
+            batchSize.record(objectsById.size(), weight);
+        }
+
+        List<GeObject> results = new ArrayList<>(batch.size());
+        for (HitId hitId : batch) {
+            GeObject geObject = objectsById.get(hitId.getKey());
+            if (geObject != null) {
+                results.add(geObject);
+            }
+        }
+        return results;
+    }
+
+    private static String getKey(GeObject geObject) {
+        if (geObject instanceof Element) {
+            return ((Element) geObject).getId();
+        } else if (geObject instanceof ExtendedDataRow) {
+            return ((ExtendedDataRow) geObject).getId().toString();
+        } else {
+            throw new GeException("Unhandled searchable item type: " + geObject.getClass().getName());
+        }
+    }
+
+    private class PipelinedIterator implements CloseableIterator<GeObject> {
+        private final Deque<Future<List<GeObject>>> inflight = new ArrayDeque<>();
+        private int nextHitIndex;
+        private Iterator<GeObject> current = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                scheduleBatches();
+                Future<List<GeObject>> future = inflight.poll();
+                if (future == null) {
+                    return false;
+                }
+                current = await(future).iterator();
+                scheduleBatches();
+            }
+            return true;
+        }
+
+        @Override
+        public GeObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        private void scheduleBatches() {
+            while (nextHitIndex < hitIds.size() && inflight.size() < prefetchDepth) {
+                int end = Math.min(hitIds.size(), nextHitIndex + batchSize.next());
+                List<HitId> batch = hitIds.subList(nextHitIndex, end);
+                nextHitIndex = end;
+                if (executor == null) {
+                    inflight.add(CompletableFuture.completedFuture(hydrateInHitOrder(batch)));
+                } else {
+                    inflight.add(executor.submit(() -> hydrateInHitOrder(batch)));
+                }
+            }
+        }
+
+        private List<GeObject> await(Future<List<GeObject>> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new GeException("Interrupted while loading search results", ex);
+            } catch (ExecutionException ex) {
+                Throwables.throwIfUnchecked(ex.getCause());
+                throw new GeException("Could not load search results", ex.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            inflight.forEach(future -> future.cancel(true));
+            inflight.clear();
+            nextHitIndex = hitIds.size();
+        }
+    }
+
+    static class HitId {
+        private final ElasticsearchDocumentType documentType;
+        private final String id;
+        private final ExtendedDataRowId extendedDataRowId;
+        private final SearchHit searchHit;
+
+        HitId(ElasticsearchDocumentType documentType, String id, ExtendedDataRowId extendedDataRowId, SearchHit searchHit) {
+            this.documentType = documentType;
+            this.id = id;
+            this.extendedDataRowId = extendedDataRowId;
+            this.searchHit = searchHit;
+        }
+
+        public ElasticsearchDocumentType getDocumentType() {
+            return documentType;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public ExtendedDataRowId getExtendedDataRowId() {
+            return extendedDataRowId;
+        }
+
+        public SearchHit getSearchHit() {
+            return searchHit;
+        }
+
+        String getKey() {
+            return extendedDataRowId == null ? id : extendedDataRowId.toString();
+        }
+    }
+}
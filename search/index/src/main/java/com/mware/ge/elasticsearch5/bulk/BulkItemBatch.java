@@ -37,6 +37,7 @@
 package com.mware.ge.elasticsearch5.bulk;
 
 import com.mware.ge.GeException;
+import com.mware.ge.metric.Counter;
 import com.mware.ge.util.GeReadWriteLock;
 import com.mware.ge.util.GeStampedLock;
 import com.mware.ge.util.GeLogger;
@@ -46,6 +47,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
 
 public class BulkItemBatch {
     private static final GeLogger LOGGER = GeLoggerFactory.getLogger(BulkItemBatch.class);
@@ -54,8 +56,9 @@ public class BulkItemBatch {
     private final int maxBatchSizeInBytes;
     private final long batchWindowTimeMillis;
     private final Integer logRequestSizeLimit;
+    private final Counter coalescedItemsCounter;
     private long lastFlush;
-    private LinkedHashMap<String, BulkItem<?>> batch = new LinkedHashMap<>();
+    private LinkedHashMap<BatchKey, BulkItem<?>> batch = new LinkedHashMap<>();
     private int currentBatchSizeInBytes = 0;
 
     public BulkItemBatch(
@@ -64,6 +67,17 @@ public class BulkItemBatch {
             Duration batchWindowTime,
             Integer logRequestSizeLimit
     ) {
+        this(maxBatchSize, maxBatchSizeInBytes, batchWindowTime, logRequestSizeLimit, null);
+    }
+
+    public BulkItemBatch(
+            int maxBatchSize,
+            int maxBatchSizeInBytes,
+            Duration batchWindowTime,
+            Integer logRequestSizeLimit,
+            Counter coalescedItemsCounter
+    ) {
+        this.coalescedItemsCounter = coalescedItemsCounter;
         this.maxBatchSize = maxBatchSize;
         this.maxBatchSizeInBytes = maxBatchSizeInBytes;
         this.batchWindowTimeMillis = batchWindowTime.toMillis();
@@ -73,15 +87,23 @@ public class BulkItemBatch {
 
     public boolean add(Item item) {
         return lock.executeInWriteLock(() -> {
-            String batchKey = getBatchKey(item);
+            BatchKey batchKey = new BatchKey(item);
             BulkItem<?> bulkItem = batch.get(batchKey);
             if (!canAdd(item)) {
                 return false;
             }
 
             if (bulkItem != null) {
+                if (isDelete(bulkItem) != item instanceof DeleteItem) {
+                    // an update following a delete (or the reverse) can't be merged, send the current batch first
+                    // so the document operations reach Elasticsearch in order
+                    return false;
+                }
                 // subtract the old size, after we add this item we need to add the new size back in
                 currentBatchSizeInBytes -= bulkItem.getSize();
+                if (coalescedItemsCounter != null) {
+                    coalescedItemsCounter.increment();
+                }
             } else {
                 if (item instanceof DeleteItem) {
                     bulkItem = new BulkDeleteItem(
@@ -111,8 +133,8 @@ public class BulkItemBatch {
         });
     }
 
-    private String getBatchKey(Item item) {
-        return String.format("%s:%s:%s:%s", item.getIndexName(), item.getType(), item.getDocumentId(), item.getClass().getName());
+    private static boolean isDelete(BulkItem<?> bulkItem) {
+        return bulkItem instanceof BulkDeleteItem;
     }
 
     private boolean canAdd(Item item) {
@@ -153,7 +175,7 @@ public class BulkItemBatch {
     }
 
     public int size() {
-        return batch.size();
+        return lock.executeInReadLock(() -> batch.size());
     }
 
     public List<BulkItem<?>> getItemsAndClear() {
@@ -165,4 +187,37 @@ public class BulkItemBatch {
             return results;
         });
     }
+
+    private static class BatchKey {
+        private final String indexName;
+        private final String type;
+        private final String documentId;
+        private final int hashCode;
+
+        BatchKey(Item item) {
+            this.indexName = item.getIndexName();
+            this.type = item.getType();
+            this.documentId = item.getDocumentId();
+            this.hashCode = Objects.hash(indexName, type, documentId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BatchKey batchKey = (BatchKey) o;
+            return documentId.equals(batchKey.documentId)
+                    && indexName.equals(batchKey.indexName)
+                    && type.equals(batchKey.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
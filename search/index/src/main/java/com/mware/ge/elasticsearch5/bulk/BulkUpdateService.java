@@ -43,6 +43,7 @@ import com.mware.ge.ExtendedDataRowId;
 import com.mware.ge.GeException;
 import com.mware.ge.elasticsearch5.Elasticsearch5SearchIndex;
 import com.mware.ge.elasticsearch5.IndexRefreshTracker;
+import com.mware.ge.metric.Counter;
 import com.mware.ge.metric.GeMetricRegistry;
 import com.mware.ge.metric.Histogram;
 import com.mware.ge.metric.Timer;
@@ -54,10 +55,7 @@ import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
 
 import java.time.Duration;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -71,23 +69,27 @@ import java.util.stream.Collectors;
  * has to perform. See
  * - https://github.com/elastic/elasticsearch/issues/23792#issuecomment-296149685
  * - https://github.com/debadair/elasticsearch/commit/54cdf40bc5fdecce180ba2e242abca59c7bd1f11
+ * <p>
+ * Items are hashed by document id to one of several shards. Each shard has its own queue and batch and sends at most
+ * one bulk request at a time, so updates of a document are applied in order without any shared lock. Updates that
+ * arrive while a shard's bulk request is in flight are merged into the next batch.
  */
 public class BulkUpdateService {
     private static final GeLogger LOGGER = GeLoggerFactory.getLogger(BulkUpdateService.class);
     private static final String LOGGER_STACK_TRACE_NAME = BulkUpdateService.class.getName() + ".STACK_TRACE";
     static final GeLogger LOGGER_STACK_TRACE = GeLoggerFactory.getLogger(LOGGER_STACK_TRACE_NAME);
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long BUSY_POLL_MILLIS = 10;
     private final Elasticsearch5SearchIndex searchIndex;
     private final IndexRefreshTracker indexRefreshTracker;
-    private final LimitedLinkedBlockingQueue<Item> incomingItems = new LimitedLinkedBlockingQueue<>();
-    private final OutstandingItemsList outstandingItems = new OutstandingItemsList();
-    private final Thread processItemsThread;
+    private final Shard[] shards;
     private final Timer flushTimer;
     private final Histogram batchSizeHistogram;
     private final Timer processBatchTimer;
+    private final Timer waitForInflightBatchTimer;
     private final Duration bulkRequestTimeout;
     private final ThreadPoolExecutor ioExecutor;
     private final int maxFailCount;
-    private final BulkItemBatch batch;
     private volatile boolean shutdown;
 
     public BulkUpdateService(
@@ -112,25 +114,34 @@ public class BulkUpdateService {
                 }
         );
 
-        this.processItemsThread = new Thread(this::processIncomingItemsIntoBatches);
-        this.processItemsThread.setName("ge-es-processItems");
-        this.processItemsThread.setDaemon(true);
-        this.processItemsThread.start();
-
         this.bulkRequestTimeout = configuration.getBulkRequestTimeout();
         this.maxFailCount = configuration.getMaxFailCount();
-        this.batch = new BulkItemBatch(
-                configuration.getMaxBatchSize(),
-                configuration.getMaxBatchSizeInBytes(),
-                configuration.getBatchWindowTime(),
-                configuration.getLogRequestSizeLimit()
-        );
 
         GeMetricRegistry metricRegistry = searchIndex.getMetricsRegistry();
         this.flushTimer = metricRegistry.getTimer(BulkUpdateService.class, "flush", "timer");
         this.processBatchTimer = metricRegistry.getTimer(BulkUpdateService.class, "processBatch", "timer");
+        this.waitForInflightBatchTimer = metricRegistry.getTimer(BulkUpdateService.class, "waitForInflightBatch", "timer");
         this.batchSizeHistogram = metricRegistry.getHistogram(BulkUpdateService.class, "batch", "histogram");
-        metricRegistry.getGauge(metricRegistry.createName(BulkUpdateService.class, "outstandingItems", "size"), outstandingItems::size);
+        Counter coalescedItemsCounter = metricRegistry.getCounter(BulkUpdateService.class, "coalescedItems", "counter");
+
+        // each shard has at most one request queued or running, so this keeps sends from blocking on a full backlog
+        this.shards = new Shard[Math.min(configuration.getShards(), configuration.getPoolSize() + configuration.getBacklogSize())];
+        for (int i = 0; i < shards.length; i++) {
+            BulkItemBatch batch = new BulkItemBatch(
+                    configuration.getMaxBatchSize(),
+                    configuration.getMaxBatchSizeInBytes(),
+                    configuration.getBatchWindowTime(),
+                    configuration.getLogRequestSizeLimit(),
+                    coalescedItemsCounter
+            );
+            Shard shard = new Shard(i, batch);
+            shards[i] = shard;
+            metricRegistry.getGauge(metricRegistry.createName(BulkUpdateService.class, "shard" + i, "incomingItems", "size"), shard.incomingItems::size);
+        }
+        metricRegistry.getGauge(metricRegistry.createName(BulkUpdateService.class, "outstandingItems", "size"), this::getOutstandingItemCount);
+        for (Shard shard : shards) {
+            shard.start();
+        }
     }
 
     public CompletableFuture<Void> addDelete(
@@ -168,8 +179,9 @@ public class BulkUpdateService {
     }
 
     private CompletableFuture<Void> add(Item bulkItem) {
-        outstandingItems.add(bulkItem);
-        incomingItems.add(bulkItem);
+        Shard shard = getShard(bulkItem);
+        shard.outstandingItems.add(bulkItem);
+        shard.incomingItems.add(bulkItem);
         return bulkItem.getCompletedFuture();
     }
 
@@ -199,8 +211,22 @@ public class BulkUpdateService {
         ));
     }
 
+    private Shard getShard(Item item) {
+        return shards[Math.floorMod(item.getDocumentId().hashCode(), shards.length)];
+    }
+
+    private int getOutstandingItemCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.outstandingItems.size();
+        }
+        return count;
+    }
+
     private void complete(BulkItem<?> bulkItem, Exception exception) {
-        outstandingItems.removeAll(bulkItem.getItems());
+        if (!bulkItem.getItems().isEmpty()) {
+            getShard(bulkItem.getItems().get(0)).outstandingItems.removeAll(bulkItem.getItems());
+        }
         if (exception == null) {
             bulkItem.complete();
         } else {
@@ -208,24 +234,13 @@ public class BulkUpdateService {
         }
     }
 
-    private boolean filterByRetryTime(Item bulkItem) {
-        if (bulkItem.getFailCount() == 0) {
-            return true;
-        }
-        long nextRetryTime = (long) (bulkItem.getCreatedOrLastTriedTime() + (10 * Math.pow(2, bulkItem.getFailCount())));
-        long currentTime = System.currentTimeMillis();
-        if (nextRetryTime > currentTime) {
-            // add it back into incomingItems, it will already be in outstandingItems
-            incomingItems.add(bulkItem);
-            return false;
-        }
-        return true;
-    }
-
     public void flush() {
         flushTimer.time(() -> {
             try {
-                List<Item> items = outstandingItems.getCopyOfItems();
+                List<Item> items = new ArrayList<>();
+                for (Shard shard : shards) {
+                    items.addAll(shard.outstandingItems.getCopyOfItems());
+                }
 
                 // wait for the items to be added to batches
                 CompletableFuture.allOf(
@@ -234,8 +249,10 @@ public class BulkUpdateService {
                                 .toArray(CompletableFuture[]::new)
                 ).get();
 
-                // flush the current batch
-                flushBatch();
+                // flush the current batches, shards with a bulk request in flight send theirs once it completes
+                for (Shard shard : shards) {
+                    shard.sendBatch(false);
+                }
 
                 // wait for the items to complete
                 CompletableFuture.allOf(
@@ -249,13 +266,6 @@ public class BulkUpdateService {
         });
     }
 
-    private void flushBatch() {
-        List<BulkItem<?>> batchItems = batch.getItemsAndClear();
-        if (batchItems.size() > 0) {
-            ioExecutor.execute(() -> processBatch(batchItems));
-        }
-    }
-
     private void handleFailure(BulkItem<?> bulkItem, BulkItemResponse bulkItemResponse) {
         BulkItemResponse.Failure failure = bulkItemResponse.getFailure();
         bulkItem.incrementFailCount();
@@ -270,7 +280,9 @@ public class BulkUpdateService {
                 return;
             }
             if (retry.get()) {
-                incomingItems.addAll(bulkItem.getItems());
+                for (Item item : bulkItem.getItems()) {
+                    getShard(item).incomingItems.add(item);
+                }
             } else {
                 complete(bulkItem, null);
             }
@@ -291,15 +303,9 @@ public class BulkUpdateService {
                     bulkItem.addToBulkRequest(searchIndex.getClient(), bulkRequestBuilder);
                 }
 
-                outstandingItems.waitForItemToNotBeInflightAndMarkThemAsInflight(bulkItems);
-                BulkResponse bulkResponse;
-                try {
-                    bulkResponse = searchIndex.getClient()
-                            .bulk(bulkRequestBuilder.request())
-                            .get(bulkRequestTimeout.toMillis(), TimeUnit.MILLISECONDS);
-                } finally {
-                    outstandingItems.markItemsAsNotInflight(bulkItems);
-                }
+                BulkResponse bulkResponse = searchIndex.getClient()
+                        .bulk(bulkRequestBuilder.request())
+                        .get(bulkRequestTimeout.toMillis(), TimeUnit.MILLISECONDS);
 
                 Set<String> indexNames = bulkItems.stream()
                         .peek(BulkItem::updateLastTriedTime)
@@ -330,49 +336,123 @@ public class BulkUpdateService {
         });
     }
 
-    private void processIncomingItemsIntoBatches() {
-        while (true) {
+    public void shutdown() {
+        this.shutdown = true;
+        for (Shard shard : shards) {
             try {
-                if (shutdown) {
-                    return;
-                }
+                shard.processItemsThread.join(10_000);
+            } catch (InterruptedException e) {
+                // OK
+            }
+        }
+
+        ioExecutor.shutdown();
+    }
 
-                Item item = incomingItems.poll(100, TimeUnit.MILLISECONDS);
-                if (batch.shouldFlushByTime()) {
-                    flushBatch();
+    private class Shard {
+        private final LimitedLinkedBlockingQueue<Item> incomingItems = new LimitedLinkedBlockingQueue<>();
+        private final OutstandingItemsList outstandingItems = new OutstandingItemsList();
+        private final BulkItemBatch batch;
+        private final Thread processItemsThread;
+        private CompletableFuture<Void> inflightBatch = CompletableFuture.completedFuture(null);
+
+        Shard(int index, BulkItemBatch batch) {
+            this.batch = batch;
+            this.processItemsThread = new Thread(this::processIncomingItemsIntoBatches);
+            this.processItemsThread.setName("ge-es-processItems-" + index);
+            this.processItemsThread.setDaemon(true);
+        }
+
+        void start() {
+            processItemsThread.start();
+        }
+
+        private boolean isInflight() {
+            synchronized (this) {
+                return !inflightBatch.isDone();
+            }
+        }
+
+        /**
+         * Sends the current batch unless this shard already has a bulk request in flight. In that case the batch is
+         * sent when the inflight request completes, or, if <code>wait</code> is true, once this thread waited for it.
+         */
+        private void sendBatch(boolean wait) {
+            while (true) {
+                CompletableFuture<Void> inflight;
+                synchronized (this) {
+                    inflight = inflightBatch;
+                    if (inflight.isDone()) {
+                        List<BulkItem<?>> batchItems = batch.getItemsAndClear();
+                        if (batchItems.size() == 0) {
+                            return;
+                        }
+                        inflightBatch = CompletableFuture.runAsync(() -> processBatch(batchItems), ioExecutor)
+                                .exceptionally(ex -> {
+                                    LOGGER.error("process batch failed", ex);
+                                    return null;
+                                });
+                        // updates that accumulated while this request was in flight are sent as soon as it completes
+                        inflightBatch.thenRun(() -> sendBatch(false));
+                        return;
+                    }
                 }
-                if (item == null) {
-                    continue;
+                if (!wait) {
+                    return;
                 }
+                // wait without holding the shard monitor, then retry since another thread may have sent a batch
+                waitForInflightBatchTimer.time(inflight::join);
+            }
+        }
+
+        private boolean filterByRetryTime(Item bulkItem) {
+            if (bulkItem.getFailCount() == 0) {
+                return true;
+            }
+            long nextRetryTime = (long) (bulkItem.getCreatedOrLastTriedTime() + (10 * Math.pow(2, bulkItem.getFailCount())));
+            long currentTime = System.currentTimeMillis();
+            if (nextRetryTime > currentTime) {
+                // add it back into incomingItems, it will already be in outstandingItems
+                incomingItems.add(bulkItem);
+                return false;
+            }
+            return true;
+        }
+
+        private void processIncomingItemsIntoBatches() {
+            while (true) {
                 try {
-                    if (filterByRetryTime(item)) {
-                        while (!batch.add(item)) {
-                            flushBatch();
+                    if (shutdown) {
+                        return;
+                    }
+
+                    long pollMillis = batch.size() > 0 ? BUSY_POLL_MILLIS : IDLE_POLL_MILLIS;
+                    Item item = incomingItems.poll(pollMillis, TimeUnit.MILLISECONDS);
+                    if (batch.shouldFlushByTime() && !isInflight()) {
+                        sendBatch(false);
+                    }
+                    if (item == null) {
+                        continue;
+                    }
+                    try {
+                        if (filterByRetryTime(item)) {
+                            while (!batch.add(item)) {
+                                sendBatch(true);
+                            }
+                            item.getAddedToBatchFuture().complete(null);
                         }
-                        item.getAddedToBatchFuture().complete(null);
+                    } catch (Exception ex) {
+                        LOGGER.error("process item (%s) failed", item, ex);
+                        outstandingItems.remove(item);
+                        item.completeExceptionally(new GeException("Failed to process item", ex));
                     }
+                } catch (InterruptedException ex) {
+                    // we are shutting down so return
+                    return;
                 } catch (Exception ex) {
-                    LOGGER.error("process item (%s) failed", item, ex);
-                    outstandingItems.remove(item);
-                    item.completeExceptionally(new GeException("Failed to process item", ex));
+                    LOGGER.error("process items failed", ex);
                 }
-            } catch (InterruptedException ex) {
-                // we are shutting down so return
-                return;
-            } catch (Exception ex) {
-                LOGGER.error("process items failed", ex);
             }
         }
     }
-
-    public void shutdown() {
-        this.shutdown = true;
-        try {
-            this.processItemsThread.join(10_000);
-        } catch (InterruptedException e) {
-            // OK
-        }
-
-        ioExecutor.shutdown();
-    }
 }
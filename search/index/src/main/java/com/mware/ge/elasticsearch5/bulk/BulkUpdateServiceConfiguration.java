@@ -50,6 +50,7 @@ public class BulkUpdateServiceConfiguration {
     private int maxBatchSizeInBytes = ElasticsearchOptions.BULK_MAX_BATCH_SIZE_IN_BYTES.defaultValue();
     private int maxFailCount = ElasticsearchOptions.BULK_MAX_FAIL_COUNT.defaultValue();
     private int poolSize = ElasticsearchOptions.BULK_POOL_SIZE.defaultValue();
+    private int shards = ElasticsearchOptions.BULK_SHARDS.defaultValue();
 
     public int getBacklogSize() {
         return backlogSize;
@@ -122,4 +123,13 @@ public class BulkUpdateServiceConfiguration {
         this.poolSize = poolSize;
         return this;
     }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public BulkUpdateServiceConfiguration setShards(int shards) {
+        this.shards = shards;
+        return this;
+    }
 }
@@ -36,47 +36,30 @@
  */
 package com.mware.ge.elasticsearch5.bulk;
 
-import com.mware.ge.GeException;
-
-import java.util.*;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Items added to a {@link BulkUpdateService} shard that have not completed yet. Every item is tracked, including
+ * successive items for the same document, so a flush waits for all of them.
+ */
 public class OutstandingItemsList {
-    private final Map<String, Item> outstandingItems = new LinkedHashMap<>();
-    private final Set<String> inflightItems = new HashSet<>();
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition itemsChanged = lock.newCondition();
+    private final Set<Item> outstandingItems = ConcurrentHashMap.newKeySet();
 
-    public void add(Item bulkItem) {
-        lock.lock();
-        try {
-            outstandingItems.put(bulkItem.getDocumentId(), bulkItem);
-            itemsChanged.signalAll();
-        } finally {
-            lock.unlock();
-        }
+    public void add(Item item) {
+        outstandingItems.add(item);
     }
 
     public void remove(Item item) {
-        lock.lock();
-        try {
-            outstandingItems.remove(item.getDocumentId());
-            itemsChanged.signalAll();
-        } finally {
-            lock.unlock();
-        }
+        outstandingItems.remove(item);
     }
 
     public void removeAll(Collection<? extends Item> items) {
-        lock.lock();
-        try {
-            outstandingItems.keySet().removeAll(items.stream().map(Item::getDocumentId).collect(Collectors.toSet()));
-            itemsChanged.signalAll();
-        } finally {
-            lock.unlock();
+        for (Item item : items) {
+            outstandingItems.remove(item);
         }
     }
 
@@ -84,56 +67,7 @@ public class OutstandingItemsList {
         return outstandingItems.size();
     }
 
-    public void markItemsAsNotInflight(List<BulkItem<?>> bulkItems) {
-        lock.lock();
-        try {
-            for (BulkItem<?> bulkItem : bulkItems) {
-                inflightItems.remove(getInflightKey(bulkItem));
-            }
-            itemsChanged.signalAll();
-        } finally {
-            lock.unlock();
-        }
-    }
-
-    private String getInflightKey(BulkItem<?> bulkItem) {
-        return String.format("%s:%s:%s", bulkItem.getIndexName(), bulkItem.getType(), bulkItem.getDocumentId());
-    }
-
-    public void waitForItemToNotBeInflightAndMarkThemAsInflight(List<BulkItem<?>> bulkItems) {
-        lock.lock();
-        try {
-            while (true) {
-                boolean hasInflightItems = false;
-                for (BulkItem<?> bulkItem : bulkItems) {
-                    if (inflightItems.contains(getInflightKey(bulkItem))) {
-                        hasInflightItems = true;
-                        break;
-                    }
-                }
-                if (hasInflightItems) {
-                    itemsChanged.await(1, TimeUnit.SECONDS);
-                } else {
-                    for (BulkItem<?> bulkItem : bulkItems) {
-                        inflightItems.add(getInflightKey(bulkItem));
-                    }
-                    return;
-                }
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new GeException("Failed to wait for items to not be inflight");
-        } finally {
-            lock.unlock();
-        }
-    }
-
     public List<Item> getCopyOfItems() {
-        lock.lock();
-        try {
-            return new ArrayList<>(outstandingItems.values());
-        } finally {
-            lock.unlock();
-        }
+        return new ArrayList<>(outstandingItems);
     }
 }
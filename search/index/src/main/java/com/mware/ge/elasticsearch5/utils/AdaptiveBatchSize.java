@@ -0,0 +1,79 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.elasticsearch5.utils;
+
+/**
+ * Computes the size of the next hydration batch from the observed weight (number of properties)
+ * of the elements loaded so far, so that batches of large elements stay small and batches of
+ * small elements grow up to the configured maximum.
+ */
+public class AdaptiveBatchSize {
+    private static final double SMOOTHING = 0.3;
+    private static final int MIN_BATCH_SIZE = 16;
+
+    private final int maxBatchSize;
+    private final int targetWeight;
+    private volatile double averageWeight = -1;
+
+    public AdaptiveBatchSize(int maxBatchSize, int targetWeight) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.targetWeight = targetWeight;
+    }
+
+    public int next() {
+        double avg = averageWeight;
+        if (avg <= 0) {
+            return Math.min(maxBatchSize, MIN_BATCH_SIZE * 4);
+        }
+        int size = (int) (targetWeight / avg);
+        return Math.max(Math.min(MIN_BATCH_SIZE, maxBatchSize), Math.min(maxBatchSize, size));
+    }
+
+    public synchronized void record(int count, long weight) {
+        if (count <= 0) {
+            return;
+        }
+        double batchAverage = Math.max(1.0, (double) weight / count);
+        averageWeight = averageWeight < 0
+                ? batchAverage
+                : (SMOOTHING * batchAverage) + ((1 - SMOOTHING) * averageWeight);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+}
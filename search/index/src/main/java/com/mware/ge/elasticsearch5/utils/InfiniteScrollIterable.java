@@ -36,6 +36,8 @@
  */
 package com.mware.ge.elasticsearch5.utils;
 
+import com.google.common.base.Throwables;
+import com.mware.ge.GeException;
 import com.mware.ge.elasticsearch5.ElasticsearchGraphQueryIdIterable;
 import com.mware.ge.elasticsearch5.IdStrategy;
 import com.mware.ge.query.aggregations.AggregationResult;
@@ -49,6 +51,9 @@ import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.search.SearchHit;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public abstract class InfiniteScrollIterable<T> implements QueryResultsIterable<T>, IterableWithScores<T> {
@@ -57,6 +62,7 @@ public abstract class InfiniteScrollIterable<T> implements QueryResultsIterable<
     private static final GeLogger SCROLL_API_STACK_TRACE_LOGGER = GeLoggerFactory.getLogger(SCROLL_API_STACK_TRACE_LOGGER_NAME);
 
     private final Long limit;
+    private final ExecutorService prefetchExecutor;
     private QueryResultsIterable<T> firstIterable;
     private boolean initCalled;
     private boolean firstCall;
@@ -65,7 +71,16 @@ public abstract class InfiniteScrollIterable<T> implements QueryResultsIterable<
     private Map<String, StackTraceElement[]> stackTraces = new HashMap<>();
 
     protected InfiniteScrollIterable(Long limit) {
+        this(limit, null);
+    }
+
+    /**
+     * @param prefetchExecutor if not null, the next scroll page is requested on this executor while the current
+     *                         page is being consumed.
+     */
+    protected InfiniteScrollIterable(Long limit, ExecutorService prefetchExecutor) {
         this.limit = limit;
+        this.prefetchExecutor = prefetchExecutor;
     }
 
     protected abstract SearchResponse getInitialSearchResponse();
@@ -157,7 +172,7 @@ public abstract class InfiniteScrollIterable<T> implements QueryResultsIterable<
             }
             it = searchResponseToIterable(response).iterator();
         }
-        return new InfiniteIterator(response.getScrollId(), it);
+        return new InfiniteIterator(response, it);
     }
 
     @Override
@@ -189,10 +204,14 @@ public abstract class InfiniteScrollIterable<T> implements QueryResultsIterable<
         private T next;
         private T current;
         private long currentResultNumber = 0;
+        private long fetchedHitCount;
+        private Future<SearchResponse> nextResponse;
 
-        public InfiniteIterator(String scrollId, Iterator<T> it) {
-            this.scrollId = scrollId;
+        public InfiniteIterator(SearchResponse response, Iterator<T> it) {
+            this.scrollId = response.getScrollId();
             this.it = it;
+            this.fetchedHitCount = response.getHits().getHits().length;
+            prefetchNextResponse();
         }
 
         @Override
@@ -229,7 +248,10 @@ public abstract class InfiniteScrollIterable<T> implements QueryResultsIterable<
                 it = null;
 
                 if (isUnderLimit && getTotalHits() > currentResultNumber) {
-                    QueryResultsIterable<T> iterable = searchResponseToIterable(getNextSearchResponse(scrollId));
+                    SearchResponse searchResponse = takeNextResponse();
+                    fetchedHitCount += searchResponse.getHits().getHits().length;
+                    prefetchNextResponse();
+                    QueryResultsIterable<T> iterable = searchResponseToIterable(searchResponse);
                     it = iterable.iterator();
                     if (!it.hasNext()) {
                         it = null;
@@ -241,6 +263,30 @@ public abstract class InfiniteScrollIterable<T> implements QueryResultsIterable<
             }
         }
 
+        private void prefetchNextResponse() {
+            boolean isUnderLimit = limit == null || fetchedHitCount < limit;
+            if (prefetchExecutor != null && isUnderLimit && getTotalHits() > fetchedHitCount) {
+                nextResponse = prefetchExecutor.submit(() -> getNextSearchResponse(scrollId));
+            }
+        }
+
+        private SearchResponse takeNextResponse() {
+            Future<SearchResponse> future = nextResponse;
+            nextResponse = null;
+            if (future == null) {
+                return getNextSearchResponse(scrollId);
+            }
+            try {
+                return future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new GeException("Interrupted while requesting more items from scroll " + scrollId, ex);
+            } catch (ExecutionException ex) {
+                Throwables.throwIfUnchecked(ex.getCause());
+                throw new GeException("Failed to request more items from scroll " + scrollId, ex.getCause());
+            }
+        }
+
         @Override
         public void remove() {
             throw new UnsupportedOperationException();
@@ -248,6 +294,10 @@ public abstract class InfiniteScrollIterable<T> implements QueryResultsIterable<
 
         @Override
         public void close() {
+            if (nextResponse != null) {
+                nextResponse.cancel(true);
+                nextResponse = null;
+            }
             CloseableUtils.closeQuietly(it);
             closeScroll(this.scrollId);
             scrollIds.remove(this.scrollId);
@@ -36,6 +36,7 @@
  */
 package com.mware.ge.elasticsearch5.utils;
 
+import com.google.common.base.Throwables;
 import com.mware.ge.GeException;
 import com.mware.ge.elasticsearch5.ElasticsearchGraphQueryIterable;
 import com.mware.ge.query.*;
@@ -44,6 +45,9 @@ import com.mware.ge.query.aggregations.AggregationResult;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public abstract class PagingIterable<T> implements
         Iterable<T>,
@@ -55,11 +59,21 @@ public abstract class PagingIterable<T> implements
     private boolean isFirstCallToIterator;
     private final ElasticsearchGraphQueryIterable<T> firstIterable;
     private final int pageSize;
+    private final ExecutorService prefetchExecutor;
 
     public PagingIterable(long skip, Long limit, int pageSize) {
+        this(skip, limit, pageSize, null);
+    }
+
+    /**
+     * @param prefetchExecutor if not null, the next page is requested on this executor while the current page
+     *                         is being consumed.
+     */
+    public PagingIterable(long skip, Long limit, int pageSize, ExecutorService prefetchExecutor) {
         this.skip = skip;
         this.limit = limit == null ? Long.MAX_VALUE : limit;
         this.pageSize = pageSize;
+        this.prefetchExecutor = prefetchExecutor;
 
         // This is a bit of a hack. Because the underlying iterable is the iterable with geohash results, histogram results, etc.
         //   we need to grab the first iterable to get the results out.
@@ -103,6 +117,9 @@ public abstract class PagingIterable<T> implements
         private long lastIterableResultNumber = 0;
         private long lastPageSize = 0;
         private Iterator<T> currentIterator;
+        private Future<ElasticsearchGraphQueryIterable<T>> prefetchedPage;
+        private long prefetchedPageSkip;
+        private long prefetchedPageSize;
 
         public MyIterator(ElasticsearchGraphQueryIterable<T> firstIterable) {
             this.firstIterable = firstIterable;
@@ -146,14 +163,46 @@ public abstract class PagingIterable<T> implements
                 if (nextPageSize <= 0) {
                     return null;
                 }
-                firstIterable = getPageIterable((int)currentResultNumber, (int)nextPageSize, false);
+                firstIterable = takePage(currentResultNumber, nextPageSize);
             }
             Iterator<T> it = firstIterable.iterator();
             firstIterable = null;
             lastIterableResultNumber = currentResultNumber;
+            prefetchPage(currentResultNumber + nextPageSize);
             return it;
         }
 
+        private void prefetchPage(long pageSkip) {
+            long pageLimit = Math.min(pageSize, limit - pageSkip);
+            if (prefetchExecutor == null || pageLimit <= 0 || pageSkip - skip >= limit || pageSkip >= getTotalHits()) {
+                return;
+            }
+            prefetchedPageSkip = pageSkip;
+            prefetchedPageSize = pageLimit;
+            prefetchedPage = prefetchExecutor.submit(() -> getPageIterable((int) pageSkip, (int) pageLimit, false));
+        }
+
+        private ElasticsearchGraphQueryIterable<T> takePage(long pageSkip, long pageLimit) {
+            Future<ElasticsearchGraphQueryIterable<T>> future = prefetchedPage;
+            prefetchedPage = null;
+            if (future != null) {
+                if (prefetchedPageSkip == pageSkip && prefetchedPageSize == pageLimit) {
+                    try {
+                        return future.get();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new GeException("Interrupted while requesting page", ex);
+                    } catch (ExecutionException ex) {
+                        Throwables.throwIfUnchecked(ex.getCause());
+                        throw new GeException("Failed to request page", ex.getCause());
+                    }
+                }
+                // fewer results than expected were consumed from the previous page, so the prefetched page is stale
+                future.cancel(true);
+            }
+            return getPageIterable((int) pageSkip, (int) pageLimit, false);
+        }
+
         @Override
         public void remove() {
             throw new GeException("remove not implemented");
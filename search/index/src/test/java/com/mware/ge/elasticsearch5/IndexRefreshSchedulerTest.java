@@ -0,0 +1,177 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.elasticsearch5;
+
+import com.google.common.collect.Sets;
+import com.mware.ge.metric.NullMetricRegistry;
+import org.elasticsearch.client.Client;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class IndexRefreshSchedulerTest {
+    private IndexRefreshTracker indexRefreshTracker;
+    private IndexRefreshScheduler indexRefreshScheduler;
+    private List<Set<String>> refreshes;
+    private CountDownLatch refreshStarted;
+    private CountDownLatch refreshCanFinish;
+
+    @Before
+    public void before() {
+        refreshes = new CopyOnWriteArrayList<>();
+        refreshStarted = new CountDownLatch(1);
+        refreshCanFinish = new CountDownLatch(0);
+        indexRefreshTracker = new IndexRefreshTracker(new NullMetricRegistry()) {
+            @Override
+            protected void refresh(Client client, Set<String> indexNamesNeedingRefresh) {
+                refreshStarted.countDown();
+                try {
+                    refreshCanFinish.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                refreshes.add(indexNamesNeedingRefresh);
+            }
+        };
+        indexRefreshScheduler = new IndexRefreshScheduler(indexRefreshTracker, null, Duration.ofMillis(10), new NullMetricRegistry());
+    }
+
+    @After
+    public void after() {
+        indexRefreshScheduler.shutdown();
+    }
+
+    @Test
+    public void testRequestRefresh() {
+        indexRefreshTracker.pushChange("a");
+        IndexRefreshToken token = indexRefreshScheduler.requestRefresh();
+        assertTrue(token.await(10, TimeUnit.SECONDS));
+        assertEquals(1, refreshes.size());
+        assertEquals(Sets.newHashSet("a"), refreshes.get(0));
+    }
+
+    @Test
+    public void testRequestsWhileRefreshInFlightAreCoalesced() throws InterruptedException {
+        refreshCanFinish = new CountDownLatch(1);
+        indexRefreshTracker.pushChange("a");
+        IndexRefreshToken first = indexRefreshScheduler.requestRefresh();
+        assertTrue(refreshStarted.await(10, TimeUnit.SECONDS));
+
+        List<IndexRefreshToken> tokens = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            indexRefreshTracker.pushChange("b");
+            tokens.add(indexRefreshScheduler.requestRefresh());
+        }
+        assertFalse(tokens.get(0).isDone());
+
+        refreshCanFinish.countDown();
+        assertTrue(first.await(10, TimeUnit.SECONDS));
+        for (IndexRefreshToken token : tokens) {
+            assertTrue(token.await(10, TimeUnit.SECONDS));
+        }
+        assertEquals(2, refreshes.size());
+        assertTrue(refreshes.get(1).contains("b"));
+    }
+
+    @Test
+    public void testCombinedTokenWaitsForAllRefreshes() throws InterruptedException {
+        refreshCanFinish = new CountDownLatch(1);
+        indexRefreshTracker.pushChange("a");
+        IndexRefreshToken first = indexRefreshScheduler.requestRefresh();
+        assertTrue(refreshStarted.await(10, TimeUnit.SECONDS));
+        indexRefreshTracker.pushChange("b");
+        IndexRefreshToken second = indexRefreshScheduler.requestRefresh();
+
+        // merged in any order, the token is done only after the later refresh
+        IndexRefreshToken combined = second.and(first);
+        assertFalse(combined.isDone());
+        refreshCanFinish.countDown();
+        assertTrue(combined.await(10, TimeUnit.SECONDS));
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertSame(second, IndexRefreshToken.COMPLETED.and(second));
+    }
+
+    @Test
+    public void testShutdownCompletesPendingRequests() {
+        indexRefreshTracker.pushChange("a");
+        IndexRefreshToken token = indexRefreshScheduler.requestRefresh();
+        indexRefreshScheduler.shutdown();
+        assertTrue(token.isDone());
+
+        IndexRefreshToken afterShutdown = indexRefreshScheduler.requestRefresh();
+        assertTrue(afterShutdown.isDone());
+    }
+
+    @Test
+    public void testRequestsRacingShutdownAreCompleted() throws InterruptedException {
+        List<IndexRefreshToken> tokens = new CopyOnWriteArrayList<>();
+        CountDownLatch requesting = new CountDownLatch(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    indexRefreshTracker.pushChange("a");
+                    tokens.add(indexRefreshScheduler.requestRefresh());
+                    if (j == 10) {
+                        requesting.countDown();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        assertTrue(requesting.await(10, TimeUnit.SECONDS));
+        indexRefreshScheduler.shutdown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (IndexRefreshToken token : tokens) {
+            assertTrue(token.await(10, TimeUnit.SECONDS));
+        }
+    }
+}
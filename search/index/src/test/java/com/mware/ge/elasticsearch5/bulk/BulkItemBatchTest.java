@@ -0,0 +1,94 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.elasticsearch5.bulk;
+
+import com.mware.ge.ElementId;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BulkItemBatchTest {
+    private final BulkItemBatch batch = new BulkItemBatch(100, 1024 * 1024, Duration.ofSeconds(1), null);
+
+    @Test
+    public void testUpdatesOfSameDocumentAreCoalesced() {
+        assertTrue(batch.add(update("v1")));
+        assertTrue(batch.add(update("v2")));
+        assertTrue(batch.add(update("v1")));
+
+        List<BulkItem<?>> items = batch.getItemsAndClear();
+        assertEquals(2, items.size());
+        assertEquals("v1", items.get(0).getDocumentId());
+        assertEquals(2, items.get(0).getItems().size());
+        assertEquals("v2", items.get(1).getDocumentId());
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void testDeleteAfterUpdateOfSameDocumentRequiresNewBatch() {
+        assertTrue(batch.add(update("v1")));
+        assertFalse(batch.add(delete("v1")));
+        assertTrue(batch.add(delete("v2")));
+
+        assertEquals(2, batch.getItemsAndClear().size());
+        assertTrue(batch.add(delete("v1")));
+        assertFalse(batch.add(update("v1")));
+    }
+
+    private static UpdateItem update(String id) {
+        return new UpdateItem(
+                "index",
+                "type",
+                id,
+                ElementId.vertex(id),
+                null,
+                Collections.emptyMap(),
+                Collections.singletonMap("field", "value"),
+                Collections.emptyList(),
+                Collections.emptyMap(),
+                true
+        );
+    }
+
+    private static DeleteItem delete(String id) {
+        return new DeleteItem("index", "type", id, ElementId.vertex(id));
+    }
+}
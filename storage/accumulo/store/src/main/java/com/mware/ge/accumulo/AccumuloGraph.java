@@ -56,6 +56,7 @@ import com.mware.ge.accumulo.util.GeTabletServerBatchReader;
 import com.mware.ge.accumulo.util.RangeUtils;
 import com.mware.ge.accumulo.util.SnappyUtils;
 import com.mware.ge.event.GraphEvent;
+import com.mware.ge.query.QueryBase;
 import com.mware.ge.security.ColumnVisibility;
 import com.mware.ge.serializer.GeSerializer;
 import com.mware.ge.store.*;
@@ -90,6 +91,7 @@ import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.mware.ge.util.IterableUtils.toList;
@@ -555,9 +557,39 @@ public class AccumuloGraph extends AbstractStorableGraph<StorableVertex, Storabl
             String tableName,
             FetchHints fetchHints,
             Authorizations authorizations
+    ) {
+        return translateSecurityException(
+                elementIdsArg,
+                tableName,
+                authorizations,
+                () -> super.getExtendedDataForElements(elementIdsArg, tableName, fetchHints, authorizations)
+        );
+    }
+
+    @Override
+    public Iterable<ExtendedDataRow> getExtendedDataForElements(
+            Iterable<? extends ElementId> elementIdsArg,
+            String tableName,
+            FetchHints fetchHints,
+            Iterable<QueryBase.HasValueContainer> filters,
+            Authorizations authorizations
+    ) {
+        return translateSecurityException(
+                elementIdsArg,
+                tableName,
+                authorizations,
+                () -> super.getExtendedDataForElements(elementIdsArg, tableName, fetchHints, filters, authorizations)
+        );
+    }
+
+    private Iterable<ExtendedDataRow> translateSecurityException(
+            Iterable<? extends ElementId> elementIdsArg,
+            String tableName,
+            Authorizations authorizations,
+            Supplier<Iterable<ExtendedDataRow>> getExtendedData
     ) {
         try {
-            return super.getExtendedDataForElements(elementIdsArg, tableName, fetchHints, authorizations);
+            return getExtendedData.get();
         } catch (RuntimeException ex) {
             if (ex.getCause() instanceof AccumuloSecurityException) {
                 throw new SecurityGeException("Could not get extended data " + Joiner.on(", ").join(toList(elementIdsArg)) + ":" + tableName + " with authorizations: " + authorizations, authorizations, ex.getCause());
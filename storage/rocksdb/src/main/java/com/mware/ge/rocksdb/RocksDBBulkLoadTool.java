@@ -0,0 +1,140 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.rocksdb;
+
+import com.beust.jcommander.Parameter;
+import com.mware.core.config.Configuration;
+import com.mware.ge.GeException;
+import com.mware.ge.Graph;
+import com.mware.ge.GraphFactory;
+import com.mware.ge.Visibility;
+import com.mware.ge.tools.GraphToolBase;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads vertex and edge CSV files into a {@link RocksDBGraph}, see {@link RocksDBBulkLoader}.
+ */
+public class RocksDBBulkLoadTool extends GraphToolBase {
+    @Parameter(names = {"--nodes", "-n"}, description = "Vertex CSV file, may be repeated")
+    private List<String> nodeFiles = new ArrayList<>();
+
+    @Parameter(names = {"--relationships", "-r"}, description = "Edge CSV file, may be repeated")
+    private List<String> relationshipFiles = new ArrayList<>();
+
+    @Parameter(names = {"--delimiter"}, description = "Field delimiter")
+    private String delimiter = ",";
+
+    @Parameter(names = {"--visibility"}, description = "Visibility of the loaded elements and properties")
+    private String visibility = "";
+
+    @Parameter(names = {"--threads", "-t"}, description = "Number of chunks parsed in parallel")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names = {"--workDir"}, description = "Folder for the intermediate SST files, defaults to a temporary folder")
+    private String workDir = null;
+
+    @Parameter(names = {"--compact"}, description = "Compact the tables after loading")
+    private boolean compact = false;
+
+    @Parameter(names = {"--noReindex"}, description = "Don't reindex the graph after loading")
+    private boolean noReindex = false;
+
+    public static void main(String[] args) throws Exception {
+        RocksDBBulkLoadTool tool = new RocksDBBulkLoadTool();
+        tool.run(args);
+    }
+
+    @Override
+    protected void run(String[] args) throws Exception {
+        Configuration configuration = loadConfiguration(args);
+        if (delimiter.length() != 1) {
+            throw new GeException("Delimiter must be a single character: " + delimiter);
+        }
+        boolean tempWorkDir = workDir == null;
+        Path sstDir = tempWorkDir ? Files.createTempDirectory("ge-bulk-load") : Paths.get(workDir);
+        try {
+            load(configuration, sstDir);
+        } finally {
+            if (tempWorkDir) {
+                FileUtils.deleteQuietly(sstDir.toFile());
+            }
+        }
+    }
+
+    private void load(Configuration configuration, Path sstDir) throws Exception {
+        long startTime = System.currentTimeMillis();
+        Graph graph = new GraphFactory().createGraph(configuration);
+        try {
+            if (!(graph instanceof RocksDBGraph)) {
+                throw new GeException("Bulk loading requires a " + RocksDBGraph.class.getName() + " found " + graph.getClass().getName());
+            }
+            RocksDBGraph rocksDBGraph = (RocksDBGraph) graph;
+            RocksDBBulkLoader loader = new RocksDBBulkLoader(rocksDBGraph, sstDir, threads, delimiter.charAt(0), new Visibility(visibility));
+            long vertexCount = 0;
+            for (String file : nodeFiles) {
+                vertexCount += loader.loadVertices(new File(file));
+            }
+            long edgeCount = 0;
+            for (String file : relationshipFiles) {
+                edgeCount += loader.loadEdges(new File(file));
+            }
+            long loadTime = Math.max(1, System.currentTimeMillis() - startTime);
+            System.out.println("Loaded " + vertexCount + " vertices and " + edgeCount + " edges ("
+                    + loadTime + "ms, " + ((vertexCount + edgeCount) * 1000 / loadTime) + " rows/s)");
+
+            if (compact) {
+                rocksDBGraph.getRocksDBStore().compact(rocksDBGraph.getVerticesTableName());
+                rocksDBGraph.getRocksDBStore().compact(rocksDBGraph.getEdgesTableName());
+                rocksDBGraph.getRocksDBStore().compact(rocksDBGraph.getExtendedDataTableName());
+                System.out.println("Compaction complete (" + (System.currentTimeMillis() - startTime) + "ms)");
+            }
+            if (!noReindex) {
+                graph.reindex(getAuthorizations());
+                System.out.println("Reindexing complete (" + (System.currentTimeMillis() - startTime) + "ms)");
+            }
+        } finally {
+            graph.shutdown();
+        }
+    }
+}
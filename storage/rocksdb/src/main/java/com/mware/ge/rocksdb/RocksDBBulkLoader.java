@@ -0,0 +1,421 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.rocksdb;
+
+import com.mware.core.model.schema.SchemaConstants;
+import com.mware.ge.*;
+import com.mware.ge.csv.*;
+import com.mware.ge.id.NameSubstitutionStrategy;
+import com.mware.ge.store.StoreValue;
+import com.mware.ge.store.kv.KVKeyUtils;
+import com.mware.ge.store.mutations.ElementMutationBuilder;
+import com.mware.ge.store.mutations.StoreColumnUpdate;
+import com.mware.ge.store.mutations.StoreMutation;
+import com.mware.ge.util.Bytes;
+import com.mware.ge.util.GeLogger;
+import com.mware.ge.util.GeLoggerFactory;
+import com.mware.ge.util.IncreasingTime;
+import com.mware.ge.values.storable.Value;
+import com.mware.ge.values.storable.Values;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Loads CSV files into a {@link RocksDBGraph} without going through the mutation API.
+ * <p>
+ * Each file is split into chunks on line boundaries which are parsed on a pool of threads. The rows are turned into
+ * the same store mutations the graph writes for a new vertex or edge, and each chunk is written as one sorted SST
+ * file per table. The SST files are ingested in the order of their chunks, so a row later in the input wins over an
+ * earlier row with the same id. Nothing is sent to the search index, the graph has to be reindexed after loading.
+ * <p>
+ * The first line of a file is its header. Vertex files require an <code>:ID</code> column and may have a
+ * <code>:LABEL</code> column with the concept type. Edge files require <code>:START_ID</code>,
+ * <code>:END_ID</code> and <code>:TYPE</code> columns and may have an <code>:ID</code> column. Every other column
+ * is a property, typed with an optional suffix: <code>name:int</code>, <code>name:long</code>,
+ * <code>name:double</code>, <code>name:float</code>, <code>name:boolean</code> or <code>name:string</code>, the
+ * default. Empty values are skipped.
+ */
+public class RocksDBBulkLoader {
+    private static final GeLogger LOGGER = GeLoggerFactory.getLogger(RocksDBBulkLoader.class);
+    private static final String ID_COLUMN = ":ID";
+    private static final String LABEL_COLUMN = ":LABEL";
+    private static final String START_ID_COLUMN = ":START_ID";
+    private static final String END_ID_COLUMN = ":END_ID";
+    private static final String TYPE_COLUMN = ":TYPE";
+    private final RocksDBGraph graph;
+    private final Path workDir;
+    private final int threadCount;
+    private final char delimiter;
+    private final Visibility visibility;
+    private final com.mware.ge.csv.Configuration csvConfig = com.mware.ge.csv.Configuration.DEFAULT;
+    private int fileIndex;
+
+    public RocksDBBulkLoader(RocksDBGraph graph, Path workDir, int threadCount, char delimiter, Visibility visibility) {
+        this.graph = graph;
+        this.workDir = workDir;
+        this.threadCount = threadCount;
+        this.delimiter = delimiter;
+        this.visibility = visibility;
+    }
+
+    /**
+     * @return the number of vertices loaded
+     */
+    public long loadVertices(File file) throws IOException {
+        return load(file, ElementType.VERTEX);
+    }
+
+    /**
+     * @return the number of edges loaded
+     */
+    public long loadEdges(File file) throws IOException {
+        return load(file, ElementType.EDGE);
+    }
+
+    private long load(File file, ElementType elementType) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Header header = readHeader(file, elementType);
+        long timestamp = IncreasingTime.currentTimeMillis();
+        Path fileWorkDir = workDir.resolve(String.format("%08d", fileIndex++));
+        Files.createDirectories(fileWorkDir);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("ge-rocksdb-bulkLoad-" + thread.getId());
+            return thread;
+        });
+        // bounds the number of chunks held in memory
+        Semaphore chunksInFlight = new Semaphore(threadCount * 2);
+        List<Future<ChunkResult>> futures = new ArrayList<>();
+        try (Chunker chunker = new ClosestNewLineChunker(Readables.files(StandardCharsets.UTF_8, file), csvConfig.bufferSize())) {
+            while (true) {
+                chunksInFlight.acquire();
+                Source.Chunk chunk = chunker.newChunk();
+                if (!chunker.nextChunk(chunk)) {
+                    chunksInFlight.release();
+                    break;
+                }
+                int chunkIndex = futures.size();
+                futures.add(executorService.submit(() -> {
+                    try {
+                        return processChunk(fileWorkDir, chunkIndex, chunk, header, timestamp);
+                    } finally {
+                        chunksInFlight.release();
+                    }
+                }));
+            }
+
+            long rows = 0;
+            Map<String, List<String>> sstFilesByTable = new LinkedHashMap<>();
+            for (Future<ChunkResult> future : futures) {
+                ChunkResult result = future.get();
+                rows += result.rows;
+                result.sstFilesByTable.forEach((table, sstFile) ->
+                        sstFilesByTable.computeIfAbsent(table, t -> new ArrayList<>()).add(sstFile));
+            }
+            for (Map.Entry<String, List<String>> entry : sstFilesByTable.entrySet()) {
+                graph.getRocksDBStore().ingest(entry.getKey(), entry.getValue());
+            }
+            LOGGER.info(
+                    "loaded %d %s rows from %s in %d chunks (%dms)",
+                    rows, elementType, file, futures.size(), System.currentTimeMillis() - startTime
+            );
+            return rows;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GeException("Interrupted while loading " + file, ex);
+        } catch (ExecutionException ex) {
+            throw new GeException("Could not load " + file, ex.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private ChunkResult processChunk(Path fileWorkDir, int chunkIndex, Source.Chunk chunk, Header header, long timestamp) throws IOException {
+        CapturingElementMutationBuilder mutationBuilder = new CapturingElementMutationBuilder(graph);
+        Extractor<String> extractor = new Extractors(';').string();
+        Mark mark = new Mark();
+        List<String> row = new ArrayList<>(header.columns.size());
+        long rows = 0;
+        boolean skipHeader = chunkIndex == 0;
+        try (CharSeeker seeker = new BufferedCharSeeker(Source.singleChunk(chunk), csvConfig)) {
+            while (seeker.seek(mark, delimiter)) {
+                row.add(seeker.tryExtract(mark, extractor) ? extractor.value() : null);
+                if (!mark.isEndOfLine()) {
+                    continue;
+                }
+                if (skipHeader) {
+                    skipHeader = false;
+                } else if (row.size() > 1 || row.get(0) != null) {
+                    addRow(mutationBuilder, header, row, timestamp, chunk.sourceDescription());
+                    rows++;
+                }
+                row.clear();
+            }
+        }
+
+        Map<String, String> sstFilesByTable = new HashMap<>();
+        for (Map.Entry<String, List<byte[][]>> entry : mutationBuilder.entriesByTable.entrySet()) {
+            Path sstFile = fileWorkDir.resolve(entry.getKey() + "-" + String.format("%08d", chunkIndex) + ".sst");
+            writeSstFile(sstFile, entry.getValue());
+            sstFilesByTable.put(entry.getKey(), sstFile.toString());
+        }
+        return new ChunkResult(rows, sstFilesByTable);
+    }
+
+    private void addRow(CapturingElementMutationBuilder mutationBuilder, Header header, List<String> row, long timestamp, String source) {
+        ElementBuilder<?> elementBuilder;
+        if (header.elementType == ElementType.VERTEX) {
+            String id = getRequired(header, row, ID_COLUMN, source);
+            String conceptType = header.get(row, LABEL_COLUMN);
+            elementBuilder = graph.prepareVertex(
+                    id,
+                    timestamp,
+                    visibility,
+                    conceptType == null ? SchemaConstants.CONCEPT_TYPE_THING : conceptType
+            );
+        } else {
+            String id = header.get(row, ID_COLUMN);
+            elementBuilder = graph.prepareEdge(
+                    id == null ? graph.getIdGenerator().nextId() : id,
+                    getRequired(header, row, START_ID_COLUMN, source),
+                    getRequired(header, row, END_ID_COLUMN, source),
+                    getRequired(header, row, TYPE_COLUMN, source),
+                    timestamp,
+                    visibility
+            );
+        }
+
+        for (int i = 0; i < header.columns.size() && i < row.size(); i++) {
+            Column column = header.columns.get(i);
+            String value = row.get(i);
+            if (column.isProperty() && value != null && !value.isEmpty()) {
+                elementBuilder.setProperty(column.name, column.toValue(value), visibility);
+            }
+        }
+
+        if (elementBuilder instanceof VertexBuilder) {
+            mutationBuilder.saveVertexBuilder(graph, (VertexBuilder) elementBuilder, timestamp);
+        } else {
+            mutationBuilder.saveEdgeBuilder(graph, (EdgeBuilderBase) elementBuilder, timestamp);
+        }
+    }
+
+    private static String getRequired(Header header, List<String> row, String columnName, String source) {
+        String value = header.get(row, columnName);
+        if (value == null || value.isEmpty()) {
+            throw new GeException("Missing " + columnName + " value in " + source + ": " + row);
+        }
+        return value;
+    }
+
+    private static void writeSstFile(Path sstFile, List<byte[][]> entries) throws IOException {
+        // keys must be written in order and only once, the stable sort keeps the last write of a key last
+        entries.sort((e1, e2) -> Bytes.compare(e1[0], e2[0]));
+        try (EnvOptions envOptions = new EnvOptions();
+             Options options = new Options();
+             SstFileWriter writer = new SstFileWriter(envOptions, options)) {
+            writer.open(sstFile.toString());
+            for (int i = 0; i < entries.size(); i++) {
+                byte[][] entry = entries.get(i);
+                if (i + 1 < entries.size() && Bytes.equals(entry[0], entries.get(i + 1)[0])) {
+                    continue;
+                }
+                writer.put(entry[0], entry[1]);
+            }
+            writer.finish();
+        } catch (RocksDBException ex) {
+            throw new IOException("Could not write " + sstFile, ex);
+        }
+    }
+
+    private Header readHeader(File file, ElementType elementType) throws IOException {
+        String line;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            line = reader.readLine();
+        }
+        if (line == null) {
+            throw new GeException("Missing header in " + file);
+        }
+        List<Column> columns = new ArrayList<>();
+        for (String column : line.split(java.util.regex.Pattern.quote(String.valueOf(delimiter)), -1)) {
+            columns.add(new Column(column.trim()));
+        }
+        Header header = new Header(elementType, columns);
+        List<String> required = elementType == ElementType.VERTEX
+                ? Collections.singletonList(ID_COLUMN)
+                : Arrays.asList(START_ID_COLUMN, END_ID_COLUMN, TYPE_COLUMN);
+        for (String columnName : required) {
+            if (header.indexOf(columnName) < 0) {
+                throw new GeException("Missing " + columnName + " column in " + file);
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Collects the key/values the graph would write for the saved element builders.
+     */
+    private static class CapturingElementMutationBuilder extends ElementMutationBuilder {
+        private final RocksDBGraph rocksDBGraph;
+        private final Map<String, List<byte[][]>> entriesByTable = new HashMap<>();
+
+        CapturingElementMutationBuilder(RocksDBGraph graph) {
+            super(graph.getStreamingPropertyValueStorageStrategy(), graph, graph.getGeSerializer());
+            this.rocksDBGraph = graph;
+        }
+
+        @Override
+        protected void saveVertexMutation(StoreMutation m) {
+            add(rocksDBGraph.getVerticesTableName(), m);
+        }
+
+        @Override
+        protected void saveEdgeMutation(StoreMutation m) {
+            add(rocksDBGraph.getEdgesTableName(), m);
+        }
+
+        @Override
+        protected void saveExtendedDataMutation(ElementType elementType, StoreMutation m) {
+            add(rocksDBGraph.getExtendedDataTableName(), m);
+        }
+
+        @Override
+        public void saveDataMutation(StoreMutation dataMutation) {
+            throw new GeNotSupportedException("Streaming data is not supported by the bulk loader");
+        }
+
+        @Override
+        protected NameSubstitutionStrategy getNameSubstitutionStrategy() {
+            return rocksDBGraph.getNameSubstitutionStrategy();
+        }
+
+        private void add(String tableName, StoreMutation m) {
+            List<byte[][]> entries = entriesByTable.computeIfAbsent(tableName, t -> new ArrayList<>());
+            for (StoreColumnUpdate u : m.getUpdates()) {
+                if (u.isDeleted()) {
+                    continue;
+                }
+                byte[] key = KVKeyUtils.keyFromMutation(m, u.getColumnFamily(), u.getColumnQualifier(), u.getColumnVisibility()).array();
+                long ts = u.getTimestamp() == 0L ? IncreasingTime.currentTimeMillis() : u.getTimestamp();
+                entries.add(new byte[][]{key, new StoreValue(ts, u.getValue()).serialize()});
+            }
+        }
+    }
+
+    private static class Header {
+        private final ElementType elementType;
+        private final List<Column> columns;
+
+        Header(ElementType elementType, List<Column> columns) {
+            this.elementType = elementType;
+            this.columns = columns;
+        }
+
+        int indexOf(String columnName) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).spec.equals(columnName)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        String get(List<String> row, String columnName) {
+            int i = indexOf(columnName);
+            return i < 0 || i >= row.size() ? null : row.get(i);
+        }
+    }
+
+    private static class Column {
+        private final String spec;
+        private final String name;
+        private final String type;
+
+        Column(String spec) {
+            this.spec = spec;
+            int i = spec.lastIndexOf(':');
+            this.name = i < 0 ? spec : spec.substring(0, i);
+            this.type = i < 0 ? "string" : spec.substring(i + 1).toLowerCase();
+        }
+
+        boolean isProperty() {
+            return !spec.startsWith(":");
+        }
+
+        Value toValue(String value) {
+            switch (type) {
+                case "string":
+                    return Values.stringValue(value);
+                case "int":
+                    return Values.intValue(Integer.parseInt(value));
+                case "long":
+                    return Values.longValue(Long.parseLong(value));
+                case "double":
+                    return Values.doubleValue(Double.parseDouble(value));
+                case "float":
+                    return Values.floatValue(Float.parseFloat(value));
+                case "boolean":
+                    return Values.booleanValue(Boolean.parseBoolean(value));
+                default:
+                    throw new GeException("Unsupported type '" + type + "' of column " + spec);
+            }
+        }
+    }
+
+    private static class ChunkResult {
+        private final long rows;
+        private final Map<String, String> sstFilesByTable;
+
+        ChunkResult(long rows, Map<String, String> sstFilesByTable) {
+            this.rows = rows;
+            this.sstFilesByTable = sstFilesByTable;
+        }
+    }
+}
@@ -38,11 +38,13 @@ package com.mware.ge.rocksdb;
 
 import com.mware.ge.Authorizations;
 import com.mware.ge.Element;
+import com.mware.ge.GeException;
 import com.mware.ge.HistoricalPropertyValue;
 import com.mware.ge.Visibility;
 import com.mware.ge.store.kv.KVMetadataStore;
 import com.mware.ge.store.kv.KVStore;
 import com.mware.ge.store.kv.KVStoreGraph;
+import com.mware.ge.store.kv.MeteredKVStore;
 import com.mware.ge.util.GeLogger;
 import com.mware.ge.util.GeLoggerFactory;
 
@@ -66,19 +68,31 @@ public class RocksDBGraph extends KVStoreGraph {
         return new RocksDBStore(this);
     }
 
-    @Override
-    protected long getRowCountFromTable(String tableName, String signalColumn, Authorizations authorizations) {
-        throw new UnsupportedOperationException();
-    }
-
     @Override
     public Iterable<HistoricalPropertyValue> getHistoricalPropertyValues(Element element, String key, String name, Visibility visibility, Long startTime, Long endTime, Authorizations authorizations) {
         throw new UnsupportedOperationException("Historical properties not supported with RocksDB");
     }
 
+    /**
+     * @see RocksDBStore#createCheckpoint(String)
+     */
+    public void createCheckpoint(String path) {
+        getRocksDBStore().createCheckpoint(path);
+    }
+
+    public RocksDBStore getRocksDBStore() {
+        return (RocksDBStore) ((MeteredKVStore) kvStore).getStore();
+    }
+
     @Override
     public void shutdown() {
         super.shutdown();
+        this.streamingPropertyValueStorageStrategy.close();
+        try {
+            kvStore.close();
+        } catch (Exception ex) {
+            throw new GeException("Could not close store", ex);
+        }
     }
 
     @Override
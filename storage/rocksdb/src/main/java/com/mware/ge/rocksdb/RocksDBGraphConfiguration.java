@@ -64,4 +64,32 @@ public class RocksDBGraphConfiguration extends StorableGraphConfiguration {
     public String getLogLevel() {
         return get(RocksDBOptions.LOG_LEVEL);
     }
+
+    public long getBlockCacheSize() {
+        return get(RocksDBOptions.BLOCK_CACHE_SIZE);
+    }
+
+    public int getBloomFilterBitsPerKey() {
+        return get(RocksDBOptions.BLOOM_FILTER_BITS_PER_KEY);
+    }
+
+    public int getPrefixLength() {
+        return get(RocksDBOptions.PREFIX_LENGTH);
+    }
+
+    public boolean isPartitionFilters() {
+        return get(RocksDBOptions.PARTITION_FILTERS);
+    }
+
+    public boolean isCacheIndexAndFilterBlocks() {
+        return get(RocksDBOptions.CACHE_INDEX_AND_FILTER_BLOCKS);
+    }
+
+    public boolean isPinL0FilterAndIndexBlocks() {
+        return get(RocksDBOptions.PIN_L0_FILTER_AND_INDEX_BLOCKS);
+    }
+
+    public boolean isStatistics() {
+        return get(RocksDBOptions.STATISTICS);
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.rocksdb;
+
+import com.mware.ge.metric.GeMetricRegistry;
+import org.rocksdb.HistogramData;
+import org.rocksdb.HistogramType;
+import org.rocksdb.Statistics;
+import org.rocksdb.TickerType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the internals of a {@link RocksDBStore} as gauges: the {@link Statistics} tickers and histograms when
+ * statistics are enabled and the properties of each table. The values are read from RocksDB when the gauges are
+ * reported, nothing is added to the read or write path besides what RocksDB itself records.
+ */
+class RocksDBMetrics {
+    private static final List<String> TABLE_PROPERTIES = Arrays.asList(
+            "rocksdb.estimate-num-keys",
+            "rocksdb.estimate-live-data-size",
+            "rocksdb.estimate-pending-compaction-bytes",
+            "rocksdb.estimate-table-readers-mem",
+            "rocksdb.total-sst-files-size",
+            "rocksdb.num-files-at-level0",
+            "rocksdb.cur-size-all-mem-tables",
+            "rocksdb.size-all-mem-tables",
+            "rocksdb.num-immutable-mem-table",
+            "rocksdb.mem-table-flush-pending",
+            "rocksdb.compaction-pending",
+            "rocksdb.num-running-compactions",
+            "rocksdb.num-running-flushes",
+            "rocksdb.is-write-stopped",
+            "rocksdb.actual-delayed-write-rate"
+    );
+    private static final List<String> DB_PROPERTIES = Arrays.asList(
+            "rocksdb.block-cache-capacity",
+            "rocksdb.block-cache-usage",
+            "rocksdb.block-cache-pinned-usage"
+    );
+    private static final List<HistogramType> HISTOGRAMS = Arrays.asList(
+            HistogramType.DB_GET,
+            HistogramType.DB_WRITE,
+            HistogramType.DB_SEEK,
+            HistogramType.WRITE_STALL,
+            HistogramType.SST_READ_MICROS,
+            HistogramType.WAL_FILE_SYNC_MICROS,
+            HistogramType.COMPACTION_TIME,
+            HistogramType.FLUSH_TIME,
+            HistogramType.NUM_FILES_IN_SINGLE_COMPACTION,
+            HistogramType.BYTES_PER_READ,
+            HistogramType.BYTES_PER_WRITE
+    );
+
+    private final RocksDBStore store;
+    private final GeMetricRegistry metricRegistry;
+
+    RocksDBMetrics(RocksDBStore store, GeMetricRegistry metricRegistry) {
+        this.store = store;
+        this.metricRegistry = metricRegistry;
+    }
+
+    void register(List<String> tables) {
+        for (String table : tables) {
+            for (String property : TABLE_PROPERTIES) {
+                registerGauge(() -> store.getLongProperty(table, property), table, propertyName(property));
+            }
+        }
+        for (String property : DB_PROPERTIES) {
+            registerGauge(() -> store.getLongProperty(null, property), propertyName(property));
+        }
+
+        // the statistics are looked up on every read, the ones of a closed store are freed
+        if (store.getStatistics() == null) {
+            return;
+        }
+        for (TickerType tickerType : TickerType.values()) {
+            if (tickerType == TickerType.TICKER_ENUM_MAX || tickerType.name().startsWith("BLOB_DB_")) {
+                continue;
+            }
+            registerGauge(() -> readStatistics(statistics -> statistics.getTickerCount(tickerType)), "ticker", tickerType.name());
+        }
+        registerGauge(() -> hitRatio(TickerType.BLOCK_CACHE_HIT, TickerType.BLOCK_CACHE_MISS), "blockCache", "hitRatio");
+        registerGauge(() -> hitRatio(TickerType.BLOCK_CACHE_INDEX_HIT, TickerType.BLOCK_CACHE_INDEX_MISS), "blockCache", "index", "hitRatio");
+        registerGauge(() -> hitRatio(TickerType.BLOCK_CACHE_FILTER_HIT, TickerType.BLOCK_CACHE_FILTER_MISS), "blockCache", "filter", "hitRatio");
+        registerGauge(() -> hitRatio(TickerType.BLOCK_CACHE_DATA_HIT, TickerType.BLOCK_CACHE_DATA_MISS), "blockCache", "data", "hitRatio");
+        registerGauge(() -> hitRatio(TickerType.MEMTABLE_HIT, TickerType.MEMTABLE_MISS), "memtable", "hitRatio");
+
+        for (HistogramType histogramType : HISTOGRAMS) {
+            registerHistogram(histogramType, "p50", HistogramData::getMedian);
+            registerHistogram(histogramType, "p95", HistogramData::getPercentile95);
+            registerHistogram(histogramType, "p99", HistogramData::getPercentile99);
+            registerHistogram(histogramType, "max", HistogramData::getMax);
+            registerHistogram(histogramType, "count", data -> data.getCount());
+        }
+    }
+
+    private void registerHistogram(HistogramType histogramType, String name, ToDoubleFunction<HistogramData> value) {
+        registerGauge(
+                () -> readStatistics(statistics -> value.applyAsDouble(statistics.getHistogramData(histogramType))),
+                "histogram", histogramType.name(), name
+        );
+    }
+
+    private Double hitRatio(TickerType hitTicker, TickerType missTicker) {
+        return readStatistics(statistics -> {
+            long hits = statistics.getTickerCount(hitTicker);
+            long total = hits + statistics.getTickerCount(missTicker);
+            return total == 0 ? null : (double) hits / total;
+        });
+    }
+
+    /**
+     * Applies the reader to the statistics of the store, or returns null when the store is closed.
+     */
+    private <T> T readStatistics(Function<Statistics, T> reader) {
+        return store.readIfOpen(() -> {
+            Statistics statistics = store.getStatistics();
+            return statistics == null ? null : reader.apply(statistics);
+        });
+    }
+
+    private <T> void registerGauge(Supplier<T> supplier, String... nameParts) {
+        metricRegistry.getGauge(metricRegistry.createName(RocksDBStore.class, nameParts), supplier);
+    }
+
+    private static String propertyName(String property) {
+        return property.substring("rocksdb.".length());
+    }
+}
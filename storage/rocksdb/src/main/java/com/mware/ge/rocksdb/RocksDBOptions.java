@@ -4,6 +4,8 @@ import com.mware.core.config.ConfigOption;
 import com.mware.core.config.OptionHolder;
 
 import static com.mware.core.config.OptionChecker.disallowEmpty;
+import static com.mware.core.config.OptionChecker.nonNegativeInt;
+import static com.mware.core.config.OptionChecker.positiveInt;
 
 public class RocksDBOptions extends OptionHolder {
     public static final ConfigOption<String> DATA_PATH = new ConfigOption<>(
@@ -44,6 +46,62 @@ public class RocksDBOptions extends OptionHolder {
             false
     );
 
+    public static final ConfigOption<Long> BLOCK_CACHE_SIZE = new ConfigOption<>(
+            "graph.blockCacheSize",
+            "Size in bytes of the block cache shared by all RocksDB tables",
+            positiveInt(),
+            Long.class,
+            256L * 1024 * 1024
+    );
+
+    public static final ConfigOption<Integer> BLOOM_FILTER_BITS_PER_KEY = new ConfigOption<>(
+            "graph.bloomFilterBitsPerKey",
+            "Bits per key of the RocksDB bloom filters, 0 disables them",
+            nonNegativeInt(),
+            Integer.class,
+            10
+    );
+
+    public static final ConfigOption<Integer> PREFIX_LENGTH = new ConfigOption<>(
+            "graph.prefixLength",
+            "Length of the key prefix RocksDB builds prefix bloom filters on. Row scans with a prefix at least this long use prefix seek, 0 disables it",
+            nonNegativeInt(),
+            Integer.class,
+            8
+    );
+
+    public static final ConfigOption<Boolean> PARTITION_FILTERS = new ConfigOption<>(
+            "graph.partitionFilters",
+            "Partition the RocksDB index and filter blocks so only the partitions in use are cached",
+            disallowEmpty(),
+            Boolean.class,
+            true
+    );
+
+    public static final ConfigOption<Boolean> CACHE_INDEX_AND_FILTER_BLOCKS = new ConfigOption<>(
+            "graph.cacheIndexAndFilterBlocks",
+            "Keep the RocksDB index and filter blocks in the block cache instead of on the heap of each table reader",
+            disallowEmpty(),
+            Boolean.class,
+            true
+    );
+
+    public static final ConfigOption<Boolean> PIN_L0_FILTER_AND_INDEX_BLOCKS = new ConfigOption<>(
+            "graph.pinL0FilterAndIndexBlocks",
+            "Pin the index and filter blocks of the level 0 files in the block cache",
+            disallowEmpty(),
+            Boolean.class,
+            true
+    );
+
+    public static final ConfigOption<Boolean> STATISTICS = new ConfigOption<>(
+            "graph.statistics",
+            "Collect RocksDB statistics and publish them with the graph metrics",
+            disallowEmpty(),
+            Boolean.class,
+            true
+    );
+
     private RocksDBOptions() {
         super();
     }
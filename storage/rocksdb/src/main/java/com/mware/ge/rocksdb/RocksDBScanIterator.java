@@ -38,6 +38,7 @@ package com.mware.ge.rocksdb;
 
 import com.mware.ge.GeException;
 import com.mware.ge.collection.Pair;
+import com.mware.ge.store.kv.ScanFilter;
 import com.mware.ge.store.kv.ScanIterator;
 import com.mware.ge.util.Bytes;
 import com.mware.ge.util.Preconditions;
@@ -54,16 +55,25 @@ public class RocksDBScanIterator implements ScanIterator {
     private final byte[] keyBegin;
     private final byte[] keyEnd;
     private final int scanType;
+    private final ScanFilter scanFilter;
 
     private byte[] position;
     private boolean matched;
 
     public RocksDBScanIterator(RocksIterator iter, byte[] keyBegin, byte[] keyEnd, int scanType) {
+        this(iter, keyBegin, keyEnd, scanType, null);
+    }
+
+    /**
+     * @param scanFilter skips the keys it rejects before their values are read, may be null
+     */
+    public RocksDBScanIterator(RocksIterator iter, byte[] keyBegin, byte[] keyEnd, int scanType, ScanFilter scanFilter) {
         Preconditions.checkNotNull(iter, "iter");
         this.iter = iter;
         this.keyBegin = keyBegin;
         this.keyEnd = keyEnd;
         this.scanType = scanType;
+        this.scanFilter = scanFilter;
 
         this.position = keyBegin;
         this.matched = false;
@@ -83,14 +93,20 @@ public class RocksDBScanIterator implements ScanIterator {
             return this.matched;
         }
 
-        this.matched = this.iter.isValid();
-        if (this.matched) {
+        while (this.matched = this.iter.isValid()) {
             // Update position for paging
             this.position = this.iter.key();
             // Do filter if not SCAN_ANY
             if (!this.match(SCAN_ANY)) {
                 this.matched = this.filter(this.position);
+                if (!this.matched) {
+                    break;
+                }
             }
+            if (this.scanFilter == null || this.scanFilter.accept(this.position)) {
+                break;
+            }
+            this.iter.next();
         }
         if (!this.matched) {
             // The end
@@ -109,7 +125,7 @@ public class RocksDBScanIterator implements ScanIterator {
             }
         }
 
-        Pair<byte[], byte[]> col = Pair.of(this.iter.key(), this.iter.value());
+        Pair<byte[], byte[]> col = Pair.of(this.position, this.iter.value());
         this.iter.next();
         this.matched = false;
 
@@ -0,0 +1,442 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.rocksdb;
+
+import com.mware.core.config.options.GraphOptions;
+import com.mware.ge.GeException;
+import com.mware.ge.util.GeLogger;
+import com.mware.ge.util.GeLoggerFactory;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot backups of a {@link RocksDBGraph}.
+ * <p>
+ * A backup takes a RocksDB checkpoint of the live database and copies its files, together with the streaming
+ * property value folder, into the backup directory on a pool of threads, recording a CRC32C checksum of every file
+ * in the backup manifest. SST files are immutable, so they are stored once in a <code>shared</code> folder and an
+ * incremental backup only copies the SST files that are not part of the previous backup of the same database, as told
+ * by the RocksDB <code>IDENTITY</code> recorded in the manifest. Streaming property values that did not change since
+ * the previous backup are hard linked to its copy.
+ * <p>
+ * A restore verifies the checksums while it stages the files next to the data folders and then swaps the folders.
+ * SST files are hard linked from the backup, streaming property values are copied since they can be rewritten. The
+ * restored database gets a new identity, its file numbers restart from the backup and would clash with the SST files
+ * of later backups. The graph must not be open while restoring. The replaced folders are kept with a
+ * <code>.pre-restore-</code> suffix.
+ */
+public class RocksDBSnapshotBackup {
+    private static final GeLogger LOGGER = GeLoggerFactory.getLogger(RocksDBSnapshotBackup.class);
+    public static final String MANIFEST_FILE_NAME = "MANIFEST.json";
+    public static final String SHARED_DIR_NAME = "shared";
+    private static final DateTimeFormatter BACKUP_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss");
+    private static final String DB_ENTRY = "db";
+    private static final String SPV_ENTRY = "spv";
+    private static final String IDENTITY_FILE_NAME = "IDENTITY";
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private final Path backupRoot;
+    private final int threadCount;
+
+    public RocksDBSnapshotBackup(Path backupRoot, int threadCount) {
+        this.backupRoot = backupRoot;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * @param backupDir the backup folder or null for the <code>rocksdb-snapshots</code> folder in graph.backupDir
+     */
+    public static Path getBackupRoot(RocksDBGraphConfiguration config, String backupDir) {
+        return backupDir == null
+                ? Paths.get(config.get(GraphOptions.BACKUP_DIR), "rocksdb-snapshots")
+                : Paths.get(backupDir);
+    }
+
+    /**
+     * The graph may be in use, the database files are taken from a checkpoint.
+     *
+     * @param incremental true, to reuse the unchanged files of the latest backup.
+     * @return the name of the new backup
+     */
+    public String backup(RocksDBGraph graph, boolean incremental) throws IOException {
+        RocksDBGraphConfiguration config = (RocksDBGraphConfiguration) graph.getConfiguration();
+        String name = LocalDateTime.now().format(BACKUP_NAME_FORMATTER);
+        Path backupDir = backupRoot.resolve(name);
+        if (Files.exists(backupDir)) {
+            throw new GeException("Backup already exists: " + backupDir);
+        }
+        Files.createDirectories(backupRoot.resolve(SHARED_DIR_NAME));
+
+        String dbIdentity = readDbIdentity(Paths.get(config.getDataPath()));
+        Map<String, JSONObject> previousEntries = new HashMap<>();
+        String previousName = incremental ? getLatestBackupName() : null;
+        if (previousName != null) {
+            JSONObject previousManifest = readManifest(previousName);
+            boolean sameDb = dbIdentity != null && dbIdentity.equals(previousManifest.optString("dbIdentity", null));
+            for (JSONObject entry : getEntries(previousManifest)) {
+                // SST file numbers are only unique within one database, don't reuse the files of another one
+                if (sameDb || SPV_ENTRY.equals(entry.getString("type"))) {
+                    previousEntries.put(entry.getString("type") + "/" + entry.getString("name"), entry);
+                }
+            }
+            LOGGER.info("creating incremental backup %s based on %s%s", name, previousName, sameDb ? "" : " (different database, copying all SST files)");
+        }
+
+        Path checkpointDir = backupRoot.resolve(".checkpoint-" + name);
+        graph.createCheckpoint(checkpointDir.toString());
+        ExecutorService executorService = createExecutorService();
+        try {
+            List<Future<JSONObject>> futures = new ArrayList<>();
+            for (Path file : listFiles(checkpointDir)) {
+                String fileName = checkpointDir.relativize(file).toString();
+                JSONObject previous = previousEntries.get(DB_ENTRY + "/" + fileName);
+                futures.add(executorService.submit(() -> backupDbFile(backupDir, file, fileName, previous)));
+            }
+
+            Path spvFolder = Paths.get(config.get(GraphOptions.STREAMING_PROPERTY_VALUE_DATA_FOLDER));
+            if (Files.isDirectory(spvFolder)) {
+                for (Path file : listFiles(spvFolder)) {
+                    String fileName = spvFolder.relativize(file).toString();
+                    JSONObject previous = previousEntries.get(SPV_ENTRY + "/" + fileName);
+                    futures.add(executorService.submit(() -> backupSpvFile(backupDir, file, fileName, previous)));
+                }
+            }
+
+            JSONArray entries = new JSONArray();
+            long copiedBytes = 0;
+            long reusedBytes = 0;
+            for (Future<JSONObject> future : futures) {
+                JSONObject entry = getResult(future);
+                entries.put(entry);
+                if (entry.getBoolean("copied")) {
+                    copiedBytes += entry.getLong("size");
+                } else {
+                    reusedBytes += entry.getLong("size");
+                }
+                entry.remove("copied");
+            }
+
+            // the manifest is written last, a backup without one is incomplete
+            JSONObject manifest = new JSONObject();
+            manifest.put("created", System.currentTimeMillis());
+            manifest.put("previous", previousName == null ? JSONObject.NULL : previousName);
+            manifest.put("dbIdentity", dbIdentity == null ? JSONObject.NULL : dbIdentity);
+            manifest.put("files", entries);
+            Files.createDirectories(backupDir);
+            Files.write(backupDir.resolve(MANIFEST_FILE_NAME), manifest.toString(2).getBytes(StandardCharsets.UTF_8));
+            LOGGER.info("created backup %s with %d files (%d bytes copied, %d bytes reused)", name, entries.length(), copiedBytes, reusedBytes);
+            return name;
+        } finally {
+            executorService.shutdownNow();
+            deleteRecursively(checkpointDir);
+        }
+    }
+
+    private JSONObject backupDbFile(Path backupDir, Path file, String fileName, JSONObject previous) throws IOException {
+        long size = Files.size(file);
+        if (fileName.endsWith(".sst")) {
+            // SST file numbers are never reused within a database, the same name and size is the same file
+            if (previous != null && previous.getLong("size") == size) {
+                return createEntry(DB_ENTRY, fileName, previous.getString("stored"), size, previous.getLong("modified"), previous.getString("checksum"), false);
+            }
+            Path tmp = backupRoot.resolve(SHARED_DIR_NAME).resolve("." + UUID.randomUUID() + ".tmp");
+            String checksum = copy(file, tmp);
+            String stem = fileName.substring(0, fileName.length() - ".sst".length());
+            String stored = SHARED_DIR_NAME + "/" + stem + "_" + checksum + "_" + size + ".sst";
+            Files.move(tmp, backupRoot.resolve(stored), StandardCopyOption.REPLACE_EXISTING);
+            return createEntry(DB_ENTRY, fileName, stored, size, 0, checksum, true);
+        }
+        String stored = backupDir.getFileName() + "/" + DB_ENTRY + "/" + fileName;
+        String checksum = copy(file, backupRoot.resolve(stored));
+        return createEntry(DB_ENTRY, fileName, stored, size, 0, checksum, true);
+    }
+
+    private JSONObject backupSpvFile(Path backupDir, Path file, String fileName, JSONObject previous) throws IOException {
+        // streaming property values can be rewritten, so they are compared by size and modification time. The
+        // unchanged ones are linked to the copy of the previous backup, which is never linked into the live folder.
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        String stored = backupDir.getFileName() + "/" + SPV_ENTRY + "/" + fileName;
+        Path target = backupRoot.resolve(stored);
+        if (previous != null && previous.getLong("size") == size && previous.getLong("modified") == modified) {
+            Files.createDirectories(target.getParent());
+            if (link(backupRoot.resolve(previous.getString("stored")), target)) {
+                return createEntry(SPV_ENTRY, fileName, stored, size, modified, previous.getString("checksum"), false);
+            }
+        }
+        String checksum = copy(file, target);
+        return createEntry(SPV_ENTRY, fileName, stored, size, modified, checksum, true);
+    }
+
+    private static JSONObject createEntry(String type, String name, String stored, long size, long modified, String checksum, boolean copied) {
+        JSONObject entry = new JSONObject();
+        entry.put("type", type);
+        entry.put("name", name);
+        entry.put("stored", stored);
+        entry.put("size", size);
+        entry.put("modified", modified);
+        entry.put("checksum", checksum);
+        entry.put("copied", copied);
+        return entry;
+    }
+
+    /**
+     * Replaces the data, write ahead log and streaming property value folders of the graph with the given backup.
+     */
+    public void restore(String name, RocksDBGraphConfiguration config) throws IOException {
+        List<JSONObject> entries = readEntries(name);
+        String suffix = String.valueOf(System.currentTimeMillis());
+        Path dataPath = Paths.get(config.getDataPath());
+        Path walPath = Paths.get(config.getWalPath());
+        Path spvFolder = Paths.get(config.get(GraphOptions.STREAMING_PROPERTY_VALUE_DATA_FOLDER));
+        Path dataStaging = siblingPath(dataPath, ".restore-" + suffix);
+        Path spvStaging = siblingPath(spvFolder, ".restore-" + suffix);
+
+        ExecutorService executorService = createExecutorService();
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (JSONObject entry : entries) {
+                if (DB_ENTRY.equals(entry.getString("type")) && IDENTITY_FILE_NAME.equals(entry.getString("name"))) {
+                    // RocksDB creates a new identity when opening the restored database
+                    continue;
+                }
+                Path staging = DB_ENTRY.equals(entry.getString("type")) ? dataStaging : spvStaging;
+                futures.add(executorService.submit(() -> {
+                    restoreFile(entry, staging.resolve(entry.getString("name")));
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                getResult(future);
+            }
+        } catch (RuntimeException | IOException ex) {
+            deleteRecursively(dataStaging);
+            deleteRecursively(spvStaging);
+            throw ex;
+        } finally {
+            executorService.shutdownNow();
+        }
+        Files.createDirectories(dataStaging);
+        Files.createDirectories(spvStaging);
+
+        // stale write ahead logs of the replaced database must not be replayed onto the restored one
+        if (!walPath.equals(dataPath) && Files.exists(walPath)) {
+            swap(walPath, null, suffix);
+        }
+        swap(dataPath, dataStaging, suffix);
+        swap(spvFolder, spvStaging, suffix);
+        LOGGER.info("restored backup %s (%d files)", name, entries.size());
+    }
+
+    private void restoreFile(JSONObject entry, Path target) throws IOException {
+        Path stored = backupRoot.resolve(entry.getString("stored"));
+        Files.createDirectories(target.getParent());
+        String name = entry.getString("name");
+        String checksum;
+        if (DB_ENTRY.equals(entry.getString("type")) && name.endsWith(".sst")) {
+            // SST files are never modified, so they can share the backup's copy
+            checksum = checksum(stored);
+            if (!link(stored, target)) {
+                checksum = copy(stored, target);
+            }
+        } else {
+            checksum = copy(stored, target);
+        }
+        if (!checksum.equals(entry.getString("checksum"))) {
+            throw new GeException("Checksum mismatch for " + stored + ": expected " + entry.getString("checksum") + " found " + checksum);
+        }
+    }
+
+    private static void swap(Path path, Path replacement, String suffix) throws IOException {
+        if (Files.exists(path)) {
+            Path previous = siblingPath(path, ".pre-restore-" + suffix);
+            Files.move(path, previous);
+            LOGGER.info("moved %s to %s", path, previous);
+        }
+        if (replacement == null) {
+            Files.createDirectories(path);
+        } else {
+            Files.move(replacement, path);
+        }
+    }
+
+    private static Path siblingPath(Path path, String suffix) {
+        return path.resolveSibling(path.getFileName() + suffix);
+    }
+
+    /**
+     * @return the names of the complete backups, oldest first
+     */
+    public List<String> listBackups() throws IOException {
+        if (!Files.isDirectory(backupRoot)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> dirs = Files.list(backupRoot)) {
+            return dirs.filter(dir -> Files.isRegularFile(dir.resolve(MANIFEST_FILE_NAME)))
+                    .map(dir -> dir.getFileName().toString())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public String getLatestBackupName() throws IOException {
+        List<String> backups = listBackups();
+        return backups.isEmpty() ? null : backups.get(backups.size() - 1);
+    }
+
+    private List<JSONObject> readEntries(String name) throws IOException {
+        return getEntries(readManifest(name));
+    }
+
+    private JSONObject readManifest(String name) throws IOException {
+        Path manifestFile = backupRoot.resolve(name).resolve(MANIFEST_FILE_NAME);
+        if (!Files.isRegularFile(manifestFile)) {
+            throw new GeException("Not a complete backup: " + backupRoot.resolve(name));
+        }
+        return new JSONObject(new String(Files.readAllBytes(manifestFile), StandardCharsets.UTF_8));
+    }
+
+    private static List<JSONObject> getEntries(JSONObject manifest) {
+        JSONArray files = manifest.getJSONArray("files");
+        List<JSONObject> entries = new ArrayList<>(files.length());
+        for (int i = 0; i < files.length(); i++) {
+            entries.add(files.getJSONObject(i));
+        }
+        return entries;
+    }
+
+    private static String readDbIdentity(Path dataPath) throws IOException {
+        Path identityFile = dataPath.resolve(IDENTITY_FILE_NAME);
+        if (!Files.isRegularFile(identityFile)) {
+            return null;
+        }
+        String identity = new String(Files.readAllBytes(identityFile), StandardCharsets.UTF_8).trim();
+        return identity.isEmpty() ? null : identity;
+    }
+
+    private ExecutorService createExecutorService() {
+        return Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("ge-rocksdb-backup-" + thread.getId());
+            return thread;
+        });
+    }
+
+    private static <T> T getResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GeException("Interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new GeException("Could not copy file", ex.getCause());
+        }
+    }
+
+    private static List<Path> listFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    private static boolean link(Path existing, Path link) {
+        try {
+            Files.deleteIfExists(link);
+            Files.createLink(link, existing);
+            return true;
+        } catch (IOException | UnsupportedOperationException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Copies the file and returns the CRC32C checksum of its content.
+     */
+    private static String copy(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static String checksum(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.rocksdb;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.core.exception.BcException;
+import com.mware.core.model.Description;
+import com.mware.core.model.Name;
+import com.mware.core.model.longRunningProcess.LongRunningProcessWorker;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.core.util.ClientApiConverter;
+import com.mware.ge.Graph;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Creates a snapshot backup of the graph of the running process. {@link RocksDBSnapshotTool} opens the graph itself
+ * and needs the RocksDB lock, so this is the way to back up a graph that is in use.
+ */
+@Name("RocksDB Snapshot Backup")
+@Description("Creates a binary snapshot backup of the RocksDB graph")
+@Singleton
+public class RocksDBSnapshotLongRunningProcessWorker extends LongRunningProcessWorker {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(RocksDBSnapshotLongRunningProcessWorker.class);
+    private final Graph graph;
+
+    @Inject
+    public RocksDBSnapshotLongRunningProcessWorker(Graph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public boolean isHandled(JSONObject jsonObject) {
+        return RocksDBSnapshotLongRunningProcessQueueItem.isHandled(jsonObject);
+    }
+
+    @Override
+    protected void processInternal(JSONObject longRunningProcessQueueItem) {
+        RocksDBSnapshotLongRunningProcessQueueItem queueItem = ClientApiConverter.toClientApi(
+                longRunningProcessQueueItem.toString(),
+                RocksDBSnapshotLongRunningProcessQueueItem.class
+        );
+        if (!(graph instanceof RocksDBGraph)) {
+            throw new BcException("Snapshot backups require a " + RocksDBGraph.class.getName() + " found " + graph.getClass().getName());
+        }
+        RocksDBGraph rocksDBGraph = (RocksDBGraph) graph;
+        Path backupRoot = RocksDBSnapshotBackup.getBackupRoot((RocksDBGraphConfiguration) rocksDBGraph.getConfiguration(), queueItem.getBackupDir());
+        rocksDBGraph.flush();
+        try {
+            String name = new RocksDBSnapshotBackup(backupRoot, queueItem.getThreads()).backup(rocksDBGraph, !queueItem.isFull());
+            LOGGER.info("created backup %s", backupRoot.resolve(name));
+        } catch (IOException ex) {
+            throw new BcException("Could not create backup in " + backupRoot, ex);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.rocksdb;
+
+import com.beust.jcommander.Parameter;
+import com.mware.core.config.Configuration;
+import com.mware.ge.GeException;
+import com.mware.ge.Graph;
+import com.mware.ge.GraphFactory;
+import com.mware.ge.tools.GraphToolBase;
+
+import java.nio.file.Path;
+
+/**
+ * Creates and restores binary snapshot backups of a {@link RocksDBGraph}, see {@link RocksDBSnapshotBackup}.
+ * <p>
+ * The tool opens the graph itself and RocksDB only lets one process hold a database, so it only works while the
+ * server is stopped. A running server is backed up by enqueueing a {@link RocksDBSnapshotLongRunningProcessQueueItem},
+ * which {@link RocksDBSnapshotLongRunningProcessWorker} runs against the live graph.
+ */
+public class RocksDBSnapshotTool extends GraphToolBase {
+    @Parameter(names = {"--dir", "-d"}, description = "Backup folder, defaults to the rocksdb-snapshots folder in graph.backupDir")
+    private String backupDir = null;
+
+    @Parameter(names = {"--restore", "-r"}, description = "Name of the backup to restore or 'latest'. A new backup is created when omitted")
+    private String restoreName = null;
+
+    @Parameter(names = {"--full"}, description = "Copy all files instead of only the ones changed since the latest backup")
+    private boolean full = false;
+
+    @Parameter(names = {"--reindex"}, description = "Reindex the graph after restoring it")
+    private boolean reindex = false;
+
+    @Parameter(names = {"--threads", "-t"}, description = "Number of files copied in parallel")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public static void main(String[] args) throws Exception {
+        RocksDBSnapshotTool tool = new RocksDBSnapshotTool();
+        tool.run(args);
+    }
+
+    @Override
+    protected void run(String[] args) throws Exception {
+        Configuration configuration = loadConfiguration(args);
+        RocksDBGraphConfiguration config = new RocksDBGraphConfiguration(configuration.toMap());
+        Path backupRoot = RocksDBSnapshotBackup.getBackupRoot(config, backupDir);
+        RocksDBSnapshotBackup snapshotBackup = new RocksDBSnapshotBackup(backupRoot, threads);
+
+        long startTime = System.currentTimeMillis();
+        if (restoreName == null) {
+            Graph graph;
+            try {
+                graph = new GraphFactory().createGraph(configuration);
+            } catch (GeException ex) {
+                throw new GeException("Could not open the graph, the tool only backs up a stopped server. Enqueue a "
+                        + RocksDBSnapshotLongRunningProcessQueueItem.class.getName() + " to back up a running one", ex);
+            }
+            try {
+                if (!(graph instanceof RocksDBGraph)) {
+                    throw new GeException("Snapshot backups require a " + RocksDBGraph.class.getName() + " found " + graph.getClass().getName());
+                }
+                String name = snapshotBackup.backup((RocksDBGraph) graph, !full);
+                System.out.println("Created backup " + backupRoot.resolve(name) + " (" + (System.currentTimeMillis() - startTime) + "ms)");
+            } finally {
+                graph.shutdown();
+            }
+            return;
+        }
+
+        String name = "latest".equals(restoreName) ? snapshotBackup.getLatestBackupName() : restoreName;
+        if (name == null) {
+            throw new GeException("No backups found in " + backupRoot);
+        }
+        snapshotBackup.restore(name, config);
+        System.out.println("Restored backup " + backupRoot.resolve(name) + " (" + (System.currentTimeMillis() - startTime) + "ms)");
+
+        if (reindex) {
+            Graph graph = new GraphFactory().createGraph(configuration);
+            try {
+                graph.reindex(getAuthorizations());
+            } finally {
+                graph.shutdown();
+            }
+            System.out.println("Reindexing complete (" + (System.currentTimeMillis() - startTime) + "ms)");
+        }
+    }
+}
@@ -42,6 +42,7 @@ import com.mware.ge.IdRange;
 import com.mware.ge.collection.Pair;
 import com.mware.ge.store.kv.KVKeyUtils;
 import com.mware.ge.store.kv.KVStore;
+import com.mware.ge.store.kv.ScanFilter;
 import com.mware.ge.store.kv.ScanIterator;
 import com.mware.ge.util.Bytes;
 import com.mware.ge.util.Preconditions;
@@ -53,6 +54,9 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 public class RocksDBStore implements KVStore {
     private final RocksDBGraph graph;
@@ -60,6 +64,14 @@ public class RocksDBStore implements KVStore {
     private RocksDB rocksdb;
     private Map<String, CFHandle> cfs;
     private AtomicInteger refCount;
+    // shared by the tables of the store, created before and closed after the database
+    private Cache blockCache;
+    private Filter bloomFilter;
+    private ReadOptions totalOrderReadOptions;
+    private ReadOptions prefixReadOptions;
+    private Statistics statistics;
+    // keeps close() from freeing the native handles while a metric gauge reads them
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
     
     public RocksDBStore(RocksDBGraph graph) {
         this.graph = graph;
@@ -68,19 +80,53 @@ public class RocksDBStore implements KVStore {
     
     @Override
     public void open() {
+        openSharedResources();
         try {
             openWithCFs();
         } catch (RocksDBException e) {
-            if (e.getMessage().contains("Column family not found")) {
-                try {
-                    openClean();
-                    return;
-                } catch (RocksDBException e2) {
-                    throw new GeException(e2);
-                }
+            if (!e.getMessage().contains("Column family not found")) {
+                throw new GeException(e);
             }
+            try {
+                openClean();
+            } catch (RocksDBException e2) {
+                throw new GeException(e2);
+            }
+        }
+        new RocksDBMetrics(this, graph.getMetricsRegistry()).register(new ArrayList<>(this.cfs.keySet()));
+    }
+
+    private void openSharedResources() {
+        // the cache is the first native object created
+        RocksDB.loadLibrary();
+        if (config.isCacheIndexAndFilterBlocks()) {
+            // keeps room for the index and filter blocks so data blocks don't evict them
+            this.blockCache = new LRUCache(config.getBlockCacheSize(), -1, false, 0.1);
+        } else {
+            this.blockCache = new LRUCache(config.getBlockCacheSize());
+        }
+        if (config.getBloomFilterBitsPerKey() > 0) {
+            // full filters, block based filters can't be partitioned or used for prefixes
+            this.bloomFilter = new BloomFilter(config.getBloomFilterBitsPerKey(), false);
+        }
+        this.totalOrderReadOptions = new ReadOptions().setTotalOrderSeek(true);
+        this.prefixReadOptions = new ReadOptions().setPrefixSameAsStart(true);
+        if (config.isStatistics()) {
+            // detailed timers take a clock reading around every mutex, the other timers are cheap enough
+            this.statistics = new Statistics();
+            this.statistics.setStatsLevel(StatsLevel.EXCEPT_DETAILED_TIMERS);
+        }
+    }
 
-            throw new GeException(e);
+    private void closeSharedResources() {
+        this.totalOrderReadOptions.close();
+        this.prefixReadOptions.close();
+        if (this.bloomFilter != null) {
+            this.bloomFilter.close();
+        }
+        this.blockCache.close();
+        if (this.statistics != null) {
+            this.statistics.close();
         }
     }
 
@@ -220,52 +266,78 @@ public class RocksDBStore implements KVStore {
 
     @Override
     public ScanIterator scan(String table, IdRange idRange) {
+        return scan(table, idRange, null);
+    }
+
+    /**
+     * The filter is evaluated on the keys while iterating, the values of rejected keys are never read.
+     */
+    @Override
+    public ScanIterator scan(String table, IdRange idRange, ScanFilter filter) {
         try (CFHandle cf = cf(table)) {
 
             if (idRange == null)
-                return scan(cf);
+                return scan(cf, filter);
 
             if (idRange.getPrefix() != null) {
-                return scan(cf, idRange.getPrefix().getBytes());
+                return scan(cf, idRange.getPrefix().getBytes(), filter);
+            } else if (isSingleRow(idRange)) {
+                // all the keys of a row start with the encoded id
+                return scan(cf, KVKeyUtils.encodeId(idRange.getStart().getBytes()), filter);
             } else if (idRange.getStart() != null && idRange.getEnd() != null) {
                 byte[] start = KVKeyUtils.encodeId(idRange.getStart().getBytes());
                 byte[] end = KVKeyUtils.encodeId(idRange.getEnd().getBytes());
 
                 int type = idRange.isInclusiveStart() ? ScanIterator.SCAN_GTE_BEGIN : ScanIterator.SCAN_GT_BEGIN;
                 type |= idRange.isInclusiveEnd() ? ScanIterator.SCAN_LTE_END : ScanIterator.SCAN_LT_END;
-                return scan(cf, start, end, type);
+                return scan(cf, start, end, type, filter);
             } else if (idRange.getStart() == null && idRange.getEnd() != null) {
                 byte[] end = KVKeyUtils.encodeId(idRange.getEnd().getBytes());
                 int type = idRange.isInclusiveEnd() ? ScanIterator.SCAN_LTE_END : ScanIterator.SCAN_LT_END;
-                return scan(cf, null, end, type);
+                return scan(cf, null, end, type, filter);
             } else if (idRange.getStart() != null && idRange.getEnd() == null) {
                 byte[] start = KVKeyUtils.encodeId(idRange.getStart().getBytes());
                 int type = idRange.isInclusiveStart() ? ScanIterator.SCAN_GTE_BEGIN : ScanIterator.SCAN_GT_BEGIN;
-                return scan(cf, start, null, type);
+                return scan(cf, start, null, type, filter);
             } else {
-                return scan(cf);
+                return scan(cf, filter);
             }
         }
     }
 
-    public ScanIterator scan(CFHandle table) {
-        RocksIterator iter = rocksdb().newIterator(table.get());
-        return new RocksDBScanIterator(iter, null, null, ScanIterator.SCAN_ANY);
+    private static boolean isSingleRow(IdRange idRange) {
+        return idRange.getStart() != null
+                && idRange.isInclusiveStart()
+                && idRange.isInclusiveEnd()
+                && idRange.getStart().equals(idRange.getEnd());
     }
 
-    public ScanIterator scan(CFHandle table, byte[] prefix) {
-        RocksIterator iter = rocksdb().newIterator(table.get(), new ReadOptions().setPrefixSameAsStart(true));
-        return new RocksDBScanIterator(iter, prefix, null, ScanIterator.SCAN_PREFIX_BEGIN);
+    public ScanIterator scan(CFHandle table, ScanFilter filter) {
+        RocksIterator iter = rocksdb().newIterator(table.get(), totalOrderReadOptions);
+        return new RocksDBScanIterator(iter, null, null, ScanIterator.SCAN_ANY, filter);
     }
 
-    public ScanIterator scan(CFHandle table, byte[] keyFrom, byte[] keyTo, int scanType) {
-        /*
-         * Not sure if setTotalOrderSeek(true) must be set:
-         * ReadOptions options = new ReadOptions();
-         * options.setTotalOrderSeek(true);
-         */
-        RocksIterator iter = rocksdb().newIterator(table.get(), new ReadOptions().setTotalOrderSeek(true));
-        return new RocksDBScanIterator(iter, keyFrom, keyTo, scanType);
+    public ScanIterator scan(CFHandle table, byte[] prefix, ScanFilter filter) {
+        RocksIterator iter = rocksdb().newIterator(table.get(), readOptions(prefix));
+        return new RocksDBScanIterator(iter, prefix, null, ScanIterator.SCAN_PREFIX_BEGIN, filter);
+    }
+
+    public ScanIterator scan(CFHandle table, byte[] keyFrom, byte[] keyTo, int scanType, ScanFilter filter) {
+        // a range may cross prefixes, prefix seek would skip keys
+        RocksIterator iter = rocksdb().newIterator(table.get(), totalOrderReadOptions);
+        return new RocksDBScanIterator(iter, keyFrom, keyTo, scanType, filter);
+    }
+
+    /**
+     * Prefix seek only finds the keys sharing the prefix extracted from the seek key, which is the whole prefix
+     * when it is at least as long as the configured prefix length. Shorter prefixes have to seek in total order.
+     */
+    private ReadOptions readOptions(byte[] prefix) {
+        int prefixLength = config.getPrefixLength();
+        if (prefixLength > 0 && prefix.length >= prefixLength) {
+            return prefixReadOptions;
+        }
+        return totalOrderReadOptions;
     }
 
     @Override
@@ -286,6 +358,84 @@ public class RocksDBStore implements KVStore {
         }
     }
 
+    /**
+     * Creates a consistent point-in-time copy of the database in the given directory, which must not exist. Files
+     * are hard linked when the directory is on the same filesystem as the database.
+     */
+    public void createCheckpoint(String path) {
+        try (Checkpoint checkpoint = Checkpoint.create(rocksdb())) {
+            checkpoint.createCheckpoint(path);
+        } catch (RocksDBException ex) {
+            throw new GeException("Could not create checkpoint: " + path, ex);
+        }
+    }
+
+    /**
+     * Ingests SST files written with {@link SstFileWriter} into the table. The files are moved into the database
+     * and ingested in the given order, so a key written by a later file replaces the same key of an earlier one.
+     */
+    public void ingest(String tableName, List<String> sstFiles) {
+        try (CFHandle cf = cf(tableName);
+             IngestExternalFileOptions options = new IngestExternalFileOptions()) {
+            options.setMoveFiles(true);
+            for (String sstFile : sstFiles) {
+                rocksdb().ingestExternalFile(cf.get(), Collections.singletonList(sstFile), options);
+            }
+        } catch (RocksDBException ex) {
+            throw new GeException("Could not ingest files into " + tableName, ex);
+        }
+    }
+
+    public void compact(String tableName) {
+        try (CFHandle cf = cf(tableName)) {
+            rocksdb().compactRange(cf.get());
+        } catch (RocksDBException ex) {
+            throw new GeException("Could not compact " + tableName, ex);
+        }
+    }
+
+    Statistics getStatistics() {
+        return statistics;
+    }
+
+    boolean isOpen() {
+        return this.rocksdb != null && this.rocksdb.isOwningHandle();
+    }
+
+    /**
+     * Runs the reader unless the store is closed, in which case null is returned. The store can't be closed while the
+     * reader runs, so it may use the database and the {@link #getStatistics() statistics}.
+     */
+    <T> T readIfOpen(Supplier<T> reader) {
+        closeLock.readLock().lock();
+        try {
+            return isOpen() ? reader.get() : null;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads a numeric property of a table, or of the database when the table is null. Returns null when the store is
+     * closed or the property isn't available.
+     */
+    Long getLongProperty(String tableName, String property) {
+        return readIfOpen(() -> {
+            try {
+                if (tableName == null) {
+                    return this.rocksdb.getLongProperty(property);
+                }
+                CFHandle cf = this.cfs.get(tableName);
+                if (cf == null) {
+                    return null;
+                }
+                return this.rocksdb.getLongProperty(cf.get(), property);
+            } catch (RocksDBException | IllegalStateException ex) {
+                return null;
+            }
+        });
+    }
+
     private void initOptions(
             DBOptionsInterface<?> db,
             MutableDBOptionsInterface<?> mdb,
@@ -323,6 +473,10 @@ public class RocksDBStore implements KVStore {
             db.setMaxFileOpeningThreads(16);
 
             db.setDbWriteBufferSize(0L);
+
+            if (this.statistics != null) {
+                db.setStatistics(this.statistics);
+            }
         }
 
         if (mdb != null) {
@@ -358,15 +512,32 @@ public class RocksDBStore implements KVStore {
 
             // https://github.com/facebook/rocksdb/wiki/Block-Cache
             BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
-            long cacheCapacity = 8L * Bytes.MB;
-            tableConfig.setBlockCache(new LRUCache(cacheCapacity));
+            tableConfig.setBlockCache(this.blockCache);
 
-            tableConfig.setPinL0FilterAndIndexBlocksInCache(false);
-            tableConfig.setCacheIndexAndFilterBlocks(false);
+            tableConfig.setCacheIndexAndFilterBlocks(config.isCacheIndexAndFilterBlocks());
+            tableConfig.setCacheIndexAndFilterBlocksWithHighPriority(config.isCacheIndexAndFilterBlocks());
+            tableConfig.setPinL0FilterAndIndexBlocksInCache(config.isPinL0FilterAndIndexBlocks());
 
-            tableConfig.setWholeKeyFiltering(true);
+            // https://github.com/facebook/rocksdb/wiki/RocksDB-Bloom-Filter
+            if (this.bloomFilter != null) {
+                tableConfig.setFilterPolicy(this.bloomFilter);
+                tableConfig.setWholeKeyFiltering(true);
+            }
+
+            // https://github.com/facebook/rocksdb/wiki/Partitioned-Index-Filters
+            if (config.isPartitionFilters()) {
+                tableConfig.setIndexType(IndexType.kTwoLevelIndexSearch);
+                tableConfig.setPartitionFilters(this.bloomFilter != null);
+                tableConfig.setPinTopLevelIndexAndFilter(true);
+                tableConfig.setMetadataBlockSize(4L * Bytes.KB);
+            }
             cf.setTableFormatConfig(tableConfig);
 
+            // https://github.com/facebook/rocksdb/wiki/Prefix-Seek
+            if (config.getPrefixLength() > 0) {
+                cf.useCappedPrefixExtractor(config.getPrefixLength());
+            }
+
             cf.setOptimizeFiltersForHits(true);
 
             // https://github.com/facebook/rocksdb/tree/master/utilities/merge_operators
@@ -376,6 +547,10 @@ public class RocksDBStore implements KVStore {
         if (mcf != null) {
             mcf.setCompressionType(CompressionType.SNAPPY_COMPRESSION);
 
+            if (config.getPrefixLength() > 0 && config.getBloomFilterBitsPerKey() > 0) {
+                mcf.setMemtablePrefixBloomSizeRatio(0.1);
+            }
+
             mcf.setWriteBufferSize(0L);
             mcf.setMaxWriteBufferNumber(6);
 
@@ -417,12 +592,18 @@ public class RocksDBStore implements KVStore {
         }
         assert this.refCount.get() == 0;
 
-        for (CFHandle cf : this.cfs.values()) {
-            cf.close();
-        }
-        this.cfs.clear();
+        closeLock.writeLock().lock();
+        try {
+            for (CFHandle cf : this.cfs.values()) {
+                cf.close();
+            }
+            this.cfs.clear();
 
-        this.rocksdb.close();
+            this.rocksdb.close();
+            closeSharedResources();
+        } finally {
+            closeLock.writeLock().unlock();
+        }
     }
 
     private CFHandle cf(String cf) {
@@ -0,0 +1,124 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.rocksdb;
+
+import com.mware.core.config.options.GraphOptions;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Direction;
+import com.mware.ge.Edge;
+import com.mware.ge.Vertex;
+import com.mware.ge.Visibility;
+import com.mware.ge.util.IterableUtils;
+import com.mware.ge.values.storable.Values;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.mware.core.model.schema.SchemaConstants.CONCEPT_TYPE_THING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class RocksDBBulkLoaderTest {
+    private static final Authorizations AUTHORIZATIONS = new Authorizations();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RocksDBGraph graph;
+
+    @Before
+    public void before() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(GraphOptions.STREAMING_PROPERTY_VALUE_DATA_FOLDER.name(), folder.newFolder("spv").toString());
+        config.put(RocksDBOptions.DATA_PATH.name(), folder.newFolder("data").toString());
+        config.put(RocksDBOptions.WAL_PATH.name(), folder.newFolder("wal").toString());
+        graph = RocksDBGraph.create(config);
+    }
+
+    @After
+    public void after() {
+        graph.shutdown();
+    }
+
+    @Test
+    public void testLoadVerticesAndEdges() throws Exception {
+        File nodes = writeFile("nodes.csv",
+                ":ID,:LABEL,name,age:int",
+                "p1,person,Joe,30",
+                "p2,person,Sam,",
+                "c1,,Acme,",
+                "p1,person,Joseph,31"
+        );
+        File relationships = writeFile("relationships.csv",
+                ":START_ID,:END_ID,:TYPE,:ID,since:long",
+                "p1,c1,worksAt,e1,2010",
+                "p2,c1,worksAt,e2,"
+        );
+
+        RocksDBBulkLoader loader = new RocksDBBulkLoader(graph, folder.newFolder("work").toPath(), 2, ',', Visibility.EMPTY);
+        assertEquals(4, loader.loadVertices(nodes));
+        assertEquals(2, loader.loadEdges(relationships));
+
+        assertEquals(3, IterableUtils.count(graph.getVertices(AUTHORIZATIONS)));
+        Vertex p1 = graph.getVertex("p1", AUTHORIZATIONS);
+        assertEquals("person", p1.getConceptType());
+        assertEquals(Values.stringValue("Joseph"), p1.getPropertyValue("name"));
+        assertEquals(Values.intValue(31), p1.getPropertyValue("age"));
+        assertEquals(CONCEPT_TYPE_THING, graph.getVertex("c1", AUTHORIZATIONS).getConceptType());
+
+        Edge e1 = graph.getEdge("e1", AUTHORIZATIONS);
+        assertNotNull(e1);
+        assertEquals("p1", e1.getVertexId(Direction.OUT));
+        assertEquals("c1", e1.getVertexId(Direction.IN));
+        assertEquals(Values.longValue(2010), e1.getPropertyValue("since"));
+        assertEquals(2, graph.getVertex("c1", AUTHORIZATIONS).getEdgeCount(Direction.IN, AUTHORIZATIONS));
+    }
+
+    private File writeFile(String name, String... lines) throws Exception {
+        File file = folder.getRoot().toPath().resolve(name).toFile();
+        Files.write(file.toPath(), String.join("\n", lines).concat("\n").getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
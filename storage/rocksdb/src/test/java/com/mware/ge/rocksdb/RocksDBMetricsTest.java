@@ -0,0 +1,120 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.rocksdb;
+
+import com.mware.core.config.options.GraphOptions;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Visibility;
+import com.mware.ge.metric.DropWizardMetricRegistry;
+import com.mware.ge.metric.Gauge;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.mware.core.model.schema.SchemaConstants.CONCEPT_TYPE_THING;
+import static org.junit.Assert.*;
+
+public class RocksDBMetricsTest {
+    private static final Authorizations AUTHORIZATIONS = new Authorizations();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGaugesWhileClosing() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(GraphOptions.STREAMING_PROPERTY_VALUE_DATA_FOLDER.name(), folder.newFolder("spv").toString());
+        config.put(RocksDBOptions.DATA_PATH.name(), folder.newFolder("data").toString());
+        config.put(RocksDBOptions.WAL_PATH.name(), folder.newFolder("wal").toString());
+        config.put(RocksDBOptions.STATISTICS.name(), true);
+        RocksDBGraph graph = RocksDBGraph.create(config);
+        graph.addVertex("v1", Visibility.EMPTY, AUTHORIZATIONS, CONCEPT_TYPE_THING);
+        graph.flush();
+        graph.getVertex("v1", AUTHORIZATIONS);
+
+        DropWizardMetricRegistry metricRegistry = new DropWizardMetricRegistry();
+        new RocksDBMetrics(graph.getRocksDBStore(), metricRegistry).register(Arrays.asList(graph.getVerticesTableName()));
+        List<com.codahale.metrics.Gauge> gauges = new ArrayList<>();
+        for (Gauge gauge : metricRegistry.getGauges()) {
+            gauges.add(((DropWizardMetricRegistry.Gauge) gauge).getGauge());
+        }
+        assertNotNull(findGauge(metricRegistry, "ticker", "NUMBER_KEYS_READ").getValue());
+        assertNotNull(findGauge(metricRegistry, "histogram", "DB_GET", "count").getValue());
+
+        // the gauges are read while the store is closed, they have to see either the open store or no values
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch reading = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    for (com.codahale.metrics.Gauge gauge : gauges) {
+                        gauge.getValue();
+                    }
+                    reading.countDown();
+                }
+            } catch (Throwable ex) {
+                failure.set(ex);
+                reading.countDown();
+            }
+        });
+        reader.start();
+        reading.await();
+        graph.shutdown();
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+
+        for (com.codahale.metrics.Gauge gauge : gauges) {
+            assertNull(gauge.getValue());
+        }
+    }
+
+    private static com.codahale.metrics.Gauge findGauge(DropWizardMetricRegistry metricRegistry, String... nameParts) {
+        String name = metricRegistry.createName(RocksDBStore.class, nameParts);
+        return ((DropWizardMetricRegistry.Gauge) metricRegistry.getGauge(name, () -> null)).getGauge();
+    }
+}
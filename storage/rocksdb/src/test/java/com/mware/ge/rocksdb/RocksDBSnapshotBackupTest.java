@@ -0,0 +1,189 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ge.rocksdb;
+
+import com.mware.core.config.options.GraphOptions;
+import com.mware.core.util.ClientApiConverter;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Visibility;
+import com.mware.ge.util.IterableUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.json.JSONObject;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.mware.core.model.schema.SchemaConstants.CONCEPT_TYPE_THING;
+import static org.junit.Assert.*;
+
+public class RocksDBSnapshotBackupTest {
+    private static final Authorizations AUTHORIZATIONS = new Authorizations();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBackupAndRestore() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(GraphOptions.STREAMING_PROPERTY_VALUE_DATA_FOLDER.name(), folder.newFolder("spv").toString());
+        config.put(RocksDBOptions.DATA_PATH.name(), folder.newFolder("data").toString());
+        config.put(RocksDBOptions.WAL_PATH.name(), folder.newFolder("wal").toString());
+        Path backupRoot = folder.getRoot().toPath().resolve("backup");
+        RocksDBSnapshotBackup snapshotBackup = new RocksDBSnapshotBackup(backupRoot, 2);
+
+        RocksDBGraph graph = RocksDBGraph.create(config);
+        graph.addVertex("v1", Visibility.EMPTY, AUTHORIZATIONS, CONCEPT_TYPE_THING);
+        graph.addVertex("v2", Visibility.EMPTY, AUTHORIZATIONS, CONCEPT_TYPE_THING);
+        graph.flush();
+        String first = snapshotBackup.backup(graph, true);
+
+        Thread.sleep(1000);
+        graph.addVertex("v3", Visibility.EMPTY, AUTHORIZATIONS, CONCEPT_TYPE_THING);
+        graph.flush();
+        long sharedFiles = Files.list(backupRoot.resolve(RocksDBSnapshotBackup.SHARED_DIR_NAME)).count();
+        String second = snapshotBackup.backup(graph, true);
+        graph.shutdown();
+
+        // the incremental backup only adds the SST files written since the first one
+        assertEquals(2, snapshotBackup.listBackups().size());
+        assertEquals(second, snapshotBackup.getLatestBackupName());
+        long newSharedFiles = Files.list(backupRoot.resolve(RocksDBSnapshotBackup.SHARED_DIR_NAME)).count() - sharedFiles;
+        assertEquals(1, newSharedFiles);
+
+        snapshotBackup.restore(first, new RocksDBGraphConfiguration(config));
+        graph = RocksDBGraph.create(config);
+        try {
+            assertEquals(2, IterableUtils.count(graph.getVertices(AUTHORIZATIONS)));
+        } finally {
+            graph.shutdown();
+        }
+
+        snapshotBackup.restore(second, new RocksDBGraphConfiguration(config));
+        graph = RocksDBGraph.create(config);
+        try {
+            assertEquals(3, IterableUtils.count(graph.getVertices(AUTHORIZATIONS)));
+        } finally {
+            graph.shutdown();
+        }
+    }
+
+    @Test
+    public void testBackupOfRunningGraph() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(GraphOptions.STREAMING_PROPERTY_VALUE_DATA_FOLDER.name(), folder.newFolder("spv").toString());
+        config.put(RocksDBOptions.DATA_PATH.name(), folder.newFolder("data").toString());
+        config.put(RocksDBOptions.WAL_PATH.name(), folder.newFolder("wal").toString());
+        Path backupRoot = folder.getRoot().toPath().resolve("backup");
+
+        RocksDBGraph graph = RocksDBGraph.create(config);
+        try {
+            graph.addVertex("v1", Visibility.EMPTY, AUTHORIZATIONS, CONCEPT_TYPE_THING);
+            RocksDBSnapshotLongRunningProcessQueueItem queueItem = new RocksDBSnapshotLongRunningProcessQueueItem(backupRoot.toString(), false, 2);
+            new RocksDBSnapshotLongRunningProcessWorker(graph).processInternal(new JSONObject(ClientApiConverter.clientApiToString(queueItem)));
+            // the graph stays usable while and after it is backed up
+            graph.addVertex("v2", Visibility.EMPTY, AUTHORIZATIONS, CONCEPT_TYPE_THING);
+            graph.flush();
+        } finally {
+            graph.shutdown();
+        }
+
+        RocksDBSnapshotBackup snapshotBackup = new RocksDBSnapshotBackup(backupRoot, 2);
+        snapshotBackup.restore(snapshotBackup.getLatestBackupName(), new RocksDBGraphConfiguration(config));
+        graph = RocksDBGraph.create(config);
+        try {
+            assertEquals(1, IterableUtils.count(graph.getVertices(AUTHORIZATIONS)));
+        } finally {
+            graph.shutdown();
+        }
+    }
+
+    @Test
+    public void testRestoreDoesNotShareRewrittenFiles() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        Path spvFolder = folder.newFolder("spv").toPath();
+        Path dataFolder = folder.newFolder("data").toPath();
+        config.put(GraphOptions.STREAMING_PROPERTY_VALUE_DATA_FOLDER.name(), spvFolder.toString());
+        config.put(RocksDBOptions.DATA_PATH.name(), dataFolder.toString());
+        config.put(RocksDBOptions.WAL_PATH.name(), folder.newFolder("wal").toString());
+        Path backupRoot = folder.getRoot().toPath().resolve("backup");
+        RocksDBSnapshotBackup snapshotBackup = new RocksDBSnapshotBackup(backupRoot, 2);
+
+        RocksDBGraph graph = RocksDBGraph.create(config);
+        graph.addVertex("v1", Visibility.EMPTY, AUTHORIZATIONS, CONCEPT_TYPE_THING);
+        graph.flush();
+        Path spvFile = spvFolder.resolve("v1").resolve("prop");
+        Files.createDirectories(spvFile.getParent());
+        Files.write(spvFile, "first".getBytes(StandardCharsets.UTF_8));
+        String first = snapshotBackup.backup(graph, true);
+        String identity = readIdentity(dataFolder);
+        graph.shutdown();
+
+        snapshotBackup.restore(first, new RocksDBGraphConfiguration(config));
+        // rewriting a restored streaming property value in place must not change the backup
+        try (OutputStream out = new FileOutputStream(spvFile.toFile())) {
+            out.write("changed".getBytes(StandardCharsets.UTF_8));
+        }
+
+        graph = RocksDBGraph.create(config);
+        try {
+            assertNotEquals(identity, readIdentity(dataFolder));
+            Thread.sleep(1000);
+            graph.addVertex("v2", Visibility.EMPTY, AUTHORIZATIONS, CONCEPT_TYPE_THING);
+            graph.flush();
+            // the restored database reuses SST file numbers, so the next backup must not reuse the previous SST files
+            String second = snapshotBackup.backup(graph, true);
+            JSONObject manifest = new JSONObject(new String(Files.readAllBytes(backupRoot.resolve(second).resolve(RocksDBSnapshotBackup.MANIFEST_FILE_NAME)), StandardCharsets.UTF_8));
+            assertEquals(readIdentity(dataFolder), manifest.getString("dbIdentity"));
+        } finally {
+            graph.shutdown();
+        }
+
+        snapshotBackup.restore(first, new RocksDBGraphConfiguration(config));
+        assertEquals("first", new String(Files.readAllBytes(spvFile), StandardCharsets.UTF_8));
+    }
+
+    private static String readIdentity(Path dataFolder) throws Exception {
+        return new String(Files.readAllBytes(dataFolder.resolve("IDENTITY")), StandardCharsets.UTF_8).trim();
+    }
+}
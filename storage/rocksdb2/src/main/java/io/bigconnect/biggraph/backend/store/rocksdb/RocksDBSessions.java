@@ -20,14 +20,19 @@
 package io.bigconnect.biggraph.backend.store.rocksdb;
 
 import io.bigconnect.biggraph.backend.store.BackendEntry.BackendColumnIterator;
+import io.bigconnect.biggraph.backend.store.BackendEntry.BackendColumnIteratorWrapper;
 import io.bigconnect.biggraph.backend.store.BackendSession.AbstractBackendSession;
 import io.bigconnect.biggraph.backend.store.BackendSessionPool;
 import io.bigconnect.biggraph.config.BigConfig;
+import io.bigconnect.biggraph.iterator.FlatMapperIterator;
+import io.bigconnect.biggraph.util.E;
 import org.apache.commons.lang3.tuple.Pair;
 import org.rocksdb.RocksDBException;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 public abstract class RocksDBSessions extends BackendSessionPool {
 
@@ -109,6 +114,19 @@ public abstract class RocksDBSessions extends BackendSessionPool {
             return this.scan(table, keyFrom, keyTo, SCAN_LT_END);
         }
 
+        public BackendColumnIterator scan(String table,
+                                          List<byte[]> keysFrom,
+                                          List<byte[]> keysTo,
+                                          int scanType) {
+            E.checkArgument(keysFrom.size() == keysTo.size(),
+                            "The size of keys from and keys to must be equal");
+            Iterator<Integer> ranges = IntStream.range(0, keysFrom.size())
+                                                .iterator();
+            return new BackendColumnIteratorWrapper(new FlatMapperIterator<>(
+                   ranges, i -> this.scan(table, keysFrom.get(i),
+                                          keysTo.get(i), scanType)));
+        }
+
         public static boolean matchScanType(int expected, int actual) {
             return (expected & actual) == expected;
         }
@@ -1000,7 +1000,8 @@ public class RocksDBStdSessions extends RocksDBSessions {
             assert !this.hasChanges();
             try (CFHandle cf = cf(table)) {
                 RocksIterator iter = rocksdb().newIterator(cf.get());
-                return new ColumnIterator(table, iter, null, null, SCAN_ANY);
+                return new ColumnIterator(table, iter, (byte[]) null, null,
+                                          SCAN_ANY);
             }
         }
 
@@ -1041,6 +1042,23 @@ public class RocksDBStdSessions extends RocksDBSessions {
                                           keyTo, scanType);
             }
         }
+
+        /**
+         * Scan records by multiple key ranges from a table, all the ranges
+         * are scanned by seeking a single iterator
+         */
+        @Override
+        public BackendColumnIterator scan(String table, List<byte[]> keysFrom,
+                                          List<byte[]> keysTo, int scanType) {
+            assert !this.hasChanges();
+            E.checkArgument(keysFrom.size() == keysTo.size(),
+                            "The size of keys from and keys to must be equal");
+            try (CFHandle cf = cf(table)) {
+                RocksIterator iter = rocksdb().newIterator(cf.get());
+                return new ColumnIterator(table, iter, keysFrom,
+                                          keysTo, scanType);
+            }
+        }
     }
 
     /**
@@ -1051,23 +1069,40 @@ public class RocksDBStdSessions extends RocksDBSessions {
 
         private final String table;
         private final RocksIterator iter;
-        private final byte[] keyBegin;
-        private final byte[] keyEnd;
+        private final List<byte[]> keysBegin;
+        private final List<byte[]> keysEnd;
         private final int scanType;
 
+        // The key range being scanned
+        private int range;
+        private byte[] keyBegin;
+        private byte[] keyEnd;
+
         private byte[] position;
         private boolean matched;
 
         public ColumnIterator(String table, RocksIterator iter,
                               byte[] keyBegin, byte[] keyEnd, int scanType) {
+            this(table, iter, Collections.singletonList(keyBegin),
+                 Collections.singletonList(keyEnd), scanType);
+        }
+
+        public ColumnIterator(String table, RocksIterator iter,
+                              List<byte[]> keysBegin, List<byte[]> keysEnd,
+                              int scanType) {
             E.checkNotNull(iter, "iter");
+            E.checkArgument(!keysBegin.isEmpty(), "Keys can't be empty");
             this.table = table;
 
             this.iter = iter;
-            this.keyBegin = keyBegin;
-            this.keyEnd = keyEnd;
+            this.keysBegin = keysBegin;
+            this.keysEnd = keysEnd;
             this.scanType = scanType;
 
+            this.range = 0;
+            this.keyBegin = keysBegin.get(0);
+            this.keyEnd = keysEnd.get(0);
+
             this.position = keyBegin;
             this.matched = false;
 
@@ -1151,15 +1186,17 @@ public class RocksDBStdSessions extends RocksDBSessions {
                 return this.matched;
             }
 
-            this.matched = this.iter.isValid();
-            if (this.matched) {
-                // Update position for paging
-                this.position = this.iter.key();
-                // Do filter if not SCAN_ANY
-                if (!this.match(Session.SCAN_ANY)) {
-                    this.matched = this.filter(this.position);
+            do {
+                this.matched = this.iter.isValid();
+                if (this.matched) {
+                    // Update position for paging
+                    this.position = this.iter.key();
+                    // Do filter if not SCAN_ANY
+                    if (!this.match(Session.SCAN_ANY)) {
+                        this.matched = this.filter(this.position);
+                    }
                 }
-            }
+            } while (!this.matched && this.nextRange());
             if (!this.matched) {
                 // The end
                 this.position = null;
@@ -1169,6 +1206,17 @@ public class RocksDBStdSessions extends RocksDBSessions {
             return this.matched;
         }
 
+        private boolean nextRange() {
+            if (this.range + 1 >= this.keysBegin.size()) {
+                return false;
+            }
+            this.range++;
+            this.keyBegin = this.keysBegin.get(this.range);
+            this.keyEnd = this.keysEnd.get(this.range);
+            this.seek();
+            return true;
+        }
+
         private void seek() {
             if (this.keyBegin == null) {
                 // Seek to the first if no `keyBegin`
@@ -29,6 +29,7 @@ import io.bigconnect.biggraph.backend.store.rocksdb.RocksDBSessions.Session;
 import io.bigconnect.biggraph.config.CoreOptions;
 import io.bigconnect.biggraph.config.BigConfig;
 import io.bigconnect.biggraph.exception.ConnectionException;
+import io.bigconnect.biggraph.iterator.FlatMapperIterator;
 import io.bigconnect.biggraph.type.BigType;
 import io.bigconnect.biggraph.util.*;
 import com.google.common.collect.ImmutableList;
@@ -489,6 +490,39 @@ public abstract class RocksDBStore extends AbstractBackendStore<Session> {
         }
     }
 
+    @Override
+    public Iterator<BackendEntry> query(List<Query> queries) {
+        Lock readLock = this.storeLock.readLock();
+        readLock.lock();
+        try {
+            this.checkOpened();
+
+            // Group the queries by table, olap queries are merged one by one
+            Map<BigType, List<Query>> tableQueries = new LinkedHashMap<>();
+            for (Query query : queries) {
+                if (query.olap() ||
+                    this.isGraphStore && !query.olapPks().isEmpty()) {
+                    return new FlatMapperIterator<>(queries.iterator(),
+                                                    this::query);
+                }
+                tableQueries.computeIfAbsent(RocksDBTable.tableType(query),
+                                             k -> new ArrayList<>())
+                            .add(query);
+            }
+
+            List<Iterator<BackendEntry>> results = new ArrayList<>();
+            for (Entry<BigType, List<Query>> e : tableQueries.entrySet()) {
+                RocksDBTable table = this.table(e.getKey());
+                Session session = this.session(e.getKey());
+                results.add(table.query(session, e.getValue()));
+            }
+            return results.size() == 1 ? results.get(0) :
+                   new FlatMapperIterator<>(results.iterator(), it -> it);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     @Override
     public Number queryNumber(Query query) {
         Lock readLock = this.storeLock.readLock();
@@ -140,6 +140,47 @@ public class RocksDBTable extends BackendTable<Session, BackendEntry> {
         return newEntryIterator(this.queryBy(session, query), query);
     }
 
+    /**
+     * Query multiple queries of this table at once, prefix queries without
+     * limit are served by one grouped prefix scan, others one by one
+     */
+    public Iterator<BackendEntry> query(Session session, List<Query> queries) {
+        if (queries.size() == 1 || !groupablePrefixQueries(queries)) {
+            return new FlatMapperIterator<>(queries.iterator(),
+                                            q -> this.query(session, q));
+        }
+
+        IdPrefixQuery first = (IdPrefixQuery) queries.get(0);
+        int type = first.inclusiveStart() ?
+                   Session.SCAN_GTE_BEGIN : Session.SCAN_GT_BEGIN;
+        type |= Session.SCAN_PREFIX_END;
+        List<byte[]> starts = new ArrayList<>(queries.size());
+        List<byte[]> prefixes = new ArrayList<>(queries.size());
+        for (Query query : queries) {
+            IdPrefixQuery pq = (IdPrefixQuery) query;
+            starts.add(pq.start().asBytes());
+            prefixes.add(pq.prefix().asBytes());
+        }
+        return newEntryIterator(session.scan(this.table(), starts,
+                                             prefixes, type), first);
+    }
+
+    private static boolean groupablePrefixQueries(List<Query> queries) {
+        Query first = queries.get(0);
+        if (!(first instanceof IdPrefixQuery)) {
+            return false;
+        }
+        boolean inclusiveStart = ((IdPrefixQuery) first).inclusiveStart();
+        for (Query query : queries) {
+            if (!(query instanceof IdPrefixQuery) ||
+                ((IdPrefixQuery) query).inclusiveStart() != inclusiveStart ||
+                !query.noLimit() || query.offset() != 0L || query.paging()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected BackendColumnIterator queryBy(Session session, Query query) {
         // Query all
         if (query.empty()) {
@@ -0,0 +1,258 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.core.model.longRunningProcess;
+
+import au.com.bytecode.opencsv.CSVReader;
+import com.mware.core.model.search.GeObjectSearchRunnerBase;
+import com.mware.core.model.search.QueryResultsIterableSearchResults;
+import com.mware.core.model.search.SearchOptions;
+import com.mware.core.model.search.SearchRepository;
+import com.mware.core.model.search.VertexSearchRunner;
+import com.mware.core.model.user.UserRepository;
+import com.mware.core.user.User;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Element;
+import com.mware.ge.ElementBuilder;
+import com.mware.ge.Vertex;
+import com.mware.ge.Visibility;
+import com.mware.ge.inmemory.InMemoryGraph;
+import com.mware.ge.query.QueryResultsIterable;
+import com.mware.ge.query.SortDirection;
+import com.mware.ge.query.aggregations.AggregationResult;
+import com.mware.ge.query.builder.GeQueryBuilder;
+import com.mware.ge.query.builder.GeQueryBuilders;
+import com.mware.ge.values.storable.Values;
+import org.apache.commons.io.FileUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchExportLongRunningWorkerTest {
+    private static final String PROCESS_ID = "export1";
+    private static final String USER_ID = "user1";
+
+    private InMemoryGraph graph;
+    private Authorizations authorizations;
+    private File backupDir;
+    private SearchExportLongRunningWorker worker;
+    private List<SearchOptions> searches = new ArrayList<>();
+    private int failAfter = -1;
+
+    @Mock
+    private LongRunningProcessRepository longRunningProcessRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private SearchRepository searchRepository;
+    @Mock
+    private GeObjectSearchRunnerBase searchRunner;
+    @Mock
+    private User user;
+
+    @Before
+    public void before() throws Exception {
+        backupDir = Files.createTempDirectory("search-export").toFile();
+        Map<String, Object> config = new HashMap<>();
+        config.put("graph.backupDir", backupDir.getAbsolutePath());
+        graph = InMemoryGraph.create(config);
+        authorizations = graph.createAuthorizations();
+
+        when(userRepository.findById(USER_ID)).thenReturn(user);
+        when(searchRepository.findSearchRunnerByUri(VertexSearchRunner.URI)).thenReturn(searchRunner);
+        when(searchRunner.run(any(SearchOptions.class), any(User.class), any(Authorizations.class))).thenAnswer(invocation -> {
+            searches.add((SearchOptions) invocation.getArguments()[0]);
+            return new QueryResultsIterableSearchResults(search((SearchOptions) invocation.getArguments()[0]), null, 0L, -1L);
+        });
+
+        worker = new SearchExportLongRunningWorker(longRunningProcessRepository, userRepository, graph, searchRepository);
+        worker.setChunkSize(3);
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(backupDir);
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws Exception {
+        // pairs of vertices share a name, so the order within a pair comes from the id tiebreaker
+        for (int i = 0; i < 10; i++) {
+            addVertex(String.format("v%02d", i), "n" + (i / 2));
+        }
+        addVertex("v10", null);
+
+        // the first run fails after two complete chunks and one row of the third one
+        failAfter = 7;
+        worker.processInternal(queueItem());
+        File outputDirectory = new File(backupDir, "search_export-" + PROCESS_ID);
+        JSONObject checkpoint = new JSONObject(FileUtils.readFileToString(new File(outputDirectory, "checkpoint.json"), StandardCharsets.UTF_8));
+        assertEquals(6, checkpoint.getLong("count"));
+        assertEquals(2, checkpoint.getInt("chunks"));
+        assertEquals(2, checkpoint.getJSONArray("lastSortValues").length());
+
+        // elements sorted before the checkpoint shift the positions of the results of the new scroll
+        addVertex("v04a", "n2");
+        addVertex("v99", "n3");
+        failAfter = -1;
+        JSONObject config = queueItem();
+        worker.processInternal(config);
+
+        assertEquals(11, config.getLong("resultsCount"));
+        assertEquals(
+                Arrays.asList("v08", "v09", "v06", "v07", "v04", "v05", "v02", "v03", "v00", "v01", "v10"),
+                readExportedIds(new File(config.getString("filePath")))
+        );
+        for (SearchOptions search : searches) {
+            assertArrayEquals(
+                    new String[]{"name:DESCENDING", Element.ID_PROPERTY_NAME + ":ASCENDING"},
+                    search.getOptionalParameter("sort[]", String[].class)
+            );
+        }
+    }
+
+    private void addVertex(String id, String name) {
+        // every vertex gets a title, the CSV export writes a row per property
+        ElementBuilder<Vertex> vertexBuilder = graph.prepareVertex(id, Visibility.EMPTY, "thing")
+                .setProperty("title", Values.stringValue(id), Visibility.EMPTY);
+        if (name != null) {
+            vertexBuilder.setProperty("name", Values.stringValue(name), Visibility.EMPTY);
+        }
+        vertexBuilder.save(authorizations);
+        graph.flush();
+    }
+
+    private JSONObject queueItem() {
+        JSONObject parameters = new JSONObject();
+        parameters.put("q", "*");
+        parameters.put("sort[]", new JSONArray().put("name:DESCENDING"));
+        JSONObject config = new JSONObject();
+        config.put("id", PROCESS_ID);
+        config.put("type", SearchExportLongRunningWorker.TYPE);
+        config.put("userId", USER_ID);
+        config.put("format", SearchExportLongRunningWorker.FORMAT_CSV);
+        config.put("authorizations", new JSONArray());
+        config.put("parameters", parameters);
+        return config;
+    }
+
+    private QueryResultsIterable<Vertex> search(SearchOptions searchOptions) {
+        GeQueryBuilder queryBuilder = GeQueryBuilders.searchAll();
+        for (String sort : searchOptions.getOptionalParameter("sort[]", String[].class)) {
+            String[] parts = sort.split(":");
+            queryBuilder.sort(parts[0], SortDirection.valueOf(parts[1]));
+        }
+        List<Vertex> vertices = new ArrayList<>();
+        graph.query(queryBuilder, authorizations)
+                .vertices()
+                .forEach(vertices::add);
+        return new QueryResultsIterable<Vertex>() {
+            @Override
+            public <TResult extends AggregationResult> TResult getAggregationResult(String name, Class<? extends TResult> resultType) {
+                return null;
+            }
+
+            @Override
+            public long getTotalHits() {
+                return vertices.size();
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public Iterator<Vertex> iterator() {
+                Iterator<Vertex> it = vertices.iterator();
+                return new Iterator<Vertex>() {
+                    private int count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Vertex next() {
+                        if (count++ == failAfter) {
+                            throw new IllegalStateException("scroll failed");
+                        }
+                        return it.next();
+                    }
+                };
+            }
+        };
+    }
+
+    private List<String> readExportedIds(File zip) throws Exception {
+        List<String> ids = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            List<? extends ZipEntry> entries = Collections.list(zipFile.entries());
+            entries.sort(Comparator.comparing(ZipEntry::getName));
+            for (ZipEntry entry : entries) {
+                if (!entry.getName().endsWith("." + SearchExportLongRunningWorker.FORMAT_CSV)) {
+                    continue;
+                }
+                CSVReader reader = new CSVReader(new InputStreamReader(zipFile.getInputStream(entry), StandardCharsets.UTF_8));
+                List<String[]> rows = reader.readAll();
+                for (String[] row : rows.subList(1, rows.size())) {
+                    if ("title".equals(row[3])) {
+                        ids.add(row[0]);
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+}
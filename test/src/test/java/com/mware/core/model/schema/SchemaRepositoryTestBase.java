@@ -1093,6 +1093,30 @@ public abstract class SchemaRepositoryTestBase extends GraphTestBase {
         assertEquals(SANDBOX_PROPERTY_NAME, publicRelationship.getProperties().iterator().next().getName());
     }
 
+    @Test
+    public void testUpdateCacheAppliesSingleElementChanges() {
+        Schema schema = getSchemaRepository().getOntology(PUBLIC);
+        assertNull(schema.getPropertyByName(PUBLIC_PROPERTY_NAME));
+
+        Concept thing = getSchemaRepository().getThingConcept(PUBLIC);
+        Concept publicConcept = getSchemaRepository().getOrCreateConcept(thing, PUBLIC_CONCEPT_NAME, PUBLIC_DISPLAY_NAME, systemUser, PUBLIC);
+        SchemaPropertyDefinition schemaPropertyDefinition = new SchemaPropertyDefinition(
+                Collections.singletonList(publicConcept), PUBLIC_PROPERTY_NAME, PUBLIC_DISPLAY_NAME, PropertyType.DATETIME);
+        getSchemaRepository().getOrCreateProperty(schemaPropertyDefinition, systemUser, PUBLIC);
+        getSchemaRepository().updateCache(PUBLIC, Collections.singletonList(PUBLIC_CONCEPT_NAME), Collections.emptyList(), Collections.singletonList(PUBLIC_PROPERTY_NAME));
+
+        Schema updatedSchema = getSchemaRepository().getOntology(PUBLIC);
+        assertNotSame(schema, updatedSchema);
+        assertNull("cached schemas should not change", schema.getConceptByName(PUBLIC_CONCEPT_NAME));
+        assertEquals(PUBLIC_PROPERTY_NAME, updatedSchema.getPropertyByName(PUBLIC_PROPERTY_NAME).getName());
+        List<String> conceptPropertyNames = updatedSchema.getConceptByName(PUBLIC_CONCEPT_NAME).getProperties().stream()
+                .map(SchemaProperty::getName)
+                .collect(Collectors.toList());
+        assertEquals(Collections.singletonList(PUBLIC_PROPERTY_NAME), conceptPropertyNames);
+        assertEquals(schema.getConcepts().size() + 1, updatedSchema.getConcepts().size());
+        assertNotNull(updatedSchema.getConceptByName(SchemaRepository.THING_CONCEPT_NAME));
+    }
+
     @Test
     public void testProperlyConfiguredThingConcept() throws Exception {
         createSampleOntology();
@@ -42,10 +42,12 @@ import com.mware.core.GraphTestBase;
 import com.mware.ge.*;
 import com.mware.ge.base.TestGraphFactory;
 import com.mware.ge.inmemory.InMemoryGraphFactory;
+import com.mware.ge.util.IterableUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -119,6 +121,31 @@ public class TermMentionRepositoryTest extends GraphTestBase {
         assertEquals("tm", results.get(0).getId());
     }
 
+    @Test
+    public void testBatchedLookups() {
+        Vertex doc1 = getGraph().addVertex("doc1", visibility, authorizations, CONCEPT_TYPE_THING);
+        Vertex doc2 = getGraph().addVertex("doc2", visibility, authorizations, CONCEPT_TYPE_THING);
+        Vertex v = getGraph().addVertex("v", visibility, authorizations, CONCEPT_TYPE_THING);
+        for (Vertex doc : new Vertex[]{doc1, doc2}) {
+            for (int i = 0; i < 3; i++) {
+                termMentionRepository.addSourceInfoToVertex(
+                        v, v.getId(), TermMentionFor.PROPERTY, "key" + i, null, null, "snippet",
+                        "text", BcSchema.TEXT.getPropertyName(), i, i + 1, doc, visibility, authorizations
+                );
+            }
+        }
+        getGraph().flush();
+
+        List<Vertex> byOutVertices = IterableUtils.toList(
+                termMentionRepository.findByOutVertices(Arrays.asList("doc1", "doc2"), authorizations)
+        );
+        assertEquals(6, byOutVertices.size());
+        assertEquals(3, IterableUtils.count(termMentionRepository.findByOutVertex("doc2", authorizations)));
+        assertEquals(6, IterableUtils.count(termMentionRepository.findResolvedTo(Arrays.asList("v", "doc1"), authorizations)));
+        assertEquals(6, IterableUtils.count(termMentionRepository.findByVertexIds(Arrays.asList("doc1", "doc2"), authorizations)));
+        assertEquals(0, IterableUtils.count(termMentionRepository.findByOutVertices(Arrays.asList("v", "missing"), authorizations)));
+    }
+
     @Override
     protected TestGraphFactory graphFactory() {
         return new InMemoryGraphFactory();
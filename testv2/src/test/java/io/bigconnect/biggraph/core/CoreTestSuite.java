@@ -16,7 +16,8 @@ import org.slf4j.Logger;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
 //        RamTableTest.class,
-        VertexCoreTest.class
+        VertexCoreTest.class,
+        TaskCoreTest.class
 })
 public class CoreTestSuite {
     private static final Logger LOG = Log.logger(CoreTestSuite.class);
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bigconnect.biggraph.core;
+
+import io.bigconnect.biggraph.backend.id.IdGenerator;
+import io.bigconnect.biggraph.job.ComputerJob;
+import io.bigconnect.biggraph.job.UserJob;
+import io.bigconnect.biggraph.task.BigServerInfo;
+import io.bigconnect.biggraph.task.BigTask;
+import io.bigconnect.biggraph.task.ServerInfoManager;
+import io.bigconnect.biggraph.task.StandardTaskScheduler;
+import io.bigconnect.biggraph.task.TaskManager;
+import io.bigconnect.biggraph.task.TaskStatus;
+import io.bigconnect.biggraph.testutil.Assert;
+import io.bigconnect.biggraph.testutil.Whitebox;
+import io.bigconnect.biggraph.type.define.NodeRole;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+public class TaskCoreTest extends BaseCoreTest {
+
+    private static final long WAIT_TIMEOUT = 20000L; // Unit ms
+
+    @Test
+    public void testQueuedComputerTaskScheduledOnNotify()
+                                             throws InterruptedException {
+        StandardTaskScheduler scheduler = this.scheduler();
+        ServerInfoManager serverManager = this.serverManager();
+
+        BigServerInfo computer = new BigServerInfo("computer1",
+                                                   NodeRole.COMPUTER);
+        computer.maxLoad(serverManager.calcMaxLoad());
+        saveServerInfo(serverManager, computer);
+        try {
+            long periods = waitForSchedulePeriod();
+
+            BigTask<Object> task = newTask(90001L, new NoopJob());
+            task.type(ComputerJob.COMPUTER);
+            scheduler.schedule(task);
+
+            waitFor(() -> task.status() == TaskStatus.SCHEDULED);
+            Assert.assertEquals(computer.id(), task.server());
+            // Scheduled by the submit event rather than the timer
+            Assert.assertEquals(periods, schedulePeriods());
+
+            scheduler.cancel(task);
+            Assert.assertEquals(TaskStatus.CANCELLING, task.status());
+        } finally {
+            computer.updateTime(new Date(0L));
+            saveServerInfo(serverManager, computer);
+            Whitebox.setInternalState(serverManager, "onlySingleNode", true);
+        }
+    }
+
+    @Test
+    public void testQueuedTaskRetriedOnTaskDone() throws Exception {
+        StandardTaskScheduler scheduler = this.scheduler();
+        ServerInfoManager serverManager = this.serverManager();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        waitForSchedulePeriod();
+
+        // Go through the queue even if the master is the only node
+        Whitebox.setInternalState(serverManager, "onlySingleNode", false);
+        BigTask<Object> task1 = newTask(90002L, new BlockingJob(latch));
+        task1.load(6000);
+        scheduler.schedule(task1);
+        try {
+            waitFor(() -> task1.status() == TaskStatus.RUNNING);
+            Assert.assertEquals(serverManager.selfServerId(), task1.server());
+
+            // The master is not suitable for the second task until released
+            Whitebox.setInternalState(serverManager, "onlySingleNode", false);
+            BigTask<Object> task2 = newTask(90003L, new NoopJob());
+            task2.load(6000);
+            scheduler.schedule(task2);
+
+            long periods = waitForSchedulePeriod();
+            Assert.assertEquals(TaskStatus.SCHEDULING, task2.status());
+            Assert.assertNull(task2.server());
+
+            latch.countDown();
+            Assert.assertEquals(TaskStatus.SUCCESS,
+                                scheduler.waitUntilTaskCompleted(task1.id(),
+                                                                 10L)
+                                         .status());
+            waitFor(() -> task2.completed());
+            Assert.assertEquals(TaskStatus.SUCCESS, task2.status());
+            // Retried by the task done event rather than the timer
+            Assert.assertEquals(periods, schedulePeriods());
+
+            scheduler.waitUntilTaskCompleted(task2.id(), 10L);
+            scheduler.delete(task2.id());
+        } finally {
+            latch.countDown();
+        }
+        scheduler.delete(task1.id());
+    }
+
+    @Test
+    public void testCancelTaskRunningOnMaster() throws Exception {
+        StandardTaskScheduler scheduler = this.scheduler();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        BigTask<Object> task = newTask(90004L, new BlockingJob(latch));
+        try {
+            scheduler.schedule(task);
+            waitFor(() -> task.status() == TaskStatus.RUNNING);
+            Assert.assertEquals(this.serverManager().selfServerId(),
+                                task.server());
+
+            scheduler.cancel(task);
+            Assert.assertEquals(TaskStatus.CANCELLED, task.status());
+        } finally {
+            latch.countDown();
+        }
+
+        Assert.assertEquals(TaskStatus.CANCELLED,
+                            scheduler.waitUntilTaskCompleted(task.id(), 10L)
+                                     .status());
+        scheduler.delete(task.id());
+    }
+
+    @Test
+    public void testRecoveryScanSchedulesStoredTasks() throws Exception {
+        StandardTaskScheduler scheduler = this.scheduler();
+
+        // Left in the store with SCHEDULING status but not queued in memory
+        BigTask<Object> task = newTask(90005L, new NoopJob());
+        Whitebox.invoke(BigTask.class, new Class<?>[]{TaskStatus.class},
+                        "status", task, TaskStatus.SCHEDULING);
+        scheduler.save(task);
+        Assert.assertEquals(0, scheduler.pendingTasks());
+
+        synchronized (scheduler) {
+            Whitebox.invoke(TaskManager.class,
+                            new Class<?>[]{StandardTaskScheduler.class,
+                                           boolean.class},
+                            "scheduleOrExecuteJobForGraph",
+                            TaskManager.instance(), scheduler, true);
+        }
+
+        BigTask<Object> stored = scheduler.waitUntilTaskCompleted(task.id(),
+                                                                  10L);
+        Assert.assertEquals(TaskStatus.SUCCESS, stored.status());
+        Assert.assertEquals(this.serverManager().selfServerId(),
+                            stored.server());
+        scheduler.delete(task.id());
+    }
+
+    private StandardTaskScheduler scheduler() {
+        return (StandardTaskScheduler) graph().taskScheduler();
+    }
+
+    private ServerInfoManager serverManager() {
+        return Whitebox.getInternalState(this.scheduler(), "serverManager");
+    }
+
+    private static BigTask<Object> newTask(long id, UserJob<Object> job) {
+        BigTask<Object> task = new BigTask<>(IdGenerator.of(id), null, job);
+        task.type(job.type());
+        task.name("test-task-" + id);
+        return task;
+    }
+
+    private static void saveServerInfo(ServerInfoManager serverManager,
+                                       BigServerInfo serverInfo) {
+        Whitebox.invoke(ServerInfoManager.class,
+                        new Class<?>[]{BigServerInfo.class},
+                        "save", serverManager, serverInfo);
+    }
+
+    private static long schedulePeriods() {
+        return Whitebox.getInternalState(TaskManager.instance(),
+                                         "schedulePeriods");
+    }
+
+    private static long waitForSchedulePeriod() throws InterruptedException {
+        /*
+         * Return right after the timer job runs, so that the following steps
+         * have a whole schedule period to complete without the timer
+         */
+        long periods = schedulePeriods();
+        waitFor(() -> schedulePeriods() != periods);
+        return schedulePeriods();
+    }
+
+    private static void waitFor(Supplier<Boolean> condition)
+                                throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+        while (!condition.get()) {
+            if (System.currentTimeMillis() > deadline) {
+                Assert.fail("Timeout when waiting for condition");
+            }
+            Thread.sleep(10L);
+        }
+    }
+
+    public static class NoopJob extends UserJob<Object> {
+
+        @Override
+        public String type() {
+            return "test";
+        }
+
+        @Override
+        public Object execute() {
+            return null;
+        }
+    }
+
+    public static class BlockingJob extends UserJob<Object> {
+
+        private final CountDownLatch latch;
+
+        public BlockingJob(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public String type() {
+            return "test";
+        }
+
+        @Override
+        public Object execute() throws InterruptedException {
+            this.latch.await();
+            return null;
+        }
+    }
+}
@@ -1,13 +1,26 @@
 package io.bigconnect.biggraph.core;
 
+import com.google.common.collect.ImmutableList;
 import io.bigconnect.biggraph.BigGraph;
+import io.bigconnect.biggraph.backend.id.Id;
+import io.bigconnect.biggraph.backend.query.Condition;
+import io.bigconnect.biggraph.backend.query.ConditionQuery;
 import io.bigconnect.biggraph.schema.SchemaManager;
 import io.bigconnect.biggraph.testutil.Assert;
+import io.bigconnect.biggraph.traversal.optimize.BigAggregateStep;
+import io.bigconnect.biggraph.type.BigType;
+import io.bigconnect.biggraph.type.define.BigKeys;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
 import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class VertexCoreTest extends BaseCoreTest {
     @Before
     public void initSchema() {
@@ -91,4 +104,203 @@ public class VertexCoreTest extends BaseCoreTest {
         long count = graph.traversal().V().count().next();
         Assert.assertEquals(1, count);
     }
+
+    @Test
+    public void testQueryAdjacentVerticesByBatch() {
+        BigGraph graph = graph();
+        graph.schema().edgeLabel("knows")
+             .sourceLabel("person").targetLabel("person")
+             .create();
+
+        // Each person knows the next two persons
+        List<Vertex> persons = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            persons.add(graph.addVertex(T.label, "person",
+                                        "name", "p" + i, "age", i,
+                                        "city", "Bucharest"));
+        }
+        for (int i = 0; i < persons.size(); i++) {
+            for (int j = i + 1; j <= i + 2 && j < persons.size(); j++) {
+                persons.get(i).addEdge("knows", persons.get(j));
+            }
+        }
+        graph.tx().commit();
+
+        GraphTraversalSource g = graph.traversal();
+        Object p0 = persons.get(0).id();
+
+        // More traversers than query.batch_size, reaching the same vertices
+        Assert.assertEquals(4L, g.V(p0).out().out().count().next());
+        Assert.assertEquals(8L, g.V(p0).out().out().out().count().next());
+        Assert.assertEquals(8L, g.V(p0).out().out().out().path()
+                                     .count().next());
+        Assert.assertEquals(8L, g.V(p0).out().out().barrier().out()
+                                     .count().next());
+        Assert.assertEquals(8L, g.V(p0).out().out().outE().count().next());
+        Assert.assertEquals(4L, g.V(p0).out().out().out()
+                                     .has("age", P.gte(5)).count().next());
+        Assert.assertEquals(ImmutableList.of("p0", "p2", "p4", "p6"),
+                            g.V(p0).out().out().out()
+                             .has("name", "p6").path().by("name")
+                             .next().objects());
+
+        // Each vertex appears once per path that reaches it
+        Assert.assertEquals(28L, g.V().out().out().count().next());
+        Assert.assertEquals(28L, g.V().in().in().count().next());
+        Assert.assertEquals(61L, g.V().both().both()
+                                  .has("age", P.lt(5)).count().next());
+    }
+
+    @Test
+    public void testQueryAdjacentVerticesByIndex() {
+        BigGraph graph = graph();
+        SchemaManager schema = graph.schema();
+        schema.edgeLabel("knows")
+              .sourceLabel("person").targetLabel("person")
+              .create();
+        schema.indexLabel("personByCity").onV("person").by("city")
+              .secondary().create();
+        schema.indexLabel("personByAge").onV("person").by("age")
+              .range().create();
+
+        // A hub knowing 200 persons, 4 of them in Cluj
+        Vertex hub = graph.addVertex(T.label, "person", "name", "hub",
+                                     "city", "Cluj");
+        for (int i = 0; i < 200; i++) {
+            Vertex person = graph.addVertex(T.label, "person",
+                                            "name", "p" + i, "age", i,
+                                            "city", i % 50 == 0 ?
+                                                    "Cluj" : "Bucharest");
+            hub.addEdge("knows", person);
+        }
+        // Not adjacent to the hub
+        graph.addVertex(T.label, "person", "name", "other", "age", 1000,
+                        "city", "Cluj");
+        graph.tx().commit();
+
+        GraphTraversalSource g = graph.traversal();
+        Object id = hub.id();
+        Assert.assertEquals(4L, g.V(id).out("knows").has("city", "Cluj")
+                                 .count().next());
+        Assert.assertEquals(9L, g.V(id).out().has("age", P.gt(190))
+                                 .count().next());
+        Assert.assertEquals(1L, g.V(id).out().has("city", "Cluj")
+                                 .has("age", P.gt(100)).count().next());
+        Assert.assertEquals(8L, g.V(id).out().has("city", "Cluj")
+                                 .has("age", P.lt(100)).in().out()
+                                 .has("city", "Cluj").count().next());
+        // Not indexed, filtered in memory
+        Assert.assertEquals(1L, g.V(id).out().has("name", "p3")
+                                 .count().next());
+
+        // The uncommitted changes are seen without the index
+        g.V(id).out().has("name", "p1").next().property("city", "Cluj");
+        Assert.assertEquals(5L, g.V(id).out().has("city", "Cluj")
+                                 .count().next());
+        graph.tx().rollback();
+        Assert.assertEquals(4L, g.V(id).out().has("city", "Cluj")
+                                 .count().next());
+    }
+
+    @Test
+    public void testQueryAdjacentVerticesByIndexWithUnindexedLabel() {
+        BigGraph graph = graph();
+        SchemaManager schema = graph.schema();
+        schema.edgeLabel("knows")
+              .sourceLabel("person").targetLabel("person")
+              .create();
+        schema.edgeLabel("likes")
+              .sourceLabel("person").targetLabel("author")
+              .create();
+        schema.indexLabel("personByAge").onV("person").by("age")
+              .range().create();
+
+        // The authors have an age too, but it isn't indexed
+        Vertex hub = graph.addVertex(T.label, "person", "name", "hub",
+                                     "city", "Cluj");
+        for (int i = 0; i < 10; i++) {
+            hub.addEdge("knows", graph.addVertex(T.label, "person",
+                                                 "name", "p" + i,
+                                                 "city", "Cluj",
+                                                 "age", 20 + i));
+            hub.addEdge("likes", graph.addVertex(T.label, "author",
+                                                 "id", i, "name", "a" + i,
+                                                 "age", 20 + i));
+        }
+        graph.tx().commit();
+
+        Id age = graph.propertyKey("age").id();
+        ConditionQuery query = new ConditionQuery(BigType.VERTEX);
+        query.query(Condition.gte(age, 25));
+        Assert.assertNull(graph.indexedVertexIds(query, 100L));
+
+        // A LABEL condition only needs the index of that label
+        query = new ConditionQuery(BigType.VERTEX);
+        query.eq(BigKeys.LABEL, graph.vertexLabel("person").id());
+        query.query(Condition.gte(age, 25));
+        Assert.assertEquals(5, graph.indexedVertexIds(query, 100L).size());
+
+        GraphTraversalSource g = graph.traversal();
+        Object id = hub.id();
+        Assert.assertEquals(10L, g.V(id).out().has("age", P.gte(25))
+                                  .count().next());
+        Assert.assertEquals(5L, g.V(id).out("likes").has("age", P.gte(25))
+                                 .count().next());
+        Assert.assertEquals(5L, g.V(id).out().hasLabel("person")
+                                 .has("age", P.gte(25)).count().next());
+
+        // The index is used once all the labels having the age are indexed
+        schema.indexLabel("authorByAge").onV("author").by("age")
+              .range().create();
+        schema.indexLabel("fanByAge").onV("fan").by("age")
+              .range().create();
+        schema.indexLabel("followerByAge").onV("follower").by("age")
+              .range().create();
+        query = new ConditionQuery(BigType.VERTEX);
+        query.query(Condition.gte(age, 25));
+        Assert.assertEquals(10, graph.indexedVertexIds(query, 100L).size());
+        Assert.assertEquals(10L, g.V(id).out().has("age", P.gte(25))
+                                  .count().next());
+    }
+
+    @Test
+    public void testQueryAggregateOfProperty() {
+        BigGraph graph = graph();
+        for (int i = 1; i <= 10; i++) {
+            graph.addVertex(T.label, "person", "name", "p" + i, "age", i,
+                            "city", "Bucharest");
+        }
+        graph.addVertex(T.label, "person", "name", "p11", "city", "Bucharest");
+        graph.addVertex(T.label, "author", "id", 1, "name", "a1", "age", 20);
+        graph.tx().commit();
+
+        GraphTraversalSource g = graph.traversal();
+        GraphTraversal<Vertex, Number> sum = g.V().hasLabel("person")
+                                              .values("age").sum();
+        sum.asAdmin().applyStrategies();
+        Assert.assertTrue(sum.asAdmin().getStartStep()
+                          instanceof BigAggregateStep);
+        Assert.assertEquals(55L, sum.next().longValue());
+
+        Assert.assertEquals(1, g.V().hasLabel("person").values("age")
+                                .min().next());
+        Assert.assertEquals(10, g.V().hasLabel("person").values("age")
+                                 .max().next());
+        Assert.assertEquals(5.5D, g.V().hasLabel("person").values("age")
+                                   .mean().next());
+        Assert.assertEquals(10L, g.V().hasLabel("person").values("age")
+                                  .count().next());
+        Assert.assertEquals(3L, g.V().hasLabel("person").limit(3)
+                                 .values("age").count().next());
+        Assert.assertEquals(75L, g.V().values("age").sum().next()
+                                  .longValue());
+
+        // No value to aggregate
+        Assert.assertFalse(g.V().hasLabel("book").values("price")
+                            .sum().hasNext());
+        Assert.assertFalse(g.V().hasLabel("book").values("price")
+                            .max().hasNext());
+        Assert.assertEquals(0L, g.V().hasLabel("book").values("price")
+                                 .count().next());
+    }
 }
@@ -32,10 +32,14 @@ import io.bigconnect.biggraph.structure.BigVertex;
 import io.bigconnect.biggraph.testutil.Assert;
 import io.bigconnect.biggraph.type.define.Directions;
 import io.bigconnect.biggraph.unit.FakeObjects;
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mockito;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Iterator;
 
 public class RamTableTest {
@@ -238,6 +242,120 @@ public class RamTableTest {
         }
     }
 
+    @Test
+    public void testMappedFileReopen() throws Exception {
+        BigGraph graph = this.graph();
+        int el1 = (int) graph.edgeLabel("el1").id().asLong();
+        int el2 = (int) graph.edgeLabel("el2").id().asLong();
+
+        int vertices = 1000;
+        Path dir = Files.createTempDirectory("ramtable");
+        Path file = dir.resolve("graph" + RamTable.FILE_SUFFIX);
+        try {
+            RamTable table = new RamTable(graph, vertices, EDGE_SIZE, file);
+            Assert.assertEquals(0L, table.edgesSize());
+            for (int i = 0; i < vertices; i++) {
+                table.addEdge(true, i, i + 1, Directions.OUT, el1);
+                table.addEdge(false, i, i + 2, Directions.IN, el2);
+            }
+            table.flush();
+            table.close();
+
+            table = new RamTable(graph, vertices, EDGE_SIZE, file);
+            Assert.assertEquals(2L * vertices, table.edgesSize());
+            for (int i = 0; i < vertices; i++) {
+                Iterator<BigEdge> edges = table.query(i, Directions.BOTH, 0);
+
+                Assert.assertTrue(edges.hasNext());
+                BigEdge edge1 = edges.next();
+                Assert.assertEquals(i + 1L,
+                                    edge1.id().otherVertexId().asLong());
+                Assert.assertEquals(Directions.OUT, edge1.direction());
+                Assert.assertEquals("el1", edge1.label());
+
+                Assert.assertTrue(edges.hasNext());
+                BigEdge edge2 = edges.next();
+                Assert.assertEquals(i + 2L,
+                                    edge2.id().otherVertexId().asLong());
+                Assert.assertEquals(Directions.IN, edge2.direction());
+                Assert.assertEquals("el2", edge2.label());
+
+                Assert.assertFalse(edges.hasNext());
+            }
+
+            // edges added to the reopened table are written through
+            table.addEdge(true, vertices, 1L, Directions.OUT, el1);
+            table.close();
+            table = new RamTable(graph, vertices, EDGE_SIZE, file);
+            Assert.assertEquals(2L * vertices + 1L, table.edgesSize());
+            Assert.assertTrue(table.query(vertices, Directions.OUT, el1)
+                                   .hasNext());
+
+            // a table not closed after adding edges is not reused
+            table.addEdge(false, vertices, 2L, Directions.OUT, el1);
+            RamTable crashed = new RamTable(graph, vertices, EDGE_SIZE, file);
+            Assert.assertEquals(0L, crashed.edgesSize());
+            crashed.close();
+            table.close();
+
+            // a table opened with other capacities is not reused
+            table = new RamTable(graph, vertices * 2, EDGE_SIZE, file);
+            Assert.assertEquals(0L, table.edgesSize());
+            table.close();
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testMappedFileOfOtherGraphOrCleared() throws Exception {
+        BigGraph graph = this.graph();
+        int el1 = (int) graph.edgeLabel("el1").id().asLong();
+
+        int vertices = 1000;
+        Path dir = Files.createTempDirectory("ramtable");
+        Path file = dir.resolve("graph" + RamTable.FILE_SUFFIX);
+        try {
+            RamTable table = new RamTable(graph, vertices, EDGE_SIZE, file);
+            for (int i = 0; i < vertices; i++) {
+                table.addEdge(true, i, i + 1, Directions.OUT, el1);
+            }
+            table.flush();
+            table.close();
+
+            // a table written for another graph or backend is not reused
+            BigGraph otherGraph = Mockito.mock(BigGraph.class);
+            Mockito.when(otherGraph.name()).thenReturn("other");
+            Mockito.when(otherGraph.backend()).thenReturn(graph.backend());
+            RamTable other = new RamTable(otherGraph, vertices, EDGE_SIZE,
+                                          file);
+            Assert.assertEquals(0L, other.edgesSize());
+            other.close();
+
+            BigGraph otherBackend = Mockito.mock(BigGraph.class);
+            Mockito.when(otherBackend.name()).thenReturn(graph.name());
+            Mockito.when(otherBackend.backend()).thenReturn("other");
+            other = new RamTable(otherBackend, vertices, EDGE_SIZE, file);
+            Assert.assertEquals(0L, other.edgesSize());
+            other.close();
+
+            // a cleared table drops its file
+            table = new RamTable(graph, vertices, EDGE_SIZE, file);
+            Assert.assertEquals((long) vertices, table.edgesSize());
+            table.clear();
+            Assert.assertEquals(0L, table.edgesSize());
+            Assert.assertFalse(table.query(0, Directions.OUT, el1).hasNext());
+            Assert.assertFalse(Files.exists(file));
+            table.close();
+
+            table = new RamTable(graph, vertices, EDGE_SIZE, file);
+            Assert.assertEquals(0L, table.edgesSize());
+            table.close();
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
     @Test
     public void testAddInvalidVertexOrEdge() {
         BigGraph graph = this.graph();
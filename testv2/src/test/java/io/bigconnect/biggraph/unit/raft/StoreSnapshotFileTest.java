@@ -0,0 +1,331 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bigconnect.biggraph.unit.raft;
+
+import com.alipay.sofa.jraft.Status;
+import com.alipay.sofa.jraft.entity.LocalFileMetaOutter.LocalFileMeta;
+import com.alipay.sofa.jraft.storage.snapshot.SnapshotReader;
+import com.alipay.sofa.jraft.storage.snapshot.SnapshotWriter;
+import com.alipay.sofa.jraft.util.CRC64;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.ByteString;
+import io.bigconnect.biggraph.backend.store.raft.RaftBackendStore;
+import io.bigconnect.biggraph.backend.store.raft.StoreSnapshotFile;
+import io.bigconnect.biggraph.backend.store.rocksdb.RocksDBStore;
+import io.bigconnect.biggraph.testutil.Assert;
+import io.bigconnect.biggraph.testutil.Whitebox;
+import io.bigconnect.biggraph.unit.BaseUnitTest;
+import io.bigconnect.biggraph.util.CompressUtil;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+public class StoreSnapshotFileTest extends BaseUnitTest {
+
+    private static final String SNAPSHOT_DIR = StoreSnapshotFile.SNAPSHOT_DIR;
+    private static final String SST = "snapshot_rocksdb-data_g_000012.sst";
+    private static final String MANIFEST =
+                                "snapshot_rocksdb-data_g_MANIFEST-000001";
+
+    private Path root;
+    private Path snapshotDir;
+    private RocksDBStore store;
+    private StoreSnapshotFile snapshotFile;
+
+    // The checkpoint files created by the store, relative to snapshotDir
+    private Map<String, String> checkpoint;
+    private FileTime checkpointTime;
+    // The files seen by the store when resuming, relative to snapshotDir
+    private Map<String, String> resumed;
+    private Set<String> resumedLinks;
+
+    @Before
+    public void setup() throws IOException {
+        this.root = Files.createTempDirectory("raft-snapshot");
+        // Like: parent_path/rocksdb-data/g
+        Path dataPath = this.root.resolve("rocksdb-data");
+        Files.createDirectories(dataPath.resolve("g"));
+        // Like: parent_path/snapshot_rocksdb-data/g
+        this.snapshotDir = this.root.resolve(SNAPSHOT_DIR + "_rocksdb-data");
+
+        this.checkpoint = ImmutableMap.of("g/000012.sst", "sst-data",
+                                          "g/MANIFEST-000001", "manifest");
+        this.checkpointTime = FileTime.fromMillis(1600000000000L);
+        this.resumed = new HashMap<>();
+        this.resumedLinks = new HashSet<>();
+
+        /*
+         * Only the snapshot methods are mocked, the disk mapping is reported
+         * by the store itself
+         */
+        this.store = Mockito.mock(RocksDBStore.class);
+        Whitebox.setInternalState(this.store, "dataPath", dataPath.toString());
+        Whitebox.setInternalState(this.store, "tableDiskMapping",
+                                  new HashMap<>());
+        Mockito.when(this.store.createSnapshot(SNAPSHOT_DIR))
+               .thenAnswer(invocation -> {
+                   for (Map.Entry<String, String> e :
+                        this.checkpoint.entrySet()) {
+                       Path file = this.snapshotDir.resolve(e.getKey());
+                       writeFile(file, e.getValue());
+                       Files.setLastModifiedTime(file, this.checkpointTime);
+                   }
+                   return ImmutableMap.of(this.snapshotDir.toString(),
+                                          "general");
+               });
+
+        RaftBackendStore raftStore = Mockito.mock(RaftBackendStore.class);
+        Mockito.when(raftStore.originStore()).thenReturn(this.store);
+        Whitebox.setInternalState(raftStore, "store", this.store);
+
+        this.snapshotFile = new StoreSnapshotFile(
+                            new RaftBackendStore[]{raftStore});
+    }
+
+    @After
+    public void teardown() {
+        FileUtils.deleteQuietly(this.root.toFile());
+    }
+
+    @Test
+    public void testSaveAndLoadSnapshot() throws IOException {
+        Map<String, LocalFileMeta> metas = new HashMap<>();
+        Path writerPath = this.root.resolve("writer");
+        this.save(writerPath, metas);
+
+        // The files are kept flat with the relative path in the user meta
+        Assert.assertEquals(ImmutableSet.of(SST, MANIFEST), metas.keySet());
+        Assert.assertEquals("general|snapshot_rocksdb-data/g/000012.sst",
+                            metas.get(SST).getUserMeta().toStringUtf8());
+        Assert.assertEquals(
+               "general|snapshot_rocksdb-data/g/MANIFEST-000001",
+               metas.get(MANIFEST).getUserMeta().toStringUtf8());
+        Assert.assertEquals(checksum(writerPath.resolve(SST)),
+                            metas.get(SST).getChecksum());
+        Assert.assertEquals(checksum(writerPath.resolve(MANIFEST)),
+                            metas.get(MANIFEST).getChecksum());
+        Assert.assertEquals("sst-data", readFile(writerPath.resolve(SST)));
+        Assert.assertEquals("manifest",
+                            readFile(writerPath.resolve(MANIFEST)));
+        Assert.assertFalse(Files.exists(this.snapshotDir));
+
+        // The stale snapshot dir is replaced by the loaded one
+        writeFile(this.snapshotDir.resolve("g/000011.sst"), "stale");
+        this.mockResumeSnapshot(writerPath);
+
+        Assert.assertTrue(this.snapshotFile.load(reader(writerPath, metas)));
+        Mockito.verify(this.store).resumeSnapshot(SNAPSHOT_DIR, false);
+        Assert.assertEquals(this.checkpoint, this.resumed);
+        // Only the immutable sst file is linked, others are copied
+        Assert.assertEquals(ImmutableSet.of("g/000012.sst"),
+                            this.resumedLinks);
+        Assert.assertFalse(Files.exists(this.snapshotDir));
+    }
+
+    @Test
+    public void testSaveSnapshotWithCachedSstChecksum() throws IOException {
+        Map<String, LocalFileMeta> metas1 = new HashMap<>();
+        this.save(this.root.resolve("writer1"), metas1);
+        String sstChecksum = metas1.get(SST).getChecksum();
+
+        // The sst file with the same name, size and mtime isn't read again
+        this.checkpoint = ImmutableMap.of("g/000012.sst", "sst-diff",
+                                          "g/MANIFEST-000001", "manifest2");
+        Map<String, LocalFileMeta> metas2 = new HashMap<>();
+        Path writerPath2 = this.root.resolve("writer2");
+        this.save(writerPath2, metas2);
+        Assert.assertEquals(sstChecksum, metas2.get(SST).getChecksum());
+        Assert.assertEquals(checksum(writerPath2.resolve(MANIFEST)),
+                            metas2.get(MANIFEST).getChecksum());
+
+        // The sst file with another mtime is read again
+        this.checkpointTime = FileTime.fromMillis(1600000001000L);
+        Map<String, LocalFileMeta> metas3 = new HashMap<>();
+        Path writerPath3 = this.root.resolve("writer3");
+        this.save(writerPath3, metas3);
+        Assert.assertNotEquals(sstChecksum, metas3.get(SST).getChecksum());
+        Assert.assertEquals(checksum(writerPath3.resolve(SST)),
+                            metas3.get(SST).getChecksum());
+    }
+
+    @Test
+    public void testLoadSnapshotWithChecksumError() throws IOException {
+        Map<String, LocalFileMeta> metas = new HashMap<>();
+        Path writerPath = this.root.resolve("writer");
+        this.save(writerPath, metas);
+
+        // The copied files are verified with the checksum
+        writeFile(writerPath.resolve(MANIFEST), "manifext");
+        Assert.assertFalse(this.snapshotFile.load(reader(writerPath,
+                                                         metas)));
+        Mockito.verify(this.store, Mockito.never())
+               .resumeSnapshot(Mockito.anyString(), Mockito.anyBoolean());
+    }
+
+    @Test
+    public void testLoadSnapshotWithInvalidUserMeta() throws IOException {
+        Path readerPath = this.root.resolve("reader");
+        writeFile(readerPath.resolve(SST), "sst-data");
+        LocalFileMeta meta = LocalFileMeta.newBuilder()
+                                          .setUserMeta(ByteString.copyFromUtf8(
+                                                       "general"))
+                                          .build();
+
+        Assert.assertFalse(this.snapshotFile.load(
+                           reader(readerPath, ImmutableMap.of(SST, meta))));
+
+        meta = LocalFileMeta.newBuilder()
+                            .setUserMeta(ByteString.copyFromUtf8(
+                                         "g/VERTEX|snapshot_rocksdb-data/" +
+                                         "g/000012.sst"))
+                            .build();
+        Assert.assertFalse(this.snapshotFile.load(
+                           reader(readerPath, ImmutableMap.of(SST, meta))));
+        Mockito.verify(this.store, Mockito.never())
+               .resumeSnapshot(Mockito.anyString(), Mockito.anyBoolean());
+    }
+
+    @Test
+    public void testLoadLegacyTarSnapshot() throws IOException {
+        // The archive of the whole snapshot dir saved by the older versions
+        for (Map.Entry<String, String> e : this.checkpoint.entrySet()) {
+            writeFile(this.snapshotDir.resolve(e.getKey()), e.getValue());
+        }
+        Path readerPath = this.root.resolve("reader");
+        Files.createDirectories(readerPath);
+        String tar = SNAPSHOT_DIR + "_rocksdb-data.tar";
+        CRC64 crc = new CRC64();
+        CompressUtil.compressTar(this.snapshotDir.toString(),
+                                 readerPath.resolve(tar).toString(), crc);
+        FileUtils.deleteDirectory(this.snapshotDir.toFile());
+
+        LocalFileMeta meta = LocalFileMeta.newBuilder()
+                                          .setUserMeta(ByteString.copyFromUtf8(
+                                                       "general"))
+                                          .setChecksum(Long.toHexString(
+                                                       crc.getValue()))
+                                          .build();
+        this.mockResumeSnapshot(readerPath);
+
+        Assert.assertTrue(this.snapshotFile.load(
+                          reader(readerPath, ImmutableMap.of(tar, meta))));
+        Mockito.verify(this.store).resumeSnapshot(SNAPSHOT_DIR, false);
+        Assert.assertEquals(this.checkpoint, this.resumed);
+        Assert.assertFalse(Files.exists(this.snapshotDir));
+
+        meta = meta.toBuilder().setChecksum("0").build();
+        Assert.assertFalse(this.snapshotFile.load(
+                           reader(readerPath, ImmutableMap.of(tar, meta))));
+    }
+
+    private void save(Path writerPath, Map<String, LocalFileMeta> metas)
+                      throws IOException {
+        Files.createDirectories(writerPath);
+        SnapshotWriter writer = Mockito.mock(SnapshotWriter.class);
+        Mockito.when(writer.getPath()).thenReturn(writerPath.toString());
+        Mockito.when(writer.listFiles()).thenReturn(metas.keySet());
+        Mockito.when(writer.addFile(Mockito.anyString(),
+                                    Mockito.any(LocalFileMeta.class)))
+               .thenAnswer(invocation -> {
+                   Object[] args = invocation.getArguments();
+                   metas.put((String) args[0], (LocalFileMeta) args[1]);
+                   return true;
+               });
+
+        AtomicReference<Status> status = new AtomicReference<>();
+        this.snapshotFile.save(writer, status::set,
+                               MoreExecutors.newDirectExecutorService());
+        Assert.assertNotNull(status.get());
+        Assert.assertTrue(status.get().toString(), status.get().isOk());
+    }
+
+    private void mockResumeSnapshot(Path readerPath) {
+        Mockito.doAnswer(invocation -> {
+            // Record the files before the snapshot dir is deleted
+            try (Stream<Path> paths = Files.walk(this.snapshotDir)) {
+                paths.filter(Files::isRegularFile).forEach(file -> {
+                    String path = this.snapshotDir.relativize(file)
+                                                  .toString()
+                                                  .replace(File.separatorChar,
+                                                           '/');
+                    Path flatFile = readerPath.resolve(
+                                    SNAPSHOT_DIR + "_rocksdb-data_" +
+                                    path.replace('/', '_'));
+                    try {
+                        this.resumed.put(path, readFile(file));
+                        if (Files.exists(flatFile) &&
+                            Files.isSameFile(file, flatFile)) {
+                            this.resumedLinks.add(path);
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            }
+            return null;
+        }).when(this.store).resumeSnapshot(SNAPSHOT_DIR, false);
+    }
+
+    private static SnapshotReader reader(Path readerPath,
+                                         Map<String, LocalFileMeta> metas) {
+        SnapshotReader reader = Mockito.mock(SnapshotReader.class);
+        Mockito.when(reader.getPath()).thenReturn(readerPath.toString());
+        Mockito.when(reader.listFiles())
+               .thenReturn(new HashSet<>(metas.keySet()));
+        Mockito.when(reader.getFileMeta(Mockito.anyString()))
+               .thenAnswer(invocation -> {
+                   return metas.get(invocation.getArguments()[0]);
+               });
+        return reader;
+    }
+
+    private static void writeFile(Path file, String content)
+                                  throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.deleteIfExists(file);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readFile(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private static String checksum(Path file) throws IOException {
+        return Long.toHexString(FileUtils.checksum(file.toFile(),
+                                                   new CRC64()).getValue());
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2017 HugeGraph Authors
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bigconnect.biggraph.unit.raft;
+
+import com.alipay.sofa.jraft.Closure;
+import com.alipay.sofa.jraft.Status;
+import io.bigconnect.biggraph.BigGraphParams;
+import io.bigconnect.biggraph.backend.BackendException;
+import io.bigconnect.biggraph.backend.id.IdGenerator;
+import io.bigconnect.biggraph.backend.serializer.BinaryBackendEntry;
+import io.bigconnect.biggraph.backend.serializer.BytesBuffer;
+import io.bigconnect.biggraph.backend.store.BackendAction;
+import io.bigconnect.biggraph.backend.store.BackendMutation;
+import io.bigconnect.biggraph.backend.store.BackendStore;
+import io.bigconnect.biggraph.backend.store.raft.RaftBackendStore;
+import io.bigconnect.biggraph.backend.store.raft.RaftNode;
+import io.bigconnect.biggraph.backend.store.raft.RaftResult;
+import io.bigconnect.biggraph.backend.store.raft.RaftSharedContext;
+import io.bigconnect.biggraph.backend.store.raft.RaftStoreClosure;
+import io.bigconnect.biggraph.backend.store.raft.StoreCommand;
+import io.bigconnect.biggraph.backend.store.raft.StoreSerializer;
+import io.bigconnect.biggraph.backend.store.raft.StoreStateMachine;
+import io.bigconnect.biggraph.backend.store.raft.rpc.RaftRequests.StoreAction;
+import io.bigconnect.biggraph.backend.store.raft.rpc.RaftRequests.StoreType;
+import io.bigconnect.biggraph.testutil.Assert;
+import io.bigconnect.biggraph.testutil.Whitebox;
+import io.bigconnect.biggraph.type.BigType;
+import io.bigconnect.biggraph.type.define.Action;
+import io.bigconnect.biggraph.type.define.GraphMode;
+import io.bigconnect.biggraph.unit.BaseUnitTest;
+import io.bigconnect.biggraph.util.LZ4Util;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.objenesis.ObjenesisStd;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class StoreStateMachineTest extends BaseUnitTest {
+
+    private static final String BAD_ID = "bad";
+
+    private BackendStore store;
+    private RaftNode node;
+    private StoreStateMachine stateMachine;
+    private List<String> mutated;
+
+    @Before
+    public void setup() {
+        /*
+         * The raft context and node start a rpc server and a raft node, so
+         * only the fields used to apply the log are set up here
+         */
+        ObjenesisStd objenesis = new ObjenesisStd();
+        this.store = Mockito.mock(BackendStore.class);
+        RaftBackendStore raftStore = Mockito.mock(RaftBackendStore.class);
+        Mockito.when(raftStore.originStore()).thenReturn(this.store);
+        RaftBackendStore[] stores =
+                new RaftBackendStore[StoreType.ALL.getNumber()];
+        stores[StoreType.GRAPH.getNumber()] = raftStore;
+        // Don't update the cache
+        BigGraphParams params = Mockito.mock(BigGraphParams.class);
+        Mockito.when(params.mode()).thenReturn(GraphMode.LOADING);
+
+        this.node = (RaftNode) objenesis.newInstance(RaftNode.class);
+        Whitebox.setInternalState(this.node, "leaderInfo",
+                                  new AtomicReference<>());
+
+        RaftSharedContext context = (RaftSharedContext)
+                                    objenesis.newInstance(
+                                    RaftSharedContext.class);
+        Whitebox.setInternalState(context, "stores", stores);
+        Whitebox.setInternalState(context, "params", params);
+        Whitebox.setInternalState(context, "raftNode", this.node);
+
+        this.stateMachine = (StoreStateMachine) objenesis.newInstance(
+                                                StoreStateMachine.class);
+        Whitebox.setInternalState(this.stateMachine, "context", context);
+
+        // Record the mutated entries, fail the ones with the bad id
+        this.mutated = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            BackendMutation mutation = (BackendMutation)
+                                       invocation.getArguments()[0];
+            java.util.Iterator<BackendAction> it = mutation.mutation();
+            while (it.hasNext()) {
+                String id = it.next().entry().originId().asString();
+                if (BAD_ID.equals(id)) {
+                    throw new BackendException("Failed to write %s", id);
+                }
+                this.mutated.add(id);
+            }
+            return null;
+        }).when(this.store).mutate(Mockito.any(BackendMutation.class));
+    }
+
+    @Test
+    public void testCommitTransactionsAtOnce() {
+        this.node.onLeaderInfoChange(null, true);
+        RaftStoreClosure c1 = closure("a");
+        RaftStoreClosure c2 = closure("b");
+        RaftStoreClosure c3 = closure("c");
+
+        LogIterator iter = new LogIterator(c1, c2, c3);
+        this.stateMachine.onApply(iter);
+
+        Assert.assertNull(iter.error);
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), this.mutated);
+        Mockito.verify(this.store, Mockito.times(1)).beginTx();
+        Mockito.verify(this.store, Mockito.times(1)).commitTx();
+        Mockito.verify(this.store, Mockito.never()).rollbackTx();
+        Assert.assertTrue(status(c1).isOk());
+        Assert.assertTrue(status(c2).isOk());
+        Assert.assertTrue(status(c3).isOk());
+    }
+
+    @Test
+    public void testCommitTransactionsOneByOneAfterFailure() {
+        this.node.onLeaderInfoChange(null, true);
+        RaftStoreClosure c1 = closure("a");
+        RaftStoreClosure c2 = closure(BAD_ID);
+        RaftStoreClosure c3 = closure("c");
+
+        LogIterator iter = new LogIterator(c1, c2, c3);
+        this.stateMachine.onApply(iter);
+
+        // Only the transaction that failed is failed
+        Assert.assertNull(iter.error);
+        Assert.assertTrue(status(c1).isOk());
+        Assert.assertFalse(status(c2).isOk());
+        Assert.assertTrue(status(c3).isOk());
+        // The merged commit and the failed transaction are rolled back
+        Mockito.verify(this.store, Mockito.times(4)).beginTx();
+        Mockito.verify(this.store, Mockito.times(2)).commitTx();
+        Mockito.verify(this.store, Mockito.times(2)).rollbackTx();
+        // The merged commit wrote "a" before failing
+        Assert.assertEquals(Arrays.asList("a", "a", "c"), this.mutated);
+    }
+
+    @Test
+    public void testFollowerFailsLogOnCommitFailure() {
+        this.node.onLeaderInfoChange(null, false);
+
+        LogIterator iter = new LogIterator(data("a"), data(BAD_ID),
+                                           data("c"));
+        this.stateMachine.onApply(iter);
+
+        // A follower doesn't retry one by one, it rolls back the log
+        Assert.assertNotNull(iter.error);
+        Mockito.verify(this.store, Mockito.times(1)).beginTx();
+        Mockito.verify(this.store, Mockito.never()).commitTx();
+        Assert.assertEquals(Arrays.asList("a"), this.mutated);
+    }
+
+    private static byte[] command(String... ids) {
+        BackendMutation mutation = new BackendMutation();
+        for (String id : ids) {
+            byte[] idBytes = BytesBuffer.allocate(BytesBuffer.ID_LEN_MAX)
+                                        .writeId(IdGenerator.of(id))
+                                        .bytes();
+            mutation.add(new BinaryBackendEntry(BigType.VERTEX, idBytes),
+                         Action.INSERT);
+        }
+        byte[] bytes = StoreSerializer.writeMutations(
+                       Arrays.asList(mutation));
+        return new StoreCommand(StoreType.GRAPH, StoreAction.COMMIT_TX,
+                                bytes).data();
+    }
+
+    private static RaftStoreClosure closure(String... ids) {
+        return new RaftStoreClosure(StoreCommand.fromBytes(command(ids)));
+    }
+
+    private static ByteBuffer data(String... ids) {
+        return ByteBuffer.wrap(LZ4Util.compress(command(ids),
+                                                RaftSharedContext.BLOCK_SIZE)
+                                      .bytes());
+    }
+
+    private static Status status(RaftStoreClosure closure) {
+        CompletableFuture<RaftResult<?>> future =
+                Whitebox.getInternalState(closure, "future");
+        Assert.assertTrue(future.isDone());
+        return future.join().status();
+    }
+
+    private static class LogIterator
+                   implements com.alipay.sofa.jraft.Iterator {
+
+        private final List<Object> entries;
+        private int index;
+        private Status error;
+
+        public LogIterator(Object... entries) {
+            this.entries = Arrays.asList(entries);
+            this.index = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.error == null && this.index < this.entries.size();
+        }
+
+        @Override
+        public ByteBuffer next() {
+            ByteBuffer data = this.getData();
+            this.index++;
+            return data;
+        }
+
+        @Override
+        public ByteBuffer getData() {
+            Object entry = this.entries.get(this.index);
+            return entry instanceof ByteBuffer ? (ByteBuffer) entry : null;
+        }
+
+        @Override
+        public long getIndex() {
+            return this.index;
+        }
+
+        @Override
+        public long getTerm() {
+            return 1L;
+        }
+
+        @Override
+        public Closure done() {
+            Object entry = this.entries.get(this.index);
+            return entry instanceof Closure ? (Closure) entry : null;
+        }
+
+        @Override
+        public void setErrorAndRollback(long ntail, Status status) {
+            this.error = status;
+        }
+    }
+}